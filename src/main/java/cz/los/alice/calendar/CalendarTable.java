@@ -0,0 +1,121 @@
+package cz.los.alice.calendar;
+
+import cz.los.alice.model.InvalidScheduleException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Precomputed translation between dates and working day indices of a single calendar definition. Dates are
+ * represented by {@link LocalDate#toEpochDay()}, working day indices count working days from an anchor Monday.<br>
+ * Holidays make a calendar irregular only between its first and its last holiday, outside of that range every week
+ * looks the same. The table therefore keeps two arrays for the weeks from the first to the last holiday - the number
+ * of working days before every day and the day of every working day - and extends them by whole weeks in both
+ * directions. Both {@link #countWorkingDaysBefore(long)} and {@link #workingDay(long)} are O(1) for any date, the
+ * memory is proportional to the range of holidays only. The range is limited to {@link #MAX_HOLIDAY_SPAN_YEARS}, a
+ * calendar with holidays further apart is rejected with an {@link InvalidScheduleException}.<br>
+ * Instances are immutable and can be shared between threads, use {@link CalendarTables} to get a cached instance.
+ */
+public final class CalendarTable {
+
+    static final int MAX_HOLIDAY_SPAN_YEARS = 100;
+
+    private static final int WEEK = 7;
+    private static final long EPOCH_MONDAY = LocalDate.of(1970, 1, 5).toEpochDay();
+
+    private final long anchor;
+    private final int length;
+    private final int[] workingDaysBefore;
+    private final int[] workingDayOffsets;
+    private final int[] weekPrefix = new int[WEEK + 1];
+    private final int[] weekOffsets;
+    private final int workingDaysPerWeek;
+
+    CalendarTable(Set<DayOfWeek> workingDays, Set<LocalDate> holidays) {
+        for (int day = 0; day < WEEK; day++) {
+            weekPrefix[day + 1] = weekPrefix[day] + (workingDays.contains(DayOfWeek.of(day + 1)) ? 1 : 0);
+        }
+        workingDaysPerWeek = weekPrefix[WEEK];
+        if (workingDaysPerWeek == 0) {
+            throw new InvalidScheduleException("Calendar should have at least one working day in a week");
+        }
+        weekOffsets = new int[workingDaysPerWeek];
+        for (int day = 0; day < WEEK; day++) {
+            if (weekPrefix[day + 1] > weekPrefix[day]) {
+                weekOffsets[weekPrefix[day]] = day;
+            }
+        }
+        long first = EPOCH_MONDAY;
+        long last = EPOCH_MONDAY - 1;
+        Set<Long> holidayEpochDays = new HashSet<>(holidays.size() * 2);
+        if (!holidays.isEmpty()) {
+            LocalDate firstHoliday = Collections.min(holidays);
+            LocalDate lastHoliday = Collections.max(holidays);
+            if (ChronoUnit.YEARS.between(firstHoliday, lastHoliday) >= MAX_HOLIDAY_SPAN_YEARS) {
+                throw new InvalidScheduleException("Holidays of a calendar should be less than "
+                        + MAX_HOLIDAY_SPAN_YEARS + " years apart, found " + firstHoliday + " and " + lastHoliday);
+            }
+            first = firstHoliday.toEpochDay();
+            last = lastHoliday.toEpochDay();
+            holidays.forEach(it -> holidayEpochDays.add(it.toEpochDay()));
+        }
+        anchor = first - Math.floorMod(first - EPOCH_MONDAY, WEEK);
+        long span = last + 1 - anchor;
+        length = (int) ((span + WEEK - 1) / WEEK * WEEK);
+        workingDaysBefore = new int[length + 1];
+        int[] offsets = new int[length];
+        int count = 0;
+        for (int offset = 0; offset < length; offset++) {
+            workingDaysBefore[offset] = count;
+            boolean working = weekPrefix[offset % WEEK + 1] > weekPrefix[offset % WEEK]
+                    && !holidayEpochDays.contains(anchor + offset);
+            if (working) {
+                offsets[count++] = offset;
+            }
+        }
+        workingDaysBefore[length] = count;
+        workingDayOffsets = Arrays.copyOf(offsets, count);
+    }
+
+    /**
+     * @param epochDay a date as {@link LocalDate#toEpochDay()}
+     * @return number of working days from the anchor to the given date exclusive, negative for dates before
+     * the anchor. It is also the index of the first working day on or after the given date.
+     */
+    public long countWorkingDaysBefore(long epochDay) {
+        long offset = epochDay - anchor;
+        if (offset < 0) {
+            return Math.floorDiv(offset, WEEK) * workingDaysPerWeek + weekPrefix[Math.floorMod(offset, WEEK)];
+        }
+        if (offset <= length) {
+            return workingDaysBefore[(int) offset];
+        }
+        long beyond = offset - length;
+        return workingDaysBefore[length] + beyond / WEEK * workingDaysPerWeek + weekPrefix[(int) (beyond % WEEK)];
+    }
+
+    /**
+     * @param index working day index as returned by {@link #countWorkingDaysBefore(long)}
+     * @return the date of the working day with given index as {@link LocalDate#toEpochDay()}
+     */
+    public long workingDay(long index) {
+        if (index < 0) {
+            return anchor + Math.floorDiv(index, workingDaysPerWeek) * WEEK
+                    + weekOffsets[Math.floorMod(index, workingDaysPerWeek)];
+        }
+        if (index < workingDayOffsets.length) {
+            return anchor + workingDayOffsets[(int) index];
+        }
+        long beyond = index - workingDayOffsets.length;
+        return anchor + length + beyond / workingDaysPerWeek * WEEK + weekOffsets[(int) (beyond % workingDaysPerWeek)];
+    }
+
+    public boolean isWorkingDay(long epochDay) {
+        return countWorkingDaysBefore(epochDay + 1) > countWorkingDaysBefore(epochDay);
+    }
+}
@@ -0,0 +1,64 @@
+package cz.los.alice.calendar;
+
+import cz.los.alice.model.WorkCalendar;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Process wide cache of {@link CalendarTable}s. Tables are keyed by the calendar definition - working days of week and
+ * holidays - and not by the calendar name, so equally defined calendars of different schedules and requests share
+ * a single table. The least recently used tables are evicted when there are more than {@link #MAX_CACHED_TABLES}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CalendarTables {
+
+    static final int MAX_CACHED_TABLES = 256;
+
+    private static final Map<Definition, CalendarTable> tables = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Definition, CalendarTable> eldest) {
+            return size() > MAX_CACHED_TABLES;
+        }
+    };
+
+    /**
+     * @return the cached table of the calendar definition, the table is created on the first request. It is created
+     * outside of the lock, so a large table does not hold up other requests, and when two requests create the same
+     * table at once the first one cached is kept.
+     */
+    public static CalendarTable of(WorkCalendar calendar) {
+        Definition definition = new Definition(
+                Set.copyOf(calendar.getWorkingDays()),
+                Set.copyOf(calendar.getHolidays()));
+        synchronized (tables) {
+            CalendarTable cached = tables.get(definition);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        CalendarTable table = new CalendarTable(definition.getWorkingDays(), definition.getHolidays());
+        synchronized (tables) {
+            CalendarTable cached = tables.putIfAbsent(definition, table);
+            return cached == null ? table : cached;
+        }
+    }
+
+    static int size() {
+        synchronized (tables) {
+            return tables.size();
+        }
+    }
+
+    @Value
+    private static class Definition {
+        Set<DayOfWeek> workingDays;
+        Set<LocalDate> holidays;
+    }
+}
@@ -0,0 +1,93 @@
+package cz.los.alice.calendar;
+
+import java.time.LocalDate;
+
+/**
+ * A {@link CalendarTable} seen from a project that starts on {@link #startDate}. Days are project days - the number
+ * of calendar days since the start date - the same unit the CPM passes work with. Finish days are exclusive, a task
+ * finishing on day 5 has its last working day on day 4 or earlier.<br>
+ * All methods are O(1).
+ */
+public final class ProjectCalendar {
+
+    private final CalendarTable table;
+    private final LocalDate startDate;
+    private final long startEpochDay;
+
+    public ProjectCalendar(CalendarTable table, LocalDate startDate) {
+        this.table = table;
+        this.startDate = startDate;
+        this.startEpochDay = startDate.toEpochDay();
+    }
+
+    /**
+     * @return the first working day on or after the given day
+     */
+    public int alignStart(int day) {
+        return toDay(table.workingDay(index(day)));
+    }
+
+    /**
+     * @param start a working day the task starts on
+     * @param duration duration of the task in working days
+     * @return the day after the last working day of the task
+     */
+    public int finish(int start, int duration) {
+        return toDay(table.workingDay(index(start) + duration - 1)) + 1;
+    }
+
+    /**
+     * @return the day after the last working day before the given day
+     */
+    public int alignFinish(int day) {
+        return toDay(table.workingDay(index(day) - 1)) + 1;
+    }
+
+    /**
+     * @param finish the day after the last working day of the task
+     * @param duration duration of the task in working days
+     * @return the first working day of the task
+     */
+    public int start(int finish, int duration) {
+        return toDay(table.workingDay(index(finish) - duration));
+    }
+
+    /**
+     * @param finish the earliest day after the last working day the task may have
+     * @param duration duration of the task in working days
+     * @return the first working day the task can start on to finish on the given day or later
+     */
+    public int startToFinishOnOrAfter(int finish, int duration) {
+        return toDay(table.workingDay(index(finish - 1) - duration + 1));
+    }
+
+    /**
+     * @param start the latest day the task may start on
+     * @param duration duration of the task in working days
+     * @return the day after the last working day of the task started on the last working day on or before
+     * the given day
+     */
+    public int finishToStartOnOrBefore(int start, int duration) {
+        return toDay(table.workingDay(index(start + 1) + duration - 2)) + 1;
+    }
+
+    public boolean isWorkingDay(int day) {
+        return table.isWorkingDay(startEpochDay + day);
+    }
+
+    public LocalDate date(int day) {
+        return startDate.plusDays(day);
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    private long index(int day) {
+        return table.countWorkingDaysBefore(startEpochDay + day);
+    }
+
+    private int toDay(long epochDay) {
+        return Math.toIntExact(epochDay - startEpochDay);
+    }
+}
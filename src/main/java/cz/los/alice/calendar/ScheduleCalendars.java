@@ -0,0 +1,67 @@
+package cz.los.alice.calendar;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Task;
+import cz.los.alice.model.WorkCalendar;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calendars of a single schedule resolved to {@link ProjectCalendar}s. Every task works by the calendar of its crew,
+ * see {@link Crew#getCalendar()}, or by the default calendar.
+ */
+public final class ScheduleCalendars {
+
+    private static final WorkCalendar STANDARD = WorkCalendar.builder()
+            .name(WorkCalendar.DEFAULT)
+            .build();
+
+    private final LocalDate startDate;
+    private final Map<String, ProjectCalendar> calendarsByName = new HashMap<>();
+    private final ProjectCalendar defaultCalendar;
+
+    /**
+     * @param startDate the date of project day 0
+     * @param calendars calendar definitions, tables are taken from {@link CalendarTables}
+     */
+    public ScheduleCalendars(LocalDate startDate, List<WorkCalendar> calendars) {
+        this.startDate = startDate;
+        for (var calendar : calendars) {
+            ProjectCalendar projectCalendar = new ProjectCalendar(CalendarTables.of(calendar), startDate);
+            if (calendarsByName.put(calendar.getName(), projectCalendar) != null) {
+                throw new InvalidScheduleException("Calendar " + calendar.getName() + " is defined more than once");
+            }
+        }
+        this.defaultCalendar = calendarsByName.computeIfAbsent(WorkCalendar.DEFAULT,
+                it -> new ProjectCalendar(CalendarTables.of(STANDARD), startDate));
+    }
+
+    /**
+     * @return the calendar of the task's crew, the default calendar if the crew has none
+     * @throws InvalidScheduleException if the crew refers to a calendar that is not defined
+     */
+    public ProjectCalendar forTask(Task task) {
+        Crew crew = task.getCrew();
+        if (crew == null || crew.getCalendar() == null) {
+            return defaultCalendar;
+        }
+        ProjectCalendar calendar = calendarsByName.get(crew.getCalendar());
+        if (calendar == null) {
+            throw new InvalidScheduleException(
+                    "Task " + task.getTaskCode() + " refers to unknown calendar " + crew.getCalendar());
+        }
+        return calendar;
+    }
+
+    public ProjectCalendar getDefaultCalendar() {
+        return defaultCalendar;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+}
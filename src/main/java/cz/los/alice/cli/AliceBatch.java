@@ -0,0 +1,332 @@
+package cz.los.alice.cli;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import cz.los.alice.cpm.ComponentScheduler;
+import cz.los.alice.cpm.ConeIndexCache;
+import cz.los.alice.cpm.CpmProcessorFactory;
+import cz.los.alice.cpm.ElementHierarchy;
+import cz.los.alice.cpm.OffHeapCpmGraph;
+import cz.los.alice.cpm.WorkloadIndexCache;
+import cz.los.alice.importer.TaskImporter;
+import cz.los.alice.importer.TaskImporters;
+import cz.los.alice.service.AliceService;
+import cz.los.alice.service.ProcessingResult;
+import cz.los.alice.service.TaskParser;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point that processes schedule files without starting the Spring web context.<br>
+ * Every input file goes through exactly the same engine classes as the server does - {@link TaskParser},
+ * {@link CpmProcessorFactory} and {@link AliceService} - and the resulting {@link ProcessingResult} is written
+ * as JSON into the output directory. Files are processed in parallel on a fixed size thread pool.<br>
+ * Usage: {@code AliceBatch [--output <dir>] [--threads <n>] [--off-heap] <file or directory>...}<br>
+ * Directories are scanned recursively for {@code *.json} files and files of every {@link TaskImporter}, e.g.
+ * {@code *.csv} and {@code *.xml}, which are read by the importer of their extension.<br>
+ * With {@code --off-heap} schedules are streamed into {@link OffHeapCpmGraph} instead, for schedules too big for
+ * the heap. The result is written straight from the graph in the columnar layout of
+ * {@link cz.los.alice.service.ColumnarProcessingResult}: project duration, most busy day, max workers on site,
+ * the critical path as task indexes and task codes, durations and the earliest and latest start and finish of all
+ * tasks. Relations and calendars are not supported in this mode.
+ */
+@Slf4j
+public class AliceBatch {
+
+    static final String RESULT_SUFFIX = ".result.json";
+    static final String DEFAULT_OUTPUT = "alice-results";
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED_FILES = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String USAGE =
+            "Usage: AliceBatch [--output <dir>] [--threads <n>] [--off-heap] <file or directory>...";
+
+    private final Path outputDirectory;
+    private final int threads;
+    private final boolean offHeap;
+    private final CpmProcessorFactory processorFactory = new CpmProcessorFactory();
+    private final ElementHierarchy hierarchy = ElementHierarchy.defaults();
+    private final ComponentScheduler componentScheduler = new ComponentScheduler(processorFactory, 0);
+    private final ConeIndexCache coneIndexCache = new ConeIndexCache(0);
+    private final WorkloadIndexCache workloadIndexCache = new WorkloadIndexCache(0);
+    private final TaskImporters importers = TaskImporters.defaults();
+    private final ObjectWriter resultWriter = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .writerWithDefaultPrettyPrinter();
+
+    public AliceBatch(Path outputDirectory, int threads) {
+        this(outputDirectory, threads, false);
+    }
+
+    public AliceBatch(Path outputDirectory, int threads, boolean offHeap) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads should be positive");
+        }
+        this.outputDirectory = outputDirectory;
+        this.threads = threads;
+        this.offHeap = offHeap;
+    }
+
+    public static void main(String[] args) {
+        System.exit(execute(args));
+    }
+
+    /**
+     * Parses command line arguments and runs the batch.
+     * @param args command line arguments
+     * @return process exit code: 0 - all files processed, 1 - some files failed, 2 - wrong usage
+     */
+    static int execute(String[] args) {
+        Path output = Paths.get(DEFAULT_OUTPUT);
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean offHeap = false;
+        List<Path> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-o":
+                    case "--output":
+                        output = Paths.get(args[++i]);
+                        break;
+                    case "-t":
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--off-heap":
+                        offHeap = true;
+                        break;
+                    default:
+                        inputs.add(Paths.get(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (inputs.isEmpty() || threads < 1) {
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        List<Outcome> outcomes = new AliceBatch(output, threads, offHeap).run(inputs);
+        long failed = outcomes.stream().filter(it -> !it.isSuccessful()).count();
+        log.info("Processed {} files, {} failed. Results are in {}", outcomes.size(), failed, output.toAbsolutePath());
+        return failed == 0 ? EXIT_OK : EXIT_FAILED_FILES;
+    }
+
+    /**
+     * Resolves all schedule files from provided paths and processes them in parallel. A failure of one file does not
+     * stop processing of the others, it is reported in the corresponding {@link Outcome} instead.
+     * @param inputs files or directories with schedule files
+     * @return an {@link Outcome} for every processed file, in the order the files were resolved
+     */
+    public List<Outcome> run(List<Path> inputs) {
+        List<Job> jobs = resolveJobs(inputs);
+        createOutputDirectory();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, jobs.size())));
+        try {
+            List<Future<Outcome>> futures = new ArrayList<>(jobs.size());
+            for (var job : jobs) {
+                futures.add(executor.submit(() -> process(job)));
+            }
+            List<Outcome> outcomes = new ArrayList<>(futures.size());
+            for (var future : futures) {
+                outcomes.add(future.get());
+            }
+            return outcomes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch processing was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch job failed unexpectedly", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Outcome process(Job job) {
+        long startedAt = System.nanoTime();
+        try {
+            Files.createDirectories(job.getOutput().getParent());
+            int projectDuration = offHeap ? processOffHeap(job) : processOnHeap(job);
+            long millis = (System.nanoTime() - startedAt) / 1_000_000;
+            log.info("[{}] processed in {} ms, estimated project duration {} days",
+                    job.getInput(), millis, projectDuration);
+            return new Outcome(job.getInput(), job.getOutput(), null);
+        } catch (Exception e) {
+            log.error("[{}] could not be processed: {}", job.getInput(), e.toString());
+            return new Outcome(job.getInput(), null, e);
+        }
+    }
+
+    private int processOnHeap(Job job) throws IOException {
+        TaskParser parser = new TaskParser(new FileSystemResource(job.getInput()));
+        AliceService service = new AliceService(parser, processorFactory, hierarchy, componentScheduler,
+                coneIndexCache, workloadIndexCache);
+        Optional<TaskImporter> importer = importers.forFileName(job.getInput().getFileName().toString());
+        ProcessingResult result = importer.isPresent()
+                ? service.process(Files.newInputStream(job.getInput()), importer.get())
+                : service.process();
+        resultWriter.writeValue(job.getOutput().toFile(), result);
+        return result.getEstimatedProjectDuration();
+    }
+
+    /**
+     * Neither the input nor the result is ever held on the heap as a whole, tasks are streamed into the graph and
+     * the result is streamed out of it.
+     */
+    private int processOffHeap(Job job) throws IOException {
+        try (OffHeapCpmGraph.Builder builder = OffHeapCpmGraph.builder();
+             InputStream input = Files.newInputStream(job.getInput())) {
+            Optional<TaskImporter> importer = importers.forFileName(job.getInput().getFileName().toString());
+            if (importer.isPresent()) {
+                importer.get().importTasks(input, builder::add);
+            } else {
+                TaskParser.streamTasks(input, builder::add);
+            }
+            try (OffHeapCpmGraph graph = builder.build()) {
+                graph.calculateCpmMetricsInForwardDirection();
+                graph.calculateCpmMetricsInBackwardDirection();
+                writeColumns(graph, job.getOutput());
+                return graph.getProjectDuration();
+            }
+        }
+    }
+
+    private void writeColumns(OffHeapCpmGraph graph, Path output) throws IOException {
+        int[] histogram = graph.createWorkersOnSiteHistogram();
+        int mostBusyDay = 0;
+        for (int day = 1; day < histogram.length; day++) {
+            if (histogram[day] > histogram[mostBusyDay]) {
+                mostBusyDay = day;
+            }
+        }
+        try (JsonGenerator generator = resultWriter.getFactory().createGenerator(output.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("estimatedProjectDuration", graph.getProjectDuration());
+            generator.writeNumberField("mostBusyDay", mostBusyDay);
+            generator.writeNumberField("maxWorkersOnSite", histogram[mostBusyDay]);
+            generator.writeArrayFieldStart("criticalPath");
+            graph.visitCriticalPath(task -> writeNumber(generator, task));
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("taskCodes");
+            for (int task = 0; task < graph.size(); task++) {
+                generator.writeString(graph.taskCode(task));
+            }
+            generator.writeEndArray();
+            writeColumn(generator, "durations", graph, graph::duration);
+            writeColumn(generator, "earliestStarts", graph, graph::earliestStart);
+            writeColumn(generator, "latestStarts", graph, graph::latestStart);
+            writeColumn(generator, "earliestFinishes", graph, graph::earliestFinish);
+            writeColumn(generator, "latestFinishes", graph, graph::latestFinish);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeColumn(JsonGenerator generator, String name, OffHeapCpmGraph graph,
+                                    IntUnaryOperator column) throws IOException {
+        generator.writeArrayFieldStart(name);
+        for (int task = 0; task < graph.size(); task++) {
+            generator.writeNumber(column.applyAsInt(task));
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeNumber(JsonGenerator generator, int value) {
+        try {
+            generator.writeNumber(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A file given directly is written to the output directory by its file name. Files found in a directory keep
+     * their path relative to that directory, so equally named schedules from different folders do not collide.
+     */
+    private List<Job> resolveJobs(List<Path> inputs) {
+        List<Job> jobs = new ArrayList<>();
+        for (var input : inputs) {
+            if (Files.isDirectory(input)) {
+                for (var file : listScheduleFiles(input)) {
+                    jobs.add(new Job(file, outputDirectory.resolve(resultName(input.relativize(file)))));
+                }
+            } else {
+                jobs.add(new Job(input, outputDirectory.resolve(resultName(input.getFileName()))));
+            }
+        }
+        return jobs;
+    }
+
+    private List<Path> listScheduleFiles(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(it -> it.getFileName().toString().endsWith(".json")
+                            || importers.forFileName(it.getFileName().toString()).isPresent())
+                    .filter(it -> !it.getFileName().toString().endsWith(RESULT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list schedule files in " + directory, e);
+        }
+    }
+
+    private static String resultName(Path relativeInput) {
+        String name = relativeInput.toString();
+        int extension = name.lastIndexOf('.');
+        return (extension > 0 ? name.substring(0, extension) : name) + RESULT_SUFFIX;
+    }
+
+    private void createOutputDirectory() {
+        try {
+            Files.createDirectories(outputDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create output directory " + outputDirectory, e);
+        }
+    }
+
+    @Value
+    private static class Job {
+        Path input;
+        Path output;
+    }
+
+    /**
+     * Result of processing of a single schedule file.<br>
+     * {@link #output} - file the {@link ProcessingResult} was written to, null if processing failed<br>
+     * {@link #failure} - the reason of failure, null if the file was processed successfully
+     */
+    @Value
+    public static class Outcome {
+        Path input;
+        Path output;
+        Exception failure;
+
+        public boolean isSuccessful() {
+            return failure == null;
+        }
+    }
+}
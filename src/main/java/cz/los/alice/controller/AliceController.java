@@ -1,27 +1,292 @@
 package cz.los.alice.controller;
 
+import cz.los.alice.importer.TaskImporter;
+import cz.los.alice.importer.TaskImporters;
+import cz.los.alice.model.ComponentPlan;
+import cz.los.alice.model.CrashPlan;
+import cz.los.alice.model.DependencyCone;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.RollUpGroup;
+import cz.los.alice.model.WorkloadPeriod;
+import cz.los.alice.model.WorkloadProfiles;
+import cz.los.alice.service.ColumnarProcessingResult;
+import cz.los.alice.service.NearCriticalResult;
 import cz.los.alice.service.ProcessingResult;
 import cz.los.alice.service.AliceService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_CBOR;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_JSON;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_SMILE;
+
 @RestController
 @RequiredArgsConstructor
 public class AliceController {
 
     static final String HELLO = "Hi. To start processing follow <a href=\"/process\">THIS</a> link";
+    static final String DEFAULT_PATHS = "5";
+    static final String DEFAULT_SLACK = "2";
+    static final String DEFAULT_DEPTH = "1";
+    static final String DEFAULT_PEAK_COUNT = "5";
+    static final String DEFAULT_PEAK_LENGTH = "7";
+    static final int MAX_PEAK_COUNT = 1000;
+    private static final String WEAK_PREFIX = "W/";
+    private static final String ANY_TAG = "*";
+    private static final String COLUMNAR_TAG_SUFFIX = "-columnar";
 
     private final AliceService service;
+    private final RequestCoalescer coalescer;
+    private final TaskImporters importers;
+
+    @Value("${alice.process.cache-max-age:0}")
+    private long cacheMaxAge;
 
     @RequestMapping("/")
     public String index() {
         return HELLO;
     }
 
+    /**
+     * Processes the predefined JSON file unless the client already has the current result. The result is tagged by
+     * {@link AliceService#resultTag()}, a request with a matching {@code If-None-Match} header gets 304 without
+     * the file being processed. Concurrent requests for the same content share one processing by
+     * {@link RequestCoalescer}. The encoding follows the {@code Accept} header, see {@link EncodingConfiguration}.
+     */
     @GetMapping("/process")
-    public ProcessingResult process() {
-        return service.process();
+    public ResponseEntity<ProcessingResult> process(
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditional(ifNoneMatch, "", service::process);
+    }
+
+    /**
+     * The same as {@link #process(String)} laid out by columns, the columnar result has its own tag.
+     */
+    @GetMapping(value = "/process", produces = {COLUMNAR_JSON, COLUMNAR_SMILE, COLUMNAR_CBOR})
+    public ResponseEntity<ColumnarProcessingResult> processColumnar(
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditional(ifNoneMatch, COLUMNAR_TAG_SUFFIX, () -> ColumnarProcessingResult.of(service.process()));
+    }
+
+    /**
+     * Processes an uploaded schedule, concurrent uploads of the same content share one processing.
+     */
+    @PostMapping(value = "/process", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ProcessingResult process(@RequestBody byte[] schedule) {
+        return coalescer.execute(service.resultTag(schedule),
+                () -> service.process(new ByteArrayInputStream(schedule)));
+    }
+
+    /**
+     * Processes an uploaded schedule of another format, the {@link TaskImporter} is selected by the content type.
+     * The same content of different types is processed separately. An upload without a content type is not supported
+     * either.
+     */
+    @PostMapping("/process")
+    public ProcessingResult process(@RequestBody byte[] schedule,
+                                    @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false)
+                                    MediaType contentType)
+            throws HttpMediaTypeNotSupportedException {
+        if (contentType == null) {
+            throw new HttpMediaTypeNotSupportedException(null, supportedMediaTypes());
+        }
+        TaskImporter importer = importers.forMediaType(contentType)
+                .orElseThrow(() -> new HttpMediaTypeNotSupportedException(contentType, supportedMediaTypes()));
+        return coalescer.execute(service.resultTag(schedule) + importer.getFileExtension(),
+                () -> service.process(new ByteArrayInputStream(schedule), importer));
+    }
+
+    @PostMapping(value = "/process", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {COLUMNAR_JSON, COLUMNAR_SMILE, COLUMNAR_CBOR})
+    public ColumnarProcessingResult processColumnar(@RequestBody byte[] schedule) {
+        return coalescer.execute(service.resultTag(schedule) + COLUMNAR_TAG_SUFFIX,
+                () -> ColumnarProcessingResult.of(service.process(new ByteArrayInputStream(schedule))));
+    }
+
+    private List<MediaType> supportedMediaTypes() {
+        List<MediaType> mediaTypes = new ArrayList<>(importers.getMediaTypes());
+        mediaTypes.add(0, MediaType.APPLICATION_JSON);
+        return mediaTypes;
+    }
+
+    @GetMapping("/process/coalescing")
+    public CoalescingStats coalescing() {
+        return coalescer.getStats();
+    }
+
+    @GetMapping("/process/near-critical")
+    public NearCriticalResult nearCritical(@RequestParam(name = "paths", defaultValue = DEFAULT_PATHS) int paths,
+                                           @RequestParam(name = "slack", defaultValue = DEFAULT_SLACK) int slack) {
+        return service.analyzeNearCritical(paths, slack);
+    }
+
+    @PostMapping(value = "/process/near-critical", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public NearCriticalResult nearCritical(@RequestBody byte[] schedule,
+                                           @RequestParam(name = "paths", defaultValue = DEFAULT_PATHS) int paths,
+                                           @RequestParam(name = "slack", defaultValue = DEFAULT_SLACK) int slack) {
+        return service.analyzeNearCritical(new ByteArrayInputStream(schedule), paths, slack);
+    }
+
+    @GetMapping("/process/crash")
+    public CrashPlan crash(@RequestParam(name = "days") int days) {
+        return service.crash(days);
+    }
+
+    @PostMapping(value = "/process/crash", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CrashPlan crash(@RequestBody byte[] schedule, @RequestParam(name = "days") int days) {
+        return service.crash(new ByteArrayInputStream(schedule), days);
+    }
+
+    @GetMapping("/process/cone")
+    public DependencyCone cone(@RequestParam(name = "task") String task) {
+        return service.dependencyCone(task);
+    }
+
+    @PostMapping(value = "/process/cone", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public DependencyCone cone(@RequestBody byte[] schedule, @RequestParam(name = "task") String task) {
+        return service.dependencyCone(schedule, task);
+    }
+
+    @GetMapping("/process/workload")
+    public WorkloadPeriod workload(@RequestParam(name = "from") int from, @RequestParam(name = "to") int to) {
+        return service.workload(from, to);
+    }
+
+    @PostMapping(value = "/process/workload", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public WorkloadPeriod workload(@RequestBody byte[] schedule,
+                                   @RequestParam(name = "from") int from,
+                                   @RequestParam(name = "to") int to) {
+        return service.workload(schedule, from, to);
+    }
+
+    @GetMapping("/process/workload/profiles")
+    public WorkloadProfiles workloadProfiles() {
+        return service.workloadProfiles();
+    }
+
+    @PostMapping(value = "/process/workload/profiles", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public WorkloadProfiles workloadProfiles(@RequestBody byte[] schedule) {
+        return service.workloadProfiles(new ByteArrayInputStream(schedule));
+    }
+
+    @GetMapping("/process/workload/peaks")
+    public List<WorkloadPeriod> peaks(@RequestParam(name = "count", defaultValue = DEFAULT_PEAK_COUNT) int count,
+                                      @RequestParam(name = "length", defaultValue = DEFAULT_PEAK_LENGTH) int length) {
+        return service.busiestPeriods(requirePeakCount(count), length);
+    }
+
+    @PostMapping(value = "/process/workload/peaks", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<WorkloadPeriod> peaks(@RequestBody byte[] schedule,
+                                      @RequestParam(name = "count", defaultValue = DEFAULT_PEAK_COUNT) int count,
+                                      @RequestParam(name = "length", defaultValue = DEFAULT_PEAK_LENGTH) int length) {
+        return service.busiestPeriods(schedule, requirePeakCount(count), length);
+    }
+
+    private static int requirePeakCount(int count) {
+        if (count < 1 || count > MAX_PEAK_COUNT) {
+            throw new InvalidScheduleException("Number of periods should be between 1 and " + MAX_PEAK_COUNT);
+        }
+        return count;
+    }
+
+    @GetMapping("/process/components")
+    public ComponentPlan components() {
+        return service.analyzeComponents();
+    }
+
+    @PostMapping(value = "/process/components", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ComponentPlan components(@RequestBody byte[] schedule) {
+        return service.analyzeComponents(new ByteArrayInputStream(schedule));
+    }
+
+    @GetMapping("/process/rollup")
+    public RollUpGroup rollUp(@RequestParam(name = "path", defaultValue = "") String path,
+                              @RequestParam(name = "depth", defaultValue = DEFAULT_DEPTH) int depth) {
+        return service.rollUp(path, depth);
+    }
+
+    @PostMapping(value = "/process/rollup", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public RollUpGroup rollUp(@RequestBody byte[] schedule,
+                              @RequestParam(name = "path", defaultValue = "") String path,
+                              @RequestParam(name = "depth", defaultValue = DEFAULT_DEPTH) int depth) {
+        return service.rollUp(new ByteArrayInputStream(schedule), path, depth);
+    }
+
+    /**
+     * Answers 304 if the client has the current result, the body is created only otherwise. The same tag is sent for
+     * every encoding of the layout, JSON, Smile and CBOR bodies are not byte-for-byte equal, so the tag is weak and
+     * responses vary by {@code Accept}.
+     */
+    private <T> ResponseEntity<T> conditional(String ifNoneMatch, String tagSuffix, Supplier<T> body) {
+        String tag = service.resultTag() + tagSuffix;
+        String eTag = WEAK_PREFIX + "\"" + tag + "\"";
+        if (matchesAny(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(cacheControl())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(coalescer.execute(tag, body));
+    }
+
+    /**
+     * @return {@code no-cache} without max age, so clients revalidate every time, otherwise max age with
+     * {@code must-revalidate}
+     */
+    private CacheControl cacheControl() {
+        return cacheMaxAge > 0
+                ? CacheControl.maxAge(cacheMaxAge, TimeUnit.SECONDS).mustRevalidate()
+                : CacheControl.noCache();
+    }
+
+    /**
+     * Weak comparison as required for {@code If-None-Match}, {@code W/} prefixes are ignored.
+     */
+    private static boolean matchesAny(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = withoutWeakPrefix(eTag);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = withoutWeakPrefix(tag.trim());
+            if (ANY_TAG.equals(candidate) || opaqueTag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withoutWeakPrefix(String tag) {
+        return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+    }
+
+    @ExceptionHandler(InvalidScheduleException.class)
+    public ResponseEntity<String> invalidSchedule(InvalidScheduleException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
     }
 }
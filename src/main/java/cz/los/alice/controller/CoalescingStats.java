@@ -0,0 +1,17 @@
+package cz.los.alice.controller;
+
+import lombok.Value;
+
+/**
+ * Counters of {@link RequestCoalescer} since the start of the application.<br>
+ * {@link #computations} - computations that were actually run<br>
+ * {@link #coalescedRequests} - requests that received the result of a computation started by another request<br>
+ * {@link #inFlight} - computations running right now
+ */
+@Value
+public class CoalescingStats {
+
+    long computations;
+    long coalescedRequests;
+    int inFlight;
+}
@@ -0,0 +1,46 @@
+package cz.los.alice.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+/**
+ * Binary encodings of responses chosen by the {@code Accept} header of the request, JSON stays the default.<br>
+ * {@link #SMILE} and {@link #CBOR} - the same documents as JSON in a binary encoding<br>
+ * {@link #COLUMNAR_JSON}, {@link #COLUMNAR_SMILE} and {@link #COLUMNAR_CBOR} - the processing result laid out by
+ * columns as {@link cz.los.alice.service.ColumnarProcessingResult} in the given encoding<br>
+ * Binary mappers are built by the same {@link Jackson2ObjectMapperBuilder} as the JSON one, so all encodings write
+ * the same fields and dates.
+ */
+@Configuration
+public class EncodingConfiguration {
+
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final String CBOR = MediaType.APPLICATION_CBOR_VALUE;
+    public static final String COLUMNAR_JSON = "application/vnd.alice.columnar+json";
+    public static final String COLUMNAR_SMILE = "application/vnd.alice.columnar+smile";
+    public static final String COLUMNAR_CBOR = "application/vnd.alice.columnar+cbor";
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        MappingJackson2SmileHttpMessageConverter converter =
+                new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+        converter.setSupportedMediaTypes(List.of(MediaType.valueOf(SMILE), MediaType.valueOf(COLUMNAR_SMILE)));
+        return converter;
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        MappingJackson2CborHttpMessageConverter converter =
+                new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+        converter.setSupportedMediaTypes(List.of(MediaType.valueOf(CBOR), MediaType.valueOf(COLUMNAR_CBOR)));
+        return converter;
+    }
+}
@@ -0,0 +1,36 @@
+package cz.los.alice.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Data of a single progress event of {@link ProcessingStreamController}. Only the fields known by the time of the event
+ * are filled in.<br>
+ * {@link #elapsedMillis} - time since the processing started<br>
+ * {@link #taskCount}, {@link #validTaskCount} and {@link #issueCount} - size of the parsed input<br>
+ * {@link #nodeCount} and {@link #edgeCount} - size of the built graph<br>
+ * {@link #projectDuration} - duration of the project, known from the forward pass on<br>
+ * {@link #criticalPath}, {@link #mostBusyDay} and {@link #maxWorkersOnSite} - partial results<br>
+ * {@link #status} and {@link #message} - why the processing failed
+ */
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProcessingProgress {
+
+    long elapsedMillis;
+    Integer taskCount;
+    Integer validTaskCount;
+    Integer issueCount;
+    Integer nodeCount;
+    Integer edgeCount;
+    Integer projectDuration;
+    List<String> criticalPath;
+    Integer mostBusyDay;
+    Integer maxWorkersOnSite;
+    Integer status;
+    String message;
+}
@@ -0,0 +1,186 @@
+package cz.los.alice.controller;
+
+import cz.los.alice.cpm.CpmGraph;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.service.AliceService;
+import cz.los.alice.service.ParsedTasks;
+import cz.los.alice.service.ProcessingListener;
+import cz.los.alice.service.ProcessingResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Streams progress of processing as Server-Sent Events, so a client can render something before the whole
+ * {@link ProcessingResult} is ready. Processing runs on the application {@link TaskExecutor}, the events are named
+ * after the phases:<br>
+ * {@value #PARSED}, {@value #GRAPH_BUILT}, {@value #FORWARD_PASS}, {@value #BACKWARD_PASS} - progress with sizes and
+ * the project duration as {@link ProcessingProgress}<br>
+ * {@value #CRITICAL_PATH} and {@value #WORKERS_ON_SITE} - partial results as {@link ProcessingProgress}<br>
+ * {@value #RESULT} - the whole {@link ProcessingResult}, the last event of a successful processing<br>
+ * {@value #ERROR} - status and message of a failed processing, the last event as well<br>
+ * When the client goes away the processing stops at the next phase.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class ProcessingStreamController {
+
+    static final String PARSED = "parsed";
+    static final String GRAPH_BUILT = "graph-built";
+    static final String FORWARD_PASS = "forward-pass";
+    static final String BACKWARD_PASS = "backward-pass";
+    static final String CRITICAL_PATH = "critical-path";
+    static final String WORKERS_ON_SITE = "workers-on-site";
+    static final String RESULT = "result";
+    static final String ERROR = "error";
+
+    private final AliceService service;
+    private final TaskExecutor taskExecutor;
+
+    @Value("${alice.stream.timeout-millis:600000}")
+    private long timeoutMillis;
+
+    @GetMapping(value = "/process/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return stream(service::process);
+    }
+
+    @PostMapping(value = "/process/stream",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestBody byte[] schedule) {
+        return stream(listener -> service.process(new ByteArrayInputStream(schedule), listener));
+    }
+
+    private SseEmitter stream(Function<ProcessingListener, ProcessingResult> processing) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        SseProgressListener listener = new SseProgressListener(emitter);
+        emitter.onTimeout(listener::cancel);
+        emitter.onError(error -> listener.cancel());
+        taskExecutor.execute(() -> {
+            try {
+                ProcessingResult result = processing.apply(listener);
+                listener.send(RESULT, result);
+                emitter.complete();
+            } catch (CancellationException e) {
+                log.debug("Streamed processing cancelled: {}", e.getMessage());
+            } catch (InvalidScheduleException e) {
+                listener.fail(HttpStatus.BAD_REQUEST, e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Streamed processing failed", e);
+                listener.fail(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+            }
+        });
+        return emitter;
+    }
+
+    private static final class SseProgressListener implements ProcessingListener {
+
+        private final SseEmitter emitter;
+        private final long startNanos = System.nanoTime();
+        private volatile boolean cancelled;
+
+        SseProgressListener(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void parsed(ParsedTasks parsedTasks) {
+            send(PARSED, progress()
+                    .taskCount(parsedTasks.getValidationReport().getTaskCount())
+                    .validTaskCount(parsedTasks.getTasks().size())
+                    .issueCount(parsedTasks.getValidationReport().getIssueCount())
+                    .build());
+        }
+
+        @Override
+        public void graphBuilt(CpmGraph graph) {
+            send(GRAPH_BUILT, progress()
+                    .nodeCount(graph.getNodesByTask().size())
+                    .edgeCount(graph.getEdgeCount())
+                    .build());
+        }
+
+        @Override
+        public void forwardPassDone(CpmGraph graph) {
+            send(FORWARD_PASS, progress()
+                    .projectDuration(graph.getEndNode().getEarliestFinish())
+                    .build());
+        }
+
+        @Override
+        public void backwardPassDone(CpmGraph graph) {
+            send(BACKWARD_PASS, progress()
+                    .projectDuration(graph.getEndNode().getLatestFinish())
+                    .build());
+        }
+
+        @Override
+        public void criticalPathFound(CpmGraph graph, List<String> criticalPath) {
+            send(CRITICAL_PATH, progress()
+                    .projectDuration(graph.getEndNode().getLatestFinish())
+                    .criticalPath(criticalPath)
+                    .build());
+        }
+
+        @Override
+        public void workersOnSiteCounted(int mostBusyDay, int maxWorkersOnSite) {
+            send(WORKERS_ON_SITE, progress()
+                    .mostBusyDay(mostBusyDay)
+                    .maxWorkersOnSite(maxWorkersOnSite)
+                    .build());
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        void fail(HttpStatus status, String message) {
+            try {
+                send(ERROR, progress()
+                        .status(status.value())
+                        .message(message)
+                        .build());
+                emitter.complete();
+            } catch (CancellationException e) {
+                log.debug("Failure of streamed processing not delivered: {}", message);
+            }
+        }
+
+        /**
+         * @throws CancellationException if the client is gone, to stop the processing
+         */
+        void send(String name, Object data) {
+            if (cancelled) {
+                throw new CancellationException("Client of the stream is gone");
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                cancelled = true;
+                throw new CancellationException("Sending " + name + " event failed: " + e.getMessage());
+            }
+        }
+
+        private ProcessingProgress.ProcessingProgressBuilder progress() {
+            return ProcessingProgress.builder()
+                    .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package cz.los.alice.controller;
+
+import cz.los.alice.jfr.RequestsCoalescedEvent;
+import lombok.SneakyThrows;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent requests for the same input share one computation. The first request for a key runs
+ * the computation, every request for the same key that arrives while it is running waits for it and gets the same
+ * result, or the same exception. Nothing is cached, a request that arrives after the computation finished starts
+ * a new one.<br>
+ * Keys must identify both the input and the kind of the result, e.g. {@link cz.los.alice.service.AliceService#resultTag()}
+ * of the input, as results of all keys share one map. Every computation is recorded as {@link RequestsCoalescedEvent}
+ * when Flight Recorder is running and counted in {@link #getStats()}.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder computations = new LongAdder();
+    private final LongAdder coalescedRequests = new LongAdder();
+
+    /**
+     * @param key identifies the input and the kind of the result
+     * @param computation creates the result, runs on the thread of the first request
+     * @return result of the computation started by this or by a concurrent request with the same key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> computation) {
+        Flight flight = new Flight();
+        Flight running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            running.coalescedRequests.incrementAndGet();
+            coalescedRequests.increment();
+            return (T) await(running.result);
+        }
+        computations.increment();
+        RequestsCoalescedEvent event = new RequestsCoalescedEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            T result = computation.get();
+            flight.result.complete(result);
+            failed = false;
+            return result;
+        } catch (Throwable e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+            event.end();
+            if (event.shouldCommit()) {
+                event.key = key;
+                event.coalescedRequests = flight.coalescedRequests.get();
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    public CoalescingStats getStats() {
+        return new CoalescingStats(computations.sum(), coalescedRequests.sum(), inFlight.size());
+    }
+
+    /**
+     * Rethrows what the computation threw, not wrapped into {@link CompletionException}.
+     */
+    @SneakyThrows
+    private static Object await(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicInteger coalescedRequests = new AtomicInteger();
+    }
+}
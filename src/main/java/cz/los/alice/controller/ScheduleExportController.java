@@ -0,0 +1,130 @@
+package cz.los.alice.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import cz.los.alice.cpm.CpmGraphExport;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.service.AliceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_CBOR;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_JSON;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_SMILE;
+
+/**
+ * Exports the calculated schedule for bulk consumers as {@link #TEXT_CSV} or laid out by columns in
+ * {@link EncodingConfiguration#COLUMNAR_JSON}, {@link EncodingConfiguration#COLUMNAR_SMILE} or
+ * {@link EncodingConfiguration#COLUMNAR_CBOR}, see {@link CpmGraphExport}. The schedule is calculated before
+ * the response starts, so an invalid schedule still gets 400. The export itself is streamed into the response from
+ * the calculated graph.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ScheduleExportController {
+
+    static final String TEXT_CSV = "text/csv";
+
+    private static final MediaType CSV_TYPE = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final List<MediaType> COLUMNAR_TYPES = List.of(
+            MediaType.valueOf(COLUMNAR_JSON), MediaType.valueOf(COLUMNAR_SMILE), MediaType.valueOf(COLUMNAR_CBOR));
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final JsonFactory SMILE_FACTORY = new SmileFactory()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+    private static final JsonFactory CBOR_FACTORY = new CBORFactory();
+
+    private final AliceService service;
+
+    @GetMapping(value = "/process/export", produces = TEXT_CSV)
+    public ResponseEntity<StreamingResponseBody> exportCsv() {
+        return csv(service.export());
+    }
+
+    @PostMapping(value = "/process/export", consumes = MediaType.APPLICATION_JSON_VALUE, produces = TEXT_CSV)
+    public ResponseEntity<StreamingResponseBody> exportCsv(@RequestBody byte[] schedule) {
+        return csv(service.export(new ByteArrayInputStream(schedule)));
+    }
+
+    @GetMapping(value = "/process/export", produces = {COLUMNAR_JSON, COLUMNAR_SMILE, COLUMNAR_CBOR})
+    public ResponseEntity<StreamingResponseBody> exportColumns(
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType mediaType = columnarType(accept);
+        return columns(service.export(), mediaType);
+    }
+
+    @PostMapping(value = "/process/export", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {COLUMNAR_JSON, COLUMNAR_SMILE, COLUMNAR_CBOR})
+    public ResponseEntity<StreamingResponseBody> exportColumns(
+            @RequestBody byte[] schedule, @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType mediaType = columnarType(accept);
+        return columns(service.export(new ByteArrayInputStream(schedule)), mediaType);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> csv(CpmGraphExport export) {
+        return ResponseEntity.ok()
+                .contentType(CSV_TYPE)
+                .body(output -> {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                    export.writeCsv(writer);
+                    writer.flush();
+                });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> columns(CpmGraphExport export, MediaType mediaType) {
+        JsonFactory factory = COLUMNAR_SMILE.equals(mediaType.toString()) ? SMILE_FACTORY
+                : COLUMNAR_CBOR.equals(mediaType.toString()) ? CBOR_FACTORY : JSON_FACTORY;
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(output -> {
+                    try (JsonGenerator generator = factory.createGenerator(output, JsonEncoding.UTF8)) {
+                        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                        export.writeColumns(generator);
+                    }
+                });
+    }
+
+    /**
+     * @return the columnar type the client prefers most, the mapping guarantees that it accepts one of them, the first
+     * columnar type if the client did not say
+     */
+    private static MediaType columnarType(String accept) {
+        if (accept == null) {
+            return COLUMNAR_TYPES.get(0);
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType mediaType : accepted) {
+            for (MediaType columnarType : COLUMNAR_TYPES) {
+                if (mediaType.includes(columnarType)) {
+                    return columnarType;
+                }
+            }
+        }
+        return COLUMNAR_TYPES.get(0);
+    }
+
+    @ExceptionHandler(InvalidScheduleException.class)
+    public ResponseEntity<String> invalidSchedule(InvalidScheduleException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
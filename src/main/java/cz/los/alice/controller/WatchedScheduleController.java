@@ -0,0 +1,66 @@
+package cz.los.alice.controller;
+
+import cz.los.alice.model.WatchedSchedule;
+import cz.los.alice.watch.ScheduleDirectoryWatcher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Reads results of the watched directory kept by {@link ScheduleDirectoryWatcher}, nothing is processed on request.
+ * Available only if {@code alice.watch.directory} is set.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "alice.watch.directory")
+public class WatchedScheduleController {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private final ScheduleDirectoryWatcher watcher;
+
+    @GetMapping("/process/watched")
+    public List<WatchedSchedule> schedules() {
+        return watcher.getSchedules();
+    }
+
+    /**
+     * Answers the latest result of the file tagged by {@link WatchedSchedule#getTag()}, 304 if the client already has
+     * it, 404 if the file is unknown or not processed yet, 400 with the reason if the file is not a valid schedule and
+     * 500 if its processing failed otherwise. The tag is weak like the one of {@code GET /process}, it is the same for
+     * every encoding of the result.
+     */
+    @GetMapping("/process/watched/result")
+    public ResponseEntity<?> result(
+            @RequestParam(name = "file") String file,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        WatchedSchedule schedule = watcher.getSchedule(file).orElse(null);
+        if (schedule == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (schedule.getResult() == null) {
+            HttpStatus status = ScheduleDirectoryWatcher.INTERNAL_FAILURE.equals(schedule.getError())
+                    ? HttpStatus.INTERNAL_SERVER_ERROR
+                    : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status).body(schedule.getError());
+        }
+        String opaqueTag = "\"" + schedule.getTag() + "\"";
+        String eTag = WEAK_PREFIX + opaqueTag;
+        if (ifNoneMatch != null && opaqueTag.equals(ifNoneMatch.startsWith(WEAK_PREFIX)
+                ? ifNoneMatch.substring(WEAK_PREFIX.length()) : ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                .body(schedule.getResult());
+    }
+}
@@ -0,0 +1,281 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.ComponentPlan;
+import cz.los.alice.model.ProjectComponent;
+import cz.los.alice.model.Relation;
+import cz.los.alice.model.Task;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Calculates a project as its weakly connected components - sub-projects that share nothing but START and END.
+ * Components are found by {@link ConnectedComponents}, every component gets its own {@link CpmGraph} and all of them
+ * are calculated in parallel. Results are merged into a {@link ComponentPlan}:<br>
+ * the project duration is the duration of the longest component<br>
+ * latest starts and finishes of a shorter component are shifted by its slack, the difference of the two durations,
+ * which is exactly what the backward pass of the whole project gives without calendars<br>
+ * workers on site are counted over the shifted windows of all components together<br>
+ * the critical path of the project is the critical path of the component the whole graph would choose from START.<br>
+ * Calculated components are kept in a least recently used cache keyed by the content of the component, so a change
+ * of one sub-project recalculates only that sub-project. The cache holds at most
+ * {@code alice.components.cache-tasks} tasks of all components together.
+ */
+@Component
+public class ComponentScheduler {
+
+    static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+
+    private final CpmProcessorFactory processorFactory;
+    private final int cacheTasks;
+    private final LinkedHashMap<String, ComponentSchedule> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedTaskCount;
+
+    public ComponentScheduler(CpmProcessorFactory processorFactory,
+                              @Value("${alice.components.cache-tasks:1000000}") int cacheTasks) {
+        this.processorFactory = processorFactory;
+        this.cacheTasks = cacheTasks;
+    }
+
+    /**
+     * @param tasks validated tasks of a project without calendars
+     * @return {@link ComponentPlan}
+     */
+    public ComponentPlan schedule(Set<Task> tasks) {
+        List<CachedSchedule> schedules = ConnectedComponents.find(tasks).parallelStream()
+                .map(this::scheduleCached)
+                .collect(toList());
+        int projectDuration = schedules.stream()
+                .mapToInt(it -> it.schedule.duration)
+                .max()
+                .orElseThrow(() -> new IllegalArgumentException("Provided tasks Set should have at least one task"));
+
+        int[] histogram = new int[projectDuration + 1];
+        ComponentSchedule critical = null;
+        int cachedComponents = 0;
+        List<ProjectComponent> components = new ArrayList<>(schedules.size());
+        for (CachedSchedule cached : schedules) {
+            ComponentSchedule schedule = cached.schedule;
+            int slack = projectDuration - schedule.duration;
+            schedule.addWorkersOnSite(histogram, slack);
+            if (critical == null || isMoreCritical(schedule, slack, critical, projectDuration - critical.duration)) {
+                critical = schedule;
+            }
+            if (cached.cached) {
+                cachedComponents++;
+            }
+            components.add(new ProjectComponent(schedule.taskCount, schedule.duration, slack, schedule.criticalPath));
+        }
+        for (int day = 1; day < histogram.length; day++) {
+            histogram[day] += histogram[day - 1];
+        }
+        int mostBusyDay = 0;
+        for (int day = 1; day < histogram.length; day++) {
+            if (histogram[day] > histogram[mostBusyDay]) {
+                mostBusyDay = day;
+            }
+        }
+        components.sort(Comparator.comparingInt(ProjectComponent::getDuration).reversed()
+                .thenComparing(it -> it.getCriticalPath().get(0)));
+
+        return new ComponentPlan(
+                projectDuration,
+                mostBusyDay,
+                histogram[mostBusyDay],
+                critical.criticalPath,
+                cachedComponents,
+                components);
+    }
+
+    /**
+     * Same choice as {@link CpmProcessor#buildCriticalPath(CpmGraph)} makes among root tasks of the whole project:
+     * the least slack in the project, then the earliest finish and then the least task code. All root tasks start
+     * with the project, so all of them are driven by its start.
+     */
+    private static boolean isMoreCritical(ComponentSchedule schedule, int slack,
+                                          ComponentSchedule current, int currentSlack) {
+        int rootSlack = schedule.criticalRootSlack + slack;
+        int currentRootSlack = current.criticalRootSlack + currentSlack;
+        if (rootSlack != currentRootSlack) {
+            return rootSlack < currentRootSlack;
+        }
+        if (schedule.criticalRootFinish != current.criticalRootFinish) {
+            return schedule.criticalRootFinish < current.criticalRootFinish;
+        }
+        return schedule.criticalPath.get(0).compareTo(current.criticalPath.get(0)) < 0;
+    }
+
+    private CachedSchedule scheduleCached(Set<Task> component) {
+        String key = contentKey(component);
+        ComponentSchedule schedule = cached(key);
+        if (schedule != null) {
+            return new CachedSchedule(schedule, true);
+        }
+        schedule = calculate(component);
+        cache(key, schedule);
+        return new CachedSchedule(schedule, false);
+    }
+
+    private ComponentSchedule calculate(Set<Task> component) {
+        CpmProcessor processor = processorFactory.createCpmProcessor(component);
+        CpmGraph cpmGraph = processor.buildCpmGraph();
+        List<String> criticalPath = processor.buildCriticalPath(cpmGraph);
+        Map<Task, Node> nodesByTask = cpmGraph.getNodesByTask();
+
+        int workingTasks = 0;
+        for (Task task : component) {
+            if (workers(task) != 0) {
+                workingTasks++;
+            }
+        }
+        int[] earliestStarts = new int[workingTasks];
+        int[] latestFinishes = new int[workingTasks];
+        int[] assignments = new int[workingTasks];
+        int index = 0;
+        for (Task task : component) {
+            int workers = workers(task);
+            if (workers != 0) {
+                Node node = nodesByTask.get(task);
+                earliestStarts[index] = node.earliestStartDay();
+                latestFinishes[index] = node.latestFinishDay();
+                assignments[index] = workers;
+                index++;
+            }
+        }
+        Task criticalRoot = Task.builder().taskCode(criticalPath.get(0)).build();
+        return new ComponentSchedule(
+                component.size(),
+                cpmGraph.getEndNode().latestFinishDay(),
+                List.copyOf(criticalPath),
+                nodesByTask.get(criticalRoot).slackDays(),
+                nodesByTask.get(criticalRoot).earliestFinishDay(),
+                earliestStarts,
+                latestFinishes,
+                assignments);
+    }
+
+    private static int workers(Task task) {
+        Integer assignment = task.getCrew() == null ? null : task.getCrew().getAssignment();
+        return assignment == null ? 0 : assignment;
+    }
+
+    private ComponentSchedule cached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void cache(String key, ComponentSchedule schedule) {
+        if (schedule.taskCount > cacheTasks) {
+            return;
+        }
+        synchronized (cache) {
+            if (cache.put(key, schedule) == null) {
+                cachedTaskCount += schedule.taskCount;
+            }
+            Iterator<ComponentSchedule> eldest = cache.values().iterator();
+            while (cachedTaskCount > cacheTasks) {
+                cachedTaskCount -= eldest.next().taskCount;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Identifies a component by everything the calculation depends on - codes, durations, workers, dependencies and
+     * relations of its tasks, in the order of task codes so the order of the input does not matter.
+     */
+    @SneakyThrows
+    static String contentKey(Set<Task> component) {
+        MessageDigest digest = MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+        List<Task> tasks = new ArrayList<>(component);
+        tasks.sort(Comparator.comparing(Task::getTaskCode));
+        for (Task task : tasks) {
+            update(digest, task.getTaskCode());
+            update(digest, task.getDuration() == null ? -1 : task.getDuration());
+            update(digest, workers(task));
+            List<String> dependencies = new ArrayList<>(task.getDependencies());
+            dependencies.sort(null);
+            update(digest, dependencies.size());
+            for (String dependency : dependencies) {
+                update(digest, dependency);
+                Relation relation = task.getRelations().get(dependency);
+                update(digest, relation == null ? -1 : relation.getType().ordinal());
+                update(digest, relation == null ? 0 : relation.getLag());
+            }
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static void update(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    @RequiredArgsConstructor
+    private static final class CachedSchedule {
+
+        private final ComponentSchedule schedule;
+        private final boolean cached;
+    }
+
+    /**
+     * Result of a single component calculated on its own, it does not depend on other components, so it can be shared
+     * by any number of requests.<br>
+     * {@link #criticalRootSlack} and {@link #criticalRootFinish} - slack and earliest finish of the first task of
+     * {@link #criticalPath}<br>
+     * {@link #earliestStarts}, {@link #latestFinishes} and {@link #assignments} - time windows of tasks with workers
+     */
+    @RequiredArgsConstructor
+    private static final class ComponentSchedule {
+
+        private final int taskCount;
+        private final int duration;
+        private final List<String> criticalPath;
+        private final int criticalRootSlack;
+        private final int criticalRootFinish;
+        private final int[] earliestStarts;
+        private final int[] latestFinishes;
+        private final int[] assignments;
+
+        /**
+         * Adds the workers of the component into differences of a histogram of the project, same rules as
+         * {@link CpmProcessor#createWorkersOnSiteHistogram(CpmGraph)}.
+         * @param slack by how many days latest finishes are shifted in the project
+         */
+        void addWorkersOnSite(int[] histogram, int slack) {
+            int projectDuration = histogram.length - 1;
+            for (int i = 0; i < assignments.length; i++) {
+                int latestFinish = latestFinishes[i] + slack;
+                if (earliestStarts[i] >= latestFinish) {
+                    continue;
+                }
+                histogram[earliestStarts[i]] += assignments[i];
+                if (latestFinish <= projectDuration) {
+                    histogram[latestFinish] -= assignments[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package cz.los.alice.cpm;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link DependencyConeIndex} of at most {@code alice.cones.cache-size} recently queried schedules.
+ */
+@Component
+public class ConeIndexCache extends IndexCache<DependencyConeIndex> {
+
+    public ConeIndexCache(@Value("${alice.cones.cache-size:8}") int capacity) {
+        super(capacity);
+    }
+}
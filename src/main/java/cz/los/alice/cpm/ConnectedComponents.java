@@ -0,0 +1,79 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits tasks into weakly connected components - groups of tasks linked by dependencies in either direction.
+ * START and END that {@link CpmProcessorFactory} adds later are not taken into account, so two sub-projects that
+ * would share only them are two components.<br>
+ * Components are found by union-find over task indexes with union by size and path halving, the cost is practically
+ * linear in tasks plus dependencies.
+ */
+final class ConnectedComponents {
+
+    private ConnectedComponents() {
+    }
+
+    /**
+     * @param tasks validated tasks, dependencies on tasks that are not among them are ignored
+     * @return components in the order of their first task in iteration order of the given tasks
+     */
+    static List<Set<Task>> find(Collection<Task> tasks) {
+        List<Task> indexed = new ArrayList<>(tasks);
+        Map<String, Integer> indexByCode = new HashMap<>(indexed.size() * 2);
+        for (int i = 0; i < indexed.size(); i++) {
+            indexByCode.put(indexed.get(i).getTaskCode(), i);
+        }
+        int[] parent = new int[indexed.size()];
+        int[] size = new int[indexed.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        for (int i = 0; i < indexed.size(); i++) {
+            for (String dependency : indexed.get(i).getDependencies()) {
+                Integer dependencyIndex = indexByCode.get(dependency);
+                if (dependencyIndex != null) {
+                    union(parent, size, i, dependencyIndex);
+                }
+            }
+        }
+        Map<Integer, Set<Task>> componentsByRoot = new LinkedHashMap<>();
+        for (int i = 0; i < indexed.size(); i++) {
+            componentsByRoot.computeIfAbsent(root(parent, i), it -> new HashSet<>()).add(indexed.get(i));
+        }
+        return new ArrayList<>(componentsByRoot.values());
+    }
+
+    private static void union(int[] parent, int[] size, int first, int second) {
+        int firstRoot = root(parent, first);
+        int secondRoot = root(parent, second);
+        if (firstRoot == secondRoot) {
+            return;
+        }
+        if (size[firstRoot] < size[secondRoot]) {
+            int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        parent[secondRoot] = firstRoot;
+        size[firstRoot] += size[secondRoot];
+    }
+
+    private static int root(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+}
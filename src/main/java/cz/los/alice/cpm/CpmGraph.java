@@ -1,12 +1,16 @@
 package cz.los.alice.cpm;
 
+import cz.los.alice.calendar.ScheduleCalendars;
+import cz.los.alice.jfr.GraphPassEvent;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Relation;
 import cz.los.alice.model.Task;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -19,7 +23,11 @@ import static java.util.stream.Collectors.toSet;
  * This class is a bidirectional graph with single starting and ending points.<br>
  * {@link #startNode} - {@link Node} that has a pseudo-task called START. It is linked to all RootTasks in forward direction<br>
  * {@link #endNode} - {@link Node} that has a pseudo-task called END. It is linked to all TerminalTasks in backward direction<br>
- * {@link #nodesByTask} - {@link Map} that groups Nodes by corresponding Task. Used for faster navigation in Graph
+ * {@link #nodesByTask} - {@link Map} that groups Nodes by corresponding Task. Used for faster navigation in Graph<br>
+ * {@link #edgeCount} - number of links between Nodes<br>
+ * {@link #calendars} - working calendars of the tasks, null if days are not bound to dates<br>
+ * {@link #withRelations} - true if any link is not finish-to-start without lag, see {@link Task#getRelations()}<br>
+ * Every pass is recorded as {@link GraphPassEvent} when Flight Recorder is running.
  */
 @Getter
 public class CpmGraph {
@@ -27,13 +35,28 @@ public class CpmGraph {
     private Node startNode;
     private Node endNode;
     private Map<Task, Node> nodesByTask;
+    private int edgeCount;
+    private ScheduleCalendars calendars;
+    private boolean withRelations;
+    @Getter(AccessLevel.NONE)
+    private CpmGraphIndex index;
 
     public CpmGraph(Set<Task> tasks,
                     Map<String, List<Task>> predecessorsByTask,
                     Map<String, List<Task>> successorsByTask) {
+        this(tasks, predecessorsByTask, successorsByTask, null);
+    }
+
+    public CpmGraph(Set<Task> tasks,
+                    Map<String, List<Task>> predecessorsByTask,
+                    Map<String, List<Task>> successorsByTask,
+                    ScheduleCalendars calendars) {
         this.nodesByTask = tasks.stream().collect(Collectors.toMap(Function.identity(), Node::new));
+        this.calendars = calendars;
         createNodeDependencies(predecessorsByTask, successorsByTask);
+        createNodeRelations();
         initStartAndEndNodes();
+        assignCalendars();
     }
 
     /**
@@ -55,24 +78,32 @@ public class CpmGraph {
      * a runtime exception will be thrown indicating that something went wrong
      */
     public void calculateCpmMetricsInForwardDirection() {
+        GraphPassEvent event = new GraphPassEvent();
+        event.begin();
         fillEarliestStartAndFinishForStartNode();
-        Node current = findUnresolvedSuccessorForwardDirection(startNode)
-                .orElseThrow(() -> new RuntimeException("Starting node should have at least one unresolvedSuccessor"));
+        Node current = findUnresolvedSuccessorForwardDirection(startNode);
+        if (current == null) {
+            throw new RuntimeException("Starting node should have at least one unresolvedSuccessor");
+        }
         while (true) {
             if (current.calculateEarliestStartAndFinish()) {
-                if (endNode.equals(current)) {
+                if (endNode == current) {
                     break;
                 }
-                current = findUnresolvedSuccessorForwardDirection(current)
-                        .orElseThrow(() ->
-                                new RuntimeException("Just calculated Node with successors cannot have resolved successors"));
+                current = findUnresolvedSuccessorForwardDirection(current);
+                if (current == null) {
+                    throw new RuntimeException("Just calculated Node with successors cannot have resolved successors");
+                }
             } else {
                 current = findUnresolvedPredecessorForwardDirection(current);
             }
         }
-        nodesByTask.values().stream().filter(it -> !it.isResolvedForward()).findFirst().ifPresent((brokenNode) -> {
-            throw new RuntimeException("All nodes should be in resolved state by now! Broken node:" + brokenNode);
-        });
+        for (var node : nodesByTask.values()) {
+            if (!node.isResolvedForward()) {
+                throw new RuntimeException("All nodes should be in resolved state by now! Broken node:" + node);
+            }
+        }
+        commit(event, GraphPassEvent.FORWARD, endNode.earliestFinishDay());
     }
 
     /**
@@ -94,24 +125,60 @@ public class CpmGraph {
      * a runtime exception will be thrown indicating that something went wrong
      */
     public void calculateCpmMetricsInBackwardDirection() {
+        GraphPassEvent event = new GraphPassEvent();
+        event.begin();
         fillLatestStartAndFinishForEndNode();
-        Node current = findUnresolvedPredecessorBackwardDirection(endNode)
-                .orElseThrow(() -> new RuntimeException("Ending node should have at least one unresolved predecessor"));
+        Node current = findUnresolvedPredecessorBackwardDirection(endNode);
+        if (current == null) {
+            throw new RuntimeException("Ending node should have at least one unresolved predecessor");
+        }
         while (true) {
             if (current.calculateLatestStartAndFinish()) {
-                if (startNode.equals(current)) {
+                if (startNode == current) {
                     break;
                 }
-                current = findUnresolvedPredecessorBackwardDirection(current)
-                        .orElseThrow(() ->
-                                new RuntimeException("Just calculated Node with predecessors cannot have resolved predecessors"));
+                current = findUnresolvedPredecessorBackwardDirection(current);
+                if (current == null) {
+                    throw new RuntimeException("Just calculated Node with predecessors cannot have resolved predecessors");
+                }
             } else {
                 current = findUnresolvedSuccessorBackwardDirection(current);
             }
         }
-        nodesByTask.values().stream().filter(it -> !it.isResolvedBackward()).findFirst().ifPresent((brokenNode) -> {
-            throw new RuntimeException("All nodes should be in resolved state by now! Broken node:" + brokenNode);
-        });
+        for (var node : nodesByTask.values()) {
+            if (!node.isResolvedBackward()) {
+                throw new RuntimeException("All nodes should be in resolved state by now! Broken node:" + node);
+            }
+        }
+        commit(event, GraphPassEvent.BACKWARD, endNode.latestFinishDay());
+    }
+
+    /**
+     * @return {@link CpmGraphIndex} of this graph, created on the first call. Must not be called before both passes
+     * are done.
+     * @throws InvalidScheduleException if the graph has relations other than finish-to-start without lag, queries
+     * over the index measure paths by durations of tasks only
+     */
+    CpmGraphIndex index() {
+        if (withRelations) {
+            throw new InvalidScheduleException(
+                    "Path queries support only finish-to-start dependencies without lag");
+        }
+        if (index == null) {
+            index = CpmGraphIndex.of(this);
+        }
+        return index;
+    }
+
+    private void commit(GraphPassEvent event, String direction, int projectDuration) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.direction = direction;
+            event.nodeCount = nodesByTask.size();
+            event.edgeCount = edgeCount;
+            event.projectDuration = projectDuration;
+            event.commit();
+        }
     }
 
     private void fillEarliestStartAndFinishForStartNode() {
@@ -122,42 +189,46 @@ public class CpmGraph {
     }
 
     private void fillLatestStartAndFinishForEndNode() {
-        endNode.setLatestFinish(endNode.getEarliestFinish());
-        endNode.setLatestStart(endNode.getEarliestStart());
+        endNode.setLatestFinish(endNode.earliestFinishDay());
+        endNode.setLatestStart(endNode.earliestStartDay());
         endNode.setSlack(0);
         endNode.setResolvedBackward(true);
     }
 
-    private static Optional<Node> findUnresolvedSuccessorForwardDirection(Node node) {
-        if (node.getSuccessors() == null) {
-            return Optional.empty();
+    private static Node findUnresolvedSuccessorForwardDirection(Node node) {
+        for (Node successor : node.successorNodes()) {
+            if (!successor.isResolvedForward()) {
+                return successor;
+            }
         }
-        return node.getSuccessors().stream()
-                .filter(it -> !it.isResolvedForward())
-                .findFirst();
+        return null;
     }
 
     private static Node findUnresolvedPredecessorForwardDirection(Node node) {
-        return node.getPredecessors().stream()
-                .filter(it -> !it.isResolvedForward())
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Unresolved Node should have unresolved predecessor"));
+        for (Node predecessor : node.predecessorNodes()) {
+            if (!predecessor.isResolvedForward()) {
+                return predecessor;
+            }
+        }
+        throw new RuntimeException("Unresolved Node should have unresolved predecessor");
     }
 
-    private static Optional<Node> findUnresolvedPredecessorBackwardDirection(Node node) {
-        if (node.getPredecessors() == null) {
-            return Optional.empty();
+    private static Node findUnresolvedPredecessorBackwardDirection(Node node) {
+        for (Node predecessor : node.predecessorNodes()) {
+            if (!predecessor.isResolvedBackward()) {
+                return predecessor;
+            }
         }
-        return node.getPredecessors().stream()
-                .filter(it -> !it.isResolvedBackward())
-                .findFirst();
+        return null;
     }
 
     private static Node findUnresolvedSuccessorBackwardDirection(Node node) {
-        return node.getSuccessors().stream()
-                .filter(it -> !it.isResolvedBackward())
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Unresolved Node should have unresolved successor"));
+        for (Node successor : node.successorNodes()) {
+            if (!successor.isResolvedBackward()) {
+                return successor;
+            }
+        }
+        throw new RuntimeException("Unresolved Node should have unresolved successor");
     }
 
     /**
@@ -175,6 +246,7 @@ public class CpmGraph {
                     .map(nodesByTask::get)
                     .collect(toSet());
             currentNode.setPredecessors(predecessors);
+            edgeCount += predecessors.size();
             Set<Node> successors = successorsByTask.get(taskCode).stream()
                     .map(nodesByTask::get)
                     .collect(toSet());
@@ -182,6 +254,68 @@ public class CpmGraph {
         }
     }
 
+    /**
+     * Encodes {@link Task#getRelations()} next to the links created by
+     * {@link #createNodeDependencies(Map, Map)}. Nodes that have only finish-to-start links without lag keep no
+     * relations at all.
+     */
+    private void createNodeRelations() {
+        for (var node : nodesByTask.values()) {
+            int[] relations = encodeRelations(node, node.predecessorNodes());
+            if (relations != null) {
+                node.setRelations(relations, null);
+                withRelations = true;
+            }
+        }
+        if (!withRelations) {
+            return;
+        }
+        for (var node : nodesByTask.values()) {
+            Node[] successors = node.successorNodes();
+            int[] relations = null;
+            for (int i = 0; i < successors.length; i++) {
+                int relation = RelationCodes.encode(
+                        successors[i].getTask().getRelations().get(node.getTask().getTaskCode()));
+                if (relation != 0) {
+                    if (relations == null) {
+                        relations = new int[successors.length];
+                    }
+                    relations[i] = relation;
+                }
+            }
+            node.setRelations(node.predecessorRelations(), relations);
+        }
+    }
+
+    private static int[] encodeRelations(Node node, Node[] predecessors) {
+        Map<String, Relation> relations = node.getTask().getRelations();
+        if (relations.isEmpty()) {
+            return null;
+        }
+        int[] encoded = null;
+        for (int i = 0; i < predecessors.length; i++) {
+            int relation = RelationCodes.encode(relations.get(predecessors[i].getTask().getTaskCode()));
+            if (relation != 0) {
+                if (encoded == null) {
+                    encoded = new int[predecessors.length];
+                }
+                encoded[i] = relation;
+            }
+        }
+        return encoded;
+    }
+
+    private void assignCalendars() {
+        if (calendars == null) {
+            return;
+        }
+        for (var node : nodesByTask.values()) {
+            if (node != startNode && node != endNode) {
+                node.setCalendar(calendars.forTask(node.getTask()));
+            }
+        }
+    }
+
     private void initStartAndEndNodes() {
         for (var node : nodesByTask.values()) {
             if (START.equals(node.getTask().getTaskCode())) {
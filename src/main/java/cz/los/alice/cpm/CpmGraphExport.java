@@ -0,0 +1,189 @@
+package cz.los.alice.cpm;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import cz.los.alice.jfr.AggregationEvent;
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.Task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writes the tasks of a calculated {@link CpmGraph} straight from its nodes, neither
+ * {@link cz.los.alice.model.EnrichedTask}s nor any other per-task objects are created, so the memory needed on top of
+ * the graph does not depend on the number of tasks. Every task gets the {@link #COLUMNS}: task code, operation,
+ * element, crew name and workers, duration, earliest and latest start and finish, slack and whether the task is
+ * critical, i.e. has no slack. Days are counted as in {@link cz.los.alice.service.ProcessingResult}.<br>
+ * Tasks are written in the order of {@link CpmGraph#getNodesByTask()}, the same order in every column and on every
+ * write. Every write is recorded as {@link AggregationEvent} when Flight Recorder is running.
+ */
+public final class CpmGraphExport {
+
+    public static final List<String> COLUMNS = List.of("taskCode", "operationName", "elementName", "crewName",
+            "workers", "duration", "earliestStart", "earliestFinish", "latestStart", "latestFinish", "slack",
+            "critical");
+
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    private final CpmGraph graph;
+
+    /**
+     * @param graph graph after both passes, see {@link CpmProcessor#buildCpmGraph()}
+     */
+    public CpmGraphExport(CpmGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * @return number of tasks written by every write
+     */
+    public int size() {
+        return graph.getNodesByTask().size() - 2;
+    }
+
+    public int getProjectDuration() {
+        return graph.getEndNode().latestFinishDay();
+    }
+
+    /**
+     * Writes RFC 4180 CSV with a header row of {@link #COLUMNS} and a row per task. Missing names are empty fields,
+     * the critical flag is {@code true} or {@code false}. The writer is neither flushed nor closed.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        writer.write(String.join(String.valueOf(DELIMITER), COLUMNS));
+        writer.write(LINE_SEPARATOR);
+        for (Node node : graph.getNodesByTask().values()) {
+            if (isTask(node)) {
+                Task task = node.getTask();
+                writeField(writer, task.getTaskCode());
+                writeField(writer, task.getOperationName());
+                writeField(writer, task.getElementName());
+                writeField(writer, crewName(task));
+                writeNumbers(writer, workers(task), node.getDuration(), node.earliestStartDay(),
+                        node.earliestFinishDay(), node.latestStartDay(), node.latestFinishDay(), node.slackDays());
+                writer.write(Boolean.toString(isCritical(node)));
+                writer.write(LINE_SEPARATOR);
+            }
+        }
+        commit(event);
+    }
+
+    /**
+     * Writes an object with the project duration, the number of tasks and an array per column named by the plural of
+     * the column, e.g. {@code taskCodes}, {@code earliestStarts} and {@code critical}. The i-th element of every array
+     * belongs to the same task. Missing names are nulls. Works with any Jackson format, binary formats such as Smile
+     * or CBOR keep the numbers binary. The generator is neither flushed nor closed.
+     */
+    public void writeColumns(JsonGenerator generator) throws IOException {
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        generator.writeStartObject();
+        generator.writeNumberField("estimatedProjectDuration", getProjectDuration());
+        generator.writeNumberField("taskCount", size());
+        writeStrings(generator, "taskCodes", Task::getTaskCode);
+        writeStrings(generator, "operationNames", Task::getOperationName);
+        writeStrings(generator, "elementNames", Task::getElementName);
+        writeStrings(generator, "crewNames", CpmGraphExport::crewName);
+        writeNumbers(generator, "workers", node -> workers(node.getTask()));
+        writeNumbers(generator, "durations", Node::getDuration);
+        writeNumbers(generator, "earliestStarts", Node::earliestStartDay);
+        writeNumbers(generator, "earliestFinishes", Node::earliestFinishDay);
+        writeNumbers(generator, "latestStarts", Node::latestStartDay);
+        writeNumbers(generator, "latestFinishes", Node::latestFinishDay);
+        writeNumbers(generator, "slacks", Node::slackDays);
+        generator.writeArrayFieldStart("critical");
+        for (Node node : graph.getNodesByTask().values()) {
+            if (isTask(node)) {
+                generator.writeBoolean(isCritical(node));
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        commit(event);
+    }
+
+    private void writeStrings(JsonGenerator generator, String name, Function<Task, String> column) throws IOException {
+        generator.writeArrayFieldStart(name);
+        for (Node node : graph.getNodesByTask().values()) {
+            if (isTask(node)) {
+                generator.writeString(column.apply(node.getTask()));
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeNumbers(JsonGenerator generator, String name, ToIntFunction<Node> column) throws IOException {
+        generator.writeArrayFieldStart(name);
+        for (Node node : graph.getNodesByTask().values()) {
+            if (isTask(node)) {
+                generator.writeNumber(column.applyAsInt(node));
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value != null) {
+            if (needsQuotes(value)) {
+                writer.write(QUOTE);
+                writer.write(value.replace("\"", "\"\""));
+                writer.write(QUOTE);
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write(DELIMITER);
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == DELIMITER || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeNumbers(Writer writer, int... values) throws IOException {
+        for (int value : values) {
+            writer.write(Integer.toString(value));
+            writer.write(DELIMITER);
+        }
+    }
+
+    private boolean isTask(Node node) {
+        return node != graph.getStartNode() && node != graph.getEndNode();
+    }
+
+    private static boolean isCritical(Node node) {
+        return node.slackDays() == 0;
+    }
+
+    private static String crewName(Task task) {
+        return task.getCrew() == null ? null : task.getCrew().getName();
+    }
+
+    private static int workers(Task task) {
+        Crew crew = task.getCrew();
+        return crew == null || crew.getAssignment() == null ? 0 : crew.getAssignment();
+    }
+
+    private void commit(AggregationEvent event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.aggregation = AggregationEvent.EXPORT;
+            event.nodeCount = graph.getNodesByTask().size();
+            event.projectDuration = getProjectDuration();
+            event.resultSize = size();
+            event.commit();
+        }
+    }
+}
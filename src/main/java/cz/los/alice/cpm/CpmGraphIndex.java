@@ -0,0 +1,131 @@
+package cz.los.alice.cpm;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A read-only snapshot of an already calculated {@link CpmGraph} in primitive arrays, used by queries that walk
+ * the graph many times. Every {@link Node} gets an index, CPM values of the node are stored at that index and
+ * successors of all nodes are kept in a single array, where successors of node {@code i} occupy positions
+ * {@code successorOffsets[i]} to {@code successorOffsets[i + 1] - 1}.<br>
+ * Successors of every node are ordered by their latest start ascending, that is the successor that lies on the longest
+ * remaining path comes first. Predecessors are kept the same way in {@link #predecessors}.<br>
+ * {@link #topologicalOrder} lists all nodes so that every node comes after all of its predecessors,
+ * {@link #topologicalPosition} is the inverse of it.
+ */
+final class CpmGraphIndex {
+
+    final Node[] nodes;
+    final int[] duration;
+    final int[] earliestStart;
+    final int[] latestStart;
+    final int[] latestFinish;
+    final int[] slack;
+    final int[] successorOffsets;
+    final int[] successors;
+    final int[] predecessorOffsets;
+    final int[] predecessors;
+    final int[] topologicalOrder;
+    final int[] topologicalPosition;
+    final int start;
+    final int end;
+    final int projectDuration;
+
+    private CpmGraphIndex(CpmGraph graph) {
+        Map<Node, Integer> indexes = new IdentityHashMap<>(graph.getNodesByTask().size() * 2);
+        nodes = graph.getNodesByTask().values().toArray(new Node[0]);
+        int size = nodes.length;
+        duration = new int[size];
+        earliestStart = new int[size];
+        latestStart = new int[size];
+        latestFinish = new int[size];
+        slack = new int[size];
+        successorOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            Node node = nodes[i];
+            indexes.put(node, i);
+            duration[i] = node.getDuration();
+            earliestStart[i] = node.earliestStartDay();
+            latestStart[i] = node.latestStartDay();
+            latestFinish[i] = node.latestFinishDay();
+            slack[i] = node.slackDays();
+            successorOffsets[i + 1] = successorOffsets[i] + node.successorNodes().length;
+        }
+        successors = new int[successorOffsets[size]];
+        long[] sortKeys = new long[successors.length];
+        for (int i = 0; i < size; i++) {
+            int offset = successorOffsets[i];
+            Node[] nodeSuccessors = nodes[i].successorNodes();
+            for (int s = 0; s < nodeSuccessors.length; s++) {
+                int successor = indexes.get(nodeSuccessors[s]);
+                sortKeys[offset + s] = ((long) latestStart[successor] << 32) | successor;
+            }
+            Arrays.sort(sortKeys, offset, successorOffsets[i + 1]);
+            for (int s = offset; s < successorOffsets[i + 1]; s++) {
+                successors[s] = (int) sortKeys[s];
+            }
+        }
+        predecessorOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            predecessorOffsets[i + 1] = predecessorOffsets[i] + nodes[i].predecessorNodes().length;
+        }
+        predecessors = new int[predecessorOffsets[size]];
+        for (int i = 0; i < size; i++) {
+            Node[] nodePredecessors = nodes[i].predecessorNodes();
+            for (int p = 0; p < nodePredecessors.length; p++) {
+                predecessors[predecessorOffsets[i] + p] = indexes.get(nodePredecessors[p]);
+            }
+        }
+        start = indexes.get(graph.getStartNode());
+        end = indexes.get(graph.getEndNode());
+        projectDuration = latestFinish[end];
+        topologicalOrder = createTopologicalOrder();
+        topologicalPosition = new int[size];
+        for (int position = 0; position < size; position++) {
+            topologicalPosition[topologicalOrder[position]] = position;
+        }
+    }
+
+    private int[] createTopologicalOrder() {
+        int size = nodes.length;
+        int[] unresolvedPredecessors = new int[size];
+        for (int i = 0; i < size; i++) {
+            unresolvedPredecessors[i] = predecessorOffsets[i + 1] - predecessorOffsets[i];
+        }
+        int[] order = new int[size];
+        int read = 0;
+        int write = 0;
+        order[write++] = start;
+        while (read < write) {
+            int node = order[read++];
+            for (int s = successorOffsets[node]; s < successorOffsets[node + 1]; s++) {
+                if (--unresolvedPredecessors[successors[s]] == 0) {
+                    order[write++] = successors[s];
+                }
+            }
+        }
+        if (write != size) {
+            throw new RuntimeException("All nodes should be reachable from the START node");
+        }
+        return order;
+    }
+
+    /**
+     * @param graph a graph with both forward and backward passes done
+     */
+    static CpmGraphIndex of(CpmGraph graph) {
+        return new CpmGraphIndex(graph);
+    }
+
+    /**
+     * @return length of the longest path from the finish of node {@code i} to the end of the project
+     */
+    int tail(int i) {
+        return projectDuration - latestFinish[i];
+    }
+
+    String taskCode(int i) {
+        return nodes[i].getTask().getTaskCode();
+    }
+}
@@ -0,0 +1,30 @@
+package cz.los.alice.cpm;
+
+/**
+ * Receives notifications about phases of building a {@link CpmGraph} by {@link CpmProcessor#buildCpmGraph(
+ * CpmGraphListener)}. All methods are called on the thread that builds the graph, an exception thrown by a listener
+ * stops the build.
+ */
+public interface CpmGraphListener {
+
+    CpmGraphListener NONE = new CpmGraphListener() {
+    };
+
+    /**
+     * Nodes of the graph are linked, no CPM values are calculated yet.
+     */
+    default void graphBuilt(CpmGraph graph) {
+    }
+
+    /**
+     * The earliest starts and finishes are calculated, the project duration is known.
+     */
+    default void forwardPassDone(CpmGraph graph) {
+    }
+
+    /**
+     * The latest starts and finishes and slack are calculated.
+     */
+    default void backwardPassDone(CpmGraph graph) {
+    }
+}
@@ -1,22 +1,32 @@
 package cz.los.alice.cpm;
 
+import cz.los.alice.calendar.ProjectCalendar;
+import cz.los.alice.calendar.ScheduleCalendars;
+import cz.los.alice.jfr.AggregationEvent;
 import cz.los.alice.model.EnrichedTask;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.NearCriticalTask;
+import cz.los.alice.model.RollUpGroup;
 import cz.los.alice.model.Task;
+import cz.los.alice.model.TaskPath;
+import cz.los.alice.model.WorkloadProfile;
+import cz.los.alice.model.WorkloadProfiles;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.toList;
-
 /**
  * This class keeps the aggregated data from the parsed input and creates a Graph to utilize Critical Path Method.<br>
  * {@link #allTasks} - all tasks needed to finish the project<br>
@@ -24,16 +34,27 @@ import static java.util.stream.Collectors.toList;
  * {@link #terminalTasks} - a Set of Tasks that does not have any successors<br>
  * {@link #predecessorsByTask} - a Map that groups Tasks by predecessor's {@link Task#getTaskCode()}.<br>
  * {@link #successorsByTask} - a Map that groups Tasks by successor's {@link Task#getTaskCode()}.<br>
+ * {@link #calendars} - working calendars of the tasks, null if days are not bound to dates<br>
+ * {@link #removedDependencyCount} - number of redundant dependencies left out of the graph by the transitive
+ * reduction<br>
+ * Every aggregation of a calculated graph is recorded as {@link AggregationEvent} when Flight Recorder is running.
  */
 @Getter
 @Setter
 public class CpmProcessor {
 
+    private static final int ENVELOPE_PROFILE = 0;
+    private static final int EARLIEST_PROFILE = 1;
+    private static final int LATEST_PROFILE = 2;
+    private static final int PROFILE_COUNT = 3;
+
     private Set<Task> allTasks;
     private Set<Task> rootTasks;
     private Set<Task> terminalTasks;
     private Map<String, List<Task>> predecessorsByTask;
     private Map<String, List<Task>> successorsByTask;
+    private ScheduleCalendars calendars;
+    private int removedDependencyCount;
 
     public CpmProcessor(Set<Task> allTasks) {
         this.allTasks = new HashSet<>(allTasks);
@@ -45,35 +66,199 @@ public class CpmProcessor {
      * @return a {@link CpmGraph}
      */
     public CpmGraph buildCpmGraph() {
-        CpmGraph graph = new CpmGraph(allTasks, predecessorsByTask, successorsByTask);
+        return buildCpmGraph(CpmGraphListener.NONE);
+    }
+
+    /**
+     * Same as {@link #buildCpmGraph()}, the listener is notified after every phase.
+     * @param listener {@link CpmGraphListener}
+     * @return {@link CpmGraph}
+     */
+    public CpmGraph buildCpmGraph(CpmGraphListener listener) {
+        CpmGraph graph = new CpmGraph(allTasks, predecessorsByTask, successorsByTask, calendars);
+        listener.graphBuilt(graph);
 
         graph.calculateCpmMetricsInForwardDirection();
+        listener.forwardPassDone(graph);
         graph.calculateCpmMetricsInBackwardDirection();
+        listener.backwardPassDone(graph);
 
         return graph;
     }
 
     /**
      * Constructs a sorted List of {@link Task}'s task codes that lie on the critical path of the project. The logic
-     * starts with the START node and finds a first successor with {@link Node}'s slack == 0. Then the same logic applies
-     * to just found node until the END node is reached.
+     * starts with the START node and finds a successor with the least {@link Node}'s slack, that is slack == 0 without
+     * calendars. Then the same logic applies to just found node until the END node is reached. With working calendars
+     * a task followed by days off of its successor can have slack while still driving the successor, so the least
+     * slack is used instead of zero slack. Among successors with the same slack the one driven by the node is
+     * preferred, e.g. a successor that starts right when the node finishes or a start-to-start successor that starts
+     * exactly its lag after the node, then the one that finishes first, then the one with the shorter chain of
+     * predecessors and then the least task code. A dependency that is implied by a chain of other dependencies is
+     * therefore never followed instead of the chain, so {@link TransitiveReduction} does not change the path.
      * @param cpmGraph {@link CpmGraph}
      * @return a sorted List of {@link Task}'s task codes that lie on the critical path of the project.
      */
     public List<String> buildCriticalPath(CpmGraph cpmGraph) {
-        LinkedList<Node> criticalPath = new LinkedList<>();
-        Node current = cpmGraph.getStartNode();
-        while (!cpmGraph.getEndNode().equals(current)) {
-            criticalPath.add(current.getSuccessors().stream()
-                    .filter(it -> it.getSlack() == 0)
-                    .min(Comparator.comparingInt(node -> node.getTask().hashCode()))
-                    .orElseThrow(() -> new RuntimeException("Non-ending node should have at least one successor")));
-            current = criticalPath.peekLast();
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        List<String> criticalPath = new ArrayList<>();
+        Node endNode = cpmGraph.getEndNode();
+        Node current = findCriticalSuccessor(cpmGraph.getStartNode());
+        while (current != endNode) {
+            criticalPath.add(current.getTask().getTaskCode());
+            current = findCriticalSuccessor(current);
+        }
+        commit(event, AggregationEvent.CRITICAL_PATH, cpmGraph, criticalPath.size());
+        return criticalPath;
+    }
+
+    private static Node findCriticalSuccessor(Node node) {
+        Node[] successors = node.successorNodes();
+        int[] relations = node.successorRelations();
+        Node critical = null;
+        boolean criticalDriven = false;
+        for (int i = 0; i < successors.length; i++) {
+            Node successor = successors[i];
+            boolean driven = relations == null
+                    ? successor.earliestStartDay() == node.earliestFinishDay()
+                    : isDriven(node, successor, relations[i]);
+            if (critical == null || isMoreCritical(successor, driven, critical, criticalDriven)) {
+                critical = successor;
+                criticalDriven = driven;
+            }
+        }
+        if (critical == null) {
+            throw new RuntimeException("Non-ending node should have at least one successor");
+        }
+        return critical;
+    }
+
+    private static boolean isMoreCritical(Node successor, boolean driven, Node critical, boolean criticalDriven) {
+        if (successor.slackDays() != critical.slackDays()) {
+            return successor.slackDays() < critical.slackDays();
+        }
+        if (driven != criticalDriven) {
+            return driven;
+        }
+        if (successor.earliestFinishDay() != critical.earliestFinishDay()) {
+            return successor.earliestFinishDay() < critical.earliestFinishDay();
+        }
+        if (successor.depth() != critical.depth()) {
+            return successor.depth() < critical.depth();
+        }
+        return successor.getTask().getTaskCode().compareTo(critical.getTask().getTaskCode()) < 0;
+    }
+
+    /**
+     * @return true if the earliest start or finish of the successor is set by the relation with the node
+     */
+    private static boolean isDriven(Node node, Node successor, int relation) {
+        int lag = RelationCodes.lag(relation);
+        switch (RelationCodes.type(relation)) {
+            case RelationCodes.SS:
+                return successor.earliestStartDay() == node.earliestStartDay() + lag;
+            case RelationCodes.FF:
+                return successor.earliestFinishDay() == node.earliestFinishDay() + lag;
+            case RelationCodes.SF:
+                return successor.earliestFinishDay() == node.earliestStartDay() + lag;
+            default:
+                return successor.earliestStartDay() == node.earliestFinishDay() + lag;
         }
-        return criticalPath.stream()
-                .filter(node -> !cpmGraph.getEndNode().equals(node))
-                .map(node -> node.getTask().getTaskCode())
-                .collect(toList());
+    }
+
+    /**
+     * Finds up to {@code count} longest paths of the project, the first one is always a critical path.<br>
+     * The search is a best-first search over partial paths starting from the START node. A partial path ending in
+     * a node is ranked by its length so far plus the longest remaining path from that node to the END node, which is
+     * already known from the backward pass. As this estimate is exact, complete paths leave the queue in the order
+     * of decreasing length and the search stops as soon as {@code count} of them left it.<br>
+     * Successors of a node are pushed lazily: a partial path is followed by its best successor only and the next
+     * successor of the same node is pushed when the previous one leaves the queue. The queue therefore stays
+     * proportional to {@code count} times the length of a path, no matter how many successors the nodes have,
+     * and the paths are never enumerated.
+     * @param cpmGraph {@link CpmGraph}
+     * @param count maximum number of paths to find, at least 1
+     * @return paths sorted by length descending, paths of equal length in a stable order
+     */
+    public List<TaskPath> findLongestPaths(CpmGraph cpmGraph, int count) {
+        if (count < 1) {
+            throw new InvalidScheduleException("Number of paths should be at least 1");
+        }
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        CpmGraphIndex index = cpmGraph.index();
+        PriorityQueue<PathState> queue = new PriorityQueue<>();
+        long sequence = 0;
+        queue.add(new PathState(null, index.start, -1, 0, index.projectDuration, sequence++));
+        List<TaskPath> paths = new ArrayList<>(count);
+        while (paths.size() < count && !queue.isEmpty()) {
+            PathState state = queue.poll();
+            PathState parent = state.parent;
+            if (parent != null && index.successorOffsets[parent.node] + state.rank + 1
+                    < index.successorOffsets[parent.node + 1]) {
+                queue.add(successorState(index, parent, state.rank + 1, sequence++));
+            }
+            if (state.node == index.end) {
+                paths.add(toTaskPath(index, state));
+            } else if (index.successorOffsets[state.node] < index.successorOffsets[state.node + 1]) {
+                queue.add(successorState(index, state, 0, sequence++));
+            }
+        }
+        commit(event, AggregationEvent.LONGEST_PATHS, cpmGraph, paths.size());
+        return paths;
+    }
+
+    private static PathState successorState(CpmGraphIndex index, PathState parent, int rank, long sequence) {
+        int node = index.successors[index.successorOffsets[parent.node] + rank];
+        int finish = parent.finish + index.duration[node];
+        return new PathState(parent, node, rank, finish, finish + index.tail(node), sequence);
+    }
+
+    private static TaskPath toTaskPath(CpmGraphIndex index, PathState endState) {
+        List<String> taskCodes = new ArrayList<>();
+        for (PathState state = endState.parent; state != null && state.node != index.start; state = state.parent) {
+            taskCodes.add(index.taskCode(state.node));
+        }
+        Collections.reverse(taskCodes);
+        return new TaskPath(endState.finish, taskCodes);
+    }
+
+    /**
+     * Extracts the subgraph of tasks that become critical after a delay of at most {@code slackThreshold} days,
+     * together with the length of the longest path of the project that goes through every such task.
+     * With threshold 0 the subgraph contains exactly the tasks of all critical paths.
+     * @param cpmGraph {@link CpmGraph}
+     * @param slackThreshold maximum slack of an included task, in days
+     * @return near-critical tasks sorted by the earliest start, then by slack and task code
+     */
+    public List<NearCriticalTask> extractNearCriticalTasks(CpmGraph cpmGraph, int slackThreshold) {
+        if (slackThreshold < 0) {
+            throw new InvalidScheduleException("Slack threshold should not be negative");
+        }
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        CpmGraphIndex index = cpmGraph.index();
+        List<NearCriticalTask> tasks = new ArrayList<>();
+        for (int i = 0; i < index.nodes.length; i++) {
+            if (i == index.start || i == index.end || index.slack[i] > slackThreshold) {
+                continue;
+            }
+            List<String> successors = new ArrayList<>();
+            for (int s = index.successorOffsets[i]; s < index.successorOffsets[i + 1]; s++) {
+                int successor = index.successors[s];
+                if (successor != index.end && index.slack[successor] <= slackThreshold) {
+                    successors.add(index.taskCode(successor));
+                }
+            }
+            tasks.add(new NearCriticalTask(index.taskCode(i), index.earliestStart[i], index.slack[i],
+                    index.projectDuration - index.slack[i], successors));
+        }
+        tasks.sort(Comparator.comparingInt(NearCriticalTask::getEarliestStart)
+                .thenComparingInt(NearCriticalTask::getSlack)
+                .thenComparing(NearCriticalTask::getTaskCode));
+        commit(event, AggregationEvent.NEAR_CRITICAL_TASKS, cpmGraph, tasks.size());
+        return tasks;
     }
 
     /**
@@ -85,21 +270,145 @@ public class CpmProcessor {
      * @return a Map that contains a number of workers for every day of project duration
      */
     public Map<Integer, Integer> createWorkersOnSiteStatistics(CpmGraph cpmGraph) {
+        int[] histogram = createWorkersOnSiteHistogram(cpmGraph);
         Map<Integer, Integer> workersOnSiteStatistics = new TreeMap<>();
+        for (int day = 0; day < histogram.length; day++) {
+            workersOnSiteStatistics.put(day, histogram[day]);
+        }
+        return workersOnSiteStatistics;
+    }
 
-        Collection<Node> allNodes = cpmGraph.getNodesByTask().values();
+    /**
+     * Same statistics as {@link #createWorkersOnSiteStatistics(CpmGraph)} in a primitive array indexed by day.
+     * Every node adds its workers at its earliest start and removes them at its latest finish, a single prefix sum over
+     * the days then gives the number of workers for every day, so the cost is linear in nodes plus days.<br>
+     * If the graph has working calendars the sums are kept per calendar and workers of a calendar are counted only
+     * on its working days, the cost is then linear in nodes plus days times calendars.
+     * @param cpmGraph {@link CpmGraph}
+     * @return an array of project duration + 1 elements with a number of workers for every day
+     */
+    public int[] createWorkersOnSiteHistogram(CpmGraph cpmGraph) {
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        int[] histogram = createHistograms(cpmGraph, 1);
+        commit(event, AggregationEvent.WORKERS_ON_SITE, cpmGraph, histogram.length);
+        return histogram;
+    }
 
-        int projectDuration = cpmGraph.getEndNode().getLatestFinish();
+    /**
+     * Creates the as-soon-as-possible, the as-late-as-possible and the worst case profile of workers on site together,
+     * in a single pass over the nodes, see {@link WorkloadProfiles}. Every profile has the same days as
+     * {@link #createWorkersOnSiteHistogram(CpmGraph)} and counts working days of calendars the same way.
+     * @param cpmGraph {@link CpmGraph}
+     * @return {@link WorkloadProfiles}
+     */
+    public WorkloadProfiles createWorkloadProfiles(CpmGraph cpmGraph) {
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        int[] histograms = createHistograms(cpmGraph, PROFILE_COUNT);
+        int days = histograms.length / PROFILE_COUNT;
+        WorkloadProfiles profiles = new WorkloadProfiles(
+                createWorkloadProfile(histograms, EARLIEST_PROFILE * days, days),
+                createWorkloadProfile(histograms, LATEST_PROFILE * days, days),
+                createWorkloadProfile(histograms, ENVELOPE_PROFILE * days, days));
+        commit(event, AggregationEvent.WORKLOAD_PROFILES, cpmGraph, histograms.length);
+        return profiles;
+    }
 
-        for (int day = 0; day <= projectDuration; day++) {
-            int currentDay = day;
-            workersOnSiteStatistics.put(currentDay, allNodes.stream()
-                    .filter(it -> currentDay >= it.getEarliestStart() && currentDay < it.getLatestFinish())
-                    .map(it -> it.getTask().getCrew().getAssignment())
-                    .reduce(Integer::sum)
-                    .orElse(0));
+    /**
+     * Every node adds its workers to a profile at its start and removes them at its finish, a single prefix sum over
+     * the days of every profile then gives the number of workers for every day. The first {@code profileCount}
+     * profiles of {@link #ENVELOPE_PROFILE}, {@link #EARLIEST_PROFILE} and {@link #LATEST_PROFILE} are kept one after
+     * another in one array.
+     * @return profiles of project duration + 1 days each
+     */
+    private static int[] createHistograms(CpmGraph cpmGraph, int profileCount) {
+        int projectDuration = cpmGraph.getEndNode().latestFinishDay();
+        int days = projectDuration + 1;
+        int[] histograms = new int[profileCount * days];
+        Map<ProjectCalendar, int[]> histogramsByCalendar = new IdentityHashMap<>();
+        for (Node node : cpmGraph.getNodesByTask().values()) {
+            Integer assignment = node.getTask().getCrew().getAssignment();
+            if (assignment == null || assignment == 0) {
+                continue;
+            }
+            int[] nodeHistograms = node.getCalendar() == null
+                    ? histograms
+                    : histogramsByCalendar.computeIfAbsent(node.getCalendar(), it -> new int[profileCount * days]);
+            addWorkers(nodeHistograms, ENVELOPE_PROFILE * days, days,
+                    node.earliestStartDay(), node.latestFinishDay(), assignment);
+            if (profileCount > EARLIEST_PROFILE) {
+                addWorkers(nodeHistograms, EARLIEST_PROFILE * days, days,
+                        node.earliestStartDay(), node.earliestFinishDay(), assignment);
+            }
+            if (profileCount > LATEST_PROFILE) {
+                addWorkers(nodeHistograms, LATEST_PROFILE * days, days,
+                        node.latestStartDay(), node.latestFinishDay(), assignment);
+            }
+        }
+        for (int profile = 0; profile < profileCount; profile++) {
+            accumulate(histograms, profile * days, days);
+        }
+        for (var calendarHistograms : histogramsByCalendar.entrySet()) {
+            int[] workers = calendarHistograms.getValue();
+            for (int profile = 0; profile < profileCount; profile++) {
+                accumulate(workers, profile * days, days);
+            }
+            for (int day = 0; day < days; day++) {
+                if (calendarHistograms.getKey().isWorkingDay(day)) {
+                    for (int offset = day; offset < workers.length; offset += days) {
+                        histograms[offset] += workers[offset];
+                    }
+                }
+            }
+        }
+        return histograms;
+    }
+
+    private static void addWorkers(int[] histograms, int offset, int days, int start, int finish, int assignment) {
+        if (start >= finish) {
+            return;
+        }
+        histograms[offset + start] += assignment;
+        if (finish < days) {
+            histograms[offset + finish] -= assignment;
+        }
+    }
+
+    private static void accumulate(int[] histograms, int offset, int days) {
+        for (int day = offset + 1; day < offset + days; day++) {
+            histograms[day] += histograms[day - 1];
         }
-        return workersOnSiteStatistics;
+    }
+
+    /**
+     * @return profile of the given days of the histograms with the earliest of its most busy days
+     */
+    private static WorkloadProfile createWorkloadProfile(int[] histograms, int offset, int days) {
+        int[] workers = Arrays.copyOfRange(histograms, offset, offset + days);
+        int peakDay = 0;
+        for (int day = 1; day < days; day++) {
+            if (workers[day] > workers[peakDay]) {
+                peakDay = day;
+            }
+        }
+        return new WorkloadProfile(peakDay, workers[peakDay], workers);
+    }
+
+    /**
+     * Rolls durations, slack and workers of the tasks up the hierarchy of their element names by {@link RollUpBuilder}.
+     * @param cpmGraph {@link CpmGraph}
+     * @param hierarchy {@link ElementHierarchy} the element names are split by
+     * @param path element name prefix of the group to return, e.g. {@code B1_A}, empty for the whole project
+     * @param depth number of levels below the group to include in the result
+     * @return {@link RollUpGroup} of the given path with its descendants down to the given depth
+     */
+    public RollUpGroup createRollUp(CpmGraph cpmGraph, ElementHierarchy hierarchy, String path, int depth) {
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        RollUpGroup rollUp = new RollUpBuilder(hierarchy, path, depth).build(cpmGraph);
+        commit(event, AggregationEvent.ROLL_UP, cpmGraph, rollUp.getChildren().size());
+        return rollUp;
     }
 
     /**
@@ -107,11 +416,62 @@ public class CpmProcessor {
      * @return The list of Tasks needed to complete the project with start and end intervals, represented as List<{@link cz.los.alice.model.EnrichedTask}
      */
     public List<EnrichedTask> createEnrichedTasks(CpmGraph graph) {
-        return graph.getNodesByTask().values().stream()
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        List<EnrichedTask> enrichedTasks = graph.getNodesByTask().values().stream()
                 .filter(it -> !it.equals(graph.getStartNode()) && !it.equals(graph.getEndNode()))
                 .map(Node::getEnrichedTask)
                 .sorted()
                 .collect(Collectors.toList());
+        commit(event, AggregationEvent.ENRICHED_TASKS, graph, enrichedTasks.size());
+        return enrichedTasks;
     }
 
+    private static void commit(AggregationEvent event, String aggregation, CpmGraph cpmGraph, int resultSize) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.aggregation = aggregation;
+            event.nodeCount = cpmGraph.getNodesByTask().size();
+            event.projectDuration = cpmGraph.getEndNode().latestFinishDay();
+            event.resultSize = resultSize;
+            event.commit();
+        }
+    }
+
+    /**
+     * A partial path of {@link #findLongestPaths(CpmGraph, int)} that ends in {@link #node}, linked to the partial
+     * path it was extended from.<br>
+     * {@link #rank} - position of {@link #node} among successors of the parent node<br>
+     * {@link #finish} - length of the partial path<br>
+     * {@link #bound} - length of the longest complete path with this prefix
+     */
+    private static final class PathState implements Comparable<PathState> {
+
+        private final PathState parent;
+        private final int node;
+        private final int rank;
+        private final int finish;
+        private final int bound;
+        private final long sequence;
+
+        private PathState(PathState parent, int node, int rank, int finish, int bound, long sequence) {
+            this.parent = parent;
+            this.node = node;
+            this.rank = rank;
+            this.finish = finish;
+            this.bound = bound;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PathState other) {
+            if (bound != other.bound) {
+                return Integer.compare(other.bound, bound);
+            }
+            if (finish != other.finish) {
+                return Integer.compare(other.finish, finish);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
 }
@@ -1,29 +1,58 @@
 package cz.los.alice.cpm;
 
+import cz.los.alice.calendar.ScheduleCalendars;
+import cz.los.alice.jfr.ProcessorCreatedEvent;
 import cz.los.alice.model.Crew;
 import cz.los.alice.model.Task;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
 /**
- * A factory class that supplies with new {@link CpmProcessor} instances.
+ * A factory class that supplies with new {@link CpmProcessor} instances.<br>
+ * {@link #transitiveReduction} - whether dependencies implied by other dependencies are left out of the graph,
+ * see {@link TransitiveReduction}, {@code alice.cpm.transitive-reduction} and false by default
  */
+@Slf4j
 @Component
 public class CpmProcessorFactory {
 
     public static final String START = "START";
     public static final String END = "END";
+    /**
+     * Version of the results of the engine. Has to be changed whenever the same input starts to give a different
+     * result, e.g. a changed algorithm or a new field of the result, so clients do not keep stale cached results.
+     */
+    public static final String ENGINE_VERSION = "1";
+
+    @Setter
+    @Value("${alice.cpm.transitive-reduction:false}")
+    private boolean transitiveReduction;
+
+    /**
+     * Identifies the results of the processors supplied by this factory, {@link #ENGINE_VERSION} together with
+     * the options that change the result of the same input, e.g. the critical path or the number of removed
+     * dependencies with {@link #transitiveReduction}.
+     * @return engine version followed by the enabled options
+     */
+    public String getEngineOptions() {
+        return transitiveReduction ? ENGINE_VERSION + "+transitive-reduction" : ENGINE_VERSION;
+    }
 
     /**
      * Constructs a new instance of {@link CpmProcessor} based on a Set of {@link Task}s<br>
@@ -31,29 +60,73 @@ public class CpmProcessorFactory {
      * 1) A Set of Tasks that does not have any predecessors is gathered from all Tasks Set.
      * These tasks are considered as "RootTasks" - potential starting points of the project.<br>
      * 2) A Set of Tasks that does not have successors is gathered from all Tasks Set.
-     * These tasks are considered as "TerminalTasks" - potential ending points of the project.<br>
+     * These tasks are considered as "TerminalTasks" - potential ending points of the project. A task whose successors
+     * can all finish before it does, because of their {@link Task#getRelations()}, is a TerminalTask as well.<br>
      * 3) A pseudo-tasks called START and END with "0" duration and "0" workers are created.
      * Root tasks are linked with the START task and Terminal tasks are linked with the END task.
-     * This is needed to narrow the Graph that will be created in future down to a single start and end point.<br>
+     * This is needed to narrow the Graph that will be created in future down to a single start and end point.
+     * Provided tasks are never modified, the link to START exists only in the predecessors Map, so the same
+     * Set of tasks can be shared by any number of concurrently created processors.<br>
      * 4) Two Maps are created in the end, that group Tasks by predecessor's and successor's {@link Task#getTaskCode()}.
      * This is needed to ease the searching when constructing a Graph and calculations related to this.
+     * With {@link #transitiveReduction} redundant dependencies are not resolved into predecessors, the result of
+     * the calculation stays the same.<br>
+     * The construction is recorded as {@link ProcessorCreatedEvent} when Flight Recorder is running.
      * @param tasks - a Set of tasks needed to complete the project
      * @return {@link CpmProcessor}
      */
     public CpmProcessor createCpmProcessor(Set<Task> tasks) {
+        return createCpmProcessor(tasks, null);
+    }
+
+    /**
+     * Same as {@link #createCpmProcessor(Set)} for tasks that work by calendars.
+     * @param tasks - a Set of tasks needed to complete the project
+     * @param calendars - working calendars of the tasks, null if days are not bound to dates
+     * @return {@link CpmProcessor}
+     */
+    public CpmProcessor createCpmProcessor(Set<Task> tasks, ScheduleCalendars calendars) {
         if (ObjectUtils.isEmpty(tasks)) {
             throw new IllegalArgumentException("Provided tasks Set should not be null and have at least one task");
         }
+        ProcessorCreatedEvent event = new ProcessorCreatedEvent();
+        event.begin();
         CpmProcessor processor = new CpmProcessor(tasks);
+        processor.setCalendars(calendars);
         processor.setRootTasks(findRootTasks(processor));
         processor.setTerminalTasks(findTerminalTasks(processor));
-        prepareStartPoint(processor);
+        Map<String, Set<String>> redundantDependencies = transitiveReduction
+                ? TransitiveReduction.findRedundantDependencies(tasks)
+                : Map.of();
+        Task startTask = prepareStartPoint(processor);
         prepareEndPoint(processor);
-        processor.setPredecessorsByTask(createPredecessorsByTask(processor));
+        processor.setPredecessorsByTask(createPredecessorsByTask(processor, startTask, redundantDependencies));
         processor.setSuccessorsByTask(createSuccessorsByTask(processor));
+        processor.setRemovedDependencyCount(redundantDependencies.values().stream().mapToInt(Set::size).sum());
+        if (processor.getRemovedDependencyCount() > 0) {
+            log.debug("Transitive reduction removed {} redundant dependencies of {} tasks",
+                    processor.getRemovedDependencyCount(), tasks.size());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.taskCount = processor.getAllTasks().size();
+            event.edgeCount = countEdges(processor);
+            event.rootTaskCount = processor.getRootTasks().size();
+            event.terminalTaskCount = processor.getTerminalTasks().size();
+            event.removedEdgeCount = processor.getRemovedDependencyCount();
+            event.commit();
+        }
         return processor;
     }
 
+    private static int countEdges(CpmProcessor processor) {
+        int edges = 0;
+        for (var predecessors : processor.getPredecessorsByTask().values()) {
+            edges += predecessors.size();
+        }
+        return edges;
+    }
+
     /**
      * Finds Tasks that does not have any predecessors
      * @param processor {@link CpmProcessor} that is being build.
@@ -67,28 +140,35 @@ public class CpmProcessorFactory {
     }
 
     /**
-     * Finds Tasks that does not have any successors
+     * Finds Tasks that does not have any successors that have to finish after them
      * @param processor {@link CpmProcessor} that is being build.
      * @return a Set of tasks that are considered as potential ending points of the project.
      */
     private Set<Task> findTerminalTasks(CpmProcessor processor) {
         Set<Task> tasks = processor.getAllTasks();
-        return tasks.stream().filter(it -> {
-            for (var task : tasks) {
-                if (task.getDependencies().contains(it.getTaskCode())) {
-                    return false;
+        Set<String> referencedTaskCodes = new HashSet<>();
+        for (var task : tasks) {
+            if (task.getRelations().isEmpty()) {
+                referencedTaskCodes.addAll(task.getDependencies());
+                continue;
+            }
+            for (String dependency : task.getDependencies()) {
+                if (RelationCodes.keepsFinishOrder(task.getRelations().get(dependency))) {
+                    referencedTaskCodes.add(dependency);
                 }
             }
-            return true;
-        }).collect(toSet());
+        }
+        return tasks.stream()
+                .filter(it -> !referencedTaskCodes.contains(it.getTaskCode()))
+                .collect(toSet());
     }
 
     /**
      * Creates a pseudo-tasks called START with "0" duration and "0" workers.
-     * Root tasks are linked with the START task.
      * @param processor {@link CpmProcessor} that is being build.
+     * @return the START task
      */
-    private void prepareStartPoint(CpmProcessor processor) {
+    private Task prepareStartPoint(CpmProcessor processor) {
         Set<Task> tasks = processor.getAllTasks();
         Task startTask = Task.builder()
                 .taskCode(START)
@@ -99,15 +179,8 @@ public class CpmProcessorFactory {
                 .operationName(START)
                 .dependencies(Collections.emptyList())
                 .build();
-        createDependencyOnStartTaskForRootTasks(processor, startTask);
         tasks.add(startTask);
-    }
-
-    private void createDependencyOnStartTaskForRootTasks(CpmProcessor processor, Task startTask) {
-        Set<Task> rootTasks = processor.getRootTasks();
-        for (var rootTask : rootTasks) {
-            rootTask.setDependencies(List.of(startTask.getTaskCode()));
-        }
+        return startTask;
     }
 
     /**
@@ -132,41 +205,57 @@ public class CpmProcessorFactory {
     }
 
     /**
+     * Root tasks get the START task as their only predecessor, all other tasks get predecessors resolved from
+     * {@link Task#getDependencies()} by a lookup in a Map of all Tasks by {@link Task#getTaskCode()}.
      * @param processor {@link CpmProcessor} that is being build.
+     * @param startTask pseudo-task START
+     * @param redundantDependencies dependencies to leave out by the code of the dependent task
      * @return a Map that groups Tasks by predecessor's {@link Task#getTaskCode()}.
      */
-    private Map<String, List<Task>> createPredecessorsByTask(CpmProcessor processor) {
+    private Map<String, List<Task>> createPredecessorsByTask(CpmProcessor processor, Task startTask,
+                                                             Map<String, Set<String>> redundantDependencies) {
         Set<Task> tasks = processor.getAllTasks();
+        Set<Task> rootTasks = processor.getRootTasks();
+        Map<String, Task> tasksByCode = tasks.stream().collect(toMap(Task::getTaskCode, Function.identity()));
         Map<String, List<Task>> predecessorsByTask = new HashMap<>();
         for (var currentTask : tasks) {
-            predecessorsByTask
-                    .put(currentTask.getTaskCode(), getPredecessorTasks(tasks, currentTask.getDependencies()));
+            List<Task> predecessors = rootTasks.contains(currentTask)
+                    ? List.of(startTask)
+                    : getPredecessorTasks(tasksByCode, currentTask.getDependencies(),
+                    redundantDependencies.getOrDefault(currentTask.getTaskCode(), Set.of()));
+            predecessorsByTask.put(currentTask.getTaskCode(), predecessors);
         }
         return predecessorsByTask;
     }
 
-    private List<Task> getPredecessorTasks(Set<Task> tasks, List<String> dependencies) {
-        List<Task> predecessorTasks = new ArrayList<>();
+    private List<Task> getPredecessorTasks(Map<String, Task> tasksByCode, List<String> dependencies,
+                                           Set<String> redundant) {
+        List<Task> predecessorTasks = new ArrayList<>(dependencies.size());
         for (String currentCode : dependencies) {
-            tasks.stream()
-                    .filter(task -> task.getTaskCode().equals(currentCode))
-                    .findFirst()
-                    .ifPresent(predecessorTasks::add);
+            Task predecessor = redundant.contains(currentCode) ? null : tasksByCode.get(currentCode);
+            if (predecessor != null) {
+                predecessorTasks.add(predecessor);
+            }
         }
         return predecessorTasks;
     }
 
     /**
+     * Inverts already created predecessors of every Task.
      * @param processor {@link CpmProcessor} that is being build.
      * @return a Map that groups Tasks by successor's {@link Task#getTaskCode()}.
      */
     private Map<String, List<Task>> createSuccessorsByTask(CpmProcessor processor) {
         Set<Task> tasks = processor.getAllTasks();
-        return tasks.stream()
-                .collect(toMap(
-                        Task::getTaskCode,
-                        task -> tasks.stream()
-                                .filter(it -> it.getDependencies().contains(task.getTaskCode()))
-                                .collect(toList())));
+        Map<String, List<Task>> successorsByTask = new HashMap<>();
+        for (var task : tasks) {
+            successorsByTask.put(task.getTaskCode(), new ArrayList<>());
+        }
+        for (var task : tasks) {
+            for (var predecessor : processor.getPredecessorsByTask().get(task.getTaskCode())) {
+                successorsByTask.get(predecessor.getTaskCode()).add(task);
+            }
+        }
+        return successorsByTask;
     }
 }
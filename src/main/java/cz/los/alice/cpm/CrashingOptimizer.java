@@ -0,0 +1,257 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.jfr.AggregationEvent;
+import cz.los.alice.model.CrashPlan;
+import cz.los.alice.model.CrashStep;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Task;
+import cz.los.alice.model.TaskCrash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Shortens the project of an already calculated {@link CpmGraph} at the least cost (time-cost trade-off, "crashing").
+ * A task can be crashed down to {@link Task#getMinimumDuration()} for {@link Task#getCrashCostPerDay()} per day saved,
+ * tasks without these values can not be crashed.<br>
+ * The project is shortened one day per step. Every critical path has to lose a day, so in every step the critical
+ * subgraph - critical tasks linked by dependencies without slack - is cut at the least cost: each critical task is
+ * a pair of vertices linked by an edge with capacity equal to its cost per day (infinite if it can not be crashed any
+ * further), dependencies get infinite capacity, and the minimum cut found by {@link MaxFlow} between START and END is
+ * the cheapest set of tasks that shortens all critical paths at once. Tasks of the cut are shortened by one day.<br>
+ * After a step only the earliest finishes of the nodes after the crashed tasks and the longest remaining paths of
+ * the nodes before them are recalculated, in topological order, the rest of the graph is not touched. The graph
+ * itself is never modified, all values are kept in arrays of this optimizer, so successive calls of
+ * {@link #shorten(int)} continue from the already crashed schedule.<br>
+ * Crashed tasks are never lengthened back, so the result is the greedy cheapest-cut plan, which is optimal as long as
+ * no minimum cut crosses a critical path twice.
+ */
+public class CrashingOptimizer {
+
+    private static final double COST_SCALE = 100.0;
+
+    private final CpmGraphIndex index;
+    private final int[] duration;
+    private final int[] minimumDuration;
+    private final double[] costPerDay;
+    private final int[] finish;
+    private final int[] tail;
+    private final int[] flowVertex;
+    private final boolean[] queued;
+    private final PriorityQueue<Integer> forwardQueue;
+    private final PriorityQueue<Integer> backwardQueue;
+
+    /**
+     * @param graph a graph with both forward and backward passes done
+     */
+    public CrashingOptimizer(CpmGraph graph) {
+        this.index = graph.index();
+        int size = index.nodes.length;
+        this.duration = index.duration.clone();
+        this.minimumDuration = new int[size];
+        this.costPerDay = new double[size];
+        this.finish = new int[size];
+        this.tail = new int[size];
+        this.flowVertex = new int[size];
+        this.queued = new boolean[size];
+        Arrays.fill(flowVertex, -1);
+        for (int i = 0; i < size; i++) {
+            Task task = index.nodes[i].getTask();
+            boolean crashable = task.getMinimumDuration() != null && task.getCrashCostPerDay() != null;
+            minimumDuration[i] = crashable
+                    ? Math.max(0, Math.min(duration[i], task.getMinimumDuration()))
+                    : duration[i];
+            costPerDay[i] = crashable ? task.getCrashCostPerDay() : 0;
+            finish[i] = index.earliestStart[i] + duration[i];
+            tail[i] = index.tail(i);
+        }
+        int[] position = index.topologicalPosition;
+        this.forwardQueue = new PriorityQueue<>(Comparator.comparingInt(node -> position[node]));
+        this.backwardQueue = new PriorityQueue<>(Comparator.comparingInt(node -> -position[node]));
+    }
+
+    /**
+     * @param days number of days the project should be shortened by, at least 1 and at most the project duration
+     * @return {@link CrashPlan} with one step per day saved, fewer steps if some critical path can not be crashed
+     */
+    public CrashPlan shorten(int days) {
+        int originalDuration = projectDuration();
+        if (days < 1) {
+            throw new InvalidScheduleException("Number of days to shorten the project by should be at least 1");
+        }
+        if (days > originalDuration) {
+            throw new InvalidScheduleException("Number of days to shorten the project by should be at most "
+                    + originalDuration + ", the project duration");
+        }
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        List<CrashStep> steps = new ArrayList<>();
+        double cumulativeCost = 0;
+        while (steps.size() < days) {
+            int[] cut = findCheapestCut();
+            if (cut == null) {
+                break;
+            }
+            double cost = 0;
+            List<String> crashedTasks = new ArrayList<>(cut.length);
+            for (int node : cut) {
+                duration[node]--;
+                cost += costPerDay[node];
+                crashedTasks.add(index.taskCode(node));
+            }
+            recalculate(cut);
+            cumulativeCost += cost;
+            steps.add(new CrashStep(projectDuration(), crashedTasks, cost, cumulativeCost));
+        }
+        CrashPlan plan = new CrashPlan(originalDuration, days, projectDuration(), cumulativeCost, steps,
+                collectCrashedTasks());
+        event.end();
+        if (event.shouldCommit()) {
+            event.aggregation = AggregationEvent.CRASH_PLAN;
+            event.nodeCount = index.nodes.length;
+            event.projectDuration = plan.getCrashedDuration();
+            event.resultSize = steps.size();
+            event.commit();
+        }
+        return plan;
+    }
+
+    /**
+     * @return nodes of the minimum cut of the critical subgraph, null if every cut has infinite capacity
+     */
+    private int[] findCheapestCut() {
+        int[] critical = collectCriticalSubgraph();
+        MaxFlow network = new MaxFlow(critical.length * 2);
+        for (int node : critical) {
+            int vertex = flowVertex[node];
+            boolean crashable = node != index.start && node != index.end && duration[node] > minimumDuration[node];
+            long capacity = crashable ? Math.round(costPerDay[node] * COST_SCALE) : MaxFlow.INFINITE;
+            network.addEdge(2 * vertex, 2 * vertex + 1, capacity);
+            for (int s = index.successorOffsets[node]; s < index.successorOffsets[node + 1]; s++) {
+                int successor = index.successors[s];
+                if (flowVertex[successor] >= 0 && isTight(node, successor)) {
+                    network.addEdge(2 * vertex + 1, 2 * flowVertex[successor], MaxFlow.INFINITE);
+                }
+            }
+        }
+        int source = 2 * flowVertex[index.start] + 1;
+        long flow = network.maxFlow(source, 2 * flowVertex[index.end]);
+        int[] cut = null;
+        if (flow < MaxFlow.INFINITE) {
+            boolean[] reachable = network.reachableFromSource(source);
+            cut = Arrays.stream(critical)
+                    .filter(node -> reachable[2 * flowVertex[node]] && !reachable[2 * flowVertex[node] + 1])
+                    .toArray();
+        }
+        for (int node : critical) {
+            flowVertex[node] = -1;
+        }
+        return cut;
+    }
+
+    /**
+     * Walks from START along dependencies without slack and numbers the visited critical nodes in
+     * {@link #flowVertex}.
+     * @return the visited nodes
+     */
+    private int[] collectCriticalSubgraph() {
+        int[] critical = new int[16];
+        int read = 0;
+        int write = 0;
+        critical[write++] = index.start;
+        flowVertex[index.start] = 0;
+        while (read < write) {
+            int node = critical[read++];
+            for (int s = index.successorOffsets[node]; s < index.successorOffsets[node + 1]; s++) {
+                int successor = index.successors[s];
+                if (flowVertex[successor] < 0 && isCritical(successor) && isTight(node, successor)) {
+                    if (write == critical.length) {
+                        critical = Arrays.copyOf(critical, write * 2);
+                    }
+                    flowVertex[successor] = write;
+                    critical[write++] = successor;
+                }
+            }
+        }
+        return Arrays.copyOf(critical, write);
+    }
+
+    private boolean isCritical(int node) {
+        return finish[node] + tail[node] == projectDuration();
+    }
+
+    private boolean isTight(int predecessor, int successor) {
+        return finish[predecessor] == finish[successor] - duration[successor];
+    }
+
+    /**
+     * Recalculates the earliest finish of all nodes after the crashed ones and the longest remaining path of all nodes
+     * before them. Propagation stops at nodes whose value did not change.
+     */
+    private void recalculate(int[] crashed) {
+        for (int node : crashed) {
+            enqueue(forwardQueue, node);
+        }
+        while (!forwardQueue.isEmpty()) {
+            int node = forwardQueue.poll();
+            queued[node] = false;
+            int start = 0;
+            for (int p = index.predecessorOffsets[node]; p < index.predecessorOffsets[node + 1]; p++) {
+                start = Math.max(start, finish[index.predecessors[p]]);
+            }
+            if (start + duration[node] != finish[node]) {
+                finish[node] = start + duration[node];
+                for (int s = index.successorOffsets[node]; s < index.successorOffsets[node + 1]; s++) {
+                    enqueue(forwardQueue, index.successors[s]);
+                }
+            }
+        }
+        for (int node : crashed) {
+            for (int p = index.predecessorOffsets[node]; p < index.predecessorOffsets[node + 1]; p++) {
+                enqueue(backwardQueue, index.predecessors[p]);
+            }
+        }
+        while (!backwardQueue.isEmpty()) {
+            int node = backwardQueue.poll();
+            queued[node] = false;
+            int remaining = 0;
+            for (int s = index.successorOffsets[node]; s < index.successorOffsets[node + 1]; s++) {
+                int successor = index.successors[s];
+                remaining = Math.max(remaining, duration[successor] + tail[successor]);
+            }
+            if (remaining != tail[node]) {
+                tail[node] = remaining;
+                for (int p = index.predecessorOffsets[node]; p < index.predecessorOffsets[node + 1]; p++) {
+                    enqueue(backwardQueue, index.predecessors[p]);
+                }
+            }
+        }
+    }
+
+    private void enqueue(PriorityQueue<Integer> queue, int node) {
+        if (!queued[node]) {
+            queued[node] = true;
+            queue.add(node);
+        }
+    }
+
+    private int projectDuration() {
+        return finish[index.end];
+    }
+
+    private List<TaskCrash> collectCrashedTasks() {
+        List<TaskCrash> crashedTasks = new ArrayList<>();
+        for (int i = 0; i < duration.length; i++) {
+            int savedDays = index.duration[i] - duration[i];
+            if (savedDays > 0) {
+                crashedTasks.add(new TaskCrash(index.taskCode(i), index.duration[i], duration[i],
+                        savedDays * costPerDay[i]));
+            }
+        }
+        crashedTasks.sort(Comparator.comparing(TaskCrash::getTaskCode));
+        return crashedTasks;
+    }
+}
@@ -0,0 +1,186 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.ConeTask;
+import cz.los.alice.model.DependencyCone;
+import cz.los.alice.model.InvalidScheduleException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A retained index of a calculated project for queries about what a task depends on and what depends on it.
+ * The index keeps only primitive arrays taken from {@link CpmGraphIndex} - links between tasks, their topological
+ * positions and CPM values - and task codes, so the graph itself can be garbage collected and the index can be kept
+ * for repeated queries. A query visits only the tasks of the cone and a bitset of one bit per task, there is no
+ * parsing and no CPM calculation.<br>
+ * The index is immutable and can be queried concurrently.
+ */
+public final class DependencyConeIndex {
+
+    private final String[] taskCodes;
+    private final Map<String, Integer> indexByCode;
+    private final int[] earliestStart;
+    private final int[] earliestFinish;
+    private final int[] slack;
+    private final int[] successorOffsets;
+    private final int[] successors;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+    private final int[] topologicalPosition;
+    private final int start;
+    private final int end;
+
+    private DependencyConeIndex(CpmGraphIndex index) {
+        int size = index.nodes.length;
+        taskCodes = new String[size];
+        indexByCode = new HashMap<>(size * 2);
+        earliestFinish = new int[size];
+        for (int i = 0; i < size; i++) {
+            taskCodes[i] = index.taskCode(i);
+            indexByCode.put(taskCodes[i], i);
+            earliestFinish[i] = index.nodes[i].earliestFinishDay();
+        }
+        earliestStart = index.earliestStart;
+        slack = index.slack;
+        successorOffsets = index.successorOffsets;
+        successors = index.successors;
+        predecessorOffsets = index.predecessorOffsets;
+        predecessors = index.predecessors;
+        topologicalPosition = index.topologicalPosition;
+        start = index.start;
+        end = index.end;
+    }
+
+    /**
+     * @param graph a graph with both forward and backward passes done
+     * @throws InvalidScheduleException if the graph has relations other than finish-to-start without lag
+     */
+    public static DependencyConeIndex of(CpmGraph graph) {
+        return new DependencyConeIndex(graph.index());
+    }
+
+    public int size() {
+        return taskCodes.length - 2;
+    }
+
+    /**
+     * Finds the upstream cone of the task - all tasks it depends on directly or through other tasks, and
+     * the downstream cone - all tasks that depend on it. Every task of a cone comes with its depth, the least number
+     * of dependencies between it and the queried task. Downstream tasks also come with the delay of the queried task
+     * they absorb: the number of days the queried task can slip before the earliest start of the downstream task
+     * moves, that is the least sum of gaps between the finish of a task and the start of its successor along
+     * the paths between the two tasks.
+     * @param taskCode code of the queried task
+     * @return {@link DependencyCone}, tasks of both cones sorted by depth and task code
+     * @throws InvalidScheduleException if there is no such task
+     */
+    public DependencyCone query(String taskCode) {
+        Integer task = indexByCode.get(taskCode);
+        if (task == null || task == start || task == end) {
+            throw new InvalidScheduleException("Task " + taskCode + " is not part of the project");
+        }
+        int[] upstream = visit(task, predecessorOffsets, predecessors);
+        int[] downstream = visit(task, successorOffsets, successors);
+        return new DependencyCone(
+                taskCode,
+                slack[task],
+                toConeTasks(upstream, null),
+                toConeTasks(downstream, absorbedDelays(task, downstream)));
+    }
+
+    /**
+     * Breadth-first search from the task over the given links, START and END are not followed.
+     * @return pairs of a task and its depth in the order of the search, without the task itself
+     */
+    private int[] visit(int task, int[] offsets, int[] links) {
+        long[] visited = new long[(taskCodes.length + 63) >>> 6];
+        mark(visited, task);
+        mark(visited, start);
+        mark(visited, end);
+        int[] cone = new int[16];
+        int size = 0;
+        int current = task;
+        int depth = 0;
+        int read = 0;
+        while (true) {
+            for (int link = offsets[current]; link < offsets[current + 1]; link++) {
+                int next = links[link];
+                if (!isMarked(visited, next)) {
+                    mark(visited, next);
+                    if (size + 2 > cone.length) {
+                        cone = Arrays.copyOf(cone, cone.length * 2);
+                    }
+                    cone[size++] = next;
+                    cone[size++] = depth + 1;
+                }
+            }
+            if (read == size) {
+                return Arrays.copyOf(cone, size);
+            }
+            current = cone[read++];
+            depth = cone[read++];
+        }
+    }
+
+    /**
+     * Relaxes the gaps of the downstream cone in topological order, predecessors outside the cone do not lie on a path
+     * from the task and are skipped.
+     * @return absorbed delay of every downstream task by its position in {@code downstream} / 2
+     */
+    private int[] absorbedDelays(int task, int[] downstream) {
+        int coneSize = downstream.length / 2;
+        Map<Integer, Integer> coneIndexByTask = new HashMap<>(coneSize * 2);
+        long[] sortKeys = new long[coneSize];
+        for (int i = 0; i < coneSize; i++) {
+            coneIndexByTask.put(downstream[2 * i], i);
+            sortKeys[i] = ((long) topologicalPosition[downstream[2 * i]] << 32) | i;
+        }
+        Arrays.sort(sortKeys);
+        int[] absorbed = new int[coneSize];
+        for (long sortKey : sortKeys) {
+            int coneIndex = (int) sortKey;
+            int node = downstream[2 * coneIndex];
+            int least = Integer.MAX_VALUE;
+            for (int link = predecessorOffsets[node]; link < predecessorOffsets[node + 1]; link++) {
+                int predecessor = predecessors[link];
+                int gap = earliestStart[node] - earliestFinish[predecessor];
+                if (predecessor == task) {
+                    least = Math.min(least, gap);
+                } else {
+                    Integer predecessorConeIndex = coneIndexByTask.get(predecessor);
+                    if (predecessorConeIndex != null) {
+                        least = Math.min(least, absorbed[predecessorConeIndex] + gap);
+                    }
+                }
+            }
+            absorbed[coneIndex] = least;
+        }
+        return absorbed;
+    }
+
+    private List<ConeTask> toConeTasks(int[] cone, int[] absorbedDelays) {
+        List<ConeTask> coneTasks = new ArrayList<>(cone.length / 2);
+        for (int i = 0; i < cone.length / 2; i++) {
+            int node = cone[2 * i];
+            coneTasks.add(new ConeTask(
+                    taskCodes[node],
+                    cone[2 * i + 1],
+                    slack[node],
+                    absorbedDelays == null ? null : absorbedDelays[i]));
+        }
+        coneTasks.sort(Comparator.comparingInt(ConeTask::getDepth).thenComparing(ConeTask::getTaskCode));
+        return coneTasks;
+    }
+
+    private static void mark(long[] visited, int node) {
+        visited[node >>> 6] |= 1L << (node & 63);
+    }
+
+    private static boolean isMarked(long[] visited, int node) {
+        return (visited[node >>> 6] & 1L << (node & 63)) != 0;
+    }
+}
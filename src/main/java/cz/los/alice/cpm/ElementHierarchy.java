@@ -0,0 +1,79 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.Task;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits {@link Task#getElementName()} into segments that form a hierarchy of the project, e.g. building, zone, level
+ * and element of {@code B1_A_L5_Core Wall}.<br>
+ * {@link #separator} - pattern the segments are separated by, configured by {@code alice.rollup.separator}<br>
+ * {@link #levels} - names of the levels of the hierarchy, configured by {@code alice.rollup.levels}. An element name
+ * is split into at most as many segments as there are levels, the last segment keeps the rest of the name.
+ */
+@Getter
+@Component
+public class ElementHierarchy {
+
+    static final String DEFAULT_SEPARATOR = "_";
+    static final String DEFAULT_LEVELS = "building,zone,level,element";
+
+    private final Pattern separator;
+    private final List<String> levels;
+
+    public ElementHierarchy(@Value("${alice.rollup.separator:" + DEFAULT_SEPARATOR + "}") String separator,
+                            @Value("${alice.rollup.levels:" + DEFAULT_LEVELS + "}") List<String> levels) {
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("Element hierarchy should have at least one level");
+        }
+        this.separator = Pattern.compile(separator);
+        this.levels = List.copyOf(levels);
+    }
+
+    /**
+     * @return hierarchy of the default separator and levels, for use outside of the application context
+     */
+    public static ElementHierarchy defaults() {
+        return new ElementHierarchy(DEFAULT_SEPARATOR, List.of(DEFAULT_LEVELS.split(",")));
+    }
+
+    /**
+     * @param elementName name of the element, can be null
+     * @return segments of the name from the top level down, empty if the name is null or empty
+     */
+    public List<Segment> segments(String elementName) {
+        if (elementName == null || elementName.isEmpty()) {
+            return List.of();
+        }
+        List<Segment> segments = new ArrayList<>(levels.size());
+        Matcher matcher = separator.matcher(elementName);
+        int from = 0;
+        while (segments.size() < levels.size() - 1 && matcher.find()) {
+            if (matcher.end() == matcher.start()) {
+                continue;
+            }
+            segments.add(new Segment(elementName.substring(from, matcher.start()),
+                    elementName.substring(0, matcher.start())));
+            from = matcher.end();
+        }
+        segments.add(new Segment(elementName.substring(from), elementName));
+        return segments;
+    }
+
+    /**
+     * A single segment of an element name.<br>
+     * {@link #name} - the segment itself, e.g. {@code L5}<br>
+     * {@link #path} - the element name up to and including the segment, e.g. {@code B1_A_L5}
+     */
+    @lombok.Value
+    public static class Segment {
+        String name;
+        String path;
+    }
+}
@@ -0,0 +1,44 @@
+package cz.los.alice.cpm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps indexes of the most recently queried schedules, so that repeated queries of the same schedule do not parse
+ * and calculate it again. Indexes are keyed by the content of the schedule, e.g.
+ * {@link cz.los.alice.service.AliceService#resultTag()}, at most the given number of them are kept.
+ * An index is built outside of the lock, concurrent first queries of the same schedule may build it more than once.
+ * @param <T> type of the index
+ */
+public class IndexCache<T> {
+
+    private final Map<String, T> indexes;
+
+    public IndexCache(int capacity) {
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param key identifies the content of the schedule
+     * @param builder creates the index if it is not kept
+     */
+    public T get(String key, Supplier<T> builder) {
+        synchronized (indexes) {
+            T index = indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+        }
+        T index = builder.get();
+        synchronized (indexes) {
+            indexes.put(key, index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,153 @@
+package cz.los.alice.cpm;
+
+import java.util.Arrays;
+
+/**
+ * Maximum flow and minimum cut of a directed network by Dinic's algorithm. Vertices are numbered from 0, edges are
+ * kept in growable primitive arrays, every edge is stored next to its residual counterpart.
+ */
+final class MaxFlow {
+
+    static final long INFINITE = Long.MAX_VALUE / 4;
+
+    private final int vertexCount;
+    private int[] head;
+    private int[] next;
+    private int[] target;
+    private long[] capacity;
+    private int edgeCount;
+    private int[] level;
+    private int[] current;
+    private int[] path;
+
+    MaxFlow(int vertexCount) {
+        this.vertexCount = vertexCount;
+        this.head = new int[vertexCount];
+        Arrays.fill(head, -1);
+        int initialEdges = Math.max(16, vertexCount * 4);
+        this.next = new int[initialEdges];
+        this.target = new int[initialEdges];
+        this.capacity = new long[initialEdges];
+        this.level = new int[vertexCount];
+        this.current = new int[vertexCount];
+        this.path = new int[vertexCount];
+    }
+
+    void addEdge(int from, int to, long edgeCapacity) {
+        ensureCapacity(edgeCount + 2);
+        addHalfEdge(from, to, edgeCapacity);
+        addHalfEdge(to, from, 0);
+    }
+
+    /**
+     * @return value of the maximum flow, {@link #INFINITE} or more if there is a path of infinite edges only
+     */
+    long maxFlow(int source, int sink) {
+        long flow = 0;
+        while (flow < INFINITE && buildLevels(source, sink)) {
+            System.arraycopy(head, 0, current, 0, vertexCount);
+            long pushed;
+            while (flow < INFINITE && (pushed = augment(source, sink)) > 0) {
+                flow += pushed;
+            }
+        }
+        return flow;
+    }
+
+    /**
+     * Must be called after {@link #maxFlow(int, int)}. The vertices reachable from the source in the residual network
+     * form the source side of a minimum cut.
+     */
+    boolean[] reachableFromSource(int source) {
+        boolean[] reachable = new boolean[vertexCount];
+        int[] queue = new int[vertexCount];
+        int read = 0;
+        int write = 0;
+        queue[write++] = source;
+        reachable[source] = true;
+        while (read < write) {
+            int vertex = queue[read++];
+            for (int edge = head[vertex]; edge != -1; edge = next[edge]) {
+                if (capacity[edge] > 0 && !reachable[target[edge]]) {
+                    reachable[target[edge]] = true;
+                    queue[write++] = target[edge];
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private boolean buildLevels(int source, int sink) {
+        Arrays.fill(level, -1);
+        int[] queue = new int[vertexCount];
+        int read = 0;
+        int write = 0;
+        queue[write++] = source;
+        level[source] = 0;
+        while (read < write) {
+            int vertex = queue[read++];
+            for (int edge = head[vertex]; edge != -1; edge = next[edge]) {
+                if (capacity[edge] > 0 && level[target[edge]] < 0) {
+                    level[target[edge]] = level[vertex] + 1;
+                    queue[write++] = target[edge];
+                }
+            }
+        }
+        return level[sink] >= 0;
+    }
+
+    /**
+     * Finds a single augmenting path in the level network and saturates it. The search is iterative, so the length
+     * of a path is not limited by the stack size. A vertex without a way to the sink is removed from the level network.
+     * @return the pushed amount, 0 if there is no augmenting path left
+     */
+    private long augment(int source, int sink) {
+        int depth = 0;
+        int vertex = source;
+        while (true) {
+            if (vertex == sink) {
+                long bottleneck = INFINITE;
+                for (int i = 0; i < depth; i++) {
+                    bottleneck = Math.min(bottleneck, capacity[path[i]]);
+                }
+                for (int i = 0; i < depth; i++) {
+                    capacity[path[i]] -= bottleneck;
+                    capacity[path[i] ^ 1] += bottleneck;
+                }
+                return bottleneck;
+            }
+            int edge = current[vertex];
+            while (edge != -1 && (capacity[edge] == 0 || level[target[edge]] != level[vertex] + 1)) {
+                edge = next[edge];
+            }
+            current[vertex] = edge;
+            if (edge != -1) {
+                path[depth++] = edge;
+                vertex = target[edge];
+            } else {
+                level[vertex] = -1;
+                if (depth == 0) {
+                    return 0;
+                }
+                vertex = target[path[--depth] ^ 1];
+                current[vertex] = next[current[vertex]];
+            }
+        }
+    }
+
+    private void addHalfEdge(int from, int to, long edgeCapacity) {
+        target[edgeCount] = to;
+        capacity[edgeCount] = edgeCapacity;
+        next[edgeCount] = head[from];
+        head[from] = edgeCount++;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > target.length) {
+            int length = Math.max(required, target.length * 2);
+            next = Arrays.copyOf(next, length);
+            target = Arrays.copyOf(target, length);
+            capacity = Arrays.copyOf(capacity, length);
+        }
+    }
+}
@@ -1,62 +1,170 @@
 package cz.los.alice.cpm;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import cz.los.alice.calendar.ProjectCalendar;
 import cz.los.alice.model.EnrichedTask;
 import cz.los.alice.model.Task;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.time.LocalDate;
 import java.util.Set;
 
 /**
  * A node of the bidirectional Graph that contains info of earliest and latest start and end days for this {@link #task}
- * Links between nodes are represented by {@link #predecessors} and {@link #successors}
+ * Links between nodes are represented by {@link #predecessors} and {@link #successors}<br>
+ * CPM values are kept in primitive fields and links are mirrored into arrays, so the forward and backward passes
+ * neither box values nor allocate iterators. A value that was not calculated yet is reported as null by the public
+ * getters.<br>
+ * {@link #calendar} - optional working calendar of the task. Without it days are consecutive working days starting
+ * with day 0. With it days are calendar days of the project, the task starts on a working day of its calendar and
+ * its duration counts working days only.<br>
+ * {@link #predecessorRelations} and {@link #successorRelations} - relations of the links encoded by
+ * {@link RelationCodes}, at the same positions as the linked nodes. Null if all links are finish-to-start without
+ * lag.<br>
+ * {@link #depth} - number of links of the longest chain of predecessors of the node, calculated by the forward pass
  */
 @Getter
 @Setter
-@ToString(exclude = {"predecessors", "successors"})
+@ToString(exclude = {"predecessors", "successors", "predecessorNodes", "successorNodes", "calendar",
+        "predecessorRelations", "successorRelations"})
 public class Node {
 
+    static final int UNSET = Integer.MIN_VALUE;
+    private static final Node[] NO_NODES = new Node[0];
+
     private Task task;
-    private Integer duration;
+    private int duration;
+    @JsonIgnore
+    private ProjectCalendar calendar;
 
-    private Integer earliestStart;
-    private Integer earliestFinish;
+    @Getter(AccessLevel.NONE)
+    private int earliestStart = UNSET;
+    @Getter(AccessLevel.NONE)
+    private int earliestFinish = UNSET;
     private boolean resolvedForward;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int depth;
 
-    private Integer latestStart;
-    private Integer latestFinish;
+    @Getter(AccessLevel.NONE)
+    private int latestStart = UNSET;
+    @Getter(AccessLevel.NONE)
+    private int latestFinish = UNSET;
     private boolean resolvedBackward;
 
-    private Integer slack;
+    @Getter(AccessLevel.NONE)
+    private int slack = UNSET;
 
     @JsonIgnore
+    @Setter(AccessLevel.NONE)
     private Set<Node> predecessors;
     @JsonIgnore
+    @Setter(AccessLevel.NONE)
     private Set<Node> successors;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Node[] predecessorNodes = NO_NODES;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Node[] successorNodes = NO_NODES;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int[] predecessorRelations;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int[] successorRelations;
+
     public Node(Task task) {
         this.task = task;
-        this.duration = task.getDuration();
+        this.duration = task.getDuration() == null ? 0 : task.getDuration();
+    }
+
+    public void setPredecessors(Set<Node> predecessors) {
+        this.predecessors = predecessors;
+        this.predecessorNodes = predecessors == null ? NO_NODES : predecessors.toArray(NO_NODES);
+        this.predecessorRelations = null;
+    }
+
+    public void setSuccessors(Set<Node> successors) {
+        this.successors = successors;
+        this.successorNodes = successors == null ? NO_NODES : successors.toArray(NO_NODES);
+        this.successorRelations = null;
+    }
+
+    public Integer getEarliestStart() {
+        return valueOrNull(earliestStart);
+    }
+
+    public Integer getEarliestFinish() {
+        return valueOrNull(earliestFinish);
+    }
+
+    public Integer getLatestStart() {
+        return valueOrNull(latestStart);
+    }
+
+    public Integer getLatestFinish() {
+        return valueOrNull(latestFinish);
+    }
+
+    public Integer getSlack() {
+        return valueOrNull(slack);
     }
 
     /**
      * Calculates the earliest start and finish days for this node.
      * The node is valid for this calculation if all predecessors of this node are already resolved in
      * forward direction - which means all predecessors of this node already have the earliest start and finish
-     * calculated. If the node has more than one predecessor, the maximum value of the earliest finish among
-     * all the predecessors will be used to calculate values for this node.
+     * calculated. Every predecessor bounds either the earliest start or the earliest finish of this node according to
+     * the relation of the link, the latest of these bounds is used. No node starts before day 0.
+     * With a {@link #calendar} the start moves to the next working day and the finish is the day after the last
+     * working day of the task.
      * @return true - if calculation of the earliest start and finish happened, false - if calculation of the earliest
      * start and finish is impossible
      */
     public boolean calculateEarliestStartAndFinish() {
         if (isValidForForwardCalculation()) {
-            predecessors.stream()
-                    .map(Node::getEarliestFinish)
-                    .max(Integer::compareTo)
-                    .ifPresent(this::setEarliestStart);
-            setEarliestFinish(duration + earliestStart);
+            int start = 0;
+            int finish = UNSET;
+            int chain = 0;
+            for (int i = 0; i < predecessorNodes.length; i++) {
+                Node predecessor = predecessorNodes[i];
+                chain = Math.max(chain, predecessor.depth + 1);
+                if (predecessorRelations == null) {
+                    start = Math.max(start, predecessor.earliestFinish);
+                    continue;
+                }
+                int relation = predecessorRelations[i];
+                int lag = RelationCodes.lag(relation);
+                switch (RelationCodes.type(relation)) {
+                    case RelationCodes.SS:
+                        start = Math.max(start, predecessor.earliestStart + lag);
+                        break;
+                    case RelationCodes.FF:
+                        finish = Math.max(finish, predecessor.earliestFinish + lag);
+                        break;
+                    case RelationCodes.SF:
+                        finish = Math.max(finish, predecessor.earliestStart + lag);
+                        break;
+                    default:
+                        start = Math.max(start, predecessor.earliestFinish + lag);
+                }
+            }
+            if (calendar != null && duration > 0) {
+                earliestStart = calendar.alignStart(start);
+                if (finish != UNSET) {
+                    earliestStart = Math.max(earliestStart, calendar.startToFinishOnOrAfter(finish, duration));
+                }
+                earliestFinish = calendar.finish(earliestStart, duration);
+            } else {
+                earliestStart = finish == UNSET ? start : Math.max(start, finish - duration);
+                earliestFinish = duration + earliestStart;
+            }
+            depth = chain;
             resolvedForward = true;
             return true;
         }
@@ -67,18 +175,49 @@ public class Node {
      * Calculates the latest start and finish days for this node.
      * The node is valid for this calculation if all successors of this node are already resolved in
      * backward direction - which means all successors of this node already have the latest start and finish
-     * calculated. If the node has more than one successor, the minimum value of the latest start among
-     * all the successors will be used to calculate values for this node.
+     * calculated. Every successor bounds either the latest start or the latest finish of this node according to
+     * the relation of the link, the earliest of these bounds is used.
+     * With a {@link #calendar} the finish moves back to the day after the previous working day and the start is
+     * the first working day of the task.
      * @return true - if calculation of the latest start and finish happened, false - if calculation of the latest
      * start and finish is impossible
      */
     public boolean calculateLatestStartAndFinish() {
         if (isValidForBackwardCalculation()) {
-            successors.stream()
-                    .map(Node::getLatestStart)
-                    .min(Integer::compareTo)
-                    .ifPresent(this::setLatestFinish);
-            latestStart = latestFinish - duration;
+            int finish = successorNodes.length == 0 ? latestFinish : Integer.MAX_VALUE;
+            int start = Integer.MAX_VALUE;
+            for (int i = 0; i < successorNodes.length; i++) {
+                Node successor = successorNodes[i];
+                if (successorRelations == null) {
+                    finish = Math.min(finish, successor.latestStart);
+                    continue;
+                }
+                int relation = successorRelations[i];
+                int lag = RelationCodes.lag(relation);
+                switch (RelationCodes.type(relation)) {
+                    case RelationCodes.SS:
+                        start = Math.min(start, successor.latestStart - lag);
+                        break;
+                    case RelationCodes.FF:
+                        finish = Math.min(finish, successor.latestFinish - lag);
+                        break;
+                    case RelationCodes.SF:
+                        start = Math.min(start, successor.latestFinish - lag);
+                        break;
+                    default:
+                        finish = Math.min(finish, successor.latestStart - lag);
+                }
+            }
+            if (calendar != null && duration > 0) {
+                latestFinish = calendar.alignFinish(finish);
+                if (start != Integer.MAX_VALUE) {
+                    latestFinish = Math.min(latestFinish, calendar.finishToStartOnOrBefore(start, duration));
+                }
+                latestStart = calendar.start(latestFinish, duration);
+            } else {
+                latestFinish = start == Integer.MAX_VALUE ? finish : Math.min(finish, start + duration);
+                latestStart = latestFinish - duration;
+            }
             slack = latestFinish - earliestFinish;
             resolvedBackward = true;
             return true;
@@ -87,26 +226,90 @@ public class Node {
     }
 
     private boolean isValidForForwardCalculation() {
-        boolean allPredecessorsResolved = predecessors.stream()
-                .filter(other -> other.getEarliestFinish() == null)
-                .findFirst()
-                .isEmpty();
-        return allPredecessorsResolved;
+        for (Node predecessor : predecessorNodes) {
+            if (predecessor.earliestFinish == UNSET) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public boolean isValidForBackwardCalculation() {
-        boolean allSuccessorsResolved = successors.stream()
-                .filter(other -> other.getLatestStart() == null)
-                .findFirst()
-                .isEmpty();
-        return allSuccessorsResolved;
+        for (Node successor : successorNodes) {
+            if (successor.latestStart == UNSET) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * @return a new instance of {@link EnrichedTask} created using this nodes {@link #task} and the earliest and
-     * the latest start and finish days.
+     * the latest start and finish days. Dates are filled in if the node has a {@link #calendar}.
      */
     public EnrichedTask getEnrichedTask() {
-        return new EnrichedTask(task, earliestStart, latestStart, earliestFinish, latestFinish);
+        if (calendar == null) {
+            return new EnrichedTask(task, earliestStart, latestStart, earliestFinish, latestFinish);
+        }
+        return new EnrichedTask(task, earliestStart, latestStart, earliestFinish, latestFinish,
+                new EnrichedTask.DateInterval(calendar.date(earliestStart), calendar.date(latestStart)),
+                new EnrichedTask.DateInterval(lastDay(earliestFinish), lastDay(latestFinish)));
+    }
+
+    private LocalDate lastDay(int finish) {
+        return calendar.date(duration > 0 ? finish - 1 : finish);
+    }
+
+    int earliestStartDay() {
+        return earliestStart;
+    }
+
+    int earliestFinishDay() {
+        return earliestFinish;
+    }
+
+    int latestStartDay() {
+        return latestStart;
+    }
+
+    int latestFinishDay() {
+        return latestFinish;
+    }
+
+    int slackDays() {
+        return slack;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    Node[] predecessorNodes() {
+        return predecessorNodes;
+    }
+
+    Node[] successorNodes() {
+        return successorNodes;
+    }
+
+    /**
+     * @return relations of the links to {@link #predecessorNodes()} encoded by {@link RelationCodes}, null if all of
+     * them are finish-to-start without lag
+     */
+    int[] predecessorRelations() {
+        return predecessorRelations;
+    }
+
+    int[] successorRelations() {
+        return successorRelations;
+    }
+
+    void setRelations(int[] predecessorRelations, int[] successorRelations) {
+        this.predecessorRelations = predecessorRelations;
+        this.successorRelations = successorRelations;
+    }
+
+    private static Integer valueOrNull(int value) {
+        return value == UNSET ? null : value;
     }
 }
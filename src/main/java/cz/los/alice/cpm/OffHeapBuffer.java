@@ -0,0 +1,152 @@
+package cz.los.alice.cpm;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A growable block of memory outside the Java heap, addressed either by int index or by byte position.<br>
+ * The memory is a direct {@link ByteBuffer} in native byte order, so a single buffer holds at most
+ * {@value #MAX_BYTES} bytes. It is freed by {@link #close()} right away instead of waiting for the garbage collector
+ * to notice the small buffer object on the heap, any access after that fails with {@link IllegalStateException}.
+ * Growing copies the content into a new buffer and frees the old one. The buffer is not thread safe.
+ */
+@Slf4j
+final class OffHeapBuffer implements AutoCloseable {
+
+    static final int MAX_BYTES = Integer.MAX_VALUE - 7;
+    private static final MethodHandle CLEANER = findCleaner();
+
+    private ByteBuffer memory;
+
+    private OffHeapBuffer(long bytes) {
+        memory = allocate(bytes);
+    }
+
+    /**
+     * @param count number of ints the buffer should hold, all of them 0
+     */
+    static OffHeapBuffer ofInts(long count) {
+        return new OffHeapBuffer(count * Integer.BYTES);
+    }
+
+    static OffHeapBuffer ofBytes(long count) {
+        return new OffHeapBuffer(count);
+    }
+
+    int getInt(int index) {
+        return memory().getInt(index * Integer.BYTES);
+    }
+
+    void putInt(int index, int value) {
+        memory().putInt(index * Integer.BYTES, value);
+    }
+
+    byte get(int position) {
+        return memory().get(position);
+    }
+
+    void put(int position, byte value) {
+        memory().put(position, value);
+    }
+
+    void fillInts(int from, int to, int value) {
+        ByteBuffer buffer = memory();
+        for (int i = from; i < to; i++) {
+            buffer.putInt(i * Integer.BYTES, value);
+        }
+    }
+
+    int intCapacity() {
+        return memory().capacity() / Integer.BYTES;
+    }
+
+    int byteCapacity() {
+        return memory().capacity();
+    }
+
+    /**
+     * Makes room for at least the given number of ints, the capacity at least doubles so that appending is amortized
+     * constant time. New ints are 0.
+     */
+    void ensureInts(long count) {
+        ensureBytes(count * Integer.BYTES);
+    }
+
+    void ensureBytes(long count) {
+        ByteBuffer current = memory();
+        if (count <= current.capacity()) {
+            return;
+        }
+        ByteBuffer grown = allocate(Math.min(MAX_BYTES, Math.max(count, current.capacity() * 2L)));
+        current.clear();
+        grown.put(current);
+        grown.clear();
+        memory = grown;
+        free(current);
+    }
+
+    boolean isOpen() {
+        return memory != null;
+    }
+
+    /**
+     * Frees the memory, calling it again has no effect.
+     */
+    @Override
+    public void close() {
+        if (memory != null) {
+            ByteBuffer released = memory;
+            memory = null;
+            free(released);
+        }
+    }
+
+    private ByteBuffer memory() {
+        if (memory == null) {
+            throw new IllegalStateException("Off-heap buffer is already released");
+        }
+        return memory;
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        if (bytes > MAX_BYTES) {
+            throw new IllegalArgumentException("Off-heap buffer cannot hold more than " + MAX_BYTES + " bytes");
+        }
+        return ByteBuffer.allocateDirect((int) Math.max(bytes, Integer.BYTES)).order(ByteOrder.nativeOrder());
+    }
+
+    private static void free(ByteBuffer buffer) {
+        if (CLEANER == null) {
+            return;
+        }
+        try {
+            CLEANER.invokeExact(buffer);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Off-heap buffer could not be released", e);
+        }
+    }
+
+    /**
+     * Direct buffers are freed explicitly by {@code sun.misc.Unsafe#invokeCleaner}, if the JVM does not offer it
+     * the memory is freed by the garbage collector as usual.
+     */
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Off-heap buffers will be freed by the garbage collector only: {}", e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.jfr.GraphPassEvent;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Task;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+
+/**
+ * CPM graph for schedules too big for a {@link Node} per task. Task codes, durations, workers, adjacency and
+ * the earliest and latest start and finish and slack of every task are kept in {@link OffHeapBuffer} columns outside
+ * the Java heap, tasks are identified by their index in the order they were added to the {@link Builder}. Heap usage
+ * does not depend on the size of the graph, except for {@link #createWorkersOnSiteHistogram()} which is sized by
+ * the project duration.<br>
+ * Predecessors of task {@code i} occupy positions {@code predecessorOffsets[i]} to
+ * {@code predecessorOffsets[i + 1] - 1} of {@code predecessors}, successors are kept the same way. START and END
+ * pseudo-tasks are implicit: tasks without predecessors start at day 0 and tasks without successors finish by
+ * the project duration. Passes run over the topological order computed by the builder, so both of them are linear
+ * in tasks plus dependencies.<br>
+ * The results equal {@link CpmGraph} with finish-to-start dependencies without lag and without calendars, which is
+ * what this graph supports. The graph owns its memory, {@link #close()} releases it and any later call fails with
+ * {@link IllegalStateException}. The graph is not thread safe.
+ */
+@Slf4j
+public final class OffHeapCpmGraph implements AutoCloseable {
+
+    private static final int UNSET = Integer.MIN_VALUE;
+
+    private final int size;
+    private final OffHeapBuffer codeOffsets;
+    private final OffHeapBuffer codeBytes;
+    private final OffHeapBuffer duration;
+    private final OffHeapBuffer workers;
+    private final OffHeapBuffer predecessorOffsets;
+    private final OffHeapBuffer predecessors;
+    private final OffHeapBuffer successorOffsets;
+    private final OffHeapBuffer successors;
+    private final OffHeapBuffer topologicalOrder;
+    private final OffHeapBuffer earliestStart;
+    private final OffHeapBuffer earliestFinish;
+    private final OffHeapBuffer depth;
+    private final OffHeapBuffer latestStart;
+    private final OffHeapBuffer latestFinish;
+    private final OffHeapBuffer slack;
+    private int projectDuration = UNSET;
+    private boolean resolvedBackward;
+
+    private OffHeapCpmGraph(Builder builder, OffHeapBuffer predecessorOffsets, OffHeapBuffer predecessors,
+                            OffHeapBuffer successorOffsets, OffHeapBuffer successors, OffHeapBuffer topologicalOrder) {
+        this.size = builder.size;
+        this.codeOffsets = builder.codeOffsets;
+        this.codeBytes = builder.codeBytes;
+        this.duration = builder.duration;
+        this.workers = builder.workers;
+        this.predecessorOffsets = predecessorOffsets;
+        this.predecessors = predecessors;
+        this.successorOffsets = successorOffsets;
+        this.successors = successors;
+        this.topologicalOrder = topologicalOrder;
+        this.earliestStart = OffHeapBuffer.ofInts(size);
+        this.earliestFinish = OffHeapBuffer.ofInts(size);
+        this.depth = OffHeapBuffer.ofInts(size);
+        this.latestStart = OffHeapBuffer.ofInts(size);
+        this.latestFinish = OffHeapBuffer.ofInts(size);
+        this.slack = OffHeapBuffer.ofInts(size);
+    }
+
+    public static Builder builder() {
+        return new Builder(Builder.INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedTasks number of tasks the builder reserves memory for, it grows beyond that if needed
+     */
+    public static Builder builder(int expectedTasks) {
+        return new Builder(Math.max(Builder.INITIAL_CAPACITY, expectedTasks));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int edgeCount() {
+        return predecessorOffsets.getInt(size);
+    }
+
+    /**
+     * Calculates the earliest start and finish of every task in topological order, a task starts when the last of
+     * its predecessors finishes.
+     */
+    public void calculateCpmMetricsInForwardDirection() {
+        GraphPassEvent event = new GraphPassEvent();
+        event.begin();
+        int longest = 0;
+        for (int position = 0; position < size; position++) {
+            int task = topologicalOrder.getInt(position);
+            int start = 0;
+            int chain = 1;
+            for (int p = predecessorOffsets.getInt(task); p < predecessorOffsets.getInt(task + 1); p++) {
+                start = Math.max(start, earliestFinish.getInt(predecessors.getInt(p)));
+                chain = Math.max(chain, depth.getInt(predecessors.getInt(p)) + 1);
+            }
+            int finish = start + duration.getInt(task);
+            earliestStart.putInt(task, start);
+            earliestFinish.putInt(task, finish);
+            depth.putInt(task, chain);
+            longest = Math.max(longest, finish);
+        }
+        projectDuration = longest;
+        resolvedBackward = false;
+        commit(event, GraphPassEvent.FORWARD);
+    }
+
+    /**
+     * Calculates the latest start and finish and the slack of every task in reverse topological order, a task
+     * finishes when the first of its successors has to start, tasks without successors finish with the project.
+     */
+    public void calculateCpmMetricsInBackwardDirection() {
+        requireForwardPass();
+        GraphPassEvent event = new GraphPassEvent();
+        event.begin();
+        for (int position = size - 1; position >= 0; position--) {
+            int task = topologicalOrder.getInt(position);
+            int finish = projectDuration;
+            for (int s = successorOffsets.getInt(task); s < successorOffsets.getInt(task + 1); s++) {
+                finish = Math.min(finish, latestStart.getInt(successors.getInt(s)));
+            }
+            latestFinish.putInt(task, finish);
+            latestStart.putInt(task, finish - duration.getInt(task));
+            slack.putInt(task, finish - earliestFinish.getInt(task));
+        }
+        resolvedBackward = true;
+        commit(event, GraphPassEvent.BACKWARD);
+    }
+
+    public int getProjectDuration() {
+        requireForwardPass();
+        return projectDuration;
+    }
+
+    public String taskCode(int task) {
+        int from = codeOffsets.getInt(task);
+        byte[] bytes = new byte[codeOffsets.getInt(task + 1) - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = codeBytes.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int duration(int task) {
+        return duration.getInt(task);
+    }
+
+    public int earliestStart(int task) {
+        requireForwardPass();
+        return earliestStart.getInt(task);
+    }
+
+    public int earliestFinish(int task) {
+        requireForwardPass();
+        return earliestFinish.getInt(task);
+    }
+
+    public int latestStart(int task) {
+        requireBackwardPass();
+        return latestStart.getInt(task);
+    }
+
+    public int latestFinish(int task) {
+        requireBackwardPass();
+        return latestFinish.getInt(task);
+    }
+
+    public int slack(int task) {
+        requireBackwardPass();
+        return slack.getInt(task);
+    }
+
+    /**
+     * Walks the critical path from the start of the project to its end the same way as
+     * {@link CpmProcessor#buildCriticalPath(CpmGraph)} does: the task with the least slack among the tasks without
+     * predecessors comes first, then always the successor with the least slack, ties are broken by the successor that
+     * starts right when the task finishes, then by the earliest finish, then by the shorter chain of predecessors and
+     * then by the least task code. Nothing is
+     * collected, so the path can be streamed whatever its length is.
+     * @param visitor gets indexes of tasks on the critical path in order
+     */
+    public void visitCriticalPath(IntConsumer visitor) {
+        requireBackwardPass();
+        int current = UNSET;
+        for (int task = 0; task < size; task++) {
+            if (predecessorOffsets.getInt(task) == predecessorOffsets.getInt(task + 1)) {
+                current = moreCritical(current, task, 0);
+            }
+        }
+        while (current != UNSET) {
+            visitor.accept(current);
+            int finish = earliestFinish.getInt(current);
+            int next = UNSET;
+            for (int s = successorOffsets.getInt(current); s < successorOffsets.getInt(current + 1); s++) {
+                next = moreCritical(next, successors.getInt(s), finish);
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * @param finish earliest finish of the task both candidates succeed, 0 for tasks without predecessors
+     */
+    private int moreCritical(int critical, int candidate, int finish) {
+        if (critical == UNSET) {
+            return candidate;
+        }
+        if (slack.getInt(candidate) != slack.getInt(critical)) {
+            return slack.getInt(candidate) < slack.getInt(critical) ? candidate : critical;
+        }
+        boolean driven = earliestStart.getInt(candidate) == finish;
+        if (driven != (earliestStart.getInt(critical) == finish)) {
+            return driven ? candidate : critical;
+        }
+        if (earliestFinish.getInt(candidate) != earliestFinish.getInt(critical)) {
+            return earliestFinish.getInt(candidate) < earliestFinish.getInt(critical) ? candidate : critical;
+        }
+        if (depth.getInt(candidate) != depth.getInt(critical)) {
+            return depth.getInt(candidate) < depth.getInt(critical) ? candidate : critical;
+        }
+        return taskCode(candidate).compareTo(taskCode(critical)) < 0 ? candidate : critical;
+    }
+
+    /**
+     * Same as {@link CpmProcessor#createWorkersOnSiteHistogram(CpmGraph)}: workers of every task are counted from its
+     * earliest start to its latest finish, one pass over the columns plus a prefix sum over the days.
+     * @return an array of project duration + 1 elements with a number of workers for every day
+     */
+    public int[] createWorkersOnSiteHistogram() {
+        requireBackwardPass();
+        int[] histogram = new int[projectDuration + 1];
+        for (int task = 0; task < size; task++) {
+            int assignment = workers.getInt(task);
+            int start = earliestStart.getInt(task);
+            int finish = latestFinish.getInt(task);
+            if (assignment == 0 || start >= finish) {
+                continue;
+            }
+            histogram[start] += assignment;
+            if (finish <= projectDuration) {
+                histogram[finish] -= assignment;
+            }
+        }
+        for (int day = 1; day < histogram.length; day++) {
+            histogram[day] += histogram[day - 1];
+        }
+        return histogram;
+    }
+
+    /**
+     * @return bytes of memory outside the heap held by this graph
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (OffHeapBuffer buffer : buffers()) {
+            bytes += buffer.isOpen() ? buffer.byteCapacity() : 0;
+        }
+        return bytes;
+    }
+
+    public boolean isOpen() {
+        return duration.isOpen();
+    }
+
+    /**
+     * Releases all memory of the graph, calling it again has no effect.
+     */
+    @Override
+    public void close() {
+        for (OffHeapBuffer buffer : buffers()) {
+            buffer.close();
+        }
+    }
+
+    private OffHeapBuffer[] buffers() {
+        return new OffHeapBuffer[]{codeOffsets, codeBytes, duration, workers, predecessorOffsets,
+                predecessors, successorOffsets, successors, topologicalOrder, earliestStart, earliestFinish,
+                depth, latestStart, latestFinish, slack};
+    }
+
+    private void requireForwardPass() {
+        if (projectDuration == UNSET) {
+            throw new IllegalStateException("Forward pass has not been done yet");
+        }
+    }
+
+    private void requireBackwardPass() {
+        if (!resolvedBackward) {
+            throw new IllegalStateException("Backward pass has not been done yet");
+        }
+    }
+
+    private void commit(GraphPassEvent event, String direction) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.direction = direction;
+            event.nodeCount = size;
+            event.edgeCount = edgeCount();
+            event.projectDuration = projectDuration;
+            event.commit();
+        }
+    }
+
+    /**
+     * Collects tasks one by one, e.g. straight from a streaming parser, so that the input never has to be held on
+     * the heap as a whole. Task codes are kept off heap in an open addressing hash table, dependencies are kept as task
+     * codes until {@link #build()} resolves them, so they may refer to tasks added later.<br>
+     * The same rules as in {@link cz.los.alice.service.TaskValidator} apply: the first task with a given code wins,
+     * dependencies on the task itself or on unknown tasks are dropped, missing or negative durations and missing crews
+     * count as 0. Relations are rejected. The builder is single use, {@link #build()} hands the memory over to the
+     * graph and {@link #close()} releases it if the graph was never built.
+     */
+    public static final class Builder implements AutoCloseable {
+
+        static final int INITIAL_CAPACITY = 1024;
+        private static final int AVERAGE_CODE_BYTES = 16;
+        private static final int NOT_FOUND = -1;
+
+        private int size;
+        private int dependencyCount;
+        private int duplicateTasks;
+        private boolean hasRootTasks;
+        private OffHeapBuffer codeOffsets;
+        private OffHeapBuffer codeBytes;
+        private OffHeapBuffer duration;
+        private OffHeapBuffer workers;
+        private OffHeapBuffer dependencyOffsets;
+        private OffHeapBuffer dependencyCodeOffsets;
+        private OffHeapBuffer dependencyBytes;
+        private OffHeapBuffer table;
+
+        private Builder(int capacity) {
+            codeOffsets = OffHeapBuffer.ofInts(capacity + 1L);
+            codeBytes = OffHeapBuffer.ofBytes((long) capacity * AVERAGE_CODE_BYTES);
+            duration = OffHeapBuffer.ofInts(capacity);
+            workers = OffHeapBuffer.ofInts(capacity);
+            dependencyOffsets = OffHeapBuffer.ofInts(capacity + 1L);
+            dependencyCodeOffsets = OffHeapBuffer.ofInts(capacity + 1L);
+            dependencyBytes = OffHeapBuffer.ofBytes((long) capacity * AVERAGE_CODE_BYTES);
+            table = OffHeapBuffer.ofInts(tableCapacity(capacity));
+        }
+
+        /**
+         * @param task task to add, it is not referenced after this call
+         * @return this builder
+         */
+        public Builder add(Task task) {
+            requireOpen();
+            if (!task.getRelations().isEmpty()) {
+                throw new InvalidScheduleException("Relations are not supported by the off-heap graph, task "
+                        + task.getTaskCode() + " has them");
+            }
+            int codeStart = codeOffsets.getInt(size);
+            int codeEnd = append(codeBytes, codeStart, task.getTaskCode());
+            if (find(codeBytes, codeStart, codeEnd) != NOT_FOUND) {
+                duplicateTasks++;
+                return this;
+            }
+            int nextSize = size + 1;
+            codeOffsets.ensureInts(nextSize + 1L);
+            duration.ensureInts(nextSize);
+            workers.ensureInts(nextSize);
+            dependencyOffsets.ensureInts(nextSize + 1L);
+            codeOffsets.putInt(nextSize, codeEnd);
+            duration.putInt(size, task.getDuration() == null ? 0 : Math.max(0, task.getDuration()));
+            workers.putInt(size, task.getCrew() == null || task.getCrew().getAssignment() == null
+                    ? 0 : task.getCrew().getAssignment());
+            for (String dependency : task.getDependencies()) {
+                dependencyCodeOffsets.ensureInts(dependencyCount + 2L);
+                int dependencyStart = dependencyCodeOffsets.getInt(dependencyCount);
+                dependencyCodeOffsets.putInt(++dependencyCount, append(dependencyBytes, dependencyStart, dependency));
+            }
+            dependencyOffsets.putInt(nextSize, dependencyCount);
+            hasRootTasks |= task.getDependencies().isEmpty();
+            insert(size++);
+            return this;
+        }
+
+        /**
+         * Resolves dependencies, links successors and orders the tasks topologically.
+         * @return the graph that owns the memory of this builder from now on
+         * @throws InvalidScheduleException if there are no tasks, no task without dependencies or the dependencies
+         * form a cycle, the memory is released then
+         */
+        public OffHeapCpmGraph build() {
+            requireOpen();
+            if (size == 0 || !hasRootTasks) {
+                close();
+                throw new InvalidScheduleException(size == 0
+                        ? "Input JSON file should contain at least 1 task"
+                        : "Input JSON file should contain at least one task with no dependencies");
+            }
+            OffHeapBuffer predecessorOffsets = OffHeapBuffer.ofInts(size + 1L);
+            OffHeapBuffer predecessors = OffHeapBuffer.ofInts(dependencyCount);
+            OffHeapBuffer successorOffsets = OffHeapBuffer.ofInts(size + 1L);
+            OffHeapBuffer successors = OffHeapBuffer.ofInts(dependencyCount);
+            OffHeapBuffer topologicalOrder = OffHeapBuffer.ofInts(size);
+            try {
+                int dropped = resolveDependencies(predecessorOffsets, predecessors, successorOffsets);
+                linkSuccessors(predecessorOffsets, predecessors, successorOffsets, successors);
+                orderTopologically(predecessorOffsets, successorOffsets, successors, topologicalOrder);
+                if (duplicateTasks > 0 || dropped > 0) {
+                    log.warn("Off-heap graph of {} tasks dropped {} duplicate tasks and {} invalid dependencies",
+                            size, duplicateTasks, dropped);
+                }
+            } catch (RuntimeException e) {
+                predecessorOffsets.close();
+                predecessors.close();
+                successorOffsets.close();
+                successors.close();
+                topologicalOrder.close();
+                close();
+                throw e;
+            }
+            releaseBuildingBuffers();
+            OffHeapCpmGraph graph = new OffHeapCpmGraph(
+                    this, predecessorOffsets, predecessors, successorOffsets, successors, topologicalOrder);
+            codeOffsets = null;
+            return graph;
+        }
+
+        /**
+         * @return number of dropped dependencies, successor counts are left in {@code successorOffsets}
+         */
+        private int resolveDependencies(OffHeapBuffer predecessorOffsets, OffHeapBuffer predecessors,
+                                        OffHeapBuffer successorCounts) {
+            int write = 0;
+            for (int task = 0; task < size; task++) {
+                for (int d = dependencyOffsets.getInt(task); d < dependencyOffsets.getInt(task + 1); d++) {
+                    int predecessor = find(dependencyBytes,
+                            dependencyCodeOffsets.getInt(d), dependencyCodeOffsets.getInt(d + 1));
+                    if (predecessor != NOT_FOUND && predecessor != task) {
+                        predecessors.putInt(write++, predecessor);
+                        successorCounts.putInt(predecessor + 1, successorCounts.getInt(predecessor + 1) + 1);
+                    }
+                }
+                predecessorOffsets.putInt(task + 1, write);
+            }
+            return dependencyCount - write;
+        }
+
+        private void linkSuccessors(OffHeapBuffer predecessorOffsets, OffHeapBuffer predecessors,
+                                    OffHeapBuffer successorOffsets, OffHeapBuffer successors) {
+            for (int task = 0; task < size; task++) {
+                successorOffsets.putInt(task + 1, successorOffsets.getInt(task + 1) + successorOffsets.getInt(task));
+            }
+            try (OffHeapBuffer cursors = OffHeapBuffer.ofInts(size)) {
+                for (int task = 0; task < size; task++) {
+                    for (int p = predecessorOffsets.getInt(task); p < predecessorOffsets.getInt(task + 1); p++) {
+                        int predecessor = predecessors.getInt(p);
+                        int cursor = cursors.getInt(predecessor);
+                        successors.putInt(successorOffsets.getInt(predecessor) + cursor, task);
+                        cursors.putInt(predecessor, cursor + 1);
+                    }
+                }
+            }
+        }
+
+        private void orderTopologically(OffHeapBuffer predecessorOffsets, OffHeapBuffer successorOffsets,
+                                        OffHeapBuffer successors, OffHeapBuffer order) {
+            try (OffHeapBuffer unresolvedPredecessors = OffHeapBuffer.ofInts(size)) {
+                int write = 0;
+                for (int task = 0; task < size; task++) {
+                    int count = predecessorOffsets.getInt(task + 1) - predecessorOffsets.getInt(task);
+                    unresolvedPredecessors.putInt(task, count);
+                    if (count == 0) {
+                        order.putInt(write++, task);
+                    }
+                }
+                for (int read = 0; read < write; read++) {
+                    int task = order.getInt(read);
+                    for (int s = successorOffsets.getInt(task); s < successorOffsets.getInt(task + 1); s++) {
+                        int successor = successors.getInt(s);
+                        int count = unresolvedPredecessors.getInt(successor) - 1;
+                        unresolvedPredecessors.putInt(successor, count);
+                        if (count == 0) {
+                            order.putInt(write++, successor);
+                        }
+                    }
+                }
+                if (write != size) {
+                    throw new InvalidScheduleException("Dependencies of " + (size - write)
+                            + " tasks form a cycle, the project cannot be scheduled");
+                }
+            }
+        }
+
+        /**
+         * Releases the memory unless it was handed over to a graph by {@link #build()}.
+         */
+        @Override
+        public void close() {
+            releaseBuildingBuffers();
+            if (codeOffsets != null) {
+                codeOffsets.close();
+                codeBytes.close();
+                duration.close();
+                workers.close();
+                codeOffsets = null;
+            }
+        }
+
+        private void releaseBuildingBuffers() {
+            if (table != null) {
+                table.close();
+                dependencyOffsets.close();
+                dependencyCodeOffsets.close();
+                dependencyBytes.close();
+                table = null;
+            }
+        }
+
+        private void requireOpen() {
+            if (table == null) {
+                throw new IllegalStateException("The builder has already been built or closed");
+            }
+        }
+
+        /**
+         * Writes UTF-8 bytes of the code at the given position.
+         * @return position after the last written byte
+         */
+        private int append(OffHeapBuffer target, int position, String code) {
+            byte[] bytes = code.getBytes(StandardCharsets.UTF_8);
+            target.ensureBytes((long) position + bytes.length);
+            for (int i = 0; i < bytes.length; i++) {
+                target.put(position + i, bytes[i]);
+            }
+            return position + bytes.length;
+        }
+
+        /**
+         * @return index of the task with the same code as the given bytes, {@link #NOT_FOUND} if there is none
+         */
+        private int find(OffHeapBuffer source, int from, int to) {
+            int mask = table.intCapacity() - 1;
+            for (int slot = hash(source, from, to) & mask; ; slot = (slot + 1) & mask) {
+                int task = table.getInt(slot) - 1;
+                if (task == NOT_FOUND) {
+                    return NOT_FOUND;
+                }
+                if (sameCode(task, source, from, to)) {
+                    return task;
+                }
+            }
+        }
+
+        private boolean sameCode(int task, OffHeapBuffer source, int from, int to) {
+            int codeFrom = codeOffsets.getInt(task);
+            if (codeOffsets.getInt(task + 1) - codeFrom != to - from) {
+                return false;
+            }
+            for (int i = 0; i < to - from; i++) {
+                if (codeBytes.get(codeFrom + i) != source.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Adds the task to the hash table, which is kept at most half full so that probe sequences stay short.
+         */
+        private void insert(int task) {
+            if ((long) size * 2 > table.intCapacity()) {
+                table.close();
+                table = OffHeapBuffer.ofInts(tableCapacity(size));
+                for (int i = 0; i < task; i++) {
+                    place(i);
+                }
+            }
+            place(task);
+        }
+
+        private void place(int task) {
+            int mask = table.intCapacity() - 1;
+            int slot = hash(codeBytes, codeOffsets.getInt(task), codeOffsets.getInt(task + 1)) & mask;
+            while (table.getInt(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table.putInt(slot, task + 1);
+        }
+
+        /**
+         * FNV-1a hash of the bytes with the high bits folded down, as only the low bits select the slot.
+         */
+        private static int hash(OffHeapBuffer source, int from, int to) {
+            int hash = 0x811C9DC5;
+            for (int i = from; i < to; i++) {
+                hash = (hash ^ source.get(i)) * 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int tableCapacity(int tasks) {
+            return Integer.highestOneBit(Math.max(INITIAL_CAPACITY, tasks) * 4 - 1);
+        }
+    }
+}
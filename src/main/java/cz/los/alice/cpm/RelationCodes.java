@@ -0,0 +1,51 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.Relation;
+
+/**
+ * Packs a {@link Relation} into a single int that is kept next to the links of a {@link Node}. The two lowest bits
+ * hold the ordinal of {@link Relation.Type}, the rest is the lag. A finish-to-start relation without lag is encoded as
+ * 0, so links without a relation need no lookup at all.
+ */
+final class RelationCodes {
+
+    static final int FS = 0;
+    static final int SS = 1;
+    static final int FF = 2;
+    static final int SF = 3;
+
+    private static final int TYPE_BITS = 2;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private RelationCodes() {
+    }
+
+    static int encode(Relation relation) {
+        if (relation == null) {
+            return 0;
+        }
+        int lag = relation.getLag();
+        if (Math.abs(lag) > Relation.MAX_LAG) {
+            throw new IllegalArgumentException("Lag of a relation should not exceed " + Relation.MAX_LAG + " days");
+        }
+        return lag << TYPE_BITS | relation.getType().ordinal();
+    }
+
+    static int type(int code) {
+        return code & TYPE_MASK;
+    }
+
+    static int lag(int code) {
+        return code >> TYPE_BITS;
+    }
+
+    /**
+     * @return true if the successor of such relation can not finish before its predecessor does. A task that has no
+     * successor like that has to be linked with the END task, otherwise it could finish after the project.
+     */
+    static boolean keepsFinishOrder(Relation relation) {
+        return relation == null
+                || relation.getLag() >= 0 && (relation.getType() == Relation.Type.FS
+                || relation.getType() == Relation.Type.FF);
+    }
+}
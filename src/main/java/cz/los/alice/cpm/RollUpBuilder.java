@@ -0,0 +1,187 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.RollUpGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rolls CPM values of all tasks of a calculated {@link CpmGraph} up the {@link ElementHierarchy} in a single pass
+ * over the nodes.<br>
+ * Element names are split once per distinct name, every task then updates the group of its element and all groups
+ * above it, so the pass is linear in the number of tasks times the number of levels. Tasks without element name
+ * count for the whole project only.<br>
+ * Peak workers need a sweep over the days of a group, so starts and finishes of tasks are collected only for
+ * the requested group and its descendants down to the requested depth, and are sorted once per such group.
+ */
+final class RollUpBuilder {
+
+    static final String PROJECT_LEVEL = "project";
+
+    private final ElementHierarchy hierarchy;
+    private final List<ElementHierarchy.Segment> target;
+    private final int depth;
+    private final Group root;
+    private final Map<String, Group> groupsByElementName = new HashMap<>();
+    private Group targetGroup;
+
+    /**
+     * @param path element name prefix of the requested group, empty for the whole project
+     * @param depth number of levels of the hierarchy below the requested group to include
+     */
+    RollUpBuilder(ElementHierarchy hierarchy, String path, int depth) {
+        if (depth < 0) {
+            throw new InvalidScheduleException("Depth of a roll-up should not be negative");
+        }
+        this.hierarchy = hierarchy;
+        this.target = hierarchy.segments(path);
+        this.depth = depth;
+        this.root = new Group(null, PROJECT_LEVEL, PROJECT_LEVEL, "", 0);
+        if (target.isEmpty()) {
+            targetGroup = root;
+            root.targetDepth = 0;
+        }
+    }
+
+    RollUpGroup build(CpmGraph graph) {
+        for (Node node : graph.getNodesByTask().values()) {
+            if (node == graph.getStartNode() || node == graph.getEndNode()) {
+                continue;
+            }
+            Group group = groupsByElementName.computeIfAbsent(node.getTask().getElementName(), this::createGroups);
+            for (; group != null; group = group.parent) {
+                group.add(node);
+            }
+        }
+        if (targetGroup == null) {
+            throw new InvalidScheduleException("No task has element name starting with "
+                    + target.get(target.size() - 1).getPath());
+        }
+        return targetGroup.toRollUpGroup();
+    }
+
+    private Group createGroups(String elementName) {
+        Group group = root;
+        List<ElementHierarchy.Segment> segments = hierarchy.segments(elementName);
+        for (int i = 0; i < segments.size(); i++) {
+            ElementHierarchy.Segment segment = segments.get(i);
+            Group parent = group;
+            int level = i + 1;
+            group = parent.children.computeIfAbsent(segment.getName(),
+                    name -> createGroup(parent, segment, level));
+        }
+        return group;
+    }
+
+    private Group createGroup(Group parent, ElementHierarchy.Segment segment, int level) {
+        Group group = new Group(parent, segment.getName(), hierarchy.getLevels().get(level - 1), segment.getPath(),
+                level);
+        if (parent.targetDepth >= 0) {
+            group.targetDepth = parent.targetDepth + 1;
+        } else if (parent.onTargetPath && level <= target.size()
+                && target.get(level - 1).getName().equals(segment.getName())) {
+            group.onTargetPath = true;
+            if (level == target.size()) {
+                group.targetDepth = 0;
+                targetGroup = group;
+            }
+        }
+        return group;
+    }
+
+    private final class Group {
+
+        private final Group parent;
+        private final String name;
+        private final String level;
+        private final String path;
+        private final Map<String, Group> children = new TreeMap<>();
+        private boolean onTargetPath;
+        private int targetDepth = -1;
+
+        private int earliestStart = Integer.MAX_VALUE;
+        private int latestFinish = Integer.MIN_VALUE;
+        private int minimumSlack = Integer.MAX_VALUE;
+        private int taskCount;
+        private int criticalTaskCount;
+        private long workDays;
+        private long workerDays;
+        private long[] events;
+        private int eventCount;
+
+        Group(Group parent, String name, String level, String path, int hierarchyLevel) {
+            this.parent = parent;
+            this.name = name;
+            this.level = level;
+            this.path = path;
+            this.onTargetPath = hierarchyLevel == 0;
+        }
+
+        void add(Node node) {
+            taskCount++;
+            earliestStart = Math.min(earliestStart, node.earliestStartDay());
+            latestFinish = Math.max(latestFinish, node.latestFinishDay());
+            minimumSlack = Math.min(minimumSlack, node.slackDays());
+            if (node.slackDays() == 0) {
+                criticalTaskCount++;
+            }
+            Integer assignment = node.getTask().getCrew().getAssignment();
+            int workers = assignment == null ? 0 : assignment;
+            workDays += node.getDuration();
+            workerDays += (long) node.getDuration() * workers;
+            if (targetDepth >= 0 && targetDepth <= depth && workers != 0
+                    && node.earliestStartDay() < node.latestFinishDay()) {
+                addEvent(node.earliestStartDay(), workers);
+                addEvent(node.latestFinishDay(), -workers);
+            }
+        }
+
+        /**
+         * Events are ordered by day and then by the change of workers, so tasks finishing on a day leave before
+         * tasks starting on the same day come.
+         */
+        private void addEvent(int day, int workers) {
+            if (events == null) {
+                events = new long[16];
+            } else if (eventCount == events.length) {
+                events = Arrays.copyOf(events, eventCount * 2);
+            }
+            events[eventCount++] = (long) day << 32 | ((long) workers - Integer.MIN_VALUE);
+        }
+
+        private int peakWorkers() {
+            if (eventCount == 0) {
+                return 0;
+            }
+            Arrays.sort(events, 0, eventCount);
+            long workers = 0;
+            long peak = 0;
+            for (int i = 0; i < eventCount; i++) {
+                workers += (int) (events[i] & 0xFFFFFFFFL) + Integer.MIN_VALUE;
+                peak = Math.max(peak, workers);
+            }
+            return (int) peak;
+        }
+
+        RollUpGroup toRollUpGroup() {
+            List<RollUpGroup> rolledUpChildren = new ArrayList<>();
+            if (targetDepth < depth) {
+                for (Group child : children.values()) {
+                    rolledUpChildren.add(child.toRollUpGroup());
+                }
+            }
+            boolean empty = taskCount == 0;
+            return new RollUpGroup(name, level, path,
+                    empty ? 0 : earliestStart,
+                    empty ? 0 : latestFinish,
+                    empty ? 0 : latestFinish - earliestStart,
+                    empty ? 0 : minimumSlack,
+                    taskCount, criticalTaskCount, workDays, workerDays, peakWorkers(), rolledUpChildren);
+        }
+    }
+}
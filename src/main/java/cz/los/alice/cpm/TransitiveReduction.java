@@ -0,0 +1,168 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds dependencies that are implied by other dependencies - {@code A -> C} is redundant when {@code A -> B -> C}
+ * exists, because a finish-to-start chain already keeps C after A. Removing them is the transitive reduction of
+ * the graph, it gives the same earliest and latest starts and finishes with fewer edges.<br>
+ * Only finish-to-start dependencies without {@link Task#getRelations()} are taken into account, both as redundant
+ * edges and as the chains that imply them, a relation with a lag or of another type is never implied by a chain.<br>
+ * Reachability is kept in bitsets filled in reverse topological order, so the cost is edges times tasks / 64.
+ * To bound the memory the bitsets cover a window of at most {@value #MAX_WINDOW_WORDS} words of all tasks together
+ * and the graph is passed once per window.
+ */
+final class TransitiveReduction {
+
+    static final int MAX_WINDOW_WORDS = 1 << 23;
+
+    private TransitiveReduction() {
+    }
+
+    /**
+     * @param tasks validated tasks, dependencies on tasks that are not among them are ignored
+     * @return codes of redundant dependencies by the code of the dependent task, empty if there are none or if
+     * finish-to-start dependencies form a cycle, which is left to the CPM calculation to report
+     */
+    static Map<String, Set<String>> findRedundantDependencies(Collection<Task> tasks) {
+        return findRedundantDependencies(tasks, MAX_WINDOW_WORDS);
+    }
+
+    static Map<String, Set<String>> findRedundantDependencies(Collection<Task> tasks, int maxWindowWords) {
+        List<Task> indexed = new ArrayList<>(tasks);
+        int taskCount = indexed.size();
+        Map<String, Integer> indexByCode = new HashMap<>(taskCount * 2);
+        for (int i = 0; i < taskCount; i++) {
+            indexByCode.put(indexed.get(i).getTaskCode(), i);
+        }
+        int[] successorStart = new int[taskCount + 1];
+        for (int task = 0; task < taskCount; task++) {
+            for (String dependency : indexed.get(task).getDependencies()) {
+                Integer predecessor = plainPredecessor(indexed.get(task), dependency, indexByCode);
+                if (predecessor != null && predecessor != task) {
+                    successorStart[predecessor + 1]++;
+                }
+            }
+        }
+        for (int task = 0; task < taskCount; task++) {
+            successorStart[task + 1] += successorStart[task];
+        }
+        int[] successors = new int[successorStart[taskCount]];
+        int[] filled = Arrays.copyOf(successorStart, taskCount);
+        for (int task = 0; task < taskCount; task++) {
+            for (String dependency : indexed.get(task).getDependencies()) {
+                Integer predecessor = plainPredecessor(indexed.get(task), dependency, indexByCode);
+                if (predecessor != null && predecessor != task) {
+                    successors[filled[predecessor]++] = task;
+                }
+            }
+        }
+        int[] order = topologicalOrder(successorStart, successors);
+        if (order == null) {
+            return Map.of();
+        }
+        boolean[] redundant = findRedundantEdges(successorStart, successors, order, maxWindowWords);
+
+        Map<String, Set<String>> redundantDependencies = new HashMap<>();
+        for (int predecessor = 0; predecessor < taskCount; predecessor++) {
+            for (int edge = successorStart[predecessor]; edge < successorStart[predecessor + 1]; edge++) {
+                if (redundant[edge]) {
+                    redundantDependencies
+                            .computeIfAbsent(indexed.get(successors[edge]).getTaskCode(), it -> new HashSet<>())
+                            .add(indexed.get(predecessor).getTaskCode());
+                }
+            }
+        }
+        return redundantDependencies;
+    }
+
+    private static Integer plainPredecessor(Task task, String dependency, Map<String, Integer> indexByCode) {
+        return task.getRelations().containsKey(dependency) ? null : indexByCode.get(dependency);
+    }
+
+    /**
+     * @return tasks in topological order, null if there is a cycle
+     */
+    private static int[] topologicalOrder(int[] successorStart, int[] successors) {
+        int taskCount = successorStart.length - 1;
+        int[] inDegree = new int[taskCount];
+        for (int successor : successors) {
+            inDegree[successor]++;
+        }
+        int[] order = new int[taskCount];
+        int size = 0;
+        for (int task = 0; task < taskCount; task++) {
+            if (inDegree[task] == 0) {
+                order[size++] = task;
+            }
+        }
+        for (int next = 0; next < size; next++) {
+            int task = order[next];
+            for (int edge = successorStart[task]; edge < successorStart[task + 1]; edge++) {
+                if (--inDegree[successors[edge]] == 0) {
+                    order[size++] = successors[edge];
+                }
+            }
+        }
+        return size == taskCount ? order : null;
+    }
+
+    /**
+     * An edge to a successor is redundant if another successor reaches it. Tasks are addressed by their position
+     * in the topological order, a window covers positions from {@code low} to {@code high} and only tasks before
+     * {@code high} can reach into it, so every pass visits them from {@code high} down.
+     */
+    private static boolean[] findRedundantEdges(int[] successorStart, int[] successors, int[] order,
+                                                int maxWindowWords) {
+        int taskCount = order.length;
+        int[] position = new int[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            position[order[i]] = i;
+        }
+        boolean[] redundant = new boolean[successors.length];
+        int windowWords = Math.max(1, Math.min((taskCount + 63) >>> 6, maxWindowWords / Math.max(1, taskCount)));
+        int window = windowWords << 6;
+        for (int low = 0; low < taskCount; low += window) {
+            int high = Math.min(taskCount, low + window);
+            long[] reach = new long[high * windowWords];
+            long[] reachOfSuccessors = new long[windowWords];
+            for (int current = high - 1; current >= 0; current--) {
+                int task = order[current];
+                Arrays.fill(reachOfSuccessors, 0);
+                for (int edge = successorStart[task]; edge < successorStart[task + 1]; edge++) {
+                    int successor = position[successors[edge]];
+                    if (successor < high) {
+                        int offset = successor * windowWords;
+                        for (int word = 0; word < windowWords; word++) {
+                            reachOfSuccessors[word] |= reach[offset + word];
+                        }
+                    }
+                }
+                int offset = current * windowWords;
+                System.arraycopy(reachOfSuccessors, 0, reach, offset, windowWords);
+                for (int edge = successorStart[task]; edge < successorStart[task + 1]; edge++) {
+                    int successor = position[successors[edge]];
+                    if (successor < low || successor >= high) {
+                        continue;
+                    }
+                    int bit = successor - low;
+                    long mask = 1L << (bit & 63);
+                    if ((reachOfSuccessors[bit >>> 6] & mask) != 0) {
+                        redundant[edge] = true;
+                    }
+                    reach[offset + (bit >>> 6)] |= mask;
+                }
+            }
+        }
+        return redundant;
+    }
+}
@@ -0,0 +1,117 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.WorkloadPeriod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A retained index of the number of workers on site by day, see
+ * {@link CpmProcessor#createWorkersOnSiteHistogram(CpmGraph)}, for queries over arbitrary windows of days.<br>
+ * The most busy day of a window is answered by a sparse table in constant time: row {@code k} holds the most busy day
+ * of every window of 2<sup>k</sup> days, any window is covered by two overlapping windows of one row. The sum of
+ * workers is the difference of two prefix sums. Building the index takes days times log(days) time and memory.<br>
+ * Of days with the same number of workers the earliest one is the most busy one, the same as in
+ * {@link cz.los.alice.service.ProcessingResult#getMostBusyDay()}. The index is immutable and can be queried
+ * concurrently.
+ */
+public final class WorkloadIndex {
+
+    private static final Comparator<WorkloadPeriod> BUSIEST_FIRST = Comparator
+            .comparingInt(WorkloadPeriod::getPeakWorkers).reversed()
+            .thenComparing(Comparator.comparingLong(WorkloadPeriod::getWorkerDays).reversed())
+            .thenComparingInt(WorkloadPeriod::getFrom);
+
+    private final int[] workers;
+    private final long[] prefixSums;
+    private final int[][] busiestDays;
+
+    private WorkloadIndex(int[] histogram) {
+        workers = histogram.clone();
+        prefixSums = new long[workers.length + 1];
+        for (int day = 0; day < workers.length; day++) {
+            prefixSums[day + 1] = prefixSums[day] + workers[day];
+        }
+        int levels = 32 - Integer.numberOfLeadingZeros(Math.max(1, workers.length));
+        busiestDays = new int[levels][];
+        busiestDays[0] = new int[workers.length];
+        for (int day = 0; day < workers.length; day++) {
+            busiestDays[0][day] = day;
+        }
+        for (int level = 1; level < levels; level++) {
+            int half = 1 << (level - 1);
+            int[] previous = busiestDays[level - 1];
+            int[] current = new int[workers.length - (1 << level) + 1];
+            for (int day = 0; day < current.length; day++) {
+                current[day] = busier(previous[day], previous[day + half]);
+            }
+            busiestDays[level] = current;
+        }
+    }
+
+    /**
+     * @param histogram number of workers on site by day
+     */
+    public static WorkloadIndex of(int[] histogram) {
+        if (histogram.length == 0) {
+            throw new IllegalArgumentException("Workload should cover at least one day");
+        }
+        return new WorkloadIndex(histogram);
+    }
+
+    public int days() {
+        return workers.length;
+    }
+
+    /**
+     * @param from first day of the window
+     * @param to last day of the window, inclusive
+     * @return {@link WorkloadPeriod} with the most busy day and the sum of workers of the window
+     * @throws InvalidScheduleException if the window is empty or not within the project
+     */
+    public WorkloadPeriod query(int from, int to) {
+        if (from < 0 || to < from || to >= workers.length) {
+            throw new InvalidScheduleException(
+                    "Window of days should be within 0 and " + (workers.length - 1) + " and not empty");
+        }
+        int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        int peakDay = busier(busiestDays[level][from], busiestDays[level][to - (1 << level) + 1]);
+        return new WorkloadPeriod(from, to, peakDay, workers[peakDay], prefixSums[to + 1] - prefixSums[from]);
+    }
+
+    /**
+     * Splits the project into consecutive periods of the given length starting with day 0, the last period may be
+     * shorter, and finds the busiest of them - the ones with the highest peak, then with the most worker days, then
+     * the earliest ones. Periods of length 1 are single days. Periods are ranked by a heap of {@code count} periods,
+     * so the cost is the number of periods times log(count), periods are never sorted as a whole. The heap is never
+     * bigger than the number of periods whatever the count.
+     * @param count maximum number of periods to return
+     * @param length number of days of a period
+     * @return the busiest periods, the busiest first
+     */
+    public List<WorkloadPeriod> findBusiestPeriods(int count, int length) {
+        if (count < 1 || length < 1) {
+            throw new InvalidScheduleException("Number of periods and their length should be at least 1");
+        }
+        long periodCount = (workers.length + (long) length - 1) / length;
+        PriorityQueue<WorkloadPeriod> busiest = new PriorityQueue<>((int) Math.min(count, periodCount) + 1,
+                BUSIEST_FIRST.reversed());
+        for (long from = 0; from < workers.length; from += length) {
+            busiest.add(query((int) from, (int) Math.min(workers.length - 1, from + length - 1)));
+            if (busiest.size() > count) {
+                busiest.poll();
+            }
+        }
+        List<WorkloadPeriod> periods = new ArrayList<>(busiest);
+        periods.sort(BUSIEST_FIRST);
+        return Collections.unmodifiableList(periods);
+    }
+
+    private int busier(int earlier, int later) {
+        return workers[later] > workers[earlier] ? later : earlier;
+    }
+}
@@ -0,0 +1,15 @@
+package cz.los.alice.cpm;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link WorkloadIndex} of at most {@code alice.workload.cache-size} recently queried schedules.
+ */
+@Component
+public class WorkloadIndexCache extends IndexCache<WorkloadIndex> {
+
+    public WorkloadIndexCache(@Value("${alice.workload.cache-size:8}") int capacity) {
+        super(capacity);
+    }
+}
@@ -0,0 +1,252 @@
+package cz.los.alice.importer;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Task;
+import lombok.SneakyThrows;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Reads tasks from UTF-8 CSV with a header row, one task per row. Fields are separated by commas, or by semicolons if
+ * the header has semicolons and no commas, and may be quoted with double quotes. Columns are found by their names in
+ * the header regardless of case, spaces and underscores, columns of other names are ignored:<br>
+ * {@code taskCode} (or {@code code}) - required<br>
+ * {@code operationName} (or {@code operation}), {@code elementName} (or {@code element})<br>
+ * {@code duration}, {@code minimumDuration}, {@code crashCostPerDay}<br>
+ * {@code crewName} (or {@code crew}), {@code workers} (or {@code assignment}, {@code crewAssignment})<br>
+ * {@code dependencies} (or {@code predecessors}) - task codes separated by commas, semicolons, vertical bars or
+ * spaces<br>
+ * An empty field is a missing value. A task without crew name and workers has no crew. Relations are not supported,
+ * dependencies are finish-to-start without lag.<br>
+ * Rows are read one at a time and every task is handed over as soon as its row is read.
+ */
+@Component
+public class CsvTaskImporter implements TaskImporter {
+
+    static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    private static final char QUOTE = '"';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final int MAX_HEADER_LENGTH = 64 * 1024;
+    private static final Pattern DEPENDENCY_SEPARATOR = Pattern.compile("[,;|\\s]+");
+    private static final Pattern NAME_SEPARATOR = Pattern.compile("[\\s_-]+");
+
+    private enum Column {
+        TASK_CODE("taskcode", "code"),
+        OPERATION_NAME("operationname", "operation"),
+        ELEMENT_NAME("elementname", "element"),
+        DURATION("duration"),
+        MINIMUM_DURATION("minimumduration"),
+        CRASH_COST_PER_DAY("crashcostperday"),
+        CREW_NAME("crewname", "crew"),
+        WORKERS("workers", "assignment", "crewassignment"),
+        DEPENDENCIES("dependencies", "predecessors");
+
+        private final List<String> names;
+
+        Column(String... names) {
+            this.names = List.of(names);
+        }
+    }
+
+    @Override
+    public List<MediaType> getMediaTypes() {
+        return List.of(TEXT_CSV);
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".csv";
+    }
+
+    @Override
+    @SneakyThrows(IOException.class)
+    public int importTasks(InputStream input, Consumer<Task> consumer) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            skipByteOrderMark(reader);
+            Records records = new Records(reader, detectDelimiter(reader));
+            List<String> header = records.next();
+            if (header == null) {
+                throw new InvalidScheduleException("CSV input should contain a header and at least 1 task");
+            }
+            Map<Column, Integer> columns = findColumns(header);
+            int count = 0;
+            for (List<String> record = records.next(); record != null; record = records.next()) {
+                if (record.stream().allMatch(String::isBlank)) {
+                    continue;
+                }
+                consumer.accept(toTask(record, columns, records.number));
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != BYTE_ORDER_MARK) {
+            reader.reset();
+        }
+    }
+
+    private static char detectDelimiter(BufferedReader reader) throws IOException {
+        reader.mark(MAX_HEADER_LENGTH);
+        boolean commas = false;
+        boolean semicolons = false;
+        boolean quoted = false;
+        for (int i = 0, c = reader.read(); i < MAX_HEADER_LENGTH && c != -1 && (quoted || c != '\n'); i++) {
+            quoted ^= c == QUOTE;
+            commas |= !quoted && c == ',';
+            semicolons |= !quoted && c == ';';
+            c = reader.read();
+        }
+        reader.reset();
+        return semicolons && !commas ? ';' : ',';
+    }
+
+    private static Map<Column, Integer> findColumns(List<String> header) {
+        Map<Column, Integer> columns = new EnumMap<>(Column.class);
+        for (int i = 0; i < header.size(); i++) {
+            String name = NAME_SEPARATOR.matcher(header.get(i)).replaceAll("").toLowerCase(Locale.ROOT);
+            for (Column column : Column.values()) {
+                if (column.names.contains(name)) {
+                    columns.putIfAbsent(column, i);
+                }
+            }
+        }
+        if (!columns.containsKey(Column.TASK_CODE)) {
+            throw new InvalidScheduleException("CSV header should name the task code column, found " + header);
+        }
+        return columns;
+    }
+
+    private static Task toTask(List<String> record, Map<Column, Integer> columns, int row) {
+        String taskCode = value(record, columns, Column.TASK_CODE);
+        if (taskCode == null) {
+            throw new InvalidScheduleException("Task on row " + row + " has no task code");
+        }
+        String crewName = value(record, columns, Column.CREW_NAME);
+        Integer workers = integer(record, columns, Column.WORKERS, row);
+        String dependencies = value(record, columns, Column.DEPENDENCIES);
+        return Task.builder()
+                .taskCode(taskCode)
+                .operationName(value(record, columns, Column.OPERATION_NAME))
+                .elementName(value(record, columns, Column.ELEMENT_NAME))
+                .duration(integer(record, columns, Column.DURATION, row))
+                .minimumDuration(integer(record, columns, Column.MINIMUM_DURATION, row))
+                .crashCostPerDay(decimal(record, columns, Column.CRASH_COST_PER_DAY, row))
+                .crew(crewName == null && workers == null ? null : Crew.builder()
+                        .name(crewName)
+                        .assignment(workers)
+                        .build())
+                .dependencies(splitDependencies(dependencies))
+                .build();
+    }
+
+    private static List<String> splitDependencies(String dependencies) {
+        if (dependencies == null) {
+            return List.of();
+        }
+        return Arrays.stream(DEPENDENCY_SEPARATOR.split(dependencies))
+                .filter(it -> !it.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String value(List<String> record, Map<Column, Integer> columns, Column column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size() || record.get(index).isBlank()) {
+            return null;
+        }
+        return record.get(index).trim();
+    }
+
+    private static Integer integer(List<String> record, Map<Column, Integer> columns, Column column, int row) {
+        String value = value(record, columns, column);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidScheduleException(column + " on row " + row + " is not a whole number: " + value);
+        }
+    }
+
+    private static Double decimal(List<String> record, Map<Column, Integer> columns, Column column, int row) {
+        String value = value(record, columns, column);
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidScheduleException(column + " on row " + row + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * Reads records of RFC 4180 CSV one at a time, a quoted field may contain delimiters, line breaks and doubled
+     * quotes.
+     */
+    private static final class Records {
+
+        private final BufferedReader reader;
+        private final char delimiter;
+        private int number;
+
+        private Records(BufferedReader reader, char delimiter) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+        }
+
+        /**
+         * @return fields of the next record, null at the end of the input
+         */
+        List<String> next() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            number++;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new InvalidScheduleException("Quoted field on row " + number + " is not closed");
+                    }
+                    if (c == QUOTE) {
+                        c = reader.read();
+                        if (c != QUOTE) {
+                            quoted = false;
+                            continue;
+                        }
+                    }
+                    field.append((char) c);
+                } else if (c == QUOTE && field.length() == 0) {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+        }
+    }
+}
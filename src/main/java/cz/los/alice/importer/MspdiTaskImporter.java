@@ -0,0 +1,277 @@
+package cz.los.alice.importer;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Relation;
+import cz.los.alice.model.Task;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads tasks from Microsoft Project XML (MSPDI) by StAX, the document is never held in memory as a tree:<br>
+ * {@code Task/UID} - task code, {@code Task/Name} - operation name, {@code Task/WBS} - element name<br>
+ * {@code Task/Duration} - work time rounded up to whole days of {@code Project/MinutesPerDay} (480 if not set)<br>
+ * {@code Task/PredecessorLink} - a dependency on {@code PredecessorUID}, {@code Type} and {@code LinkLag} other than
+ * finish-to-start without lag make a {@link Relation}, the lag is rounded to whole days<br>
+ * {@code Assignment} - work resources assigned to a task make its crew, the name of the first resource and the sum of
+ * {@code Units} rounded to whole workers<br>
+ * Summary tasks, the project summary task with UID 0 and empty task rows are skipped, dependencies on them are dropped
+ * by the validation as unknown. Calendars and dates of the project are not imported.<br>
+ * MSPDI lists assignments after all tasks, so tasks are handed over once the document has been read. Only the fields
+ * above and the {@code Summary} and {@code IsNull} flags are kept for every task, notes, baselines and extended
+ * attributes are not.
+ */
+@Component
+public class MspdiTaskImporter implements TaskImporter {
+
+    private static final int DEFAULT_MINUTES_PER_DAY = 480;
+    private static final double LAG_UNITS_PER_MINUTE = 10;
+    private static final String PROJECT_SUMMARY_UID = "0";
+    private static final String TRUE = "1";
+    private static final String WORK_RESOURCE = "1";
+    private static final Relation.Type[] LINK_TYPES = {
+            Relation.Type.FF, Relation.Type.FS, Relation.Type.SF, Relation.Type.SS};
+    private static final Set<String> TASK_FIELDS = Set.of("UID", "Name", "WBS", "Duration", "Summary", "IsNull");
+
+    private static final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+    @Override
+    public List<MediaType> getMediaTypes() {
+        return List.of(MediaType.APPLICATION_XML, MediaType.TEXT_XML);
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".xml";
+    }
+
+    @Override
+    public int importTasks(InputStream input, Consumer<Task> consumer) {
+        Document document = new Document();
+        try (input) {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(input);
+            try {
+                read(reader, document);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new InvalidScheduleException("Input is not a valid MSPDI document: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!document.project) {
+            throw new InvalidScheduleException("MSPDI document should have Project as its root element");
+        }
+        document.tasks.values().forEach(it -> consumer.accept(document.toTask(it)));
+        return document.tasks.size();
+    }
+
+    private static void read(XMLStreamReader reader, Document document) throws XMLStreamException {
+        List<String> path = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    path.add(reader.getLocalName());
+                    text.setLength(0);
+                    document.start(path);
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    text.append(reader.getText());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    document.end(path, text.toString().trim());
+                    path.remove(path.size() - 1);
+                    text.setLength(0);
+                    break;
+                default:
+            }
+        }
+    }
+
+    /**
+     * External entities and DTDs are not resolved, an MSPDI document does not need them.
+     */
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * What is kept of the document while it is read, elements are recognized by their path from {@code Project}.
+     */
+    private static final class Document {
+
+        private boolean project;
+        private int minutesPerDay = DEFAULT_MINUTES_PER_DAY;
+        private final Map<String, TaskRow> tasks = new LinkedHashMap<>();
+        private final Map<String, String> workResources = new HashMap<>();
+        private final Map<String, Double> unitsByTask = new HashMap<>();
+        private final Map<String, String> crewByTask = new HashMap<>();
+        private TaskRow task;
+        private String[] link;
+        private String[] resource;
+        private String[] assignment;
+
+        void start(List<String> path) {
+            if (path.size() == 1) {
+                project = "Project".equals(path.get(0));
+            } else if (is(path, "Tasks", "Task")) {
+                task = new TaskRow();
+            } else if (is(path, "Tasks", "Task", "PredecessorLink")) {
+                link = new String[3];
+            } else if (is(path, "Resources", "Resource")) {
+                resource = new String[] {null, null, WORK_RESOURCE};
+            } else if (is(path, "Assignments", "Assignment")) {
+                assignment = new String[3];
+            }
+        }
+
+        void end(List<String> path, String text) {
+            if (is(path, "MinutesPerDay") && !text.isEmpty()) {
+                minutesPerDay = Math.max(1, (int) number(text, "MinutesPerDay"));
+            } else if (is(path, "Tasks", "Task", "PredecessorLink")) {
+                task.links.add(link);
+            } else if (path.size() == 4 && is(path.subList(0, 3), "Tasks", "Task")) {
+                if (TASK_FIELDS.contains(path.get(3))) {
+                    task.fields.put(path.get(3), text);
+                }
+            } else if (path.size() == 5 && is(path.subList(0, 4), "Tasks", "Task", "PredecessorLink")) {
+                setField(link, path.get(4), text, "PredecessorUID", "Type", "LinkLag");
+            } else if (is(path, "Tasks", "Task")) {
+                endTask();
+            } else if (path.size() == 4 && is(path.subList(0, 3), "Resources", "Resource")) {
+                setField(resource, path.get(3), text, "UID", "Name", "Type");
+            } else if (is(path, "Resources", "Resource") && WORK_RESOURCE.equals(resource[2])) {
+                workResources.put(resource[0], resource[1] == null ? "" : resource[1]);
+            } else if (path.size() == 4 && is(path.subList(0, 3), "Assignments", "Assignment")) {
+                setField(assignment, path.get(3), text, "TaskUID", "ResourceUID", "Units");
+            } else if (is(path, "Assignments", "Assignment")) {
+                endAssignment();
+            }
+        }
+
+        private void endTask() {
+            String uid = task.fields.get("UID");
+            if (uid != null && !PROJECT_SUMMARY_UID.equals(uid) && !TRUE.equals(task.fields.get("Summary"))
+                    && !TRUE.equals(task.fields.get("IsNull"))) {
+                tasks.put(uid, task);
+            }
+        }
+
+        private void endAssignment() {
+            String name = workResources.get(assignment[1]);
+            if (name == null || !tasks.containsKey(assignment[0])) {
+                return;
+            }
+            double units = assignment[2] == null ? 1 : number(assignment[2], "Units");
+            unitsByTask.merge(assignment[0], units, Double::sum);
+            crewByTask.putIfAbsent(assignment[0], name);
+        }
+
+        Task toTask(TaskRow row) {
+            String uid = row.fields.get("UID");
+            Task.TaskBuilder task = Task.builder()
+                    .taskCode(uid)
+                    .operationName(row.fields.get("Name"))
+                    .elementName(row.fields.get("WBS"))
+                    .duration(days(row.fields.get("Duration")));
+            Set<String> dependencies = new HashSet<>();
+            for (String[] link : row.links) {
+                if (link[0] == null || !dependencies.add(link[0])) {
+                    continue;
+                }
+                task.dependency(link[0]);
+                Relation.Type type = link[1] == null ? Relation.Type.FS : linkType(link[1]);
+                int lag = link[2] == null
+                        ? 0 : (int) Math.round(number(link[2], "LinkLag") / LAG_UNITS_PER_MINUTE / minutesPerDay);
+                if (type != Relation.Type.FS || lag != 0) {
+                    task.relation(link[0], Relation.builder().type(type).lag(lag).build());
+                }
+            }
+            Double units = unitsByTask.get(uid);
+            if (units != null) {
+                int workers = (int) Math.round(units);
+                task.crew(Crew.builder().name(crewByTask.get(uid)).assignment(units > 0 ? Math.max(1, workers) : 0)
+                        .build());
+            }
+            return task.build();
+        }
+
+        private Integer days(String duration) {
+            if (duration == null || duration.isEmpty()) {
+                return null;
+            }
+            try {
+                long minutes = Math.round(Duration.parse(duration).toSeconds() / 60.0);
+                return (int) ((minutes + minutesPerDay - 1) / minutesPerDay);
+            } catch (DateTimeParseException e) {
+                throw new InvalidScheduleException("Duration of a task is not an ISO-8601 duration: " + duration);
+            }
+        }
+
+        private static Relation.Type linkType(String value) {
+            double type = number(value, "Type");
+            if (type < 0 || type >= LINK_TYPES.length || type != Math.rint(type)) {
+                throw new InvalidScheduleException("Type of a predecessor link should be 0 to 3, found " + value);
+            }
+            return LINK_TYPES[(int) type];
+        }
+
+        private static double number(String value, String field) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new InvalidScheduleException(field + " is not a number: " + value);
+            }
+        }
+
+        private static void setField(String[] values, String name, String text, String... names) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name) && !text.isEmpty()) {
+                    values[i] = text;
+                }
+            }
+        }
+
+        private static boolean is(List<String> path, String... names) {
+            if (path.size() != names.length + 1) {
+                return false;
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (!names[i].equals(path.get(i + 1))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class TaskRow {
+
+        private final Map<String, String> fields = new HashMap<>();
+        private final List<String[]> links = new ArrayList<>();
+    }
+}
@@ -0,0 +1,39 @@
+package cz.los.alice.importer;
+
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Task;
+import org.springframework.http.MediaType;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads tasks of a schedule exported by another tool straight into the task model, without converting it to JSON
+ * first. Tasks are handed over as they are read and are neither validated nor deduplicated, that is up to
+ * the consumer - {@link cz.los.alice.service.TaskParser} applies the same rules of
+ * {@link cz.los.alice.service.TaskValidator} as to JSON input, {@link cz.los.alice.cpm.OffHeapCpmGraph.Builder} its
+ * own.<br>
+ * Implementations are stateless and registered in {@link TaskImporters}.
+ */
+public interface TaskImporter {
+
+    /**
+     * @return content types of the input, the first one is the preferred one
+     */
+    List<MediaType> getMediaTypes();
+
+    /**
+     * @return extension of files with the input, including the dot
+     */
+    String getFileExtension();
+
+    /**
+     * The stream is closed when reading is finished.
+     * @param input stream with the exported schedule
+     * @param consumer gets tasks in the order they are found in the input
+     * @return number of tasks read
+     * @throws InvalidScheduleException if the input is not a schedule of the expected format
+     */
+    int importTasks(InputStream input, Consumer<Task> consumer);
+}
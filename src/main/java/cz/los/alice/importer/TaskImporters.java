@@ -0,0 +1,60 @@
+package cz.los.alice.importer;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * All available {@link TaskImporter}s. In the application every {@link TaskImporter} bean is registered, so a new
+ * format is added by a new component.
+ */
+@Component
+public class TaskImporters {
+
+    private final List<TaskImporter> importers;
+
+    public TaskImporters(List<TaskImporter> importers) {
+        this.importers = List.copyOf(importers);
+    }
+
+    /**
+     * @return importers of the formats supported out of the box, for use outside of the application context
+     */
+    public static TaskImporters defaults() {
+        return new TaskImporters(List.of(new CsvTaskImporter(), new MspdiTaskImporter()));
+    }
+
+    /**
+     * @param mediaType content type of the input, parameters such as the charset are ignored
+     * @return importer of the content type, empty if there is none
+     */
+    public Optional<TaskImporter> forMediaType(MediaType mediaType) {
+        return importers.stream()
+                .filter(importer -> importer.getMediaTypes().stream()
+                        .anyMatch(it -> it.equalsTypeAndSubtype(mediaType)))
+                .findFirst();
+    }
+
+    /**
+     * @param fileName name of the input file
+     * @return importer of files with the extension of the name, empty if there is none
+     */
+    public Optional<TaskImporter> forFileName(String fileName) {
+        return importers.stream()
+                .filter(it -> fileName.toLowerCase(Locale.ROOT).endsWith(it.getFileExtension()))
+                .findFirst();
+    }
+
+    /**
+     * @return content types of all importers
+     */
+    public List<MediaType> getMediaTypes() {
+        return importers.stream()
+                .flatMap(it -> it.getMediaTypes().stream())
+                .collect(Collectors.toList());
+    }
+}
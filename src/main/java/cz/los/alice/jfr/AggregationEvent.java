@@ -0,0 +1,42 @@
+package cz.los.alice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event that covers a single aggregation of a calculated graph by
+ * {@link cz.los.alice.cpm.CpmProcessor} or a single write of {@link cz.los.alice.cpm.CpmGraphExport}.
+ */
+@Name("cz.los.alice.Aggregation")
+@Label("CPM Aggregation")
+@Category({"Alice", "CPM Pipeline"})
+@Description("Aggregation of results from a calculated CPM graph")
+@StackTrace(false)
+public class AggregationEvent extends jdk.jfr.Event {
+
+    public static final String CRITICAL_PATH = "criticalPath";
+    public static final String WORKERS_ON_SITE = "workersOnSite";
+    public static final String WORKLOAD_PROFILES = "workloadProfiles";
+    public static final String ENRICHED_TASKS = "enrichedTasks";
+    public static final String LONGEST_PATHS = "longestPaths";
+    public static final String NEAR_CRITICAL_TASKS = "nearCriticalTasks";
+    public static final String CRASH_PLAN = "crashPlan";
+    public static final String ROLL_UP = "rollUp";
+    public static final String EXPORT = "export";
+
+    @Label("Aggregation")
+    public String aggregation;
+
+    @Label("Nodes")
+    public int nodeCount;
+
+    @Label("Project Duration")
+    public int projectDuration;
+
+    @Label("Result Size")
+    @Description("Number of elements in the aggregated result")
+    public int resultSize;
+}
@@ -0,0 +1,34 @@
+package cz.los.alice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event that covers a single forward or backward pass of {@link cz.los.alice.cpm.CpmGraph}.
+ */
+@Name("cz.los.alice.GraphPass")
+@Label("CPM Graph Pass")
+@Category({"Alice", "CPM Pipeline"})
+@Description("Calculation of the earliest or the latest start and finish of all nodes")
+@StackTrace(false)
+public class GraphPassEvent extends jdk.jfr.Event {
+
+    public static final String FORWARD = "forward";
+    public static final String BACKWARD = "backward";
+
+    @Label("Direction")
+    public String direction;
+
+    @Label("Nodes")
+    public int nodeCount;
+
+    @Label("Edges")
+    public int edgeCount;
+
+    @Label("Project Duration")
+    @Description("Project duration in days known after the pass")
+    public int projectDuration;
+}
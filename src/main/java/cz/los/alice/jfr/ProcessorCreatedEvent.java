@@ -0,0 +1,37 @@
+package cz.los.alice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event that covers construction of a {@link cz.los.alice.cpm.CpmProcessor} by
+ * {@link cz.los.alice.cpm.CpmProcessorFactory}.
+ */
+@Name("cz.los.alice.ProcessorCreated")
+@Label("CPM Processor Created")
+@Category({"Alice", "CPM Pipeline"})
+@Description("Resolution of root and terminal tasks and of predecessors and successors of every task")
+@StackTrace(false)
+public class ProcessorCreatedEvent extends jdk.jfr.Event {
+
+    @Label("Tasks")
+    @Description("Tasks including START and END pseudo-tasks")
+    public int taskCount;
+
+    @Label("Edges")
+    @Description("Links between tasks including links to START and END")
+    public int edgeCount;
+
+    @Label("Root Tasks")
+    public int rootTaskCount;
+
+    @Label("Terminal Tasks")
+    public int terminalTaskCount;
+
+    @Label("Removed Edges")
+    @Description("Redundant dependencies left out by the transitive reduction")
+    public int removedEdgeCount;
+}
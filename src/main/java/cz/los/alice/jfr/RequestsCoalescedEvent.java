@@ -0,0 +1,30 @@
+package cz.los.alice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event that covers one computation shared by concurrent requests for the same input by
+ * {@link cz.los.alice.controller.RequestCoalescer}.
+ */
+@Name("cz.los.alice.RequestsCoalesced")
+@Label("Requests Coalesced")
+@Category({"Alice", "Requests"})
+@Description("A computation and the requests that waited for its result instead of computing it again")
+@StackTrace(false)
+public class RequestsCoalescedEvent extends jdk.jfr.Event {
+
+    @Label("Key")
+    @Description("Tag of the input and of the requested result")
+    public String key;
+
+    @Label("Coalesced Requests")
+    @Description("Requests that received the result of this computation without running it")
+    public int coalescedRequests;
+
+    @Label("Failed")
+    public boolean failed;
+}
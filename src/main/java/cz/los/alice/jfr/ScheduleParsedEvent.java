@@ -0,0 +1,37 @@
+package cz.los.alice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event that covers parsing and validation of a single schedule by
+ * {@link cz.los.alice.service.TaskParser}.
+ */
+@Name("cz.los.alice.ScheduleParsed")
+@Label("Schedule Parsed")
+@Category({"Alice", "CPM Pipeline"})
+@Description("Parsing and validation of a schedule")
+@StackTrace(false)
+public class ScheduleParsedEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    @Description("Resource the schedule was read from, or 'stream' for uploaded content")
+    public String source;
+
+    @Label("Parsed Tasks")
+    public int taskCount;
+
+    @Label("Valid Tasks")
+    @Description("Tasks left after duplicates were dropped")
+    public int validTaskCount;
+
+    @Label("Dependencies")
+    @Description("Valid dependencies between tasks")
+    public int edgeCount;
+
+    @Label("Validation Issues")
+    public int issueCount;
+}
@@ -0,0 +1,24 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The project calculated as independent sub-projects, see {@link ProjectComponent}.<br>
+ * {@link #estimatedProjectDuration} - duration of the longest component<br>
+ * {@link #mostBusyDay} and {@link #maxWorkersOnSite} - the day with the most workers of all components together<br>
+ * {@link #criticalPath} - critical path of the whole project, the critical path of one of the longest components<br>
+ * {@link #cachedComponents} - number of components whose calculation was reused from a previous request<br>
+ * {@link #components} - all components, the longest first
+ */
+@Value
+public class ComponentPlan {
+
+    int estimatedProjectDuration;
+    int mostBusyDay;
+    int maxWorkersOnSite;
+    List<String> criticalPath;
+    int cachedComponents;
+    List<ProjectComponent> components;
+}
@@ -0,0 +1,21 @@
+package cz.los.alice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+/**
+ * A task of a {@link DependencyCone}.<br>
+ * {@link #depth} - the least number of dependencies between this task and the queried task<br>
+ * {@link #slack} - slack of this task in the project<br>
+ * {@link #absorbedDelay} - downstream tasks only, the number of days the queried task can slip before the earliest
+ * start of this task moves
+ */
+@Value
+public class ConeTask {
+
+    String taskCode;
+    int depth;
+    int slack;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Integer absorbedDelay;
+}
@@ -0,0 +1,29 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The cheapest found way to shorten the project by {@link #requestedDays}.<br>
+ * {@link #originalDuration} - duration of the project before crashing<br>
+ * {@link #crashedDuration} - duration of the project after all {@link #steps}, it is greater than
+ * {@link #originalDuration} - {@link #requestedDays} if some critical path could not be shortened any further<br>
+ * {@link #totalCost} - cost of all steps<br>
+ * {@link #steps} - cost/duration curve, one step per day saved<br>
+ * {@link #crashedTasks} - the resulting duration of every shortened task
+ */
+@Value
+public class CrashPlan {
+
+    int originalDuration;
+    int requestedDays;
+    int crashedDuration;
+    double totalCost;
+    List<CrashStep> steps;
+    List<TaskCrash> crashedTasks;
+
+    public boolean isTargetReached() {
+        return originalDuration - crashedDuration >= requestedDays;
+    }
+}
@@ -0,0 +1,21 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A single day the project was shortened by. Steps of a {@link CrashPlan} form its cost/duration curve.<br>
+ * {@link #projectDuration} - duration of the project after this step<br>
+ * {@link #crashedTasks} - {@link Task#getTaskCode()} of tasks shortened by one day in this step<br>
+ * {@link #cost} - cost of this step<br>
+ * {@link #cumulativeCost} - cost of this and all previous steps
+ */
+@Value
+public class CrashStep {
+
+    int projectDuration;
+    List<String> crashedTasks;
+    double cost;
+    double cumulativeCost;
+}
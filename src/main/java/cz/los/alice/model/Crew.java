@@ -1,15 +1,20 @@
 package cz.los.alice.model;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
-@Data
+/**
+ * {@link #calendar} - optional name of the {@link WorkCalendar} the crew works by, the default calendar of
+ * the {@link Schedule} is used if not set
+ */
+@Value
 @Builder
-@NoArgsConstructor
-@AllArgsConstructor
+@Jacksonized
 public class Crew {
     String name;
     Integer assignment;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String calendar;
 }
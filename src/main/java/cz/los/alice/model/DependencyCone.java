@@ -0,0 +1,21 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Everything a task depends on and everything that depends on it.<br>
+ * {@link #taskCode} - the queried task<br>
+ * {@link #slack} - number of days the queried task can slip without delaying the project<br>
+ * {@link #upstream} - tasks the queried task depends on, directly or through other tasks<br>
+ * {@link #downstream} - tasks that depend on the queried task, directly or through other tasks
+ */
+@Value
+public class DependencyCone {
+
+    String taskCode;
+    int slack;
+    List<ConeTask> upstream;
+    List<ConeTask> downstream;
+}
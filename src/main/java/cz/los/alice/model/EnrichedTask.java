@@ -1,11 +1,18 @@
 package cz.los.alice.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Value;
 
+import java.time.LocalDate;
+
 /**
  * This class represents a {@link Task} that is enriched with startInterval and endInterval<br>
  * {@link EnrichedTask#statInterval} - a range of days the task can be started without increasing the duration of the project<br>
  * {@link EnrichedTask#endInterval} -a range of days the task can be finished without increasing the duration of the project<br>
+ * {@link EnrichedTask#startDates} - the same range as {@link EnrichedTask#statInterval} in dates, only if the schedule
+ * has a start date<br>
+ * {@link EnrichedTask#finishDates} - a range of dates of the last working day of the task, only if the schedule has
+ * a start date<br>
  */
 @Value
 public class EnrichedTask implements Comparable<EnrichedTask> {
@@ -13,11 +20,22 @@ public class EnrichedTask implements Comparable<EnrichedTask> {
     Task task;
     Interval statInterval;
     Interval endInterval;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    DateInterval startDates;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    DateInterval finishDates;
 
     public EnrichedTask(Task task, int startFrom, int startTo, int endFrom, int endTo) {
+        this(task, startFrom, startTo, endFrom, endTo, null, null);
+    }
+
+    public EnrichedTask(Task task, int startFrom, int startTo, int endFrom, int endTo,
+                        DateInterval startDates, DateInterval finishDates) {
         this.task = task;
         this.statInterval = new Interval(startFrom, startTo);
         this.endInterval = new Interval(endFrom, endTo);
+        this.startDates = startDates;
+        this.finishDates = finishDates;
     }
 
     @Override
@@ -31,4 +49,10 @@ public class EnrichedTask implements Comparable<EnrichedTask> {
         Integer to;
 
     }
+
+    @Value
+    public static class DateInterval {
+        LocalDate from;
+        LocalDate to;
+    }
 }
@@ -1,15 +1,13 @@
 package cz.los.alice.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
-@Data
+@Value
 @Builder
-@NoArgsConstructor
-@AllArgsConstructor
+@Jacksonized
 public class Equipment {
-    private String name;
-    private Integer quantity;
+    String name;
+    Integer quantity;
 }
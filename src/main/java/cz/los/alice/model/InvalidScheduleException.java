@@ -0,0 +1,20 @@
+package cz.los.alice.model;
+
+/**
+ * Thrown on purpose when a schedule or a query about it cannot be processed as given, e.g. the input is not a valid
+ * schedule or a queried task is not part of it. The message is meant for the client that sent the input.<br>
+ * It is an {@link IllegalArgumentException}, other {@link IllegalArgumentException}s are not caused by the input and
+ * are treated as internal failures.
+ */
+public class InvalidScheduleException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidScheduleException(String message) {
+        super(message);
+    }
+
+    public InvalidScheduleException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
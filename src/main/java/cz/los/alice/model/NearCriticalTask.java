@@ -0,0 +1,22 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A task whose slack does not exceed a given threshold, that is a task that becomes critical after a delay of
+ * at most that many days.<br>
+ * {@link #slack} - days the task can be delayed without increasing the duration of the project<br>
+ * {@link #longestPathLength} - length of the longest path of the project that goes through this task<br>
+ * {@link #successors} - successors of this task that are near-critical as well
+ */
+@Value
+public class NearCriticalTask {
+
+    String taskCode;
+    int earliestStart;
+    int slack;
+    int longestPathLength;
+    List<String> successors;
+}
@@ -0,0 +1,22 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A weakly connected component of the project - tasks that are linked by dependencies to each other and to no task
+ * outside of the component.<br>
+ * {@link #taskCount} - number of tasks of the component<br>
+ * {@link #duration} - duration of the component on its own<br>
+ * {@link #slack} - number of days the whole component can be delayed without delaying the project<br>
+ * {@link #criticalPath} - task codes of the critical path of the component on its own
+ */
+@Value
+public class ProjectComponent {
+
+    int taskCount;
+    int duration;
+    int slack;
+    List<String> criticalPath;
+}
@@ -0,0 +1,42 @@
+package cz.los.alice.model;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Describes how a {@link Task} depends on one of its {@link Task#getDependencies()}.<br>
+ * {@link #type} - which ends of the two tasks are linked, finish-to-start if not set<br>
+ * {@link #lag} - number of days between the linked ends, may be negative for an overlap, 0 if not set<br>
+ * E.g. a slab that can be stripped 7 days after the pour has finished depends on the pour with {@code FS} and lag 7,
+ * a pour that can follow the formwork once it has been going for 2 days depends on it with {@code SS} and lag 2.
+ */
+@Value
+@Builder
+@Jacksonized
+public class Relation {
+
+    public static final int MAX_LAG = 100_000;
+
+    Type type;
+    Integer lag;
+
+    public Type getType() {
+        return type == null ? Type.FS : type;
+    }
+
+    public int getLag() {
+        return lag == null ? 0 : lag;
+    }
+
+    /**
+     * The first letter is the end of the predecessor, the second one the end of the task - {@code SF} means
+     * the task can not finish before the predecessor has started.
+     */
+    public enum Type {
+        FS,
+        SS,
+        FF,
+        SF
+    }
+}
@@ -0,0 +1,40 @@
+package cz.los.alice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Aggregated figures of all tasks whose element name falls under a node of the element hierarchy, e.g. a building
+ * or a level of a building.<br>
+ * {@link #level} - name of the hierarchy level, {@code project} for the whole project<br>
+ * {@link #path} - the common beginning of element names of the tasks, can be used to drill down<br>
+ * {@link #earliestStart} and {@link #latestFinish} - the first and the last day any of the tasks can be worked on,
+ * {@link #duration} is the number of days in between<br>
+ * {@link #minimumSlack} - the least slack among the tasks<br>
+ * {@link #workDays} - sum of durations of the tasks, {@link #workerDays} - sum of durations times assigned workers<br>
+ * {@link #criticalTaskCount} - number of tasks without slack<br>
+ * {@link #peakWorkers} - the highest number of workers of the tasks on site on a single day, every task counts from its
+ * earliest start to its latest finish like in the workers on site statistics. Days off of working calendars are not
+ * left out, so with mixed calendars this is an upper bound<br>
+ * {@link #children} - groups of the next level, only down to the requested depth
+ */
+@Value
+public class RollUpGroup {
+
+    String name;
+    String level;
+    String path;
+    int earliestStart;
+    int latestFinish;
+    int duration;
+    int minimumSlack;
+    int taskCount;
+    int criticalTaskCount;
+    long workDays;
+    long workerDays;
+    int peakWorkers;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    List<RollUpGroup> children;
+}
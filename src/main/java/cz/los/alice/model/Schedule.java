@@ -0,0 +1,26 @@
+package cz.los.alice.model;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * An input that schedules {@link #tasks} in real dates. Besides a plain JSON array of tasks, where days are counted
+ * from 0 without any days off, the input can be a JSON object of this shape.<br>
+ * {@link #startDate} - the date of project day 0, calendars are used only if it is set<br>
+ * {@link #calendars} - calendars crews refer to by {@link Crew#getCalendar()}. The calendar named
+ * {@value WorkCalendar#DEFAULT} is used for crews without a calendar, Monday to Friday without holidays if it is
+ * not defined
+ */
+@Value
+@Builder
+@Jacksonized
+public class Schedule {
+
+    LocalDate startDate;
+    List<WorkCalendar> calendars;
+    List<Task> tasks;
+}
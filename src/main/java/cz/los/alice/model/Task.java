@@ -1,18 +1,29 @@
 package cz.los.alice.model;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
-import lombok.Data;
 import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
 import java.util.List;
+import java.util.Map;
 
-@Data
+/**
+ * An immutable task of the project as it was found in the input. Tasks are identified by {@link #taskCode}.
+ * Collections are copied into unmodifiable lists by the builder, so a parsed Set of tasks can be safely shared between
+ * concurrent computations. Use {@link #toBuilder()} to derive a changed copy.<br>
+ * {@link #minimumDuration} and {@link #crashCostPerDay} are optional, a task can be shortened by crashing only if both
+ * of them are present.<br>
+ * {@link #relations} - optional {@link Relation} of the task to some of its {@link #dependencies}, keyed by the task code
+ * of the dependency. A dependency without a relation is finish-to-start without lag.
+ */
+@Value
+@SuppressWarnings("cast") // toBuilder() generated for the singular relations map casts every value to Relation
 @Builder(toBuilder = true)
-@NoArgsConstructor
-@AllArgsConstructor
+@Jacksonized
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Task {
 
@@ -22,9 +33,17 @@ public class Task {
     String operationName;
     String elementName;
     Integer duration;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Integer minimumDuration;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Double crashCostPerDay;
     Crew crew;
+    @Singular("equipmentItem")
     List<Equipment> equipment;
-    @NonNull
+    @Singular
     List<String> dependencies;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    @Singular
+    Map<String, Relation> relations;
 
 }
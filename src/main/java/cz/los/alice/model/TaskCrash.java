@@ -0,0 +1,16 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+/**
+ * A task shortened by a {@link CrashPlan}.<br>
+ * {@link #cost} - cost of shortening the task from {@link #originalDuration} to {@link #crashedDuration}
+ */
+@Value
+public class TaskCrash {
+
+    String taskCode;
+    int originalDuration;
+    int crashedDuration;
+    double cost;
+}
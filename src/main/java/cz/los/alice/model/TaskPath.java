@@ -0,0 +1,17 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A chain of dependent tasks from a root task to a terminal task.<br>
+ * {@link #length} - sum of durations of all tasks on the path, in days<br>
+ * {@link #taskCodes} - {@link Task#getTaskCode()} of the tasks on the path in the order of execution
+ */
+@Value
+public class TaskPath {
+
+    int length;
+    List<String> taskCodes;
+}
@@ -0,0 +1,31 @@
+package cz.los.alice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import cz.los.alice.service.ProcessingResult;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * State of a schedule file of the watched directory after its latest processing.<br>
+ * {@link #file} - path of the file relative to the watched directory<br>
+ * {@link #tag} - entity tag of the result made of the content and the engine options like the one of
+ * {@code GET /process}, null on failure<br>
+ * {@link #processedAt} - when the processing finished<br>
+ * {@link #processingMillis} - how long reading and processing of the file took<br>
+ * {@link #estimatedProjectDuration} - duration of the project, null on failure<br>
+ * {@link #error} - why the file could not be processed, null on success<br>
+ * {@link #result} - the result itself, left out of the JSON of the state
+ */
+@Value
+public class WatchedSchedule {
+
+    String file;
+    String tag;
+    Instant processedAt;
+    long processingMillis;
+    Integer estimatedProjectDuration;
+    String error;
+    @JsonIgnore
+    ProcessingResult result;
+}
@@ -0,0 +1,39 @@
+package cz.los.alice.model;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Definition of the days a crew works on.<br>
+ * {@link #workingDays} - days of week that are working days, Monday to Friday if not set<br>
+ * {@link #holidays} - dates that are not working days even if they fall on a working day of week
+ */
+@Value
+@Builder
+@Jacksonized
+public class WorkCalendar {
+
+    public static final String DEFAULT = "default";
+    public static final Set<DayOfWeek> STANDARD_WORKING_DAYS =
+            Set.copyOf(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+
+    @NonNull
+    String name;
+    Set<DayOfWeek> workingDays;
+    Set<LocalDate> holidays;
+
+    public Set<DayOfWeek> getWorkingDays() {
+        return workingDays == null ? STANDARD_WORKING_DAYS : workingDays;
+    }
+
+    public Set<LocalDate> getHolidays() {
+        return holidays == null ? Set.of() : holidays;
+    }
+}
@@ -0,0 +1,21 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+/**
+ * Workers on site within a window of days.<br>
+ * {@link #from} - first day of the window<br>
+ * {@link #to} - last day of the window, inclusive<br>
+ * {@link #peakDay} - the earliest of the most busy days of the window<br>
+ * {@link #peakWorkers} - number of workers on site on the peak day<br>
+ * {@link #workerDays} - sum of workers on site over all days of the window
+ */
+@Value
+public class WorkloadPeriod {
+
+    int from;
+    int to;
+    int peakDay;
+    int peakWorkers;
+    long workerDays;
+}
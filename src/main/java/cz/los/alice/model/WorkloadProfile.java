@@ -0,0 +1,17 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+/**
+ * Number of workers on site for every day of the project under one assumption of when tasks are carried out.<br>
+ * {@link #peakDay} - the earliest of the most busy days<br>
+ * {@link #peakWorkers} - number of workers on site on the peak day<br>
+ * {@link #workers} - number of workers on site by day, from day 0 to the project duration
+ */
+@Value
+public class WorkloadProfile {
+
+    int peakDay;
+    int peakWorkers;
+    int[] workers;
+}
@@ -0,0 +1,19 @@
+package cz.los.alice.model;
+
+import lombok.Value;
+
+/**
+ * Realistic staffing band of the project.<br>
+ * {@link #earliest} - every task is carried out as soon as possible, from its earliest start to its earliest
+ * finish<br>
+ * {@link #latest} - every task is carried out as late as possible, from its latest start to its latest finish<br>
+ * {@link #envelope} - the worst case, workers of a task are on site from its earliest start to its latest finish,
+ * the same as the workers on site statistics of the processing result
+ */
+@Value
+public class WorkloadProfiles {
+
+    WorkloadProfile earliest;
+    WorkloadProfile latest;
+    WorkloadProfile envelope;
+}
@@ -1,33 +1,65 @@
 package cz.los.alice.service;
 
+import cz.los.alice.calendar.ScheduleCalendars;
+import cz.los.alice.cpm.ComponentScheduler;
+import cz.los.alice.cpm.ConeIndexCache;
 import cz.los.alice.cpm.CpmGraph;
+import cz.los.alice.cpm.CpmGraphExport;
 import cz.los.alice.cpm.CpmProcessor;
 import cz.los.alice.cpm.CpmProcessorFactory;
+import cz.los.alice.cpm.CrashingOptimizer;
+import cz.los.alice.cpm.DependencyConeIndex;
+import cz.los.alice.cpm.ElementHierarchy;
+import cz.los.alice.cpm.WorkloadIndex;
+import cz.los.alice.cpm.WorkloadIndexCache;
+import cz.los.alice.importer.TaskImporter;
+import cz.los.alice.model.ComponentPlan;
+import cz.los.alice.model.CrashPlan;
+import cz.los.alice.model.DependencyCone;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.RollUpGroup;
 import cz.los.alice.model.Task;
+import cz.los.alice.model.WorkloadPeriod;
+import cz.los.alice.model.WorkloadProfiles;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
- * This is a single method stateless service object that is used to process the predefined JSON file that contains
- * a List of Tasks.
+ * This is a stateless service object that is used to process the predefined JSON file or a provided JSON content
+ * that contains a List of Tasks.
  * To parse and validate input from file {@link TaskParser} is used.
  * To get a new instance of {@link CpmProcessor} a {@link CpmProcessorFactory} is used.
+ * Roll-ups split element names by {@link ElementHierarchy}, components are calculated by {@link ComponentScheduler},
+ * dependency cones and workload queries are answered from indexes kept by {@link ConeIndexCache} and
+ * {@link WorkloadIndexCache}.
  */
 @Service
 @RequiredArgsConstructor
 public class AliceService {
 
+    static final int MAX_PATH_COUNT = 100;
+
     private final TaskParser parser;
     private final CpmProcessorFactory processorFactory;
+    private final ElementHierarchy hierarchy;
+    private final ComponentScheduler componentScheduler;
+    private final ConeIndexCache coneIndexCache;
+    private final WorkloadIndexCache workloadIndexCache;
 
     /**
      * This method orchestrates all components involved in processing the predefined JSON file.<br>
      * The logic is the following:<br>
-     * A Set of {@link Task} is obtained as a result of parsing a predefined JSON file by {@link AliceService#parser}.<br>
+     * A Set of {@link Task} is obtained as a result of parsing and validating a predefined JSON file
+     * by {@link AliceService#parser}.<br>
      * Then {@link CpmProcessor} is created by {@link CpmProcessorFactory} based on parsed input.<br>
      * After that processor creates a graph using Critical Path Method.<br>
      * From that graph a List of {@link Task#getTaskCode} is obtained that represent the Tasks that are on the critical path
@@ -35,25 +67,357 @@ public class AliceService {
      * As the last step a {@link ProcessingResult} object is created that contains: overall duration of project,
      * most busy day in the project plan with max number of workers on site, a critical path and the list of Tasks
      * needed to complete the project with start and end intervals, represented as List<{@link cz.los.alice.model.EnrichedTask}
+     * and the {@link ValidationReport} of the input. If the input has a start date, days are calendar days counted
+     * from that date, tasks are scheduled on working days of their calendars and key days are given as dates too.
      * @return {@link ProcessingResult} object that contains all information specified in requirements
      */
     public ProcessingResult process() {
-        Set<Task> tasks = parser.parseInputFile();
-        CpmProcessor processor = processorFactory.createCpmProcessor(tasks);
+        return process(ProcessingListener.NONE);
+    }
 
+    /**
+     * Same as {@link #process()}, progress is reported to the listener after every phase.
+     * @param listener {@link ProcessingListener}
+     * @return {@link ProcessingResult}
+     */
+    public ProcessingResult process(ProcessingListener listener) {
+        return process(parser.parseAndValidate(), listener);
+    }
+
+    /**
+     * Identifies the result of {@link #process()} without processing. The tag changes when the content of
+     * the predefined JSON file or {@link CpmProcessorFactory#getEngineOptions()} change, so it can be used as an entity
+     * tag of the result.
+     * @return SHA-256 of the engine version and options and the content hash of the input file as a lowercase hex
+     * string
+     */
+    public String resultTag() {
+        return resultTag(parser.hashInputFile());
+    }
+
+    /**
+     * Same as {@link #resultTag()} for a schedule provided by the caller, equal to the tag of the predefined JSON file
+     * with the same content.
+     * @param schedule content of the schedule
+     */
+    @SneakyThrows
+    public String resultTag(byte[] schedule) {
+        MessageDigest digest = MessageDigest.getInstance(TaskParser.CONTENT_HASH_ALGORITHM);
+        return resultTag(TaskParser.toHex(digest.digest(schedule)));
+    }
+
+    @SneakyThrows
+    private String resultTag(String contentHash) {
+        MessageDigest digest = MessageDigest.getInstance(TaskParser.CONTENT_HASH_ALGORITHM);
+        digest.update(processorFactory.getEngineOptions().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(contentHash.getBytes(StandardCharsets.UTF_8));
+        return TaskParser.toHex(digest.digest());
+    }
+
+    /**
+     * Same as {@link #process()} for a schedule provided by the caller instead of the predefined JSON file.
+     * @param schedule stream with a JSON array of tasks
+     * @return {@link ProcessingResult} of provided schedule
+     */
+    public ProcessingResult process(InputStream schedule) {
+        return process(schedule, ProcessingListener.NONE);
+    }
+
+    /**
+     * Same as {@link #process(InputStream)}, progress is reported to the listener after every phase.
+     */
+    public ProcessingResult process(InputStream schedule, ProcessingListener listener) {
+        return process(parser.parseAndValidate(schedule), listener);
+    }
+
+    /**
+     * Same as {@link #process(InputStream)} for a schedule of another format read by the importer.
+     * @param schedule stream with the content of the importer's format
+     * @param importer {@link TaskImporter} of the format
+     * @return {@link ProcessingResult} of provided schedule
+     */
+    public ProcessingResult process(InputStream schedule, TaskImporter importer) {
+        return process(parser.parseAndValidate(schedule, importer), ProcessingListener.NONE);
+    }
+
+    /**
+     * Calculates the predefined JSON file for an export that is written straight from the calculated graph.
+     * @return {@link CpmGraphExport} of the calculated graph
+     */
+    public CpmGraphExport export() {
+        return export(parser.parseAndValidate());
+    }
+
+    /**
+     * Same as {@link #export()} for a schedule provided by the caller.
+     * @param schedule stream with a JSON array of tasks
+     */
+    public CpmGraphExport export(InputStream schedule) {
+        return export(parser.parseAndValidate(schedule));
+    }
+
+    private CpmGraphExport export(ParsedTasks parsedTasks) {
+        CpmProcessor processor = processorFactory.createCpmProcessor(
+                parsedTasks.getTasks(),
+                parsedTasks.getCalendars());
+        return new CpmGraphExport(processor.buildCpmGraph());
+    }
+
+    /**
+     * Finds the longest paths and the near-critical tasks of the predefined JSON file. Paths are measured by
+     * durations of tasks, so schedules with calendars are not supported.
+     * @param pathCount number of the longest paths to find, from 1 to {@value #MAX_PATH_COUNT}
+     * @param slackThreshold maximum slack of a near-critical task, in days
+     * @return {@link NearCriticalResult}
+     */
+    public NearCriticalResult analyzeNearCritical(int pathCount, int slackThreshold) {
+        return analyzeNearCritical(parser.parseAndValidate(), pathCount, slackThreshold);
+    }
+
+    /**
+     * Same as {@link #analyzeNearCritical(int, int)} for a schedule provided by the caller.
+     * @param schedule stream with a JSON array of tasks
+     */
+    public NearCriticalResult analyzeNearCritical(InputStream schedule, int pathCount, int slackThreshold) {
+        return analyzeNearCritical(parser.parseAndValidate(schedule), pathCount, slackThreshold);
+    }
+
+    private NearCriticalResult analyzeNearCritical(ParsedTasks parsedTasks, int pathCount, int slackThreshold) {
+        if (pathCount > MAX_PATH_COUNT) {
+            throw new InvalidScheduleException("Number of paths should not exceed " + MAX_PATH_COUNT);
+        }
+        if (parsedTasks.getCalendars() != null) {
+            throw new InvalidScheduleException("Longest paths of schedules with calendars are not supported");
+        }
+        CpmProcessor processor = processorFactory.createCpmProcessor(parsedTasks.getTasks());
         CpmGraph cpmGraph = processor.buildCpmGraph();
+
+        return new NearCriticalResult(
+                cpmGraph.getEndNode().getLatestFinish(),
+                slackThreshold,
+                processor.findLongestPaths(cpmGraph, pathCount),
+                processor.extractNearCriticalTasks(cpmGraph, slackThreshold));
+    }
+
+    /**
+     * Creates the as-soon-as-possible, the as-late-as-possible and the worst case profile of workers on site of
+     * the predefined JSON file in one pass, see {@link CpmProcessor#createWorkloadProfiles(CpmGraph)}.
+     * @return {@link WorkloadProfiles}
+     */
+    public WorkloadProfiles workloadProfiles() {
+        return workloadProfiles(parser.parseAndValidate());
+    }
+
+    /**
+     * Same as {@link #workloadProfiles()} for a schedule provided by the caller.
+     * @param schedule stream with a JSON array of tasks
+     */
+    public WorkloadProfiles workloadProfiles(InputStream schedule) {
+        return workloadProfiles(parser.parseAndValidate(schedule));
+    }
+
+    private WorkloadProfiles workloadProfiles(ParsedTasks parsedTasks) {
+        CpmProcessor processor = processorFactory.createCpmProcessor(
+                parsedTasks.getTasks(),
+                parsedTasks.getCalendars());
+        return processor.createWorkloadProfiles(processor.buildCpmGraph());
+    }
+
+    /**
+     * Finds the cheapest way to shorten the project of the predefined JSON file by {@link CrashingOptimizer}.
+     * Durations are shortened in days of work, so schedules with calendars are not supported.
+     * @param days number of days the project should be shortened by
+     * @return {@link CrashPlan}
+     */
+    public CrashPlan crash(int days) {
+        return crash(parser.parseAndValidate(), days);
+    }
+
+    /**
+     * Same as {@link #crash(int)} for a schedule provided by the caller.
+     * @param schedule stream with a JSON array of tasks
+     */
+    public CrashPlan crash(InputStream schedule, int days) {
+        return crash(parser.parseAndValidate(schedule), days);
+    }
+
+    private CrashPlan crash(ParsedTasks parsedTasks, int days) {
+        if (parsedTasks.getCalendars() != null) {
+            throw new InvalidScheduleException("Schedules with calendars cannot be crashed");
+        }
+        CpmProcessor processor = processorFactory.createCpmProcessor(parsedTasks.getTasks());
+        CpmGraph cpmGraph = processor.buildCpmGraph();
+
+        return new CrashingOptimizer(cpmGraph).shorten(days);
+    }
+
+    /**
+     * Rolls the tasks of the predefined JSON file up the hierarchy of their element names.
+     * @param path element name prefix of the group to return, empty for the whole project
+     * @param depth number of levels below the group to include
+     * @return {@link RollUpGroup}
+     */
+    public RollUpGroup rollUp(String path, int depth) {
+        return rollUp(parser.parseAndValidate(), path, depth);
+    }
+
+    /**
+     * Same as {@link #rollUp(String, int)} for a schedule provided by the caller.
+     * @param schedule stream with a JSON array of tasks
+     */
+    public RollUpGroup rollUp(InputStream schedule, String path, int depth) {
+        return rollUp(parser.parseAndValidate(schedule), path, depth);
+    }
+
+    private RollUpGroup rollUp(ParsedTasks parsedTasks, String path, int depth) {
+        CpmProcessor processor = processorFactory.createCpmProcessor(
+                parsedTasks.getTasks(),
+                parsedTasks.getCalendars());
+        CpmGraph cpmGraph = processor.buildCpmGraph();
+
+        return processor.createRollUp(cpmGraph, hierarchy, path, depth);
+    }
+
+    /**
+     * Finds what the task of the predefined JSON file depends on and what depends on it. The schedule is parsed and
+     * calculated only if {@link ConeIndexCache} does not keep a {@link DependencyConeIndex} of its current content.
+     * @param taskCode code of the queried task
+     * @return {@link DependencyCone}
+     */
+    public DependencyCone dependencyCone(String taskCode) {
+        return coneIndexCache.get(resultTag(), () -> createConeIndex(parser.parseAndValidate())).query(taskCode);
+    }
+
+    /**
+     * Same as {@link #dependencyCone(String)} for a schedule provided by the caller.
+     * @param schedule content of the schedule
+     */
+    public DependencyCone dependencyCone(byte[] schedule, String taskCode) {
+        return coneIndexCache.get(resultTag(schedule),
+                () -> createConeIndex(parser.parseAndValidate(new ByteArrayInputStream(schedule)))).query(taskCode);
+    }
+
+    private DependencyConeIndex createConeIndex(ParsedTasks parsedTasks) {
+        CpmProcessor processor = processorFactory.createCpmProcessor(
+                parsedTasks.getTasks(),
+                parsedTasks.getCalendars());
+        return DependencyConeIndex.of(processor.buildCpmGraph());
+    }
+
+    /**
+     * Finds the most busy day and the sum of workers on site within a window of days of the predefined JSON file.
+     * The schedule is parsed and calculated only if {@link WorkloadIndexCache} does not keep a {@link WorkloadIndex} of
+     * its current content.
+     * @param from first day of the window
+     * @param to last day of the window, inclusive
+     * @return {@link WorkloadPeriod}
+     */
+    public WorkloadPeriod workload(int from, int to) {
+        return workloadIndex().query(from, to);
+    }
+
+    /**
+     * Same as {@link #workload(int, int)} for a schedule provided by the caller.
+     * @param schedule content of the schedule
+     */
+    public WorkloadPeriod workload(byte[] schedule, int from, int to) {
+        return workloadIndex(schedule).query(from, to);
+    }
+
+    /**
+     * Finds the busiest periods of the predefined JSON file, see {@link WorkloadIndex#findBusiestPeriods(int, int)}.
+     * @param count maximum number of periods
+     * @param length number of days of a period
+     * @return List of {@link WorkloadPeriod}, the busiest first
+     */
+    public List<WorkloadPeriod> busiestPeriods(int count, int length) {
+        return workloadIndex().findBusiestPeriods(count, length);
+    }
+
+    /**
+     * Same as {@link #busiestPeriods(int, int)} for a schedule provided by the caller.
+     * @param schedule content of the schedule
+     */
+    public List<WorkloadPeriod> busiestPeriods(byte[] schedule, int count, int length) {
+        return workloadIndex(schedule).findBusiestPeriods(count, length);
+    }
+
+    private WorkloadIndex workloadIndex() {
+        return workloadIndexCache.get(resultTag(), () -> createWorkloadIndex(parser.parseAndValidate()));
+    }
+
+    private WorkloadIndex workloadIndex(byte[] schedule) {
+        return workloadIndexCache.get(resultTag(schedule),
+                () -> createWorkloadIndex(parser.parseAndValidate(new ByteArrayInputStream(schedule))));
+    }
+
+    private WorkloadIndex createWorkloadIndex(ParsedTasks parsedTasks) {
+        CpmProcessor processor = processorFactory.createCpmProcessor(
+                parsedTasks.getTasks(),
+                parsedTasks.getCalendars());
+        return WorkloadIndex.of(processor.createWorkersOnSiteHistogram(processor.buildCpmGraph()));
+    }
+
+    /**
+     * Calculates the predefined JSON file as independent sub-projects by {@link ComponentScheduler}, which keeps
+     * already calculated components.
+     * @return {@link ComponentPlan}
+     */
+    public ComponentPlan analyzeComponents() {
+        return analyzeComponents(parser.parseAndValidate());
+    }
+
+    /**
+     * Same as {@link #analyzeComponents()} for a schedule provided by the caller.
+     * @param schedule stream with a JSON array of tasks
+     */
+    public ComponentPlan analyzeComponents(InputStream schedule) {
+        return analyzeComponents(parser.parseAndValidate(schedule));
+    }
+
+    private ComponentPlan analyzeComponents(ParsedTasks parsedTasks) {
+        if (parsedTasks.getCalendars() != null) {
+            throw new InvalidScheduleException("Schedules with calendars cannot be split into components");
+        }
+        return componentScheduler.schedule(parsedTasks.getTasks());
+    }
+
+    private ProcessingResult process(ParsedTasks parsedTasks, ProcessingListener listener) {
+        listener.parsed(parsedTasks);
+        CpmProcessor processor = processorFactory.createCpmProcessor(
+                parsedTasks.getTasks(),
+                parsedTasks.getCalendars());
+
+        CpmGraph cpmGraph = processor.buildCpmGraph(listener);
         List<String> criticalPath = processor.buildCriticalPath(cpmGraph);
+        listener.criticalPathFound(cpmGraph, criticalPath);
         Map<Integer, Integer> workersOnSiteByDay = processor.createWorkersOnSiteStatistics(cpmGraph);
 
         Map.Entry<Integer, Integer> mostBusyDay = workersOnSiteByDay.entrySet().stream()
                 .max(Map.Entry.comparingByValue())
                 .orElseThrow(() -> new RuntimeException("Could not find max value in provided list"));
+        listener.workersOnSiteCounted(mostBusyDay.getKey(), mostBusyDay.getValue());
 
         return new ProcessingResult(
                 cpmGraph.getEndNode().getLatestFinish(),
                 mostBusyDay.getKey(),
                 mostBusyDay.getValue(),
                 criticalPath,
-                processor.createEnrichedTasks(cpmGraph));
+                processor.createEnrichedTasks(cpmGraph),
+                parsedTasks.getValidationReport(),
+                createProjectDates(parsedTasks.getCalendars(), cpmGraph, mostBusyDay.getKey()));
+    }
+
+    private static ProjectDates createProjectDates(ScheduleCalendars calendars, CpmGraph cpmGraph, int mostBusyDay) {
+        if (calendars == null) {
+            return null;
+        }
+        LocalDate startDate = calendars.getStartDate();
+        int projectDuration = cpmGraph.getEndNode().getLatestFinish();
+        return new ProjectDates(
+                startDate,
+                startDate.plusDays(Math.max(0, projectDuration - 1)),
+                startDate.plusDays(mostBusyDay));
     }
 }
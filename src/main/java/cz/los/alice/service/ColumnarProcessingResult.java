@@ -0,0 +1,155 @@
+package cz.los.alice.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.EnrichedTask;
+import cz.los.alice.model.Equipment;
+import cz.los.alice.model.Task;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The same {@link ProcessingResult} laid out by columns for machine clients. Instead of a list of tasks every attribute
+ * of the tasks is a separate array, the i-th element of every array belongs to the i-th task of {@link #taskCodes}.
+ * Values that repeat across tasks are written once into a dictionary and referenced by their index:<br>
+ * {@link #operations} - index into {@link #operationNames}, -1 if the task has no operation name<br>
+ * {@link #crews} - index into {@link #crewDictionary}, -1 if the task has no crew<br>
+ * {@link #equipment} - indexes into {@link #equipmentDictionary}<br>
+ * {@link #dependencies} and {@link #criticalPath} - indexes into {@link #taskCodes}<br>
+ * {@link #earliestStarts}, {@link #latestStarts}, {@link #earliestFinishes} and {@link #latestFinishes} are
+ * the bounds of {@link EnrichedTask#getStatInterval()} and {@link EnrichedTask#getEndInterval()}, the date columns are
+ * present only if the schedule has a start date.<br>
+ * Relations and crashing attributes of tasks are input of the computation only and are not repeated here.
+ */
+@Value
+public class ColumnarProcessingResult {
+
+    private static final int NONE = -1;
+
+    Integer estimatedProjectDuration;
+    Integer mostBusyDay;
+    Integer maxWorkersOnSite;
+    int[] criticalPath;
+    String[] taskCodes;
+    String[] elementNames;
+    int[] durations;
+    int[] operations;
+    List<String> operationNames;
+    int[] crews;
+    List<Crew> crewDictionary;
+    int[][] equipment;
+    List<Equipment> equipmentDictionary;
+    int[][] dependencies;
+    int[] earliestStarts;
+    int[] latestStarts;
+    int[] earliestFinishes;
+    int[] latestFinishes;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    LocalDate[] earliestStartDates;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    LocalDate[] latestStartDates;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    LocalDate[] earliestFinishDates;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    LocalDate[] latestFinishDates;
+    ValidationReport validationReport;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    ProjectDates projectDates;
+
+    /**
+     * Lays the result out by columns in a single pass over its tasks, the order of tasks is kept.
+     */
+    public static ColumnarProcessingResult of(ProcessingResult result) {
+        List<EnrichedTask> tasks = result.getTasksWithStartAndEndDates();
+        int size = tasks.size();
+        Map<String, Integer> indexByCode = new HashMap<>(size * 2);
+        String[] taskCodes = new String[size];
+        for (int i = 0; i < size; i++) {
+            taskCodes[i] = tasks.get(i).getTask().getTaskCode();
+            indexByCode.put(taskCodes[i], i);
+        }
+        Dictionary<String> operationNames = new Dictionary<>();
+        Dictionary<Crew> crewDictionary = new Dictionary<>();
+        Dictionary<Equipment> equipmentDictionary = new Dictionary<>();
+        String[] elementNames = new String[size];
+        int[] durations = new int[size];
+        int[] operations = new int[size];
+        int[] crews = new int[size];
+        int[][] equipment = new int[size][];
+        int[][] dependencies = new int[size][];
+        int[] earliestStarts = new int[size];
+        int[] latestStarts = new int[size];
+        int[] earliestFinishes = new int[size];
+        int[] latestFinishes = new int[size];
+        boolean withDates = result.getProjectDates() != null;
+        LocalDate[] earliestStartDates = withDates ? new LocalDate[size] : null;
+        LocalDate[] latestStartDates = withDates ? new LocalDate[size] : null;
+        LocalDate[] earliestFinishDates = withDates ? new LocalDate[size] : null;
+        LocalDate[] latestFinishDates = withDates ? new LocalDate[size] : null;
+        for (int i = 0; i < size; i++) {
+            EnrichedTask enrichedTask = tasks.get(i);
+            Task task = enrichedTask.getTask();
+            elementNames[i] = task.getElementName();
+            durations[i] = task.getDuration() == null ? 0 : task.getDuration();
+            operations[i] = operationNames.indexOf(task.getOperationName());
+            crews[i] = crewDictionary.indexOf(task.getCrew());
+            equipment[i] = equipmentDictionary.indexesOf(task.getEquipment());
+            dependencies[i] = task.getDependencies().stream()
+                    .mapToInt(it -> indexByCode.getOrDefault(it, NONE))
+                    .toArray();
+            earliestStarts[i] = enrichedTask.getStatInterval().getFrom();
+            latestStarts[i] = enrichedTask.getStatInterval().getTo();
+            earliestFinishes[i] = enrichedTask.getEndInterval().getFrom();
+            latestFinishes[i] = enrichedTask.getEndInterval().getTo();
+            if (withDates && enrichedTask.getStartDates() != null) {
+                earliestStartDates[i] = enrichedTask.getStartDates().getFrom();
+                latestStartDates[i] = enrichedTask.getStartDates().getTo();
+                earliestFinishDates[i] = enrichedTask.getFinishDates().getFrom();
+                latestFinishDates[i] = enrichedTask.getFinishDates().getTo();
+            }
+        }
+        int[] criticalPath = result.getCriticalPath().stream()
+                .mapToInt(it -> indexByCode.getOrDefault(it, NONE))
+                .toArray();
+        return new ColumnarProcessingResult(result.getEstimatedProjectDuration(), result.getMostBusyDay(),
+                result.getMaxWorkersOnSite(), criticalPath, taskCodes, elementNames, durations,
+                operations, operationNames.values(), crews, crewDictionary.values(),
+                equipment, equipmentDictionary.values(), dependencies,
+                earliestStarts, latestStarts, earliestFinishes, latestFinishes,
+                earliestStartDates, latestStartDates, earliestFinishDates, latestFinishDates,
+                result.getValidationReport(), result.getProjectDates());
+    }
+
+    /**
+     * Distinct values in the order they were first seen.
+     */
+    private static class Dictionary<T> {
+
+        private final Map<T, Integer> indexes = new LinkedHashMap<>();
+
+        int indexOf(T value) {
+            if (value == null) {
+                return NONE;
+            }
+            return indexes.computeIfAbsent(value, it -> indexes.size());
+        }
+
+        int[] indexesOf(List<T> values) {
+            int[] result = new int[values.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = indexOf(values.get(i));
+            }
+            return result;
+        }
+
+        List<T> values() {
+            return new ArrayList<>(indexes.keySet());
+        }
+    }
+}
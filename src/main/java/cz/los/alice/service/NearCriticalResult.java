@@ -0,0 +1,21 @@
+package cz.los.alice.service;
+
+import cz.los.alice.model.NearCriticalTask;
+import cz.los.alice.model.TaskPath;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Chains of tasks that are critical or close to becoming critical.<br>
+ * {@link #longestPaths} - the longest paths of the project sorted by length descending, the first one is critical<br>
+ * {@link #nearCriticalTasks} - all tasks with slack not exceeding {@link #slackThreshold} with links among them
+ */
+@Value
+public class NearCriticalResult {
+
+    Integer estimatedProjectDuration;
+    int slackThreshold;
+    List<TaskPath> longestPaths;
+    List<NearCriticalTask> nearCriticalTasks;
+}
@@ -0,0 +1,22 @@
+package cz.los.alice.service;
+
+import cz.los.alice.calendar.ScheduleCalendars;
+import cz.los.alice.model.Task;
+import lombok.Value;
+import lombok.With;
+
+import java.util.Set;
+
+/**
+ * Tasks obtained from the input after validation together with the {@link ValidationReport} describing what
+ * had to be defaulted or dropped on the way.<br>
+ * {@link #calendars} - working calendars of the schedule, null if the input does not bind days to dates
+ */
+@Value
+public class ParsedTasks {
+
+    Set<Task> tasks;
+    ValidationReport validationReport;
+    @With
+    ScheduleCalendars calendars;
+}
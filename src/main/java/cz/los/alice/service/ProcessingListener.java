@@ -0,0 +1,36 @@
+package cz.los.alice.service;
+
+import cz.los.alice.cpm.CpmGraph;
+import cz.los.alice.cpm.CpmGraphListener;
+
+import java.util.List;
+
+/**
+ * Receives progress of {@link AliceService#process(ProcessingListener)} phase by phase, so that a client can show
+ * something before the whole {@link ProcessingResult} is ready. Phases of the graph are reported through
+ * {@link CpmGraphListener}. All methods are called on the processing thread, an exception thrown by a listener stops
+ * the processing.
+ */
+public interface ProcessingListener extends CpmGraphListener {
+
+    ProcessingListener NONE = new ProcessingListener() {
+    };
+
+    /**
+     * The input is parsed and validated.
+     */
+    default void parsed(ParsedTasks parsedTasks) {
+    }
+
+    /**
+     * The critical path is known, it is the first partial result.
+     */
+    default void criticalPathFound(CpmGraph graph, List<String> criticalPath) {
+    }
+
+    /**
+     * Workers on site are counted.
+     */
+    default void workersOnSiteCounted(int mostBusyDay, int maxWorkersOnSite) {
+    }
+}
@@ -1,5 +1,6 @@
 package cz.los.alice.service;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import cz.los.alice.model.EnrichedTask;
 import lombok.Value;
 
@@ -13,5 +14,8 @@ public class ProcessingResult {
     Integer maxWorkersOnSite;
     List<String> criticalPath;
     List<EnrichedTask> tasksWithStartAndEndDates;
+    ValidationReport validationReport;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    ProjectDates projectDates;
 
 }
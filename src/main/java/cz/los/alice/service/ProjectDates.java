@@ -0,0 +1,18 @@
+package cz.los.alice.service;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Key days of {@link ProcessingResult} as dates, available only for schedules with a start date.<br>
+ * {@link #finishDate} - the last day any task of the project works on<br>
+ * {@link #mostBusyDate} - the date of {@link ProcessingResult#getMostBusyDay()}
+ */
+@Value
+public class ProjectDates {
+
+    LocalDate startDate;
+    LocalDate finishDate;
+    LocalDate mostBusyDate;
+}
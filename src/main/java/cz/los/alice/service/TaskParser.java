@@ -1,28 +1,48 @@
 package cz.los.alice.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import cz.los.alice.model.Crew;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import cz.los.alice.calendar.ScheduleCalendars;
+import cz.los.alice.importer.TaskImporter;
+import cz.los.alice.jfr.ScheduleParsedEvent;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Schedule;
 import cz.los.alice.model.Task;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
-@Slf4j
+/**
+ * Reads tasks either from a JSON array of tasks or from a JSON object described by {@link Schedule}, which adds
+ * a start date and working calendars to the tasks.
+ */
 @Component
 @RequiredArgsConstructor
 public class TaskParser {
 
-    private static final Crew crewStub = Crew.builder()
-            .name("CREW_STUB")
-            .assignment(0)
-            .build();
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private static final String STREAM_SOURCE = "stream";
+    private static final String TASKS_FIELD = "tasks";
+    static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+
+    private final TaskValidator validator = new TaskValidator();
 
     @Value("classpath:input/LEO2-BE.json")
     private Resource resourceFile;
@@ -31,42 +51,165 @@ public class TaskParser {
         this.resourceFile = resourceFile;
     }
 
+    /**
+     * Parses the input file and validates parsed tasks by {@link TaskValidator}.
+     * @return validated tasks together with the {@link ValidationReport}
+     */
     @SneakyThrows
-    public Set<Task> parseInputFile() {
-        ObjectMapper objectMapper = new ObjectMapper();
+    public ParsedTasks parseAndValidate() {
+        InputStream input = resourceFile.getInputStream();
+        return parseAndValidate(() -> readSchedule(input), resourceFile.getDescription());
+    }
+
+    /**
+     * Parses a JSON array of tasks from provided stream and validates parsed tasks by {@link TaskValidator}.
+     * The stream is closed when parsing is finished.
+     * @param input stream with the JSON content
+     * @return validated tasks together with the {@link ValidationReport}
+     */
+    public ParsedTasks parseAndValidate(InputStream input) {
+        return parseAndValidate(() -> readSchedule(input), STREAM_SOURCE);
+    }
 
-        Set<Task> tasks = new HashSet<>(Arrays.asList(objectMapper.readValue(resourceFile.getFile(), Task[].class)));
+    /**
+     * Reads tasks of another format from provided stream by the importer and validates them by
+     * {@link TaskValidator} the same way as tasks parsed from JSON. The stream is closed when reading is finished.
+     * @param input stream with the content of the importer's format
+     * @return validated tasks together with the {@link ValidationReport}
+     */
+    public ParsedTasks parseAndValidate(InputStream input, TaskImporter importer) {
+        return parseAndValidate(() -> {
+            List<Task> tasks = new ArrayList<>();
+            importer.importTasks(input, tasks::add);
+            return Schedule.builder().tasks(tasks).build();
+        }, importer.getMediaTypes().get(0).toString());
+    }
 
-        validateTasksSize(tasks);
-        validateParsedData(tasks);
+    /**
+     * The whole parsing and validation is recorded as {@link ScheduleParsedEvent} when Flight Recorder is running.
+     * Content that is not valid JSON of a schedule is rejected with an {@link InvalidScheduleException}.
+     */
+    @SneakyThrows
+    private ParsedTasks parseAndValidate(ScheduleReader reader, String source) {
+        ScheduleParsedEvent event = new ScheduleParsedEvent();
+        event.begin();
+        Schedule schedule;
+        try {
+            schedule = reader.read();
+        } catch (JsonProcessingException e) {
+            throw new InvalidScheduleException(e.getMessage(), e);
+        }
+        List<Task> parsedTasks = schedule.getTasks() == null ? Collections.emptyList() : schedule.getTasks();
 
-        return tasks;
+        ParsedTasks result = validator.validate(parsedTasks).withCalendars(createCalendars(schedule));
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.taskCount = parsedTasks.size();
+            event.validTaskCount = result.getTasks().size();
+            event.edgeCount = result.getTasks().stream().mapToInt(it -> it.getDependencies().size()).sum();
+            event.issueCount = result.getValidationReport().getIssueCount();
+            event.commit();
+        }
+        return result;
     }
 
-    private void validateTasksSize(Set<Task> tasks) {
-        if (tasks.size() < 1) {
-            throw new IllegalArgumentException("Input JSON file should contain at least 1 task");
+    private static Schedule readSchedule(InputStream input) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            JsonToken firstToken = parser.nextToken();
+            if (firstToken == JsonToken.START_OBJECT) {
+                return objectMapper.readValue(parser, Schedule.class);
+            }
+            if (firstToken == null) {
+                throw new InvalidScheduleException("Input JSON file should contain at least 1 task");
+            }
+            return Schedule.builder()
+                    .tasks(Arrays.asList(objectMapper.readValue(parser, Task[].class)))
+                    .build();
         }
     }
 
-    private void validateParsedData(Set<Task> tasks) {
-        boolean hasRootTasks = false;
-        for (var task : tasks) {
-            if (task.getDependencies().size() == 0 && !hasRootTasks) {
-                hasRootTasks = true;
+    private interface ScheduleReader {
+
+        Schedule read() throws IOException;
+    }
+
+    private static ScheduleCalendars createCalendars(Schedule schedule) {
+        if (schedule.getStartDate() == null) {
+            if (schedule.getCalendars() != null && !schedule.getCalendars().isEmpty()) {
+                throw new InvalidScheduleException("Start date of the schedule is required to use calendars");
             }
-            if (task.getDuration() == null) {
-                log.warn("Task [{}] had no duration in the provided file. Setting duration to 0.", task.getTaskCode());
-                task.setDuration(0);
+            return null;
+        }
+        return new ScheduleCalendars(schedule.getStartDate(),
+                schedule.getCalendars() == null ? Collections.emptyList() : schedule.getCalendars());
+    }
+
+    /**
+     * Reads tasks one at a time and hands every one of them over to the consumer as soon as it is parsed, so that
+     * the whole input is never held in memory. Tasks are neither validated nor deduplicated, that is up to
+     * the consumer, e.g. {@link cz.los.alice.cpm.OffHeapCpmGraph.Builder}. The stream is closed when reading is
+     * finished.
+     * @param input stream with a JSON array of tasks or a {@link Schedule} without start date and calendars
+     * @param consumer gets tasks in the order they are found in the input
+     * @return number of tasks read
+     */
+    @SneakyThrows
+    public static int streamTasks(InputStream input, Consumer<Task> consumer) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            JsonToken firstToken = parser.nextToken();
+            if (firstToken == JsonToken.START_ARRAY) {
+                return streamArray(parser, consumer);
             }
-            if (task.getCrew() == null) {
-                log.warn("Task [{}] had no crew in the provided file. Setting crew assignment to 0.", task.getTaskCode());
-                task.setCrew(crewStub);
+            if (firstToken != JsonToken.START_OBJECT) {
+                throw new InvalidScheduleException("Input JSON file should contain at least 1 task");
             }
+            int count = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (TASKS_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                    count += streamArray(parser, consumer);
+                } else if (value != JsonToken.VALUE_NULL && !TASKS_FIELD.equals(field)) {
+                    throw new InvalidScheduleException("Streamed schedules support tasks only, found " + field);
+                }
+            }
+            return count;
+        }
+    }
+
+    private static int streamArray(JsonParser parser, Consumer<Task> consumer) throws IOException {
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            consumer.accept(objectMapper.readValue(parser, Task.class));
+            count++;
         }
-        if (!hasRootTasks) {
-            throw new IllegalArgumentException("Input JSON file should contain at least one task with no dependencies");
+        return count;
+    }
+
+    public Set<Task> parseInputFile() {
+        return parseAndValidate().getTasks();
+    }
+
+    /**
+     * Hashes the content of the input file without parsing it, the file is streamed through the digest.
+     * @return SHA-256 of the input file as a lowercase hex string
+     */
+    @SneakyThrows
+    public String hashInputFile() {
+        MessageDigest digest = MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+        try (InputStream input = new DigestInputStream(resourceFile.getInputStream(), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return toHex(digest.digest());
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
         }
+        return hex.toString();
     }
 
 }
@@ -0,0 +1,284 @@
+package cz.los.alice.service;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Relation;
+import cz.los.alice.model.Task;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.service.ValidationIssue.Type.DUPLICATE_TASK_CODE;
+import static cz.los.alice.service.ValidationIssue.Type.LAG_OUT_OF_RANGE;
+import static cz.los.alice.service.ValidationIssue.Type.MINIMUM_DURATION_OUT_OF_RANGE;
+import static cz.los.alice.service.ValidationIssue.Type.MISSING_CREW;
+import static cz.los.alice.service.ValidationIssue.Type.MISSING_DURATION;
+import static cz.los.alice.service.ValidationIssue.Type.NEGATIVE_CRASH_COST;
+import static cz.los.alice.service.ValidationIssue.Type.NON_POSITIVE_DURATION;
+import static cz.los.alice.service.ValidationIssue.Type.SELF_DEPENDENCY;
+import static cz.los.alice.service.ValidationIssue.Type.UNKNOWN_DEPENDENCY;
+import static cz.los.alice.service.ValidationIssue.Type.UNKNOWN_RELATION;
+
+/**
+ * Performs structural validation of parsed tasks and brings them to the shape the CPM engine can work with.
+ * Parsed tasks are never modified, a corrected copy is created for every task that had to be changed.<br>
+ * All tasks are visited once and indexed by {@link Task#getTaskCode()}, every dependency is then checked with a single
+ * hash lookup, so the validation is linear in the number of tasks and dependencies. Instead of failing on the first
+ * problem all of them are collected into a {@link ValidationReport}, and a single aggregated log line is written
+ * per validated input regardless of how many issues were found.<br>
+ * The following defaulting rules apply:<br>
+ * 1) A task without duration gets duration 0, a task with negative duration gets duration 0.<br>
+ * 2) A task without crew gets a crew stub with 0 workers assigned.<br>
+ * 3) Only the first task with a given task code is kept, the later ones are dropped.<br>
+ * 4) Dependencies on the task itself and on task codes that are not present in the input are dropped.<br>
+ * 5) Relations to task codes that are not valid dependencies of the task are dropped, so are relations with a lag
+ * over {@link Relation#MAX_LAG} days in either direction.<br>
+ * 6) A minimum duration that is negative or longer than the duration and a crash cost that is negative are dropped,
+ * such a task cannot be shortened by crashing.<br>
+ * The input is rejected with an {@link InvalidScheduleException} if it is empty, if none of the tasks is declared
+ * without dependencies or if the valid dependencies form a cycle. Cycles are found by Kahn's algorithm, a task that
+ * cannot be ordered topologically lies on a cycle or depends on one, so no graph is built for such an input.
+ */
+@Slf4j
+public class TaskValidator {
+
+    static final int MAX_REPORTED_ISSUES_PER_TYPE = 100;
+    private static final int LOGGED_SAMPLES_PER_TYPE = 5;
+
+    private static final Crew crewStub = Crew.builder()
+            .name("CREW_STUB")
+            .assignment(0)
+            .build();
+
+    /**
+     * @param parsedTasks tasks in the order they were found in the input, duplicates included
+     * @return validated tasks and the report of everything that was found on the way
+     */
+    public ParsedTasks validate(List<Task> parsedTasks) {
+        if (parsedTasks.isEmpty()) {
+            throw new InvalidScheduleException("Input JSON file should contain at least 1 task");
+        }
+        IssueCollector issues = new IssueCollector();
+        Map<String, Task> tasksByCode = new LinkedHashMap<>(parsedTasks.size() * 2);
+        boolean hasRootTasks = false;
+        for (var task : parsedTasks) {
+            if (tasksByCode.putIfAbsent(task.getTaskCode(), task) != null) {
+                issues.add(DUPLICATE_TASK_CODE, task.getTaskCode(), null);
+                continue;
+            }
+            if (task.getDependencies().isEmpty()) {
+                hasRootTasks = true;
+            }
+            Task defaulted = applyDefaults(task, issues);
+            if (defaulted != task) {
+                tasksByCode.put(defaulted.getTaskCode(), defaulted);
+            }
+        }
+        if (!hasRootTasks) {
+            throw new InvalidScheduleException("Input JSON file should contain at least one task with no dependencies");
+        }
+        Set<Task> validTasks = new HashSet<>(tasksByCode.size() * 2);
+        for (var task : tasksByCode.values()) {
+            validTasks.add(validateRelations(validateDependencies(task, tasksByCode, issues), task, issues));
+        }
+        requireAcyclic(validTasks);
+        ValidationReport report = issues.toReport(parsedTasks.size());
+        logReport(report, issues);
+        return new ParsedTasks(validTasks, report, null);
+    }
+
+    /**
+     * @return the same task if nothing had to be defaulted, a corrected copy otherwise
+     */
+    private static Task applyDefaults(Task task, IssueCollector issues) {
+        Integer duration = task.getDuration();
+        boolean fixDuration = false;
+        if (duration == null) {
+            issues.add(MISSING_DURATION, task.getTaskCode(), null);
+            fixDuration = true;
+        } else if (duration <= 0) {
+            issues.add(NON_POSITIVE_DURATION, task.getTaskCode(), String.valueOf(duration));
+            fixDuration = duration < 0;
+        }
+        boolean fixCrew = task.getCrew() == null;
+        if (fixCrew) {
+            issues.add(MISSING_CREW, task.getTaskCode(), null);
+        }
+        int validDuration = fixDuration ? 0 : duration;
+        Integer minimumDuration = task.getMinimumDuration();
+        boolean dropMinimumDuration = minimumDuration != null
+                && (minimumDuration < 0 || minimumDuration > validDuration);
+        if (dropMinimumDuration) {
+            issues.add(MINIMUM_DURATION_OUT_OF_RANGE, task.getTaskCode(), String.valueOf(minimumDuration));
+        }
+        Double crashCostPerDay = task.getCrashCostPerDay();
+        boolean dropCrashCost = crashCostPerDay != null && (!Double.isFinite(crashCostPerDay) || crashCostPerDay < 0);
+        if (dropCrashCost) {
+            issues.add(NEGATIVE_CRASH_COST, task.getTaskCode(), String.valueOf(crashCostPerDay));
+        }
+        if (!fixDuration && !fixCrew && !dropMinimumDuration && !dropCrashCost) {
+            return task;
+        }
+        return task.toBuilder()
+                .duration(validDuration)
+                .crew(fixCrew ? crewStub : task.getCrew())
+                .minimumDuration(dropMinimumDuration ? null : minimumDuration)
+                .crashCostPerDay(dropCrashCost ? null : crashCostPerDay)
+                .build();
+    }
+
+    /**
+     * @return the same task if all dependencies are valid, a copy without invalid dependencies otherwise
+     */
+    private static Task validateDependencies(Task task, Map<String, Task> tasksByCode, IssueCollector issues) {
+        List<String> dependencies = task.getDependencies();
+        List<String> validDependencies = null;
+        for (int i = 0; i < dependencies.size(); i++) {
+            String dependency = dependencies.get(i);
+            ValidationIssue.Type problem = null;
+            if (task.getTaskCode().equals(dependency)) {
+                problem = SELF_DEPENDENCY;
+            } else if (!tasksByCode.containsKey(dependency)) {
+                problem = UNKNOWN_DEPENDENCY;
+            }
+            if (problem != null) {
+                issues.add(problem, task.getTaskCode(), dependency);
+                if (validDependencies == null) {
+                    validDependencies = new ArrayList<>(dependencies.subList(0, i));
+                }
+            } else if (validDependencies != null) {
+                validDependencies.add(dependency);
+            }
+        }
+        if (validDependencies == null) {
+            return task;
+        }
+        return task.toBuilder()
+                .clearDependencies()
+                .dependencies(validDependencies)
+                .build();
+    }
+
+    /**
+     * @param task task with already validated dependencies
+     * @param parsedTask the task before validation of its dependencies
+     * @return the same task if all relations are valid, a copy without invalid relations otherwise
+     */
+    private static Task validateRelations(Task task, Task parsedTask, IssueCollector issues) {
+        Map<String, Relation> relations = task.getRelations();
+        if (relations.isEmpty()) {
+            return task;
+        }
+        Set<String> dependencies = new HashSet<>(task.getDependencies());
+        Map<String, Relation> validRelations = new HashMap<>(relations.size() * 2);
+        for (var entry : relations.entrySet()) {
+            String dependency = entry.getKey();
+            Relation relation = entry.getValue();
+            if (!dependencies.contains(dependency)) {
+                if (!parsedTask.getDependencies().contains(dependency)) {
+                    issues.add(UNKNOWN_RELATION, task.getTaskCode(), dependency);
+                }
+            } else if (relation != null && Math.abs(relation.getLag()) > Relation.MAX_LAG) {
+                issues.add(LAG_OUT_OF_RANGE, task.getTaskCode(), dependency + ":" + relation.getLag());
+            } else if (relation != null) {
+                validRelations.put(dependency, relation);
+            }
+        }
+        if (validRelations.size() == relations.size()) {
+            return task;
+        }
+        return task.toBuilder()
+                .clearRelations()
+                .relations(validRelations)
+                .build();
+    }
+
+    /**
+     * Orders the tasks topologically by Kahn's algorithm and counts them, the tasks left out are part of a cycle or
+     * depend on one.
+     * @param tasks tasks with validated dependencies
+     */
+    private static void requireAcyclic(Collection<Task> tasks) {
+        Map<String, Integer> unresolvedDependencies = new HashMap<>(tasks.size() * 2);
+        Map<String, List<String>> successors = new HashMap<>(tasks.size() * 2);
+        Deque<String> resolved = new ArrayDeque<>();
+        for (var task : tasks) {
+            unresolvedDependencies.put(task.getTaskCode(), task.getDependencies().size());
+            if (task.getDependencies().isEmpty()) {
+                resolved.add(task.getTaskCode());
+            }
+            for (var dependency : task.getDependencies()) {
+                successors.computeIfAbsent(dependency, it -> new ArrayList<>()).add(task.getTaskCode());
+            }
+        }
+        int ordered = 0;
+        while (!resolved.isEmpty()) {
+            String taskCode = resolved.poll();
+            ordered++;
+            for (var successor : successors.getOrDefault(taskCode, Collections.emptyList())) {
+                if (unresolvedDependencies.merge(successor, -1, Integer::sum) == 0) {
+                    resolved.add(successor);
+                }
+            }
+        }
+        if (ordered != tasks.size()) {
+            throw new InvalidScheduleException("Dependencies of " + (tasks.size() - ordered)
+                    + " tasks form a cycle, the project cannot be scheduled");
+        }
+    }
+
+    private static void logReport(ValidationReport report, IssueCollector issues) {
+        if (!report.hasIssues()) {
+            return;
+        }
+        String summary = report.getIssueCounts().entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue()
+                        + " (e.g. " + String.join(", ", issues.samples(entry.getKey())) + ")")
+                .collect(Collectors.joining("; "));
+        log.warn("Validation of {} tasks found {} issues, affected tasks were defaulted or dropped: {}",
+                report.getTaskCount(), report.getIssueCount(), summary);
+    }
+
+    private static class IssueCollector {
+
+        private final Map<ValidationIssue.Type, Integer> counts = new EnumMap<>(ValidationIssue.Type.class);
+        private final Map<ValidationIssue.Type, List<ValidationIssue>> reported =
+                new EnumMap<>(ValidationIssue.Type.class);
+        private int total;
+
+        void add(ValidationIssue.Type type, String taskCode, String detail) {
+            total++;
+            int count = counts.merge(type, 1, Integer::sum);
+            if (count <= MAX_REPORTED_ISSUES_PER_TYPE) {
+                reported.computeIfAbsent(type, it -> new ArrayList<>())
+                        .add(new ValidationIssue(type, taskCode, detail));
+            }
+        }
+
+        List<String> samples(ValidationIssue.Type type) {
+            return reported.get(type).stream()
+                    .limit(LOGGED_SAMPLES_PER_TYPE)
+                    .map(it -> it.getDetail() == null ? it.getTaskCode() : it.getTaskCode() + "->" + it.getDetail())
+                    .collect(Collectors.toList());
+        }
+
+        ValidationReport toReport(int taskCount) {
+            List<ValidationIssue> issues = reported.values().stream()
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toList());
+            return new ValidationReport(taskCount, total, new EnumMap<>(counts), issues);
+        }
+    }
+}
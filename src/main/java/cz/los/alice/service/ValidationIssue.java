@@ -0,0 +1,30 @@
+package cz.los.alice.service;
+
+import lombok.Value;
+
+/**
+ * A single structural problem found in the parsed input by {@link TaskValidator}.<br>
+ * {@link #type} - what kind of problem was found<br>
+ * {@link #taskCode} - code of the task the problem belongs to<br>
+ * {@link #detail} - additional information, e.g. the unknown dependency code. Can be null
+ */
+@Value
+public class ValidationIssue {
+
+    Type type;
+    String taskCode;
+    String detail;
+
+    public enum Type {
+        MISSING_DURATION,
+        MISSING_CREW,
+        NON_POSITIVE_DURATION,
+        DUPLICATE_TASK_CODE,
+        SELF_DEPENDENCY,
+        UNKNOWN_DEPENDENCY,
+        UNKNOWN_RELATION,
+        LAG_OUT_OF_RANGE,
+        MINIMUM_DURATION_OUT_OF_RANGE,
+        NEGATIVE_CRASH_COST
+    }
+}
@@ -0,0 +1,27 @@
+package cz.los.alice.service;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated outcome of the structural validation of the input.<br>
+ * {@link #taskCount} - number of tasks found in the input, duplicates included<br>
+ * {@link #issueCount} - total number of issues found<br>
+ * {@link #issueCounts} - number of issues per {@link ValidationIssue.Type}, only types that occurred are present<br>
+ * {@link #issues} - the issues themselves, at most {@link TaskValidator#MAX_REPORTED_ISSUES_PER_TYPE} per type.
+ * The counts are always complete even if some issues were left out of this list
+ */
+@Value
+public class ValidationReport {
+
+    int taskCount;
+    int issueCount;
+    Map<ValidationIssue.Type, Integer> issueCounts;
+    List<ValidationIssue> issues;
+
+    public boolean hasIssues() {
+        return issueCount > 0;
+    }
+}
@@ -0,0 +1,356 @@
+package cz.los.alice.watch;
+
+import cz.los.alice.importer.TaskImporter;
+import cz.los.alice.importer.TaskImporters;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.WatchedSchedule;
+import cz.los.alice.service.AliceService;
+import cz.los.alice.service.ProcessingResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the results of all schedule files of the {@code alice.watch.directory} ready in memory. The directory and its
+ * subdirectories are watched by a {@link WatchService}, a file that is created or changed is processed in
+ * the background once it has not changed for {@code alice.watch.debounce-millis}, so a file written in several steps
+ * is processed only once. Processing runs on a pool of {@code alice.watch.threads} threads.<br>
+ * Files are picked the same way as by {@link cz.los.alice.cli.AliceBatch} - {@code *.json} files and files of every
+ * {@link TaskImporter}, hidden files are left out as editors write their temporary copies there. A file whose content
+ * did not change is not processed again, a deleted file or directory is forgotten together with the processing
+ * pending for it. Only the result of the latest change of a file is kept, a result that took longer than a later
+ * change of the same file is dropped. Changes are tracked only until their processing ends.<br>
+ * A schedule refused by the validation keeps the reason as its error, any other failure is logged and kept as
+ * {@link #INTERNAL_FAILURE}.<br>
+ * The watcher is a component only if {@code alice.watch.directory} is set.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "alice.watch.directory")
+public class ScheduleDirectoryWatcher implements SmartLifecycle {
+
+    public static final String INTERNAL_FAILURE = "Internal failure, the schedule could not be processed";
+
+    private final AliceService service;
+    private final TaskImporters importers;
+    private final Path directory;
+    private final int threads;
+    private final long debounceMillis;
+    private final Map<String, WatchedSchedule> schedules = new ConcurrentHashMap<>();
+    private final Map<String, Long> latestChanges = new ConcurrentHashMap<>();
+    private final Map<String, PendingChange> pendingChanges = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong computations = new AtomicLong();
+
+    private WatchService watchService;
+    private ScheduledExecutorService debouncer;
+    private ExecutorService pool;
+    private Thread watchThread;
+
+    public ScheduleDirectoryWatcher(AliceService service, TaskImporters importers,
+                                    @Value("${alice.watch.directory}") Path directory,
+                                    @Value("${alice.watch.threads:2}") int threads,
+                                    @Value("${alice.watch.debounce-millis:500}") long debounceMillis) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads should be positive");
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Watched directory " + directory + " does not exist");
+        }
+        this.service = service;
+        this.importers = importers;
+        this.directory = directory.toAbsolutePath().normalize();
+        this.threads = threads;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Starts watching and processes all schedule files already in the directory.
+     */
+    @Override
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not watch " + directory, e);
+        }
+        debouncer = Executors.newSingleThreadScheduledExecutor(threadFactory("alice-watch-debounce"));
+        pool = Executors.newFixedThreadPool(threads, threadFactory("alice-watch"));
+        watchThread = threadFactory("alice-watch-events").newThread(this::watch);
+        registerAll(directory);
+        watchThread.start();
+        log.info("Watching schedules in {}", directory);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!isRunning()) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Could not close the watch service of {}", directory, e);
+        }
+        watchThread.interrupt();
+        debouncer.shutdownNow();
+        pool.shutdownNow();
+        watchedDirectories.clear();
+        pendingChanges.clear();
+        latestChanges.clear();
+        watchThread = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return watchThread != null;
+    }
+
+    /**
+     * @param file path of the schedule file relative to the watched directory, with {@code /} as the separator
+     * @return the latest processed state of the file with its result, empty if the file is unknown or not processed
+     * yet
+     */
+    public Optional<WatchedSchedule> getSchedule(String file) {
+        return Optional.ofNullable(schedules.get(file));
+    }
+
+    /**
+     * @return the latest processed state of all schedule files, ordered by file
+     */
+    public List<WatchedSchedule> getSchedules() {
+        return schedules.values().stream()
+                .sorted(Comparator.comparing(WatchedSchedule::getFile))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return number of times a schedule was actually processed since the start of the application
+     */
+    public long getComputations() {
+        return computations.get();
+    }
+
+    /**
+     * @return true if no change of a file is waiting for or being processed
+     */
+    boolean isIdle() {
+        return latestChanges.isEmpty() && pendingChanges.isEmpty();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path watched = watchedDirectories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        registerAll(directory);
+                    } else if (watched != null) {
+                        onEvent(event.kind(), watched.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Stopped watching {}", directory);
+        }
+    }
+
+    private void onEvent(WatchEvent.Kind<?> kind, Path path) {
+        if (kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+            registerAll(path);
+        } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            forget(path);
+        } else if (isSchedule(path)) {
+            scheduleProcessing(path, debounceMillis);
+        }
+    }
+
+    /**
+     * Registers the directory and all its subdirectories and processes the schedule files found there. Registering
+     * a directory again is harmless, so this also recovers from lost events.
+     */
+    private void registerAll(Path root) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.forEach(path -> {
+                if (Files.isDirectory(path)) {
+                    register(path);
+                } else if (isSchedule(path)) {
+                    scheduleProcessing(path, 0);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not scan {} for schedules", root, e);
+        }
+    }
+
+    private void register(Path path) {
+        try {
+            watchedDirectories.put(path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), path);
+        } catch (IOException e) {
+            log.warn("Could not watch {}", path, e);
+        }
+    }
+
+    private boolean isSchedule(Path path) {
+        String name = path.getFileName().toString();
+        return !name.startsWith(".") && (name.endsWith(".json") || importers.forFileName(name).isPresent())
+                && Files.isRegularFile(path);
+    }
+
+    /**
+     * Replaces a pending processing of the file, so the file is processed once the delay passes without another
+     * change. The processing is scheduled while the entry of the file is locked, so even a processing without delay
+     * finds its pending change registered and removes it.
+     */
+    private void scheduleProcessing(Path path, long delayMillis) {
+        String file = fileName(path);
+        long change = changes.incrementAndGet();
+        latestChanges.put(file, change);
+        pendingChanges.compute(file, (key, replaced) -> {
+            if (replaced != null) {
+                replaced.processing.cancel(false);
+            }
+            return new PendingChange(change, debouncer.schedule(() -> {
+                pendingChanges.computeIfPresent(file, (it, pending) -> pending.change == change ? null : pending);
+                pool.execute(() -> process(path, file, change));
+            }, delayMillis, TimeUnit.MILLISECONDS));
+        });
+    }
+
+    /**
+     * Forgets the file or all files of the directory, their pending processing is cancelled and the processing
+     * already running is outdated, so it does not store its result.
+     */
+    private void forget(Path path) {
+        String file = fileName(path);
+        latestChanges.keySet().removeIf(it -> isWithin(it, file));
+        pendingChanges.entrySet().removeIf(it -> {
+            if (isWithin(it.getKey(), file)) {
+                it.getValue().processing.cancel(false);
+                return true;
+            }
+            return false;
+        });
+        schedules.keySet().removeIf(it -> isWithin(it, file));
+    }
+
+    private static boolean isWithin(String file, String path) {
+        return file.equals(path) || file.startsWith(path + "/");
+    }
+
+    private void process(Path path, String file, long change) {
+        if (isOutdated(file, change)) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            byte[] schedule = Files.readAllBytes(path);
+            Optional<TaskImporter> importer = importers.forFileName(file);
+            String tag = service.resultTag(schedule) + importer.map(TaskImporter::getFileExtension).orElse("");
+            WatchedSchedule current = schedules.get(file);
+            if (current != null && tag.equals(current.getTag())) {
+                return;
+            }
+            computations.incrementAndGet();
+            ProcessingResult result = importer
+                    .map(it -> service.process(new ByteArrayInputStream(schedule), it))
+                    .orElseGet(() -> service.process(new ByteArrayInputStream(schedule)));
+            long millis = (System.nanoTime() - startedAt) / 1_000_000;
+            store(file, change, new WatchedSchedule(file, tag, Instant.now(), millis,
+                    result.getEstimatedProjectDuration(), null, result));
+            log.info("[{}] processed in {} ms, estimated project duration {} days",
+                    file, millis, result.getEstimatedProjectDuration());
+        } catch (NoSuchFileException e) {
+            log.debug("[{}] was deleted before it could be processed", file);
+        } catch (InvalidScheduleException e) {
+            storeFailure(file, change, startedAt, e.getMessage());
+            log.warn("[{}] is not a valid schedule: {}", file, e.getMessage());
+        } catch (Exception e) {
+            storeFailure(file, change, startedAt, INTERNAL_FAILURE);
+            log.error("[{}] could not be processed because of an internal failure", file, e);
+        } finally {
+            latestChanges.remove(file, change);
+        }
+    }
+
+    private void storeFailure(String file, long change, long startedAt, String error) {
+        long millis = (System.nanoTime() - startedAt) / 1_000_000;
+        store(file, change, new WatchedSchedule(file, null, Instant.now(), millis, null, error, null));
+    }
+
+    /**
+     * @return true if the file changed again or was deleted since the given change
+     */
+    private boolean isOutdated(String file, long change) {
+        Long latest = latestChanges.get(file);
+        return latest == null || latest != change;
+    }
+
+    private void store(String file, long change, WatchedSchedule schedule) {
+        schedules.compute(file, (key, current) -> isOutdated(file, change) ? current : schedule);
+    }
+
+    private String fileName(Path path) {
+        return directory.relativize(path.toAbsolutePath().normalize()).toString()
+                .replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    @RequiredArgsConstructor
+    private static final class PendingChange {
+
+        private final long change;
+        private final ScheduledFuture<?> processing;
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package cz.los.alice;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures bytes allocated on the heap by the current thread using HotSpot's
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}. The cost of the measurement itself is
+ * calibrated once and subtracted, so a piece of code that does not allocate is reported as 0 bytes.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final long MEASUREMENT_OVERHEAD = calibrate();
+
+    public static boolean isSupported() {
+        return THREAD_BEAN.isThreadAllocatedMemorySupported() && THREAD_BEAN.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @param action code to measure, it is run exactly once
+     * @return number of bytes allocated by the current thread while running the action
+     */
+    public static long allocatedBytes(Runnable action) {
+        long threadId = Thread.currentThread().getId();
+        long before = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+        action.run();
+        long after = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+        return Math.max(0, after - before - MEASUREMENT_OVERHEAD);
+    }
+
+    private static long calibrate() {
+        long threadId = Thread.currentThread().getId();
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 1_000; i++) {
+            long before = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+            long after = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+            overhead = Math.min(overhead, after - before);
+        }
+        return overhead;
+    }
+}
@@ -1,12 +1,22 @@
 package cz.los.alice;
 
+import cz.los.alice.cpm.ComponentScheduler;
+import cz.los.alice.cpm.ConeIndexCache;
+import cz.los.alice.cpm.CpmProcessorFactory;
+import cz.los.alice.cpm.ElementHierarchy;
+import cz.los.alice.cpm.WorkloadIndexCache;
 import cz.los.alice.model.Crew;
 import cz.los.alice.model.Task;
+import cz.los.alice.service.AliceService;
+import cz.los.alice.service.TaskParser;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -14,6 +24,14 @@ public class TestUtils {
 
     public static final Crew SIMPLE_CREW = Crew.builder().assignment(1).build();
 
+    /**
+     * @return service of the parser with the default hierarchy and small caches
+     */
+    public static AliceService createAliceService(TaskParser parser) {
+        CpmProcessorFactory processorFactory = new CpmProcessorFactory();
+        return new AliceService(parser, processorFactory, ElementHierarchy.defaults(),
+                new ComponentScheduler(processorFactory, 1000), new ConeIndexCache(4), new WorkloadIndexCache(4));
+    }
 
     public static Set<Task> createSingleTasksSet() {
         Task firstTask = Task.builder()
@@ -185,4 +203,39 @@ public class TestUtils {
                 thirdTerminal,
                 fourthTerminal);
     }
+
+    /**
+     * Creates a synthetic schedule of {@code layers} x {@code width} tasks. Every task except the ones in the first
+     * layer depends on 1 to 3 random tasks of the previous layer, durations are between 1 and 10 days.
+     * The same seed always produces the same schedule.
+     */
+    public static Set<Task> createLayeredTasksSet(int layers, int width, long seed) {
+        Random random = new Random(seed);
+        Set<Task> tasks = new HashSet<>();
+        for (int layer = 0; layer < layers; layer++) {
+            for (int position = 0; position < width; position++) {
+                List<String> dependencies = new ArrayList<>();
+                if (layer > 0) {
+                    int dependencyCount = 1 + random.nextInt(3);
+                    for (int i = 0; i < dependencyCount; i++) {
+                        String dependency = layeredTaskCode(layer - 1, random.nextInt(width));
+                        if (!dependencies.contains(dependency)) {
+                            dependencies.add(dependency);
+                        }
+                    }
+                }
+                tasks.add(Task.builder()
+                        .taskCode(layeredTaskCode(layer, position))
+                        .duration(1 + random.nextInt(10))
+                        .crew(Crew.builder().assignment(random.nextInt(5)).build())
+                        .dependencies(dependencies)
+                        .build());
+            }
+        }
+        return tasks;
+    }
+
+    private static String layeredTaskCode(int layer, int position) {
+        return "L" + layer + "P" + position;
+    }
 }
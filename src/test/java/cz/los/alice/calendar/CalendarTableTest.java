@@ -0,0 +1,90 @@
+package cz.los.alice.calendar;
+
+import cz.los.alice.model.InvalidScheduleException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CalendarTableTest {
+
+    private static final LocalDate FROM = LocalDate.of(2023, 6, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 6, 1);
+
+    @Test
+    @DisplayName("Should translate dates and working day indices the same way as counting day by day")
+    public void translateLikeDayByDayCountingTest() {
+        Random random = new Random(17);
+        for (int round = 0; round < 10; round++) {
+            Set<DayOfWeek> workingDays = EnumSet.noneOf(DayOfWeek.class);
+            while (workingDays.isEmpty()) {
+                for (var day : DayOfWeek.values()) {
+                    if (random.nextInt(3) > 0) {
+                        workingDays.add(day);
+                    }
+                }
+            }
+            Set<LocalDate> holidays = new HashSet<>();
+            for (int i = 0; i < 30; i++) {
+                holidays.add(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(500)));
+            }
+            assertMatchesDayByDayCounting(new CalendarTable(workingDays, holidays), workingDays, holidays);
+        }
+    }
+
+    @Test
+    @DisplayName("Should translate dates of a calendar without holidays")
+    public void noHolidaysTest() {
+        Set<DayOfWeek> workingDays = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+        CalendarTable table = new CalendarTable(workingDays, Set.of());
+
+        assertMatchesDayByDayCounting(table, workingDays, Set.of());
+        assertTrue(table.isWorkingDay(LocalDate.of(2024, 1, 5).toEpochDay()));
+        assertFalse(table.isWorkingDay(LocalDate.of(2024, 1, 6).toEpochDay()));
+    }
+
+    @Test
+    @DisplayName("Should reject a calendar without working days")
+    public void noWorkingDaysTest() {
+        assertThrows(IllegalArgumentException.class, () -> new CalendarTable(Set.of(), Set.of()));
+    }
+
+    @Test
+    @DisplayName("Should reject holidays too far apart and keep extreme dates within the limit")
+    public void holidaySpanTest() {
+        Set<DayOfWeek> workingDays = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+        LocalDate limit = FROM.plusYears(CalendarTable.MAX_HOLIDAY_SPAN_YEARS);
+
+        assertThrows(InvalidScheduleException.class, () -> new CalendarTable(workingDays, Set.of(FROM, limit)));
+        assertThrows(InvalidScheduleException.class,
+                () -> new CalendarTable(workingDays, Set.of(LocalDate.MIN, LocalDate.MAX)));
+        assertFalse(new CalendarTable(workingDays, Set.of(FROM, limit.minusDays(1))).isWorkingDay(FROM.toEpochDay()));
+        assertFalse(new CalendarTable(workingDays, Set.of(LocalDate.MAX)).isWorkingDay(LocalDate.MAX.toEpochDay()));
+        assertTrue(new CalendarTable(workingDays, Set.of(LocalDate.MIN)).isWorkingDay(FROM.toEpochDay()));
+    }
+
+    private static void assertMatchesDayByDayCounting(CalendarTable table, Set<DayOfWeek> workingDays,
+                                                      Set<LocalDate> holidays) {
+        long base = table.countWorkingDaysBefore(FROM.toEpochDay());
+        long count = 0;
+        for (LocalDate date = FROM; date.isBefore(TO); date = date.plusDays(1)) {
+            assertEquals(base + count, table.countWorkingDaysBefore(date.toEpochDay()), date.toString());
+            boolean working = workingDays.contains(date.getDayOfWeek()) && !holidays.contains(date);
+            assertEquals(working, table.isWorkingDay(date.toEpochDay()), date.toString());
+            if (working) {
+                assertEquals(date.toEpochDay(), table.workingDay(base + count), date.toString());
+                count++;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package cz.los.alice.calendar;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.Task;
+import cz.los.alice.model.WorkCalendar;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ScheduleCalendarsTest {
+
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 1, 5);
+    private static final WorkCalendar WEEKEND = weekend("weekend", Set.of());
+
+    @Test
+    @DisplayName("Should share a cached table between equally defined calendars")
+    public void shareTablesTest() {
+        WorkCalendar renamed = weekend("renamed", Set.of());
+        WorkCalendar withHoliday = weekend("weekend", Set.of(LocalDate.of(2024, 1, 6)));
+
+        assertSame(CalendarTables.of(WEEKEND), CalendarTables.of(renamed));
+        assertNotSame(CalendarTables.of(WEEKEND), CalendarTables.of(withHoliday));
+        assertSame(CalendarTables.of(withHoliday), CalendarTables.of(weekend("other", Set.of(LocalDate.of(2024, 1, 6)))));
+    }
+
+    @Test
+    @DisplayName("Should resolve calendars of crews and fall back to the default one")
+    public void resolveCalendarsTest() {
+        ScheduleCalendars calendars = new ScheduleCalendars(FRIDAY, List.of(WEEKEND));
+
+        ProjectCalendar weekend = calendars.forTask(task("weekend"));
+        ProjectCalendar standard = calendars.forTask(task(null));
+
+        assertSame(calendars.getDefaultCalendar(), standard);
+        assertEquals(1, weekend.alignStart(0));
+        assertEquals(3, standard.alignStart(1));
+        assertThrows(IllegalArgumentException.class, () -> calendars.forTask(task("unknown")));
+        assertThrows(IllegalArgumentException.class, () -> new ScheduleCalendars(FRIDAY, List.of(WEEKEND, WEEKEND)));
+    }
+
+    @Test
+    @DisplayName("Should move starts and finishes to working days of the project calendar")
+    public void projectDaysTest() {
+        ProjectCalendar standard = new ScheduleCalendars(FRIDAY, List.of()).getDefaultCalendar();
+
+        assertEquals(0, standard.alignStart(0));
+        assertEquals(3, standard.alignStart(2));
+        assertEquals(4, standard.finish(0, 2));
+        assertEquals(8, standard.finish(3, 5));
+        assertEquals(1, standard.alignFinish(3));
+        assertEquals(0, standard.start(4, 2));
+        assertEquals(3, standard.start(8, 5));
+        assertEquals(LocalDate.of(2024, 1, 8), standard.date(3));
+        assertEquals(3, standard.startToFinishOnOrAfter(5, 2));
+        assertEquals(3, standard.startToFinishOnOrAfter(2, 1));
+        assertEquals(0, standard.startToFinishOnOrAfter(1, 1));
+        assertEquals(4, standard.finishToStartOnOrBefore(2, 2));
+        assertEquals(8, standard.finishToStartOnOrBefore(3, 5));
+    }
+
+    private static WorkCalendar weekend(String name, Set<LocalDate> holidays) {
+        return WorkCalendar.builder()
+                .name(name)
+                .workingDays(Set.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY))
+                .holidays(holidays)
+                .build();
+    }
+
+    private static Task task(String calendar) {
+        return Task.builder()
+                .taskCode("task")
+                .duration(1)
+                .crew(Crew.builder().assignment(1).calendar(calendar).build())
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package cz.los.alice.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static cz.los.alice.service.TaskParserTest.INPUT_SIMPLE_TEST_JSON;
+import static cz.los.alice.service.TaskParserTest.NO_ROOTS;
+import static cz.los.alice.service.TaskParserTest.RELATIONS_MSPDI;
+import static cz.los.alice.service.TaskParserTest.SIMPLE_TEST_CSV;
+import static cz.los.alice.service.TaskParserTest.SINGLE_TASK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AliceBatchTest {
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    @DisplayName("Should process every schedule file of a directory and write results preserving relative paths")
+    public void processDirectoryTest() throws IOException {
+        Path inputDir = workDir.resolve("in");
+        copy(INPUT_SIMPLE_TEST_JSON, inputDir.resolve("simple.json"));
+        copy(SINGLE_TASK, inputDir.resolve("nested/single.json"));
+        Path outputDir = workDir.resolve("out");
+
+        List<AliceBatch.Outcome> outcomes = new AliceBatch(outputDir, 2).run(List.of(inputDir));
+
+        assertEquals(2, outcomes.size());
+        assertTrue(outcomes.stream().allMatch(AliceBatch.Outcome::isSuccessful));
+        assertTrue(Files.exists(outputDir.resolve("simple.result.json")));
+        assertTrue(Files.exists(outputDir.resolve("nested/single.result.json")));
+
+        Map<?, ?> simple = new ObjectMapper().readValue(outputDir.resolve("simple.result.json").toFile(), Map.class);
+        assertEquals(48, simple.get("estimatedProjectDuration"));
+        assertEquals(List.of("intermediate", "firstTerminal"), ((List<?>) simple.get("criticalPath")).subList(1, 3));
+    }
+
+    @Test
+    @DisplayName("Should report a broken file without stopping processing of the others")
+    public void processWithFailingFileTest() throws IOException {
+        Path good = copy(SINGLE_TASK, workDir.resolve("good.json"));
+        Path broken = copy(NO_ROOTS, workDir.resolve("broken.json"));
+        Path outputDir = workDir.resolve("out");
+
+        List<AliceBatch.Outcome> outcomes = new AliceBatch(outputDir, 4).run(List.of(broken, good));
+
+        assertEquals(2, outcomes.size());
+        assertFalse(outcomes.get(0).isSuccessful());
+        assertNull(outcomes.get(0).getOutput());
+        assertTrue(outcomes.get(0).getFailure() instanceof IllegalArgumentException);
+        assertTrue(outcomes.get(1).isSuccessful());
+        assertTrue(Files.exists(outputDir.resolve("good.result.json")));
+        assertFalse(Files.exists(outputDir.resolve("broken.result.json")));
+    }
+
+    @Test
+    @DisplayName("Should return exit code according to the batch outcome")
+    public void exitCodesTest() throws IOException {
+        Path good = copy(SINGLE_TASK, workDir.resolve("good.json"));
+        Path broken = copy(NO_ROOTS, workDir.resolve("broken.json"));
+        String output = workDir.resolve("out").toString();
+
+        assertEquals(AliceBatch.EXIT_OK, AliceBatch.execute(new String[]{"--output", output, good.toString()}));
+        assertEquals(AliceBatch.EXIT_FAILED_FILES,
+                AliceBatch.execute(new String[]{"-o", output, "-t", "1", good.toString(), broken.toString()}));
+        assertEquals(AliceBatch.EXIT_USAGE, AliceBatch.execute(new String[]{"--output", output}));
+        assertEquals(AliceBatch.EXIT_USAGE, AliceBatch.execute(new String[]{"--threads", "many", good.toString()}));
+    }
+
+    @Test
+    @DisplayName("Should write the same schedule by columns straight from the off-heap graph")
+    public void offHeapTest() throws IOException {
+        Path input = copy(INPUT_SIMPLE_TEST_JSON, workDir.resolve("simple.json"));
+        Path outputDir = workDir.resolve("out");
+
+        assertEquals(AliceBatch.EXIT_OK, AliceBatch.execute(
+                new String[]{"--off-heap", "--output", outputDir.toString(), input.toString()}));
+
+        Map<?, ?> result = new ObjectMapper().readValue(outputDir.resolve("simple.result.json").toFile(), Map.class);
+        List<?> codes = (List<?>) result.get("taskCodes");
+        List<?> criticalPath = (List<?>) result.get("criticalPath");
+        assertEquals(48, result.get("estimatedProjectDuration"));
+        assertEquals(List.of("firstRoot", "secondRoot", "intermediate", "firstTerminal"), codes);
+        assertEquals(List.of("intermediate", "firstTerminal"),
+                List.of(codes.get((Integer) criticalPath.get(1)), codes.get((Integer) criticalPath.get(2))));
+        assertEquals(List.of(0, 0, 16, 32), result.get("earliestStarts"));
+        assertEquals(List.of(16, 16, 32, 48), result.get("latestFinishes"));
+        assertEquals(2, result.get("maxWorkersOnSite"));
+    }
+
+    @Test
+    @DisplayName("Should process CSV and MSPDI files of a directory by their importers on and off the heap")
+    public void importedFilesTest() throws IOException {
+        Path inputDir = workDir.resolve("in");
+        copy(SIMPLE_TEST_CSV, inputDir.resolve("simple.csv"));
+        copy(RELATIONS_MSPDI, inputDir.resolve("relations.xml"));
+        Path outputDir = workDir.resolve("out");
+        Path offHeapOutputDir = workDir.resolve("off-heap");
+
+        List<AliceBatch.Outcome> outcomes = new AliceBatch(outputDir, 2).run(List.of(inputDir));
+        List<AliceBatch.Outcome> offHeapOutcomes = new AliceBatch(offHeapOutputDir, 2, true)
+                .run(List.of(inputDir.resolve("simple.csv")));
+
+        assertEquals(2, outcomes.size());
+        assertTrue(outcomes.stream().allMatch(AliceBatch.Outcome::isSuccessful));
+        assertTrue(offHeapOutcomes.get(0).isSuccessful());
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(48, mapper.readValue(outputDir.resolve("simple.result.json").toFile(), Map.class)
+                .get("estimatedProjectDuration"));
+        assertEquals(13, mapper.readValue(outputDir.resolve("relations.result.json").toFile(), Map.class)
+                .get("estimatedProjectDuration"));
+        assertEquals(48, mapper.readValue(offHeapOutputDir.resolve("simple.result.json").toFile(), Map.class)
+                .get("estimatedProjectDuration"));
+    }
+
+    @Test
+    @DisplayName("Should not accept non positive number of threads")
+    public void nonPositiveThreadsTest() {
+        assertThrows(IllegalArgumentException.class, () -> new AliceBatch(workDir, 0));
+    }
+
+    private static Path copy(String resource, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            Files.copy(in, target);
+        }
+        return target;
+    }
+}
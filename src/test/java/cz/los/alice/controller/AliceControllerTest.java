@@ -1,18 +1,45 @@
 package cz.los.alice.controller;
 
+import cz.los.alice.importer.CsvTaskImporter;
+import cz.los.alice.importer.TaskImporter;
+import cz.los.alice.importer.TaskImporters;
+import cz.los.alice.model.ComponentPlan;
+import cz.los.alice.model.CrashPlan;
+import cz.los.alice.model.DependencyCone;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.RollUpGroup;
+import cz.los.alice.model.WorkloadPeriod;
+import cz.los.alice.model.WorkloadProfile;
+import cz.los.alice.model.WorkloadProfiles;
 import cz.los.alice.service.AliceService;
+import cz.los.alice.service.NearCriticalResult;
 import cz.los.alice.service.ProcessingResult;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.util.NestedServletException;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class AliceControllerTest {
 
@@ -22,7 +49,7 @@ public class AliceControllerTest {
     @BeforeEach
     private void setup() {
         this.service = Mockito.mock(AliceService.class);
-        this.controller = Mockito.spy(new AliceController(service));
+        this.controller = Mockito.spy(new AliceController(service, new RequestCoalescer(), TaskImporters.defaults()));
     }
 
     @Test
@@ -37,11 +64,207 @@ public class AliceControllerTest {
     @DisplayName("Should return expected processing result on '/process' call")
     public void processTest() {
         ProcessingResult expected = new ProcessingResult(42, 42, 42,
-                Collections.emptyList(), Collections.emptyList());
+                Collections.emptyList(), Collections.emptyList(), null, null);
         when(service.process()).thenReturn(expected);
-        ProcessingResult result = controller.process();
+        when(service.resultTag()).thenReturn("abc");
+        ResponseEntity<ProcessingResult> result = controller.process((String) null);
+        verify(service, times(1)).process();
+        Assertions.assertEquals(HttpStatus.OK, result.getStatusCode());
+        Assertions.assertEquals(expected, result.getBody());
+        Assertions.assertEquals("W/\"abc\"", result.getHeaders().getETag());
+        Assertions.assertEquals("no-cache", result.getHeaders().getCacheControl());
+    }
+
+    @Test
+    @DisplayName("Should answer with not modified without processing if the client has the current result")
+    public void processNotModifiedTest() {
+        when(service.resultTag()).thenReturn("abc");
+
+        for (String ifNoneMatch : List.of("\"abc\"", "W/\"abc\"", "\"old\", \"abc\"", "*")) {
+            ResponseEntity<ProcessingResult> result = controller.process(ifNoneMatch);
+            Assertions.assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode(), ifNoneMatch);
+            Assertions.assertNull(result.getBody());
+            Assertions.assertEquals("W/\"abc\"", result.getHeaders().getETag());
+        }
+        verify(service, times(0)).process();
+        Assertions.assertEquals(HttpStatus.OK, controller.process("\"old\"").getStatusCode());
         verify(service, times(1)).process();
+    }
+
+    @Test
+    @DisplayName("Should return processing result of uploaded schedule on POST '/process' call")
+    public void processUploadedTest() {
+        ProcessingResult expected = new ProcessingResult(42, 42, 42,
+                Collections.emptyList(), Collections.emptyList(), null, null);
+        when(service.process(any(InputStream.class))).thenReturn(expected);
+        when(service.resultTag(any(byte[].class))).thenReturn("abc");
+        ProcessingResult result = controller.process("[]".getBytes(StandardCharsets.UTF_8));
+        verify(service, times(1)).process(any(InputStream.class));
         Assertions.assertEquals(expected, result);
     }
 
+    @Test
+    @DisplayName("Should process an uploaded schedule by the importer of its content type on POST '/process' call")
+    public void processImportedTest() throws Exception {
+        ProcessingResult expected = new ProcessingResult(42, 42, 42,
+                Collections.emptyList(), Collections.emptyList(), null, null);
+        when(service.process(any(InputStream.class), any(TaskImporter.class))).thenReturn(expected);
+        when(service.resultTag(any(byte[].class))).thenReturn("abc");
+        byte[] schedule = "taskCode\nonly\n".getBytes(StandardCharsets.UTF_8);
+
+        ProcessingResult result = controller.process(schedule, MediaType.valueOf("text/csv"));
+
+        verify(service, times(1)).process(any(InputStream.class), any(CsvTaskImporter.class));
+        Assertions.assertEquals(expected, result);
+        Assertions.assertThrows(HttpMediaTypeNotSupportedException.class,
+                () -> controller.process(schedule, MediaType.TEXT_PLAIN));
+        Assertions.assertThrows(HttpMediaTypeNotSupportedException.class, () -> controller.process(schedule, null));
+    }
+
+    @Test
+    @DisplayName("Should count processing of every request on '/process/coalescing' call")
+    public void coalescingTest() {
+        when(service.process()).thenReturn(new ProcessingResult(42, 42, 42,
+                Collections.emptyList(), Collections.emptyList(), null, null));
+        when(service.resultTag()).thenReturn("abc");
+        controller.process((String) null);
+        controller.process((String) null);
+
+        CoalescingStats stats = controller.coalescing();
+
+        Assertions.assertEquals(new CoalescingStats(2, 0, 0), stats);
+    }
+
+    @Test
+    @DisplayName("Should return near-critical analysis on '/process/near-critical' call")
+    public void nearCriticalTest() {
+        NearCriticalResult expected = new NearCriticalResult(42, 2,
+                Collections.emptyList(), Collections.emptyList());
+        when(service.analyzeNearCritical(5, 2)).thenReturn(expected);
+        when(service.analyzeNearCritical(any(InputStream.class), eq(3), eq(1))).thenReturn(expected);
+
+        Assertions.assertEquals(expected, controller.nearCritical(5, 2));
+        Assertions.assertEquals(expected, controller.nearCritical("[]".getBytes(StandardCharsets.UTF_8), 3, 1));
+        verify(service, times(1)).analyzeNearCritical(5, 2);
+        verify(service, times(1)).analyzeNearCritical(any(InputStream.class), eq(3), eq(1));
+    }
+
+    @Test
+    @DisplayName("Should return crash plan on '/process/crash' call")
+    public void crashTest() {
+        CrashPlan expected = new CrashPlan(42, 2, 40, 10.0, Collections.emptyList(), Collections.emptyList());
+        when(service.crash(2)).thenReturn(expected);
+        when(service.crash(any(InputStream.class), eq(3))).thenReturn(expected);
+
+        Assertions.assertEquals(expected, controller.crash(2));
+        Assertions.assertEquals(expected, controller.crash("[]".getBytes(StandardCharsets.UTF_8), 3));
+        verify(service, times(1)).crash(2);
+        verify(service, times(1)).crash(any(InputStream.class), eq(3));
+    }
+
+    @Test
+    @DisplayName("Should return roll-up of the requested group on '/process/rollup' call")
+    public void rollUpTest() {
+        RollUpGroup expected = new RollUpGroup("B1", "building", "B1", 0, 10, 10, 0, 2, 1, 10, 20, 2,
+                Collections.emptyList());
+        when(service.rollUp("B1", 1)).thenReturn(expected);
+        when(service.rollUp(any(InputStream.class), eq("B1"), eq(2))).thenReturn(expected);
+
+        Assertions.assertEquals(expected, controller.rollUp("B1", 1));
+        Assertions.assertEquals(expected, controller.rollUp("[]".getBytes(StandardCharsets.UTF_8), "B1", 2));
+        verify(service, times(1)).rollUp("B1", 1);
+        verify(service, times(1)).rollUp(any(InputStream.class), eq("B1"), eq(2));
+    }
+
+    @Test
+    @DisplayName("Should return dependency cone of the task on '/process/cone' call")
+    public void coneTest() {
+        DependencyCone expected = new DependencyCone("A", 2, Collections.emptyList(), Collections.emptyList());
+        byte[] schedule = "[]".getBytes(StandardCharsets.UTF_8);
+        when(service.dependencyCone("A")).thenReturn(expected);
+        when(service.dependencyCone(schedule, "A")).thenReturn(expected);
+
+        Assertions.assertEquals(expected, controller.cone("A"));
+        Assertions.assertEquals(expected, controller.cone(schedule, "A"));
+        verify(service, times(1)).dependencyCone("A");
+        verify(service, times(1)).dependencyCone(schedule, "A");
+    }
+
+    @Test
+    @DisplayName("Should return workload of a window and the busiest periods on '/process/workload' calls")
+    public void workloadTest() {
+        WorkloadPeriod expected = new WorkloadPeriod(2, 8, 5, 12, 70);
+        byte[] schedule = "[]".getBytes(StandardCharsets.UTF_8);
+        when(service.workload(2, 8)).thenReturn(expected);
+        when(service.workload(schedule, 2, 8)).thenReturn(expected);
+        when(service.busiestPeriods(5, 7)).thenReturn(List.of(expected));
+        when(service.busiestPeriods(schedule, 5, 7)).thenReturn(List.of(expected));
+
+        Assertions.assertEquals(expected, controller.workload(2, 8));
+        Assertions.assertEquals(expected, controller.workload(schedule, 2, 8));
+        Assertions.assertEquals(List.of(expected), controller.peaks(5, 7));
+        Assertions.assertEquals(List.of(expected), controller.peaks(schedule, 5, 7));
+        verify(service, times(1)).workload(2, 8);
+        verify(service, times(1)).busiestPeriods(schedule, 5, 7);
+    }
+
+    @Test
+    @DisplayName("Should refuse to rank more busiest periods than the limit with 400")
+    public void peakCountLimitTest() throws Exception {
+        byte[] schedule = "[]".getBytes(StandardCharsets.UTF_8);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        Assertions.assertThrows(InvalidScheduleException.class, () -> controller.peaks(0, 7));
+        Assertions.assertThrows(InvalidScheduleException.class,
+                () -> controller.peaks(schedule, AliceController.MAX_PEAK_COUNT + 1, 7));
+        mvc.perform(get("/process/workload/peaks").param("count", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isBadRequest());
+        verify(service, times(0)).busiestPeriods(anyInt(), anyInt());
+        verify(service, times(0)).busiestPeriods(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should return workload profiles on '/process/workload/profiles' call")
+    public void workloadProfilesTest() {
+        WorkloadProfile profile = new WorkloadProfile(1, 3, new int[] {2, 3, 0});
+        WorkloadProfiles expected = new WorkloadProfiles(profile, profile, profile);
+        when(service.workloadProfiles()).thenReturn(expected);
+        when(service.workloadProfiles(any(InputStream.class))).thenReturn(expected);
+
+        Assertions.assertEquals(expected, controller.workloadProfiles());
+        Assertions.assertEquals(expected, controller.workloadProfiles("[]".getBytes(StandardCharsets.UTF_8)));
+        verify(service, times(1)).workloadProfiles();
+        verify(service, times(1)).workloadProfiles(any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("Should return component plan on '/process/components' call")
+    public void componentsTest() {
+        ComponentPlan expected = new ComponentPlan(42, 3, 10, List.of("A"), 0, Collections.emptyList());
+        when(service.analyzeComponents()).thenReturn(expected);
+        when(service.analyzeComponents(any(InputStream.class))).thenReturn(expected);
+
+        Assertions.assertEquals(expected, controller.components());
+        Assertions.assertEquals(expected, controller.components("[]".getBytes(StandardCharsets.UTF_8)));
+        verify(service, times(1)).analyzeComponents();
+        verify(service, times(1)).analyzeComponents(any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("Should answer with bad request if the schedule is invalid")
+    public void invalidScheduleTest() {
+        ResponseEntity<String> result = controller.invalidSchedule(new InvalidScheduleException("broken"));
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+        Assertions.assertEquals("broken", result.getBody());
+    }
+
+    @Test
+    @DisplayName("Should not answer with bad request if the processing fails for another reason")
+    public void internalFailureTest() {
+        when(service.analyzeNearCritical(5, 2)).thenThrow(new IllegalArgumentException("bug"));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        Assertions.assertThrows(NestedServletException.class, () -> mvc.perform(get("/process/near-critical")));
+    }
+
 }
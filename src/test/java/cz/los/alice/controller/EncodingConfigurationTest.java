@@ -0,0 +1,221 @@
+package cz.los.alice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import cz.los.alice.importer.TaskImporters;
+import cz.los.alice.service.AliceService;
+import cz.los.alice.service.TaskParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static cz.los.alice.TestUtils.createAliceService;
+import static cz.los.alice.controller.EncodingConfiguration.CBOR;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_CBOR;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_JSON;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_SMILE;
+import static cz.los.alice.controller.EncodingConfiguration.SMILE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+public class EncodingConfigurationTest {
+
+    private static final ObjectMapper JSON_READER = new ObjectMapper();
+    private static final ObjectMapper SMILE_READER = new ObjectMapper(new SmileFactory());
+    private static final ObjectMapper CBOR_READER = new ObjectMapper(new CBORFactory());
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    public void setup() {
+        AliceService service = createAliceService(new TaskParser(new ClassPathResource("input/LEO2-BE.json")));
+        EncodingConfiguration configuration = new EncodingConfiguration();
+        mvc = MockMvcBuilders
+                .standaloneSetup(new AliceController(service, new RequestCoalescer(), TaskImporters.defaults()))
+                .setMessageConverters(
+                        new ByteArrayHttpMessageConverter(),
+                        new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build()),
+                        configuration.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+                        configuration.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should answer with JSON unless a binary encoding is accepted")
+    public void defaultEncodingTest() throws Exception {
+        for (String accept : List.of("*/*", MediaType.APPLICATION_JSON_VALUE)) {
+            MockHttpServletResponse response = request(accept);
+
+            assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.valueOf(response.getContentType())),
+                    accept);
+            assertTrue(JSON_READER.readTree(response.getContentAsByteArray()).has("tasksWithStartAndEndDates"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should encode the same document by Smile and CBOR in fewer bytes than JSON")
+    public void binaryEncodingTest() throws Exception {
+        byte[] json = request(MediaType.APPLICATION_JSON_VALUE).getContentAsByteArray();
+        byte[] smile = request(SMILE).getContentAsByteArray();
+        byte[] cbor = request(CBOR).getContentAsByteArray();
+
+        JsonNode expected = JSON_READER.readTree(json);
+        assertEquals(expected, SMILE_READER.readTree(smile));
+        assertEquals(expected, CBOR_READER.readTree(cbor));
+        assertTrue(smile.length < json.length);
+        assertTrue(cbor.length < json.length);
+    }
+
+    @Test
+    @DisplayName("Should lay the result out by columns in every encoding in a fraction of the JSON size")
+    public void columnarEncodingTest() throws Exception {
+        byte[] json = request(MediaType.APPLICATION_JSON_VALUE).getContentAsByteArray();
+        MockHttpServletResponse columnarJson = request(COLUMNAR_JSON);
+        byte[] columnarSmile = request(COLUMNAR_SMILE).getContentAsByteArray();
+        byte[] columnarCbor = request(COLUMNAR_CBOR).getContentAsByteArray();
+
+        JsonNode expected = JSON_READER.readTree(columnarJson.getContentAsByteArray());
+        assertEquals(COLUMNAR_JSON, columnarJson.getContentType());
+        assertEquals(JSON_READER.readTree(json).get("tasksWithStartAndEndDates").size(),
+                expected.get("taskCodes").size());
+        assertEquals(expected, SMILE_READER.readTree(columnarSmile));
+        assertEquals(expected, CBOR_READER.readTree(columnarCbor));
+        assertTrue(columnarJson.getContentAsByteArray().length * 2 < json.length);
+        assertTrue(columnarSmile.length < columnarJson.getContentAsByteArray().length);
+        assertTrue(columnarCbor.length < columnarJson.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("Should tag the columnar layout differently and vary responses by Accept")
+    public void columnarTagTest() throws Exception {
+        MockHttpServletResponse response = request(MediaType.APPLICATION_JSON_VALUE);
+        MockHttpServletResponse columnar = request(COLUMNAR_JSON);
+
+        assertNotEquals(response.getHeader(HttpHeaders.ETAG), columnar.getHeader(HttpHeaders.ETAG));
+        assertTrue(columnar.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        assertEquals(304, mvc.perform(get("/process")
+                        .accept(COLUMNAR_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, columnar.getHeader(HttpHeaders.ETAG)))
+                .andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should share a weak tag between encodings of the same layout")
+    public void encodingTagTest() throws Exception {
+        String tag = request(MediaType.APPLICATION_JSON_VALUE).getHeader(HttpHeaders.ETAG);
+
+        assertTrue(tag.startsWith("W/"));
+        assertEquals(tag, request(SMILE).getHeader(HttpHeaders.ETAG));
+        assertEquals(tag, request(CBOR).getHeader(HttpHeaders.ETAG));
+        assertTrue(request(COLUMNAR_SMILE).getHeader(HttpHeaders.ETAG).startsWith("W/"));
+        assertEquals(304, mvc.perform(get("/process")
+                        .accept(SMILE)
+                        .header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should lay an uploaded schedule out by columns")
+    public void columnarUploadTest() throws Exception {
+        byte[] schedule = new ClassPathResource("input/SimpleTest.json").getInputStream().readAllBytes();
+
+        MockHttpServletResponse response = mvc.perform(post("/process")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(COLUMNAR_CBOR)
+                        .content(schedule))
+                .andReturn().getResponse();
+
+        assertEquals(COLUMNAR_CBOR, response.getContentType());
+        assertEquals(4, CBOR_READER.readTree(response.getContentAsByteArray()).get("taskCodes").size());
+    }
+
+    @Test
+    @DisplayName("Should process an upload by the importer of its content type and refuse unknown or missing types")
+    public void importedUploadTest() throws Exception {
+        byte[] csv = new ClassPathResource("input/SimpleTest.csv").getInputStream().readAllBytes();
+        byte[] mspdi = new ClassPathResource("input/Relations.xml").getInputStream().readAllBytes();
+
+        MockHttpServletResponse csvResponse = mvc.perform(post("/process")
+                        .contentType("text/csv;charset=UTF-8")
+                        .content(csv))
+                .andReturn().getResponse();
+        MockHttpServletResponse mspdiResponse = mvc.perform(post("/process")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(mspdi))
+                .andReturn().getResponse();
+
+        assertEquals(48, JSON_READER.readTree(csvResponse.getContentAsByteArray())
+                .get("estimatedProjectDuration").asInt());
+        assertEquals(13, JSON_READER.readTree(mspdiResponse.getContentAsByteArray())
+                .get("estimatedProjectDuration").asInt());
+        assertEquals(415, mvc.perform(post("/process")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(csv))
+                .andReturn().getResponse().getStatus());
+        assertEquals(400, mvc.perform(post("/process")
+                        .contentType(MediaType.TEXT_XML)
+                        .content(csv))
+                .andReturn().getResponse().getStatus());
+        assertEquals(415, mvc.perform(post("/process")
+                        .content(csv))
+                .andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should answer with bad request if an upload is not a valid schedule")
+    public void invalidUploadTest() throws Exception {
+        MockHttpServletResponse response = mvc.perform(post("/process")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"taskCode\": "))
+                .andReturn().getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Unexpected end-of-input"));
+    }
+
+    @Test
+    @DisplayName("Should answer with bad request if dependencies of an upload form a cycle")
+    public void cyclicUploadTest() throws Exception {
+        MockHttpServletResponse response = mvc.perform(post("/process")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"taskCode\": \"A\", \"duration\": 1},"
+                                + " {\"taskCode\": \"B\", \"duration\": 1, \"dependencies\": [\"A\", \"C\"]},"
+                                + " {\"taskCode\": \"C\", \"duration\": 1, \"dependencies\": [\"B\"]}]"))
+                .andReturn().getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Dependencies of 2 tasks form a cycle"));
+    }
+
+    @Test
+    @DisplayName("Should answer with bad request if crashing asks for more days than the project lasts")
+    public void crashOutOfDurationTest() throws Exception {
+        MockHttpServletResponse response = mvc.perform(get("/process/crash")
+                        .param("days", String.valueOf(Integer.MAX_VALUE)))
+                .andReturn().getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("the project duration"));
+    }
+
+    private MockHttpServletResponse request(String accept) throws Exception {
+        return mvc.perform(get("/process").accept(accept)).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,82 @@
+package cz.los.alice.controller;
+
+import cz.los.alice.service.AliceService;
+import cz.los.alice.service.TaskParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.TestUtils.createAliceService;
+import static cz.los.alice.service.TaskParserTest.INPUT_SIMPLE_TEST_JSON;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ProcessingStreamControllerTest {
+
+    private static final Pattern EVENT_NAME = Pattern.compile("^event:(.+)$", Pattern.MULTILINE);
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    public void setup() {
+        AliceService service = createAliceService(new TaskParser(new ClassPathResource(INPUT_SIMPLE_TEST_JSON)));
+        mvc = MockMvcBuilders.standaloneSetup(new ProcessingStreamController(service, Runnable::run)).build();
+    }
+
+    @Test
+    @DisplayName("Should stream progress of every phase, partial results and the result on '/process/stream' call")
+    public void streamTest() throws Exception {
+        String body = streamedBody(mvc.perform(get("/process/stream")).andReturn());
+
+        assertEquals(List.of(
+                ProcessingStreamController.PARSED,
+                ProcessingStreamController.GRAPH_BUILT,
+                ProcessingStreamController.FORWARD_PASS,
+                ProcessingStreamController.BACKWARD_PASS,
+                ProcessingStreamController.CRITICAL_PATH,
+                ProcessingStreamController.WORKERS_ON_SITE,
+                ProcessingStreamController.RESULT), eventNames(body));
+        assertTrue(body.contains("\"taskCount\":4"));
+        assertTrue(body.contains("\"projectDuration\":48,\"criticalPath\":[\"firstRoot\",\"intermediate\""));
+        assertTrue(body.contains("\"estimatedProjectDuration\":48"));
+    }
+
+    @Test
+    @DisplayName("Should end the stream with an error event if the uploaded schedule is invalid")
+    public void streamInvalidScheduleTest() throws Exception {
+        String body = streamedBody(mvc.perform(post("/process/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")).andReturn());
+
+        assertEquals(List.of(ProcessingStreamController.ERROR), eventNames(body));
+        assertTrue(body.contains("\"status\":400"));
+    }
+
+    private String streamedBody(MvcResult result) throws Exception {
+        return mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+
+    private static List<String> eventNames(String body) {
+        Matcher matcher = EVENT_NAME.matcher(body);
+        return matcher.results().map(it -> it.group(1)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,131 @@
+package cz.los.alice.controller;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestCoalescerTest {
+
+    private static final int REQUESTS = 8;
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    @Test
+    @DisplayName("Should run one computation for concurrent requests with the same key and share its result")
+    public void coalesceConcurrentRequestsTest() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+        try {
+            List<Future<Object>> results = submit(executor, "abc", () -> {
+                computations.incrementAndGet();
+                await(release);
+                return new Object();
+            });
+            waitForCoalescedRequests(REQUESTS - 1);
+            release.countDown();
+
+            Object shared = results.get(0).get(1, TimeUnit.MINUTES);
+            for (var result : results) {
+                assertSame(shared, result.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, computations.get());
+        assertEquals(new CoalescingStats(1, REQUESTS - 1, 0), coalescer.getStats());
+    }
+
+    @Test
+    @DisplayName("Should pass the exception of the computation to every coalesced request unwrapped")
+    public void coalesceFailureTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+        try {
+            List<Future<Object>> results = submit(executor, "abc", () -> {
+                await(release);
+                throw new IllegalArgumentException("Invalid schedule");
+            });
+            waitForCoalescedRequests(REQUESTS - 1);
+            release.countDown();
+
+            for (var result : results) {
+                ExecutionException thrown = assertThrows(ExecutionException.class,
+                        () -> result.get(1, TimeUnit.MINUTES));
+                assertTrue(thrown.getCause() instanceof IllegalArgumentException);
+                assertEquals("Invalid schedule", thrown.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, coalescer.getStats().getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should compute again for a request that comes after the computation finished or has another key")
+    public void noCachingTest() {
+        AtomicInteger computations = new AtomicInteger();
+
+        coalescer.execute("abc", computations::incrementAndGet);
+        coalescer.execute("abc", computations::incrementAndGet);
+        coalescer.execute("def", computations::incrementAndGet);
+
+        assertEquals(3, computations.get());
+        assertEquals(new CoalescingStats(3, 0, 0), coalescer.getStats());
+    }
+
+    @Test
+    @DisplayName("Should rethrow a checked exception thrown sneakily by the computation")
+    public void checkedExceptionTest() {
+        assertThrows(IOException.class, () -> coalescer.execute("abc", RequestCoalescerTest::sneakyFailure));
+        assertEquals(0, coalescer.getStats().getInFlight());
+    }
+
+    private List<Future<Object>> submit(ExecutorService executor, String key,
+                                        Supplier<Object> computation) {
+        List<Future<Object>> results = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            results.add(executor.submit(() -> coalescer.execute(key, computation)));
+        }
+        return results;
+    }
+
+    private void waitForCoalescedRequests(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (coalescer.getStats().getCoalescedRequests() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, coalescer.getStats().getCoalescedRequests());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SneakyThrows
+    private static Object sneakyFailure() {
+        throw new IOException("Unreadable schedule");
+    }
+}
@@ -0,0 +1,114 @@
+package cz.los.alice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.service.TaskParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static cz.los.alice.TestUtils.createAliceService;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_CBOR;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_JSON;
+import static cz.los.alice.controller.EncodingConfiguration.COLUMNAR_SMILE;
+import static cz.los.alice.controller.ScheduleExportController.TEXT_CSV;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+public class ScheduleExportControllerTest {
+
+    private final ScheduleExportController controller = new ScheduleExportController(createAliceService(
+            new TaskParser(new ClassPathResource("input/SimpleTest.json"))));
+
+    @Test
+    @DisplayName("Should stream the calculated schedule as CSV")
+    public void exportCsvTest() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = controller.exportCsv();
+
+        String[] lines = new String(write(response), StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("text/csv;charset=UTF-8", response.getHeaders().getContentType().toString());
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("taskCode,operationName,elementName,crewName,workers"));
+    }
+
+    @Test
+    @DisplayName("Should stream the calculated schedule by columns in the encoding the client prefers")
+    public void exportColumnsTest() throws IOException {
+        byte[] schedule = new ClassPathResource("input/SimpleTest.json").getInputStream().readAllBytes();
+
+        ResponseEntity<StreamingResponseBody> json = controller.exportColumns("*/*;q=0.5, " + COLUMNAR_JSON);
+        ResponseEntity<StreamingResponseBody> smile = controller.exportColumns(schedule,
+                COLUMNAR_CBOR + ";q=0.8, " + COLUMNAR_SMILE);
+        ResponseEntity<StreamingResponseBody> cbor = controller.exportColumns(COLUMNAR_CBOR);
+
+        assertEquals(COLUMNAR_JSON, json.getHeaders().getContentType().toString());
+        assertEquals(COLUMNAR_SMILE, smile.getHeaders().getContentType().toString());
+        assertEquals(COLUMNAR_CBOR, cbor.getHeaders().getContentType().toString());
+        JsonNode fromJson = new ObjectMapper().readTree(write(json));
+        JsonNode fromSmile = new ObjectMapper(new SmileFactory()).readTree(write(smile));
+        JsonNode fromCbor = new ObjectMapper(new CBORFactory()).readTree(write(cbor));
+        assertEquals(48, fromJson.get("estimatedProjectDuration").asInt());
+        assertEquals(4, fromJson.get("taskCodes").size());
+        assertEquals(fromJson, fromSmile);
+        assertEquals(fromJson, fromCbor);
+    }
+
+    @Test
+    @DisplayName("Should pick the export by the Accept header and stream columns without one")
+    public void acceptHeaderTest() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        MockHttpServletResponse none = export(mvc, get("/process/export"));
+        MockHttpServletResponse any = export(mvc, get("/process/export").accept(MediaType.ALL));
+        MockHttpServletResponse csv = export(mvc, get("/process/export").accept(TEXT_CSV));
+
+        assertEquals(200, none.getStatus());
+        assertEquals(200, any.getStatus());
+        assertEquals(COLUMNAR_JSON, none.getContentType());
+        assertEquals(COLUMNAR_JSON, any.getContentType());
+        assertEquals(none.getContentAsString(), any.getContentAsString());
+        assertEquals("text/csv;charset=UTF-8", csv.getContentType());
+        assertTrue(csv.getContentAsString().startsWith("taskCode,operationName,elementName,crewName,workers"));
+        assertEquals(COLUMNAR_JSON, controller.exportColumns(null).getHeaders().getContentType().toString());
+    }
+
+    @Test
+    @DisplayName("Should refuse an invalid schedule before the export starts")
+    public void invalidScheduleTest() {
+        InvalidScheduleException e = assertThrows(InvalidScheduleException.class,
+                () -> controller.exportCsv("[]".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(400, controller.invalidSchedule(e).getStatusCodeValue());
+    }
+
+    private static MockHttpServletResponse export(MockMvc mvc, MockHttpServletRequestBuilder request)
+            throws Exception {
+        MvcResult result = mvc.perform(request).andReturn();
+        return result.getRequest().isAsyncStarted()
+                ? mvc.perform(asyncDispatch(result)).andReturn().getResponse()
+                : result.getResponse();
+    }
+
+    private static byte[] write(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+        return output.toByteArray();
+    }
+}
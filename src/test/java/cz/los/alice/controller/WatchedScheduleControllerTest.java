@@ -0,0 +1,70 @@
+package cz.los.alice.controller;
+
+import cz.los.alice.model.WatchedSchedule;
+import cz.los.alice.service.ProcessingResult;
+import cz.los.alice.watch.ScheduleDirectoryWatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class WatchedScheduleControllerTest {
+
+    private ScheduleDirectoryWatcher watcher;
+    private WatchedScheduleController controller;
+
+    @BeforeEach
+    public void setup() {
+        watcher = Mockito.mock(ScheduleDirectoryWatcher.class);
+        controller = new WatchedScheduleController(watcher);
+    }
+
+    @Test
+    @DisplayName("Should answer the kept result of a watched file tagged, 304 for the current tag and 404 if unknown")
+    public void resultTest() {
+        ProcessingResult result = new ProcessingResult(42, 42, 42,
+                Collections.emptyList(), Collections.emptyList(), null, null);
+        WatchedSchedule schedule = new WatchedSchedule("a.json", "abc", Instant.now(), 1, 42, null, result);
+        when(watcher.getSchedule("a.json")).thenReturn(Optional.of(schedule));
+        when(watcher.getSchedule("b.json")).thenReturn(Optional.empty());
+        when(watcher.getSchedules()).thenReturn(List.of(schedule));
+
+        ResponseEntity<?> response = controller.result("a.json", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+        assertEquals("W/\"abc\"", response.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.result("a.json", "\"abc\"").getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.result("a.json", "W/\"abc\"").getStatusCode());
+        assertEquals(HttpStatus.OK, controller.result("a.json", "\"old\"").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.result("b.json", null).getStatusCode());
+        assertEquals(List.of(schedule), controller.schedules());
+    }
+
+    @Test
+    @DisplayName("Should answer the reason of an invalid watched file as a bad request and hide internal failures")
+    public void failedResultTest() {
+        when(watcher.getSchedule("broken.json")).thenReturn(Optional.of(
+                new WatchedSchedule("broken.json", null, Instant.now(), 1, null, "no root task", null)));
+        when(watcher.getSchedule("failed.json")).thenReturn(Optional.of(new WatchedSchedule("failed.json", null,
+                Instant.now(), 1, null, ScheduleDirectoryWatcher.INTERNAL_FAILURE, null)));
+
+        ResponseEntity<?> invalid = controller.result("broken.json", null);
+        ResponseEntity<?> failed = controller.result("failed.json", null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+        assertEquals("no root task", invalid.getBody());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, failed.getStatusCode());
+        assertEquals(ScheduleDirectoryWatcher.INTERNAL_FAILURE, failed.getBody());
+    }
+}
@@ -0,0 +1,160 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.ComponentPlan;
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.ProjectComponent;
+import cz.los.alice.model.Task;
+import cz.los.alice.service.TaskParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
+import static cz.los.alice.TestUtils.createTasksSetForComplexScenario;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ComponentSchedulerTest {
+
+    @Test
+    @DisplayName("Should merge components into the same duration, critical path and busiest day as the whole graph")
+    public void sameAsWholeGraphTest() {
+        Set<Task> tasks = new HashSet<>();
+        tasks.addAll(prefixed("complex-", createTasksSetForComplexScenario()));
+        tasks.addAll(prefixed("layered-", createLayeredTasksSet(20, 10, 7)));
+        tasks.addAll(prefixed("related-",
+                new TaskParser(new ClassPathResource("input/Relations.json")).parseAndValidate().getTasks()));
+        tasks.add(task("lonely", 3, 40));
+        tasks.add(task("idle", 0, 0));
+
+        assertSameAsWholeGraph(tasks);
+        assertSameAsWholeGraph(createTasksSetForComplexScenario());
+        assertSameAsWholeGraph(
+                new TaskParser(new ClassPathResource("input/LEO2-BE.json")).parseAndValidate().getTasks());
+    }
+
+    @Test
+    @DisplayName("Should report every component with its duration, slack in the project and own critical path")
+    public void componentsTest() {
+        Set<Task> tasks = Set.of(
+                task("dig", 4, 2),
+                task("pour", 3, 5, "dig"),
+                task("paint", 2, 1),
+                task("fence", 1, 1),
+                task("gate", 1, 1, "fence"));
+
+        ComponentPlan plan = new ComponentScheduler(new CpmProcessorFactory(), 100).schedule(tasks);
+
+        assertEquals(7, plan.getEstimatedProjectDuration());
+        assertEquals(List.of("dig", "pour"), plan.getCriticalPath());
+        assertEquals(List.of(
+                new ProjectComponent(2, 7, 0, List.of("dig", "pour")),
+                new ProjectComponent(2, 2, 5, List.of("fence", "gate")),
+                new ProjectComponent(1, 2, 5, List.of("paint"))), plan.getComponents());
+        assertEquals(4, plan.getMostBusyDay());
+        assertEquals(8, plan.getMaxWorkersOnSite());
+    }
+
+    @Test
+    @DisplayName("Should reuse cached components and recalculate only the changed one")
+    public void cacheTest() {
+        ComponentScheduler scheduler = new ComponentScheduler(new CpmProcessorFactory(), 100);
+        Set<Task> tasks = Set.of(task("dig", 4, 2), task("pour", 3, 5, "dig"), task("paint", 2, 1));
+        Set<Task> changed = Set.of(task("dig", 4, 2), task("pour", 3, 5, "dig"), task("paint", 9, 1));
+
+        assertEquals(0, scheduler.schedule(tasks).getCachedComponents());
+        assertEquals(2, scheduler.schedule(tasks).getCachedComponents());
+        ComponentPlan changedPlan = scheduler.schedule(changed);
+
+        assertEquals(1, changedPlan.getCachedComponents());
+        assertEquals(9, changedPlan.getEstimatedProjectDuration());
+        assertEquals(List.of("paint"), changedPlan.getCriticalPath());
+        assertEquals(2, scheduler.schedule(changed).getCachedComponents());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used components above the cache limit")
+    public void cacheLimitTest() {
+        ComponentScheduler scheduler = new ComponentScheduler(new CpmProcessorFactory(), 2);
+        Set<Task> first = Set.of(task("dig", 4, 2), task("pour", 3, 5, "dig"));
+        Set<Task> second = Set.of(task("paint", 2, 1));
+        Set<Task> third = Set.of(task("fence", 1, 1));
+
+        scheduler.schedule(first);
+        assertEquals(1, scheduler.schedule(first).getCachedComponents());
+        scheduler.schedule(second);
+        scheduler.schedule(third);
+        assertEquals(1, scheduler.schedule(second).getCachedComponents());
+        assertEquals(0, scheduler.schedule(first).getCachedComponents());
+        assertEquals(0, new ComponentScheduler(new CpmProcessorFactory(), 0).schedule(second).getCachedComponents());
+    }
+
+    @Test
+    @DisplayName("Should identify components by content regardless of the order of tasks and dependencies")
+    public void contentKeyTest() {
+        Set<Task> component = Set.of(task("dig", 4, 2), task("pour", 3, 5, "dig", "prepare"), task("prepare", 1, 1));
+        Set<Task> reordered = Set.of(task("prepare", 1, 1), task("pour", 3, 5, "prepare", "dig"), task("dig", 4, 2));
+        Set<Task> renamed = Set.of(Task.builder().taskCode("dig").operationName("excavation").elementName("pit")
+                .duration(4).crew(Crew.builder().name("diggers").assignment(2).build()).build(),
+                task("pour", 3, 5, "dig", "prepare"), task("prepare", 1, 1));
+        Set<Task> longer = Set.of(task("dig", 5, 2), task("pour", 3, 5, "dig", "prepare"), task("prepare", 1, 1));
+
+        assertEquals(ComponentScheduler.contentKey(component), ComponentScheduler.contentKey(reordered));
+        assertEquals(ComponentScheduler.contentKey(component), ComponentScheduler.contentKey(renamed));
+        assertNotEquals(ComponentScheduler.contentKey(component), ComponentScheduler.contentKey(longer));
+    }
+
+    @Test
+    @DisplayName("Should refuse an empty project")
+    public void emptyTest() {
+        ComponentScheduler scheduler = new ComponentScheduler(new CpmProcessorFactory(), 100);
+        assertThrows(IllegalArgumentException.class, () -> scheduler.schedule(Set.of()));
+    }
+
+    private static void assertSameAsWholeGraph(Set<Task> tasks) {
+        CpmProcessor processor = new CpmProcessorFactory().createCpmProcessor(tasks);
+        CpmGraph graph = processor.buildCpmGraph();
+        Map.Entry<Integer, Integer> mostBusyDay = processor.createWorkersOnSiteStatistics(graph).entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElseThrow();
+
+        ComponentPlan plan = new ComponentScheduler(new CpmProcessorFactory(), 1000).schedule(tasks);
+
+        assertEquals(graph.getEndNode().getLatestFinish(), plan.getEstimatedProjectDuration());
+        assertEquals(processor.buildCriticalPath(graph), plan.getCriticalPath());
+        assertEquals(mostBusyDay.getKey(), plan.getMostBusyDay());
+        assertEquals(mostBusyDay.getValue(), plan.getMaxWorkersOnSite());
+        assertEquals(tasks.size(), plan.getComponents().stream().mapToInt(ProjectComponent::getTaskCount).sum());
+    }
+
+    private static Set<Task> prefixed(String prefix, Set<Task> tasks) {
+        return tasks.stream()
+                .map(task -> task.toBuilder()
+                        .taskCode(prefix + task.getTaskCode())
+                        .clearDependencies()
+                        .dependencies(task.getDependencies().stream().map(prefix::concat).collect(toList()))
+                        .clearRelations()
+                        .relations(task.getRelations().entrySet().stream()
+                                .collect(toMap(it -> prefix + it.getKey(), Map.Entry::getValue)))
+                        .build())
+                .collect(toSet());
+    }
+
+    private static Task task(String code, int duration, int workers, String... dependencies) {
+        return Task.builder()
+                .taskCode(code)
+                .duration(duration)
+                .crew(Crew.builder().assignment(workers).build())
+                .dependencies(List.of(dependencies))
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConnectedComponentsTest {
+
+    @Test
+    @DisplayName("Should group tasks linked by dependencies in either direction")
+    public void findTest() {
+        List<Task> tasks = List.of(
+                task("a"),
+                task("x"),
+                task("b", "a"),
+                task("c", "a"),
+                task("y", "x", "unknown"),
+                task("d", "b", "c"),
+                task("alone"));
+
+        List<Set<Task>> components = ConnectedComponents.find(tasks);
+
+        assertEquals(3, components.size());
+        assertEquals(Set.of("a", "b", "c", "d"), codes(components.get(0)));
+        assertEquals(Set.of("x", "y"), codes(components.get(1)));
+        assertEquals(Set.of("alone"), codes(components.get(2)));
+    }
+
+    @Test
+    @DisplayName("Should join components that meet only at a task added late")
+    public void lateJoinTest() {
+        List<Task> tasks = List.of(task("a"), task("b"), task("c"), task("join", "a", "b", "c"));
+
+        List<Set<Task>> components = ConnectedComponents.find(tasks);
+
+        assertEquals(1, components.size());
+        assertEquals(4, components.get(0).size());
+        assertTrue(ConnectedComponents.find(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep a connected project in a single component")
+    public void connectedProjectTest() {
+        Set<Task> tasks = createLayeredTasksSet(30, 20, 3);
+
+        List<Set<Task>> components = ConnectedComponents.find(tasks);
+
+        assertEquals(tasks.size(), components.stream().mapToInt(Set::size).sum());
+        assertEquals(tasks, components.stream().flatMap(Set::stream).collect(toSet()));
+    }
+
+    private static Set<String> codes(Set<Task> component) {
+        return component.stream().map(Task::getTaskCode).collect(toSet());
+    }
+
+    private static Task task(String code, String... dependencies) {
+        return Task.builder().taskCode(code).duration(1).dependencies(List.of(dependencies)).build();
+    }
+}
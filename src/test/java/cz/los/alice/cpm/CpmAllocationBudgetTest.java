@@ -0,0 +1,99 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.AllocationMeter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the CPM hot path against allocation regressions. Every phase is measured on a synthetic graph after
+ * a warm-up, and the smallest of several measurements has to fit into a budget of bytes per task. The budgets are far
+ * below the size of a single object per task, so allocating an Optional, a stream, an iterator or a boxed Integer
+ * for every node fails the build.
+ */
+public class CpmAllocationBudgetTest {
+
+    private static final int LAYERS = 200;
+    private static final int WIDTH = 100;
+    private static final int TASKS = LAYERS * WIDTH;
+    private static final int WARM_UP_ROUNDS = 15;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final double FORWARD_PASS_BUDGET = 1.0;
+    private static final double BACKWARD_PASS_BUDGET = 1.0;
+    private static final double CRITICAL_PATH_BUDGET = 1.0;
+    private static final double HISTOGRAM_BUDGET = 1.0;
+
+    private static CpmProcessor processor;
+
+    @BeforeAll
+    public static void setup() {
+        assumeTrue(AllocationMeter.isSupported(), "Thread allocation measurement is not supported by this JVM");
+        processor = new CpmProcessorFactory().createCpmProcessor(createLayeredTasksSet(LAYERS, WIDTH, 42));
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            CpmGraph graph = newGraph();
+            graph.calculateCpmMetricsInForwardDirection();
+            graph.calculateCpmMetricsInBackwardDirection();
+            processor.buildCriticalPath(graph);
+            processor.createWorkersOnSiteHistogram(graph);
+        }
+    }
+
+    @Test
+    @DisplayName("Forward pass should stay within its allocation budget")
+    public void forwardPassBudgetTest() {
+        assertWithinBudget("forward pass", FORWARD_PASS_BUDGET, graph -> {
+        }, CpmGraph::calculateCpmMetricsInForwardDirection);
+    }
+
+    @Test
+    @DisplayName("Backward pass should stay within its allocation budget")
+    public void backwardPassBudgetTest() {
+        assertWithinBudget("backward pass", BACKWARD_PASS_BUDGET,
+                CpmGraph::calculateCpmMetricsInForwardDirection,
+                CpmGraph::calculateCpmMetricsInBackwardDirection);
+    }
+
+    @Test
+    @DisplayName("Critical path should stay within its allocation budget")
+    public void criticalPathBudgetTest() {
+        assertWithinBudget("critical path", CRITICAL_PATH_BUDGET, CpmAllocationBudgetTest::resolve,
+                graph -> processor.buildCriticalPath(graph));
+    }
+
+    @Test
+    @DisplayName("Workers on site histogram should stay within its allocation budget")
+    public void histogramBudgetTest() {
+        assertWithinBudget("histogram", HISTOGRAM_BUDGET, CpmAllocationBudgetTest::resolve,
+                graph -> processor.createWorkersOnSiteHistogram(graph));
+    }
+
+    private static void assertWithinBudget(String phase, double bytesPerTaskBudget,
+                                           Consumer<CpmGraph> preparation, Consumer<CpmGraph> measured) {
+        long smallest = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            CpmGraph graph = newGraph();
+            preparation.accept(graph);
+            smallest = Math.min(smallest, AllocationMeter.allocatedBytes(() -> measured.accept(graph)));
+        }
+        double bytesPerTask = (double) smallest / TASKS;
+        assertTrue(bytesPerTask <= bytesPerTaskBudget, String.format(
+                "%s allocated %d bytes, %.3f bytes per task, budget is %.3f bytes per task",
+                phase, smallest, bytesPerTask, bytesPerTaskBudget));
+    }
+
+    private static CpmGraph newGraph() {
+        return new CpmGraph(processor.getAllTasks(), processor.getPredecessorsByTask(), processor.getSuccessorsByTask());
+    }
+
+    private static void resolve(CpmGraph graph) {
+        graph.calculateCpmMetricsInForwardDirection();
+        graph.calculateCpmMetricsInBackwardDirection();
+    }
+}
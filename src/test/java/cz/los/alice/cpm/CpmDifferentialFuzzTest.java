@@ -0,0 +1,101 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.cpm.CpmDifferentialHarness.Outcome;
+import cz.los.alice.model.Task;
+import cz.los.alice.service.TaskValidator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.cpm.CpmDifferentialHarness.describe;
+import static cz.los.alice.cpm.CpmDifferentialHarness.differs;
+import static cz.los.alice.cpm.CpmDifferentialHarness.outcome;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link CpmDifferentialHarness} against every alternative engine. The number of schedules and the seed can be
+ * changed with {@code -Palice.fuzz.schedules=...} and {@code -Palice.fuzz.seed=...} for a longer run.
+ */
+public class CpmDifferentialFuzzTest {
+
+    private final int schedules = Integer.getInteger("alice.fuzz.schedules", 300);
+    private final long seed = Long.getLong("alice.fuzz.seed", 20240501L);
+
+    /**
+     * The off-heap graph applies the validation rules itself while it is built.
+     */
+    private static final Function<List<Task>, Outcome> OFF_HEAP = tasks -> outcome(() -> {
+        OffHeapCpmGraph.Builder builder = OffHeapCpmGraph.builder(tasks.size());
+        tasks.forEach(builder::add);
+        try (OffHeapCpmGraph graph = builder.build()) {
+            graph.calculateCpmMetricsInForwardDirection();
+            graph.calculateCpmMetricsInBackwardDirection();
+            Map<String, List<Integer>> times = new HashMap<>();
+            for (int task = 0; task < graph.size(); task++) {
+                times.put(graph.taskCode(task), List.of(graph.earliestStart(task), graph.earliestFinish(task),
+                        graph.latestStart(task), graph.latestFinish(task), graph.slack(task)));
+            }
+            List<String> criticalPath = new ArrayList<>();
+            graph.visitCriticalPath(task -> criticalPath.add(graph.taskCode(task)));
+            return new Outcome(false, graph.getProjectDuration(), times,
+                    CpmDifferentialHarness.toList(graph.createWorkersOnSiteHistogram()), criticalPath);
+        }
+    });
+
+    private static final Function<List<Task>, Outcome> TRANSITIVE_REDUCTION = tasks -> outcome(() -> {
+        Set<Task> validTasks = new TaskValidator().validate(tasks).getTasks();
+        CpmProcessorFactory factory = new CpmProcessorFactory();
+        factory.setTransitiveReduction(true);
+        CpmProcessor processor = factory.createCpmProcessor(validTasks);
+        return CpmDifferentialHarness.of(processor.buildCpmGraph(), processor);
+    });
+
+    @Test
+    @DisplayName("Should calculate the same results and critical path by the off-heap graph as by the reference engine")
+    public void offHeapTest() {
+        assertSameAsReference(OFF_HEAP);
+    }
+
+    @Test
+    @DisplayName("Should calculate the same results and critical path with the transitive reduction as without it")
+    public void transitiveReductionTest() {
+        assertSameAsReference(TRANSITIVE_REDUCTION);
+    }
+
+    @Test
+    @DisplayName("Should shrink a schedule a broken engine fails on to a minimal one")
+    public void shrinkTest() {
+        Function<List<Task>, Outcome> firstDependencyOnly = tasks -> CpmDifferentialHarness.REFERENCE.apply(
+                tasks.stream()
+                        .map(it -> it.getDependencies().size() < 2 ? it : it.toBuilder().clearDependencies()
+                                .dependency(it.getDependencies().get(0)).build())
+                        .collect(Collectors.toList()));
+
+        List<Task> shrunk = new CpmDifferentialHarness(seed, 40).findDifference(firstDependencyOnly, schedules);
+
+        assertNotNull(shrunk);
+        assertTrue(differs(firstDependencyOnly, shrunk));
+        assertTrue(shrunk.size() <= 4, describe(shrunk));
+        assertTrue(shrunk.stream().anyMatch(it -> it.getDependencies().size() > 1), describe(shrunk));
+        for (int i = 0; i < shrunk.size(); i++) {
+            List<Task> smaller = new ArrayList<>(shrunk);
+            smaller.remove(i);
+            assertFalse(differs(firstDependencyOnly, smaller), describe(smaller));
+        }
+    }
+
+    private void assertSameAsReference(Function<List<Task>, Outcome> engine) {
+        List<Task> difference = new CpmDifferentialHarness(seed, 40).findDifference(engine, schedules);
+        assertNull(difference, () -> "Engines differ on" + describe(difference));
+    }
+}
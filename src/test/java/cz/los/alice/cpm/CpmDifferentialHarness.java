@@ -0,0 +1,254 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Task;
+import cz.los.alice.service.TaskValidator;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Compares an alternative CPM engine with the reference one - {@link TaskValidator}, {@link CpmProcessor} and
+ * {@link CpmGraph} - on random schedules. Schedules are raw task lists the way they come from a parser: durations
+ * may be 0, negative or missing, crews may be missing, task codes may repeat and dependencies may point to unknown
+ * tasks or to the task itself. Dependencies never form a cycle, the reference engine does not end on one, so a task
+ * with a repeated code has no dependencies - it would turn into a forward reference if shrinking removed the first
+ * task with the code.<br>
+ * A schedule on which the engines differ is shrunk to a minimal one by removing tasks, dependencies and workers and
+ * by shortening durations for as long as the engines still differ, and is reported.
+ */
+final class CpmDifferentialHarness {
+
+    /**
+     * The reference engine.
+     */
+    static final Function<List<Task>, Outcome> REFERENCE = tasks -> outcome(() -> {
+        Set<Task> validTasks = new TaskValidator().validate(tasks).getTasks();
+        CpmProcessor processor = new CpmProcessorFactory().createCpmProcessor(validTasks);
+        return of(processor.buildCpmGraph(), processor);
+    });
+
+    private static final int MAX_SHRINK_ROUNDS = 1000;
+
+    private final Random random;
+    private final int maxTasks;
+
+    CpmDifferentialHarness(long seed, int maxTasks) {
+        this.random = new Random(seed);
+        this.maxTasks = maxTasks;
+    }
+
+    /**
+     * @return null if the engine matched the reference on all schedules, the shrunk failing schedule otherwise
+     */
+    List<Task> findDifference(Function<List<Task>, Outcome> engine, int schedules) {
+        for (int i = 0; i < schedules; i++) {
+            List<Task> tasks = generate();
+            if (differs(engine, tasks)) {
+                return shrink(engine, tasks);
+            }
+        }
+        return null;
+    }
+
+    List<Task> generate() {
+        int size = 1 + random.nextInt(maxTasks);
+        int shape = random.nextInt(4);
+        double density = random.nextDouble() * 0.3;
+        int width = 1 + random.nextInt(Math.max(1, size / 3));
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Set<String> dependencies = new LinkedHashSet<>();
+            if (i > 0 && random.nextInt(8) != 0) {
+                switch (shape) {
+                    case 0:
+                        dependencies.add(code(i - 1));
+                        break;
+                    case 1:
+                        for (int j = Math.max(0, i - width); j < i; j++) {
+                            if (random.nextDouble() < 0.5) {
+                                dependencies.add(code(j));
+                            }
+                        }
+                        break;
+                    case 2:
+                        dependencies.add(code(random.nextInt(i)));
+                        break;
+                    default:
+                        for (int j = 0; j < i; j++) {
+                            if (random.nextDouble() < density) {
+                                dependencies.add(code(j));
+                            }
+                        }
+                }
+            }
+            if (random.nextInt(40) == 0) {
+                dependencies.add(random.nextBoolean() ? code(i) : "unknown" + i);
+            }
+            tasks.add(Task.builder()
+                    .taskCode(code(i))
+                    .duration(duration())
+                    .crew(crew())
+                    .dependencies(new ArrayList<>(dependencies))
+                    .build());
+            if (random.nextInt(50) == 0) {
+                tasks.add(Task.builder()
+                        .taskCode(code(random.nextInt(i + 1)))
+                        .duration(duration())
+                        .crew(crew())
+                        .build());
+            }
+        }
+        return tasks;
+    }
+
+    private Integer duration() {
+        int kind = random.nextInt(20);
+        if (kind == 0) {
+            return null;
+        }
+        if (kind == 1) {
+            return -random.nextInt(5);
+        }
+        return kind < 5 ? 0 : 1 + random.nextInt(20);
+    }
+
+    private Crew crew() {
+        int kind = random.nextInt(10);
+        if (kind == 0) {
+            return null;
+        }
+        return Crew.builder().assignment(kind == 1 ? 0 : 1 + random.nextInt(6)).build();
+    }
+
+    private static String code(int index) {
+        return "T" + index;
+    }
+
+    static boolean differs(Function<List<Task>, Outcome> engine, List<Task> tasks) {
+        return !REFERENCE.apply(tasks).equals(engine.apply(tasks));
+    }
+
+    /**
+     * Applies the first simplification after which the engines still differ and starts over, until none of them
+     * does. Every simplification makes the schedule strictly smaller, so shrinking ends.
+     * @return a schedule on which the engines differ and none of whose simplifications they differ on
+     */
+    static List<Task> shrink(Function<List<Task>, Outcome> engine, List<Task> tasks) {
+        List<Task> smallest = tasks;
+        for (int round = 0; round < MAX_SHRINK_ROUNDS; round++) {
+            List<Task> smaller = simplifications(smallest).stream()
+                    .filter(it -> differs(engine, it))
+                    .findFirst()
+                    .orElse(null);
+            if (smaller == null) {
+                return smallest;
+            }
+            smallest = smaller;
+        }
+        return smallest;
+    }
+
+    private static List<List<Task>> simplifications(List<Task> tasks) {
+        List<List<Task>> simplifications = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            List<Task> without = new ArrayList<>(tasks);
+            without.remove(i);
+            simplifications.add(without);
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            for (int d = 0; d < task.getDependencies().size(); d++) {
+                List<String> dependencies = new ArrayList<>(task.getDependencies());
+                dependencies.remove(d);
+                simplifications.add(replace(tasks, i, task.toBuilder().clearDependencies()
+                        .dependencies(dependencies).build()));
+            }
+            Integer duration = task.getDuration();
+            if (duration != null && duration > 1) {
+                simplifications.add(replace(tasks, i, task.toBuilder().duration(1).build()));
+                simplifications.add(replace(tasks, i, task.toBuilder().duration(duration - 1).build()));
+            }
+            Integer workers = task.getCrew() == null ? null : task.getCrew().getAssignment();
+            if (workers != null && workers > 1) {
+                simplifications.add(replace(tasks, i, task.toBuilder()
+                        .crew(Crew.builder().name(task.getCrew().getName()).assignment(1).build()).build()));
+            }
+        }
+        return simplifications;
+    }
+
+    private static List<Task> replace(List<Task> tasks, int index, Task task) {
+        List<Task> replaced = new ArrayList<>(tasks);
+        replaced.set(index, task);
+        return replaced;
+    }
+
+    static String describe(List<Task> tasks) {
+        return tasks.stream()
+                .map(it -> it.getTaskCode() + "(duration " + it.getDuration() + ", workers "
+                        + (it.getCrew() == null ? null : it.getCrew().getAssignment()) + ") <- "
+                        + it.getDependencies())
+                .collect(Collectors.joining("\n", "\n", "\n"));
+    }
+
+    static Outcome of(CpmGraph graph, CpmProcessor processor) {
+        Map<String, List<Integer>> times = new HashMap<>();
+        for (Node node : graph.getNodesByTask().values()) {
+            if (node != graph.getStartNode() && node != graph.getEndNode()) {
+                times.put(node.getTask().getTaskCode(), List.of(node.getEarliestStart(), node.getEarliestFinish(),
+                        node.getLatestStart(), node.getLatestFinish(), node.getSlack()));
+            }
+        }
+        return new Outcome(false, graph.getEndNode().getLatestFinish(), times,
+                toList(processor.createWorkersOnSiteHistogram(graph)), processor.buildCriticalPath(graph));
+    }
+
+    static List<Integer> toList(int[] histogram) {
+        return Arrays.stream(histogram).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Any other exception than {@link InvalidScheduleException} is a failure of the engine rather than a refusal, it
+     * is not caught, so it fails the run.
+     * @return the outcome of the calculation, a rejected outcome if the engine refused the schedule
+     */
+    static Outcome outcome(Supplier<Outcome> calculation) {
+        try {
+            return calculation.get();
+        } catch (InvalidScheduleException e) {
+            return Outcome.REJECTED;
+        }
+    }
+
+    /**
+     * What an engine calculated for a schedule.<br>
+     * {@link #rejected} - the engine refused the schedule, e.g. it has no root task or dependencies form a cycle<br>
+     * {@link #projectDuration} - latest finish of the project<br>
+     * {@link #times} - earliest start and finish, latest start and finish and slack by task code<br>
+     * {@link #histogram} - workers on site by day<br>
+     * {@link #criticalPath} - task codes of the critical path
+     */
+    @Value
+    static class Outcome {
+
+        static final Outcome REJECTED = new Outcome(true, 0, Map.of(), List.of(), List.of());
+
+        boolean rejected;
+        int projectDuration;
+        Map<String, List<Integer>> times;
+        List<Integer> histogram;
+        List<String> criticalPath;
+    }
+}
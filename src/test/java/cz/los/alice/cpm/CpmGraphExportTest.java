@@ -0,0 +1,133 @@
+package cz.los.alice.cpm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.los.alice.importer.CsvTaskImporter;
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.EnrichedTask;
+import cz.los.alice.model.Task;
+import cz.los.alice.service.TaskParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CpmGraphExportTest {
+
+    private static final String LEO2_BE = "input/LEO2-BE.json";
+
+    @Test
+    @DisplayName("Should write a CSV row of every task with the same values as the enriched tasks")
+    public void writeCsvTest() throws IOException {
+        CpmProcessor processor = createProcessor(LEO2_BE);
+        CpmGraph graph = processor.buildCpmGraph();
+        Map<String, EnrichedTask> expected = enrichedTasks(processor, graph);
+        StringWriter csv = new StringWriter();
+
+        new CpmGraphExport(graph).writeCsv(csv);
+
+        String[] lines = csv.toString().split("\r\n");
+        assertEquals(String.join(",", CpmGraphExport.COLUMNS), lines[0]);
+        assertEquals(expected.size() + 1, lines.length);
+        List<Task> imported = new ArrayList<>();
+        new CsvTaskImporter().importTasks(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                imported::add);
+        for (int i = 0; i < imported.size(); i++) {
+            EnrichedTask task = expected.get(imported.get(i).getTaskCode());
+            assertEquals(task.getTask().getOperationName(), imported.get(i).getOperationName());
+            assertEquals(task.getTask().getElementName(), imported.get(i).getElementName());
+            assertEquals(task.getTask().getCrew(), imported.get(i).getCrew());
+            assertEquals(task.getTask().getDuration(), imported.get(i).getDuration());
+            assertTrue(lines[i + 1].endsWith(String.join(",", String.valueOf(task.getStatInterval().getFrom()),
+                    String.valueOf(task.getEndInterval().getFrom()), String.valueOf(task.getStatInterval().getTo()),
+                    String.valueOf(task.getEndInterval().getTo()),
+                    String.valueOf(task.getStatInterval().getTo() - task.getStatInterval().getFrom()),
+                    String.valueOf(task.getStatInterval().getTo().equals(task.getStatInterval().getFrom())))),
+                    lines[i + 1]);
+        }
+    }
+
+    @Test
+    @DisplayName("Should lay tasks out by columns in the same order in every column")
+    public void writeColumnsTest() throws IOException {
+        CpmProcessor processor = createProcessor(LEO2_BE);
+        CpmGraph graph = processor.buildCpmGraph();
+        Map<String, EnrichedTask> expected = enrichedTasks(processor, graph);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        CpmGraphExport export = new CpmGraphExport(graph);
+
+        try (JsonGenerator generator = new JsonFactory().createGenerator(output)) {
+            export.writeColumns(generator);
+        }
+
+        JsonNode columns = new ObjectMapper().readTree(output.toByteArray());
+        assertEquals(graph.getEndNode().getLatestFinish(), columns.get("estimatedProjectDuration").asInt());
+        assertEquals(expected.size(), columns.get("taskCount").asInt());
+        assertEquals(expected.size(), export.size());
+        for (int i = 0; i < expected.size(); i++) {
+            EnrichedTask task = expected.get(columns.get("taskCodes").get(i).asText());
+            assertEquals(task.getTask().getOperationName(), columns.get("operationNames").get(i).asText());
+            assertEquals(task.getTask().getCrew().getName(), columns.get("crewNames").get(i).asText());
+            assertEquals(task.getTask().getCrew().getAssignment(), columns.get("workers").get(i).asInt());
+            assertEquals(task.getTask().getDuration(), columns.get("durations").get(i).asInt());
+            assertEquals(task.getStatInterval().getFrom(), columns.get("earliestStarts").get(i).asInt());
+            assertEquals(task.getEndInterval().getFrom(), columns.get("earliestFinishes").get(i).asInt());
+            assertEquals(task.getStatInterval().getTo(), columns.get("latestStarts").get(i).asInt());
+            assertEquals(task.getEndInterval().getTo(), columns.get("latestFinishes").get(i).asInt());
+            int slack = task.getStatInterval().getTo() - task.getStatInterval().getFrom();
+            assertEquals(slack, columns.get("slacks").get(i).asInt());
+            assertEquals(slack == 0, columns.get("critical").get(i).asBoolean());
+        }
+    }
+
+    @Test
+    @DisplayName("Should quote CSV fields with delimiters, quotes and line breaks and leave missing names empty")
+    public void quoteCsvTest() throws IOException {
+        Set<Task> tasks = Set.of(Task.builder()
+                .taskCode("pour, \"B1\"")
+                .operationName("line\nbreak")
+                .duration(2)
+                .crew(Crew.builder().assignment(3).build())
+                .build());
+        CpmGraph graph = new CpmProcessorFactory().createCpmProcessor(tasks).buildCpmGraph();
+        StringWriter csv = new StringWriter();
+
+        new CpmGraphExport(graph).writeCsv(csv);
+
+        assertEquals(String.join(",", CpmGraphExport.COLUMNS) + "\r\n"
+                + "\"pour, \"\"B1\"\"\",\"line\nbreak\",,,3,2,0,2,0,2,0,true\r\n", csv.toString());
+        List<Task> imported = new ArrayList<>();
+        new CsvTaskImporter().importTasks(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                imported::add);
+        assertEquals("pour, \"B1\"", imported.get(0).getTaskCode());
+        assertEquals("line\nbreak", imported.get(0).getOperationName());
+        assertNull(imported.get(0).getElementName());
+    }
+
+    private static CpmProcessor createProcessor(String resource) {
+        return new CpmProcessorFactory().createCpmProcessor(
+                new TaskParser(new ClassPathResource(resource)).parseInputFile());
+    }
+
+    private static Map<String, EnrichedTask> enrichedTasks(CpmProcessor processor, CpmGraph graph) {
+        return processor.createEnrichedTasks(graph).stream()
+                .collect(Collectors.toMap(it -> it.getTask().getTaskCode(), Function.identity()));
+    }
+}
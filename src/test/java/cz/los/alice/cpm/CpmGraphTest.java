@@ -1,13 +1,24 @@
 package cz.los.alice.cpm;
 
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.Relation;
+import cz.los.alice.model.Task;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import static cz.los.alice.TestUtils.createSimpleTasksSet;
 import static cz.los.alice.TestUtils.createSingleTasksSet;
 import static cz.los.alice.TestUtils.createTasksSetForComplexScenario;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -137,4 +148,70 @@ public class CpmGraphTest {
         assertTrue(graph.getNodesByTask().values().stream().allMatch(Node::isResolvedBackward));
     }
 
+    @Test
+    @DisplayName("Should calculate CPM metrics respecting types and lags of relations")
+    public void calculateCpmMetricsWithRelationsTest() {
+        Set<Task> tasks = new HashSet<>(List.of(
+                task("A", 10, Map.of()),
+                task("B", 4, Map.of("A", relation(Relation.Type.SS, 2))),
+                task("C", 3, Map.of("A", relation(Relation.Type.FF, 1))),
+                task("D", 5, Map.of("C", relation(Relation.Type.FS, -3))),
+                task("E", 2, Map.of("B", relation(Relation.Type.SF, 4))),
+                task("F", 3, Map.of("A", relation(Relation.Type.SS, -5)))));
+        CpmProcessor processor = factory.createCpmProcessor(tasks);
+
+        CpmGraph graph = processor.buildCpmGraph();
+        Map<String, Node> nodes = graph.getNodesByTask().values().stream()
+                .collect(Collectors.toMap(it -> it.getTask().getTaskCode(), Function.identity()));
+
+        assertTrue(graph.isWithRelations());
+        assertEquals(13, graph.getEndNode().getEarliestFinish());
+        assertMetrics(nodes.get("A"), 0, 10, 0, 10);
+        assertMetrics(nodes.get("B"), 2, 6, 9, 13);
+        assertMetrics(nodes.get("C"), 8, 11, 8, 11);
+        assertMetrics(nodes.get("D"), 8, 13, 8, 13);
+        assertMetrics(nodes.get("E"), 4, 6, 11, 13);
+        assertMetrics(nodes.get("F"), 0, 3, 10, 13);
+        assertEquals(Set.of("B", "C", "D", "E", "F"), processor.getTerminalTasks().stream()
+                .map(Task::getTaskCode)
+                .collect(Collectors.toSet()));
+        assertEquals(List.of("A", "C", "D"), processor.buildCriticalPath(graph));
+        assertThrows(IllegalArgumentException.class, () -> processor.findLongestPaths(graph, 1));
+    }
+
+    @Test
+    @DisplayName("Should keep links without relations free of relation codes")
+    public void noRelationsTest() {
+        CpmProcessor processor = factory.createCpmProcessor(createTasksSetForComplexScenario());
+
+        CpmGraph graph = processor.buildCpmGraph();
+
+        assertFalse(graph.isWithRelations());
+        assertTrue(graph.getNodesByTask().values().stream()
+                .allMatch(it -> it.predecessorRelations() == null && it.successorRelations() == null));
+    }
+
+    private static void assertMetrics(Node node, int earliestStart, int earliestFinish, int latestStart,
+                                      int latestFinish) {
+        String taskCode = node.getTask().getTaskCode();
+        assertEquals(earliestStart, node.getEarliestStart(), taskCode);
+        assertEquals(earliestFinish, node.getEarliestFinish(), taskCode);
+        assertEquals(latestStart, node.getLatestStart(), taskCode);
+        assertEquals(latestFinish, node.getLatestFinish(), taskCode);
+        assertEquals(latestFinish - earliestFinish, node.getSlack(), taskCode);
+    }
+
+    private static Task task(String code, int duration, Map<String, Relation> relations) {
+        return Task.builder()
+                .taskCode(code)
+                .duration(duration)
+                .crew(Crew.builder().assignment(1).build())
+                .dependencies(relations.keySet())
+                .relations(relations)
+                .build();
+    }
+
+    private static Relation relation(Relation.Type type, int lag) {
+        return Relation.builder().type(type).lag(lag).build();
+    }
 }
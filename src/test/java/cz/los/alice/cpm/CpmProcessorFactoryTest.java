@@ -151,6 +151,23 @@ public class CpmProcessorFactoryTest {
         assertEquals(1, successorsByTask.get("fourthTerminal").size());
     }
 
+    @Test
+    @DisplayName("Should link root tasks with START without modifying provided tasks")
+    public void createCpmProcessorKeepsTasksUntouched() {
+        Set<Task> tasks = createTasksSetWithMultipleRootsAndTerminalTasks();
+
+        CpmProcessor result = factory.createCpmProcessor(tasks);
+
+        for (var rootTask : result.getRootTasks()) {
+            assertTrue(rootTask.getDependencies().isEmpty());
+            assertEquals(START, result.getPredecessorsByTask().get(rootTask.getTaskCode()).get(0).getTaskCode());
+        }
+        assertEquals(8, tasks.size());
+        assertTrue(tasks.stream()
+                .filter(it -> it.getTaskCode().endsWith("Root"))
+                .allMatch(it -> it.getDependencies().isEmpty()));
+    }
+
     private static void assertCollectionSizes(Set<Task> tasks, CpmProcessor result) {
         assertNotNull(result);
         assertEquals(tasks.size() + 2, result.getAllTasks().size());
@@ -1,20 +1,37 @@
 package cz.los.alice.cpm;
 
 import cz.los.alice.model.EnrichedTask;
+import cz.los.alice.model.NearCriticalTask;
 import cz.los.alice.model.Task;
+import cz.los.alice.model.TaskPath;
+import cz.los.alice.model.WorkloadProfile;
+import cz.los.alice.model.WorkloadProfiles;
+import cz.los.alice.service.ParsedTasks;
+import cz.los.alice.service.TaskParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
 import static cz.los.alice.TestUtils.createSimpleTasksSet;
 import static cz.los.alice.TestUtils.createSingleTasksSet;
 import static cz.los.alice.TestUtils.createTasksSetForComplexScenario;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CpmProcessorTest {
@@ -118,6 +135,24 @@ public class CpmProcessorTest {
         assertEquals(expectedStats, result);
     }
 
+    @Test
+    @DisplayName("Should create earliest, latest and worst case workload profiles in one pass")
+    public void createWorkloadProfilesTest() {
+        processor = factory.createCpmProcessor(createTasksSetForComplexScenario());
+        CpmGraph graph = processor.buildCpmGraph();
+
+        WorkloadProfiles profiles = processor.createWorkloadProfiles(graph);
+
+        assertArrayEquals(processor.createWorkersOnSiteHistogram(graph), profiles.getEnvelope().getWorkers());
+        assertEquals(2, profiles.getEnvelope().getPeakDay());
+        assertEquals(4, profiles.getEnvelope().getPeakWorkers());
+        assertProfiles(graph, profiles);
+        assertProfiles(factory.createCpmProcessor(createLayeredTasksSet(20, 15, 4)));
+        ParsedTasks calendarSchedule =
+                new TaskParser(new ClassPathResource("input/CalendarSchedule.json")).parseAndValidate();
+        assertProfiles(factory.createCpmProcessor(calendarSchedule.getTasks(), calendarSchedule.getCalendars()));
+    }
+
     @Test
     @DisplayName("Should create a set of task enriched with start and end intervals on provided CpmGraph easy scenario")
     public void createEnrichedTasksSimpleTest() {
@@ -154,6 +189,122 @@ public class CpmProcessorTest {
         assertTrue(result.stream().allMatch(task -> task.getEndInterval() != null));
     }
 
+    @Test
+    @DisplayName("Should find all critical paths first and then the longest near-critical ones")
+    public void findLongestPathsComplexTest() {
+        processor = factory.createCpmProcessor(createTasksSetForComplexScenario());
+        CpmGraph graph = processor.buildCpmGraph();
+
+        List<TaskPath> result = processor.findLongestPaths(graph, 4);
+
+        assertEquals(4, result.size());
+        assertEquals(List.of(4, 4, 4, 3), result.stream().map(TaskPath::getLength).collect(Collectors.toList()));
+        assertEquals(Set.of(
+                        List.of("firstRoot", "thirdIntermediateTask", "fourthIntermediateTask", "firstTerminal"),
+                        List.of("secondRoot", "firstIntermediateTask", "fourthIntermediateTask", "firstTerminal"),
+                        List.of("secondRoot", "firstIntermediateTask", "secondIntermediateTask", "thirdTerminal")),
+                result.subList(0, 3).stream().map(TaskPath::getTaskCodes).collect(Collectors.toSet()));
+        assertEquals(3, result.get(3).getTaskCodes().size());
+        assertThrows(IllegalArgumentException.class, () -> processor.findLongestPaths(graph, 0));
+    }
+
+    @Test
+    @DisplayName("Should find the same longest paths as enumeration of all paths")
+    public void findLongestPathsMatchesEnumerationTest() {
+        for (long seed = 1; seed <= 20; seed++) {
+            processor = factory.createCpmProcessor(createLayeredTasksSet(5, 4, seed));
+            CpmGraph graph = processor.buildCpmGraph();
+            List<List<Node>> allPaths = enumeratePaths(graph);
+            allPaths.sort(Comparator.comparingInt(CpmProcessorTest::length).reversed());
+            int count = Math.min(15, allPaths.size());
+
+            List<TaskPath> result = processor.findLongestPaths(graph, count);
+
+            assertEquals(allPaths.subList(0, count).stream().map(CpmProcessorTest::length).collect(Collectors.toList()),
+                    result.stream().map(TaskPath::getLength).collect(Collectors.toList()), "seed " + seed);
+            assertEquals(count, result.stream().map(TaskPath::getTaskCodes).distinct().count(), "seed " + seed);
+            Set<List<String>> existingPaths = allPaths.stream()
+                    .map(path -> path.stream().map(it -> it.getTask().getTaskCode()).collect(Collectors.toList()))
+                    .collect(Collectors.toSet());
+            assertTrue(result.stream().allMatch(it -> existingPaths.contains(it.getTaskCodes())), "seed " + seed);
+            assertEquals(allPaths.size(), processor.findLongestPaths(graph, allPaths.size() + 10).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should find the longest paths of a large graph")
+    public void findLongestPathsLargeGraphTest() {
+        processor = factory.createCpmProcessor(createLayeredTasksSet(200, 500, 7));
+        CpmGraph graph = processor.buildCpmGraph();
+
+        List<TaskPath> result = processor.findLongestPaths(graph, 50);
+
+        assertEquals(50, result.size());
+        assertEquals(graph.getEndNode().getLatestFinish(), result.get(0).getLength());
+        assertEquals(processor.buildCriticalPath(graph).size(), result.get(0).getTaskCodes().size());
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i - 1).getLength() >= result.get(i).getLength());
+        }
+    }
+
+    @Test
+    @DisplayName("Should extract tasks with slack not exceeding the threshold with links among them")
+    public void extractNearCriticalTasksTest() {
+        processor = factory.createCpmProcessor(createLayeredTasksSet(20, 10, 3));
+        CpmGraph graph = processor.buildCpmGraph();
+        int projectDuration = graph.getEndNode().getLatestFinish();
+
+        List<NearCriticalTask> critical = processor.extractNearCriticalTasks(graph, 0);
+        List<NearCriticalTask> nearCritical = processor.extractNearCriticalTasks(graph, 5);
+
+        Set<String> criticalPath = new HashSet<>(processor.buildCriticalPath(graph));
+        Set<String> criticalCodes = critical.stream().map(NearCriticalTask::getTaskCode).collect(Collectors.toSet());
+        assertTrue(criticalCodes.containsAll(criticalPath));
+        assertTrue(critical.stream().allMatch(it -> it.getLongestPathLength() == projectDuration));
+
+        Map<String, Node> nodesByCode = graph.getNodesByTask().values().stream()
+                .collect(Collectors.toMap(it -> it.getTask().getTaskCode(), Function.identity()));
+        long expectedCount = nodesByCode.values().stream()
+                .filter(it -> it != graph.getStartNode() && it != graph.getEndNode() && it.getSlack() <= 5)
+                .count();
+        assertEquals(expectedCount, nearCritical.size());
+        Set<String> nearCriticalCodes = nearCritical.stream()
+                .map(NearCriticalTask::getTaskCode)
+                .collect(Collectors.toSet());
+        for (var task : nearCritical) {
+            Node node = nodesByCode.get(task.getTaskCode());
+            assertEquals(node.getSlack(), task.getSlack());
+            assertEquals(projectDuration - node.getSlack(), task.getLongestPathLength());
+            assertTrue(nearCriticalCodes.containsAll(task.getSuccessors()));
+        }
+        for (int i = 1; i < nearCritical.size(); i++) {
+            assertTrue(nearCritical.get(i - 1).getEarliestStart() <= nearCritical.get(i).getEarliestStart());
+        }
+        assertThrows(IllegalArgumentException.class, () -> processor.extractNearCriticalTasks(graph, -1));
+    }
+
+    private static List<List<Node>> enumeratePaths(CpmGraph graph) {
+        List<List<Node>> paths = new ArrayList<>();
+        collectPaths(graph.getStartNode(), graph.getEndNode(), new ArrayList<>(), paths);
+        return paths;
+    }
+
+    private static void collectPaths(Node node, Node endNode, List<Node> prefix, List<List<Node>> paths) {
+        for (Node successor : node.successorNodes()) {
+            if (successor == endNode) {
+                paths.add(new ArrayList<>(prefix));
+                continue;
+            }
+            prefix.add(successor);
+            collectPaths(successor, endNode, prefix, paths);
+            prefix.remove(prefix.size() - 1);
+        }
+    }
+
+    private static int length(List<Node> path) {
+        return path.stream().mapToInt(Node::getDuration).sum();
+    }
+
     private static void assertGraphHasStartAndEndNodes(CpmGraph result) {
         assertEquals("START", result.getStartNode().getTask().getTaskCode());
         assertEquals("END", result.getEndNode().getTask().getTaskCode());
@@ -164,4 +315,41 @@ public class CpmProcessorTest {
         assertTrue(result.getNodesByTask().values().stream().allMatch(Node::isResolvedBackward));
         assertTrue(result.getNodesByTask().values().stream().allMatch(node -> node.getSlack() != null));
     }
+
+    private static void assertProfiles(CpmProcessor processor) {
+        CpmGraph graph = processor.buildCpmGraph();
+        WorkloadProfiles profiles = processor.createWorkloadProfiles(graph);
+        assertArrayEquals(processor.createWorkersOnSiteHistogram(graph), profiles.getEnvelope().getWorkers());
+        assertProfiles(graph, profiles);
+    }
+
+    private static void assertProfiles(CpmGraph graph, WorkloadProfiles profiles) {
+        assertProfile(countWorkers(graph, Node::earliestStartDay, Node::earliestFinishDay), profiles.getEarliest());
+        assertProfile(countWorkers(graph, Node::latestStartDay, Node::latestFinishDay), profiles.getLatest());
+        assertProfile(countWorkers(graph, Node::earliestStartDay, Node::latestFinishDay), profiles.getEnvelope());
+    }
+
+    private static void assertProfile(int[] expected, WorkloadProfile profile) {
+        assertArrayEquals(expected, profile.getWorkers());
+        int peakWorkers = Arrays.stream(expected).max().orElseThrow();
+        assertEquals(peakWorkers, profile.getPeakWorkers());
+        int peakDay = IntStream.range(0, expected.length)
+                .filter(it -> expected[it] == peakWorkers)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(peakDay, profile.getPeakDay());
+    }
+
+    private static int[] countWorkers(CpmGraph graph, ToIntFunction<Node> start, ToIntFunction<Node> finish) {
+        int[] workers = new int[graph.getEndNode().latestFinishDay() + 1];
+        for (Node node : graph.getNodesByTask().values()) {
+            Integer assignment = node.getTask().getCrew().getAssignment();
+            for (int day = start.applyAsInt(node); assignment != null && day < finish.applyAsInt(node); day++) {
+                if (node.getCalendar() == null || node.getCalendar().isWorkingDay(day)) {
+                    workers[day] += assignment;
+                }
+            }
+        }
+        return workers;
+    }
 }
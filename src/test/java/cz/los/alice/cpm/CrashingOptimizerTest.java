@@ -0,0 +1,145 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.CrashPlan;
+import cz.los.alice.model.CrashStep;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Task;
+import cz.los.alice.model.TaskCrash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.TestUtils.SIMPLE_CREW;
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CrashingOptimizerTest {
+
+    private CpmProcessorFactory factory;
+
+    @BeforeEach
+    public void setup() {
+        this.factory = new CpmProcessorFactory();
+    }
+
+    @Test
+    @DisplayName("Should shorten the cheapest cut of critical tasks day by day")
+    public void shortenCheapestCutTest() {
+        CrashPlan plan = new CrashingOptimizer(buildGraph(createParallelTasksSet())).shorten(3);
+
+        assertEquals(15, plan.getOriginalDuration());
+        assertEquals(12, plan.getCrashedDuration());
+        assertTrue(plan.isTargetReached());
+        assertEquals(400.0, plan.getTotalCost());
+        assertEquals(List.of(
+                new CrashStep(14, List.of("first"), 100.0, 100.0),
+                new CrashStep(13, List.of("first", "second"), 150.0, 250.0),
+                new CrashStep(12, List.of("first", "second"), 150.0, 400.0)), sorted(plan.getSteps()));
+        assertEquals(List.of(
+                new TaskCrash("first", 10, 7, 300.0),
+                new TaskCrash("second", 9, 7, 100.0)), plan.getCrashedTasks());
+    }
+
+    @Test
+    @DisplayName("Should stop when a critical path can not be crashed any further")
+    public void stopOnUncrashablePathTest() {
+        CrashPlan plan = new CrashingOptimizer(buildGraph(createParallelTasksSet())).shorten(10);
+
+        assertFalse(plan.isTargetReached());
+        assertEquals(9, plan.getCrashedDuration());
+        assertEquals(6, plan.getSteps().size());
+        assertEquals(1150.0, plan.getTotalCost());
+        assertEquals(List.of("last"), plan.getSteps().get(5).getCrashedTasks());
+        assertEquals(Set.of(
+                new TaskCrash("first", 10, 6, 400.0),
+                new TaskCrash("second", 9, 6, 150.0),
+                new TaskCrash("last", 5, 3, 600.0)), Set.copyOf(plan.getCrashedTasks()));
+    }
+
+    @Test
+    @DisplayName("Should not crash tasks without crashing data and reject days out of the project duration")
+    public void uncrashableScheduleTest() {
+        CrashingOptimizer optimizer = new CrashingOptimizer(buildGraph(createLayeredTasksSet(5, 5, 1)));
+
+        CrashPlan plan = optimizer.shorten(1);
+
+        assertTrue(plan.getSteps().isEmpty());
+        assertEquals(plan.getOriginalDuration(), plan.getCrashedDuration());
+        assertThrows(InvalidScheduleException.class, () -> optimizer.shorten(0));
+        assertThrows(InvalidScheduleException.class, () -> optimizer.shorten(plan.getOriginalDuration() + 1));
+        assertThrows(InvalidScheduleException.class, () -> optimizer.shorten(Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Should keep incrementally updated durations equal to a full recalculation on a large schedule")
+    public void largeScheduleMatchesFullRecalculationTest() {
+        Random random = new Random(5);
+        Set<Task> tasks = createLayeredTasksSet(500, 100, 11).stream()
+                .map(task -> task.toBuilder()
+                        .minimumDuration(Math.max(1, task.getDuration() / 2))
+                        .crashCostPerDay(1.0 + random.nextInt(100))
+                        .build())
+                .collect(Collectors.toSet());
+        CpmGraph graph = buildGraph(tasks);
+
+        CrashPlan plan = new CrashingOptimizer(graph).shorten(40);
+
+        assertTrue(plan.isTargetReached());
+        for (int i = 0; i < plan.getSteps().size(); i++) {
+            assertEquals(plan.getOriginalDuration() - i - 1, plan.getSteps().get(i).getProjectDuration());
+        }
+        Map<String, TaskCrash> crashes = plan.getCrashedTasks().stream()
+                .collect(Collectors.toMap(TaskCrash::getTaskCode, Function.identity()));
+        Set<Task> crashedTasks = tasks.stream()
+                .map(task -> crashes.containsKey(task.getTaskCode())
+                        ? task.toBuilder().duration(crashes.get(task.getTaskCode()).getCrashedDuration()).build()
+                        : task)
+                .collect(Collectors.toSet());
+        assertEquals(plan.getCrashedDuration(), buildGraph(crashedTasks).getEndNode().getLatestFinish());
+        assertEquals(plan.getTotalCost(), crashes.values().stream().mapToDouble(TaskCrash::getCost).sum(), 1e-6);
+    }
+
+    private CpmGraph buildGraph(Set<Task> tasks) {
+        return factory.createCpmProcessor(tasks).buildCpmGraph();
+    }
+
+    private static List<CrashStep> sorted(List<CrashStep> steps) {
+        return steps.stream()
+                .map(it -> new CrashStep(it.getProjectDuration(),
+                        it.getCrashedTasks().stream().sorted().collect(Collectors.toList()),
+                        it.getCost(), it.getCumulativeCost()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * first (10 days, down to 6 for 100 a day) and second (9 days, down to 5 for 50 a day) run in parallel,
+     * last (5 days, down to 3 for 300 a day) depends on both.
+     */
+    private static Set<Task> createParallelTasksSet() {
+        return Set.of(
+                task("first", 10, 6, 100.0),
+                task("second", 9, 5, 50.0),
+                task("last", 5, 3, 300.0, "first", "second"));
+    }
+
+    private static Task task(String code, int duration, int minimumDuration, double cost, String... dependencies) {
+        return Task.builder()
+                .taskCode(code)
+                .duration(duration)
+                .minimumDuration(minimumDuration)
+                .crashCostPerDay(cost)
+                .crew(SIMPLE_CREW)
+                .dependencies(List.of(dependencies))
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.ConeTask;
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.DependencyCone;
+import cz.los.alice.model.Relation;
+import cz.los.alice.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DependencyConeIndexTest {
+
+    static final Set<Task> GARDEN = Set.of(
+            task("dig", 3),
+            task("pour", 2, "dig"),
+            task("fence", 1, "dig"),
+            task("cure", 4, "pour"),
+            task("plant", 2),
+            task("paint", 1, "cure", "fence", "plant"));
+
+    @Test
+    @DisplayName("Should find downstream tasks with depth, slack and the delay they absorb")
+    public void downstreamTest() {
+        DependencyConeIndex index = index(GARDEN);
+
+        assertEquals(6, index.size());
+        assertEquals(new DependencyCone("dig", 0, List.of(), List.of(
+                new ConeTask("fence", 1, 5, 0),
+                new ConeTask("pour", 1, 0, 0),
+                new ConeTask("cure", 2, 0, 0),
+                new ConeTask("paint", 2, 0, 0))), index.query("dig"));
+        assertEquals(new DependencyCone("fence", 5,
+                List.of(new ConeTask("dig", 1, 0, null)),
+                List.of(new ConeTask("paint", 1, 0, 5))), index.query("fence"));
+        assertEquals(List.of(new ConeTask("paint", 1, 0, 7)), index.query("plant").getDownstream());
+    }
+
+    @Test
+    @DisplayName("Should find upstream tasks by the least number of dependencies")
+    public void upstreamTest() {
+        DependencyCone cone = index(GARDEN).query("paint");
+
+        assertEquals(List.of(
+                new ConeTask("cure", 1, 0, null),
+                new ConeTask("fence", 1, 5, null),
+                new ConeTask("plant", 1, 7, null),
+                new ConeTask("dig", 2, 0, null),
+                new ConeTask("pour", 2, 0, null)), cone.getUpstream());
+        assertEquals(List.of(), cone.getDownstream());
+    }
+
+    @Test
+    @DisplayName("Should absorb exactly the delay after which the downstream task starts later")
+    public void absorbedDelayTest() {
+        Set<Task> tasks = createLayeredTasksSet(12, 8, 9);
+        DependencyConeIndex index = index(tasks);
+        for (String queried : List.of("L0P3", "L2P5", "L5P0", "L8P7")) {
+            DependencyCone cone = index.query(queried);
+            Map<String, Integer> original = earliestStarts(tasks, queried, 0);
+            for (ConeTask downstream : cone.getDownstream()) {
+                int absorbed = downstream.getAbsorbedDelay();
+                assertEquals(original.get(downstream.getTaskCode()),
+                        earliestStarts(tasks, queried, absorbed).get(downstream.getTaskCode()));
+                assertEquals(original.get(downstream.getTaskCode()) + 1,
+                        earliestStarts(tasks, queried, absorbed + 1).get(downstream.getTaskCode()));
+            }
+            assertEquals(reachable(tasks, queried), cone.getDownstream().stream()
+                    .map(ConeTask::getTaskCode)
+                    .collect(toSet()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse unknown tasks, the pseudo-tasks and schedules with relations")
+    public void invalidQueryTest() {
+        DependencyConeIndex index = index(GARDEN);
+        assertThrows(IllegalArgumentException.class, () -> index.query("unknown"));
+        assertThrows(IllegalArgumentException.class, () -> index.query(CpmProcessorFactory.START));
+        assertThrows(IllegalArgumentException.class, () -> index.query(CpmProcessorFactory.END));
+
+        Set<Task> related = Set.of(task("dig", 3), Task.builder().taskCode("pour").duration(2).dependency("dig")
+                .relation("dig", Relation.builder().type(Relation.Type.SS).build()).build());
+        assertThrows(IllegalArgumentException.class, () -> index(related));
+    }
+
+    static DependencyConeIndex index(Set<Task> tasks) {
+        return DependencyConeIndex.of(new CpmProcessorFactory().createCpmProcessor(tasks).buildCpmGraph());
+    }
+
+    private static Map<String, Integer> earliestStarts(Set<Task> tasks, String delayed, int delay) {
+        Set<Task> delayedTasks = tasks.stream()
+                .map(it -> it.getTaskCode().equals(delayed)
+                        ? it.toBuilder().duration(it.getDuration() + delay).build()
+                        : it)
+                .collect(toSet());
+        Map<String, Integer> earliestStarts = new HashMap<>();
+        new CpmProcessorFactory().createCpmProcessor(delayedTasks).buildCpmGraph().getNodesByTask()
+                .forEach((task, node) -> earliestStarts.put(task.getTaskCode(), node.getEarliestStart()));
+        return earliestStarts;
+    }
+
+    private static Set<String> reachable(Set<Task> tasks, String from) {
+        Set<String> reached = new HashSet<>(Set.of(from));
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Task task : tasks) {
+                if (!reached.contains(task.getTaskCode())
+                        && task.getDependencies().stream().anyMatch(reached::contains)) {
+                    changed = reached.add(task.getTaskCode());
+                }
+            }
+        }
+        reached.remove(from);
+        return reached;
+    }
+
+    private static Task task(String code, int duration, String... dependencies) {
+        return Task.builder()
+                .taskCode(code)
+                .duration(duration)
+                .crew(Crew.builder().assignment(1).build())
+                .dependencies(List.of(dependencies))
+                .build();
+    }
+}
@@ -0,0 +1,51 @@
+package cz.los.alice.cpm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ElementHierarchyTest {
+
+    @Test
+    @DisplayName("Should split element names into segments of the configured levels")
+    public void segmentsTest() {
+        ElementHierarchy hierarchy = new ElementHierarchy("_", List.of("building", "zone", "level", "element"));
+
+        assertEquals(List.of(
+                new ElementHierarchy.Segment("B1", "B1"),
+                new ElementHierarchy.Segment("A", "B1_A"),
+                new ElementHierarchy.Segment("L5", "B1_A_L5"),
+                new ElementHierarchy.Segment("Core Wall", "B1_A_L5_Core Wall")), hierarchy.segments("B1_A_L5_Core Wall"));
+        assertEquals(List.of(
+                new ElementHierarchy.Segment("B1", "B1"),
+                new ElementHierarchy.Segment("West", "B1_West"),
+                new ElementHierarchy.Segment("Mast Climber", "B1_West_Mast Climber")),
+                hierarchy.segments("B1_West_Mast Climber"));
+        assertTrue(hierarchy.segments(null).isEmpty());
+        assertTrue(hierarchy.segments("").isEmpty());
+        assertEquals(hierarchy.getLevels(), ElementHierarchy.defaults().getLevels());
+        assertEquals(hierarchy.segments("B1_A_L5_Core Wall"),
+                ElementHierarchy.defaults().segments("B1_A_L5_Core Wall"));
+    }
+
+    @Test
+    @DisplayName("Should keep the rest of the name in the last level and accept any separator pattern")
+    public void configuredHierarchyTest() {
+        ElementHierarchy twoLevels = new ElementHierarchy("_", List.of("building", "element"));
+        ElementHierarchy slashes = new ElementHierarchy("\\s*/\\s*", List.of("building", "level"));
+
+        assertEquals(List.of(
+                new ElementHierarchy.Segment("B1", "B1"),
+                new ElementHierarchy.Segment("A_L5_Core Wall", "B1_A_L5_Core Wall")),
+                twoLevels.segments("B1_A_L5_Core Wall"));
+        assertEquals(List.of(
+                new ElementHierarchy.Segment("Tower", "Tower"),
+                new ElementHierarchy.Segment("L2", "Tower / L2")), slashes.segments("Tower / L2"));
+        assertThrows(IllegalArgumentException.class, () -> new ElementHierarchy("_", List.of()));
+    }
+}
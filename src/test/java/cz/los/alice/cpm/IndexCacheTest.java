@@ -0,0 +1,35 @@
+package cz.los.alice.cpm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class IndexCacheTest {
+
+    @Test
+    @DisplayName("Should keep indexes of the most recently queried schedules only")
+    public void cacheTest() {
+        IndexCache<DependencyConeIndex> cache = new IndexCache<>(2);
+        List<String> built = new ArrayList<>();
+
+        DependencyConeIndex first = cache.get("first", () -> build(built, "first"));
+        assertSame(first, cache.get("first", () -> build(built, "first")));
+        cache.get("second", () -> build(built, "second"));
+        cache.get("first", () -> build(built, "first"));
+        cache.get("third", () -> build(built, "third"));
+        cache.get("first", () -> build(built, "first"));
+        cache.get("second", () -> build(built, "second"));
+
+        assertEquals(List.of("first", "second", "third", "second"), built);
+    }
+
+    private static DependencyConeIndex build(List<String> built, String key) {
+        built.add(key);
+        return DependencyConeIndexTest.index(DependencyConeIndexTest.GARDEN);
+    }
+}
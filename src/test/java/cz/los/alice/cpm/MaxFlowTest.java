@@ -0,0 +1,49 @@
+package cz.los.alice.cpm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MaxFlowTest {
+
+    @Test
+    @DisplayName("Should find maximum flow and the source side of the minimum cut")
+    public void maxFlowAndMinCutTest() {
+        MaxFlow network = new MaxFlow(4);
+        network.addEdge(0, 1, 10);
+        network.addEdge(0, 2, 10);
+        network.addEdge(1, 2, 1);
+        network.addEdge(1, 3, 2);
+        network.addEdge(2, 3, 3);
+
+        assertEquals(5, network.maxFlow(0, 3));
+        assertArrayEquals(new boolean[]{true, true, true, false}, network.reachableFromSource(0));
+    }
+
+    @Test
+    @DisplayName("Should report infinite flow over a path of infinite edges")
+    public void infiniteFlowTest() {
+        MaxFlow network = new MaxFlow(3);
+        network.addEdge(0, 1, MaxFlow.INFINITE);
+        network.addEdge(1, 2, MaxFlow.INFINITE);
+        network.addEdge(0, 2, 7);
+
+        assertTrue(network.maxFlow(0, 2) >= MaxFlow.INFINITE);
+    }
+
+    @Test
+    @DisplayName("Should handle augmenting paths longer than the stack allows for recursion")
+    public void longPathTest() {
+        int length = 200_000;
+        MaxFlow network = new MaxFlow(length);
+        for (int i = 0; i + 1 < length; i++) {
+            network.addEdge(i, i + 1, i == length / 2 ? 1 : MaxFlow.INFINITE);
+        }
+
+        assertEquals(1, network.maxFlow(0, length - 1));
+        assertTrue(network.reachableFromSource(0)[length / 2]);
+    }
+}
@@ -0,0 +1,63 @@
+package cz.los.alice.cpm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapBufferTest {
+
+    @Test
+    @DisplayName("Should keep the content and zero new memory when growing")
+    public void growTest() {
+        try (OffHeapBuffer buffer = OffHeapBuffer.ofInts(4)) {
+            for (int i = 0; i < 4; i++) {
+                buffer.putInt(i, -i);
+            }
+
+            buffer.ensureInts(5);
+
+            assertEquals(8, buffer.intCapacity());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(-i, buffer.getInt(i));
+            }
+            assertEquals(0, buffer.getInt(7));
+            buffer.ensureInts(100);
+            assertEquals(100, buffer.intCapacity());
+            assertEquals(-3, buffer.getInt(3));
+        }
+    }
+
+    @Test
+    @DisplayName("Should address the same memory by ints and bytes and fill ranges")
+    public void accessTest() {
+        try (OffHeapBuffer buffer = OffHeapBuffer.ofBytes(16)) {
+            buffer.fillInts(1, 3, -1);
+            buffer.put(0, (byte) 7);
+
+            assertEquals(7, buffer.get(0));
+            assertEquals(-1, buffer.getInt(1));
+            assertEquals(-1, buffer.getInt(2));
+            assertEquals(0, buffer.getInt(3));
+            assertEquals((byte) 0xFF, buffer.get(4));
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse any access after the memory is released")
+    public void releaseTest() {
+        OffHeapBuffer buffer = OffHeapBuffer.ofInts(1);
+
+        buffer.close();
+        buffer.close();
+
+        assertFalse(buffer.isOpen());
+        assertThrows(IllegalStateException.class, () -> buffer.getInt(0));
+        assertThrows(IllegalStateException.class, () -> buffer.ensureInts(2));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapBuffer.ofBytes(OffHeapBuffer.MAX_BYTES + 1L));
+        assertTrue(OffHeapBuffer.MAX_BYTES > 0);
+    }
+}
@@ -0,0 +1,170 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.AllocationMeter;
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.Relation;
+import cz.los.alice.model.Task;
+import cz.los.alice.service.ParsedTasks;
+import cz.los.alice.service.TaskParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
+import static cz.los.alice.TestUtils.createTasksSetForComplexScenario;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapCpmGraphTest {
+
+    @Test
+    @DisplayName("Should calculate the same CPM metrics, critical path and histogram as the on-heap graph")
+    public void sameAsOnHeapGraphTest() {
+        assertSameAsOnHeap(createTasksSetForComplexScenario());
+        assertSameAsOnHeap(createLayeredTasksSet(50, 40, 7));
+        assertSameAsOnHeap(new TaskParser(new ClassPathResource("input/LEO2-BE.json")).parseAndValidate().getTasks());
+    }
+
+    @Test
+    @DisplayName("Should apply the validation rules while building and resolve dependencies on tasks added later")
+    public void builderRulesTest() {
+        try (OffHeapCpmGraph graph = OffHeapCpmGraph.builder()
+                .add(task("finish", 2, 3, "pour", "unknown", "finish"))
+                .add(task("pour", -5, 0, "formwork"))
+                .add(task("formwork", 4, 2))
+                .add(task("formwork", 10, 9))
+                .add(Task.builder().taskCode("cure").dependency("pour").build())
+                .build()) {
+            graph.calculateCpmMetricsInForwardDirection();
+            graph.calculateCpmMetricsInBackwardDirection();
+
+            assertEquals(4, graph.size());
+            assertEquals(3, graph.edgeCount());
+            assertEquals(List.of("finish", "pour", "formwork", "cure"),
+                    List.of(graph.taskCode(0), graph.taskCode(1), graph.taskCode(2), graph.taskCode(3)));
+            assertEquals(0, graph.duration(1));
+            assertEquals(0, graph.duration(3));
+            assertEquals(6, graph.getProjectDuration());
+            assertEquals(4, graph.earliestStart(0));
+            assertEquals(6, graph.latestFinish(3));
+            assertEquals(2, graph.slack(3));
+            List<String> criticalPath = new ArrayList<>();
+            graph.visitCriticalPath(task -> criticalPath.add(graph.taskCode(task)));
+            assertEquals(List.of("formwork", "pour", "finish"), criticalPath);
+            assertArrayEquals(new int[]{2, 2, 2, 2, 3, 3, 0}, graph.createWorkersOnSiteHistogram());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject inputs the on-heap engine rejects, cycles and relations and release the memory")
+    public void invalidInputTest() {
+        OffHeapCpmGraph.Builder empty = OffHeapCpmGraph.builder();
+        assertThrows(IllegalArgumentException.class, empty::build);
+        assertThrows(IllegalStateException.class, () -> empty.add(task("late", 1, 1)));
+
+        OffHeapCpmGraph.Builder noRoots = OffHeapCpmGraph.builder().add(task("first", 1, 1, "second"));
+        assertThrows(IllegalArgumentException.class, noRoots::build);
+
+        OffHeapCpmGraph.Builder cycle = OffHeapCpmGraph.builder()
+                .add(task("root", 1, 1))
+                .add(task("first", 1, 1, "root", "second"))
+                .add(task("second", 1, 1, "first"));
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, cycle::build);
+        assertEquals("Dependencies of 2 tasks form a cycle, the project cannot be scheduled", thrown.getMessage());
+
+        Task related = Task.builder().taskCode("related").duration(1).dependency("root")
+                .relation("root", Relation.builder().type(Relation.Type.SS).build()).build();
+        try (OffHeapCpmGraph.Builder builder = OffHeapCpmGraph.builder()) {
+            assertThrows(IllegalArgumentException.class, () -> builder.add(related));
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse access before the passes are done and after the memory is released")
+    public void lifecycleTest() {
+        OffHeapCpmGraph graph = OffHeapCpmGraph.builder().add(task("only", 3, 1)).build();
+        assertThrows(IllegalStateException.class, () -> graph.earliestStart(0));
+        graph.calculateCpmMetricsInForwardDirection();
+        assertThrows(IllegalStateException.class, () -> graph.latestStart(0));
+        graph.calculateCpmMetricsInBackwardDirection();
+        assertEquals(0, graph.latestStart(0));
+        assertTrue(graph.isOpen());
+        assertTrue(graph.offHeapBytes() > 0);
+
+        graph.close();
+        graph.close();
+
+        assertFalse(graph.isOpen());
+        assertEquals(0, graph.offHeapBytes());
+        assertThrows(IllegalStateException.class, () -> graph.latestStart(0));
+        assertThrows(IllegalStateException.class, graph::calculateCpmMetricsInForwardDirection);
+    }
+
+    @Test
+    @DisplayName("Should run both passes, the critical path and the histogram without allocating per task")
+    public void noHeapAllocationPerTaskTest() {
+        Set<Task> tasks = createLayeredTasksSet(200, 100, 42);
+        try (OffHeapCpmGraph graph = build(tasks)) {
+            long smallest = Long.MAX_VALUE;
+            for (int i = 0; i < 20; i++) {
+                smallest = Math.min(smallest, AllocationMeter.allocatedBytes(() -> {
+                    graph.calculateCpmMetricsInForwardDirection();
+                    graph.calculateCpmMetricsInBackwardDirection();
+                    graph.visitCriticalPath(task -> {
+                    });
+                }));
+            }
+            assertTrue(smallest < tasks.size() / 10, "Allocated " + smallest + " bytes for " + tasks.size() + " tasks");
+        }
+    }
+
+    private static void assertSameAsOnHeap(Set<Task> tasks) {
+        CpmProcessor processor = new CpmProcessorFactory().createCpmProcessor(tasks);
+        CpmGraph expected = processor.buildCpmGraph();
+        Map<String, Node> nodes = new HashMap<>();
+        expected.getNodesByTask().values().forEach(it -> nodes.put(it.getTask().getTaskCode(), it));
+        try (OffHeapCpmGraph graph = build(tasks)) {
+            graph.calculateCpmMetricsInForwardDirection();
+            graph.calculateCpmMetricsInBackwardDirection();
+
+            assertEquals(tasks.size(), graph.size());
+            assertEquals(expected.getEndNode().getLatestFinish(), graph.getProjectDuration());
+            for (int task = 0; task < graph.size(); task++) {
+                Node node = nodes.get(graph.taskCode(task));
+                assertEquals(node.getEarliestStart(), graph.earliestStart(task));
+                assertEquals(node.getEarliestFinish(), graph.earliestFinish(task));
+                assertEquals(node.getLatestStart(), graph.latestStart(task));
+                assertEquals(node.getLatestFinish(), graph.latestFinish(task));
+                assertEquals(node.getSlack(), graph.slack(task));
+            }
+            List<String> criticalPath = new ArrayList<>();
+            graph.visitCriticalPath(task -> criticalPath.add(graph.taskCode(task)));
+            assertEquals(processor.buildCriticalPath(expected), criticalPath);
+            assertArrayEquals(processor.createWorkersOnSiteHistogram(expected), graph.createWorkersOnSiteHistogram());
+        }
+    }
+
+    private static OffHeapCpmGraph build(Set<Task> tasks) {
+        OffHeapCpmGraph.Builder builder = OffHeapCpmGraph.builder(tasks.size());
+        tasks.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static Task task(String code, int duration, int workers, String... dependencies) {
+        return Task.builder()
+                .taskCode(code)
+                .duration(duration)
+                .crew(Crew.builder().assignment(workers).build())
+                .dependencies(List.of(dependencies))
+                .build();
+    }
+}
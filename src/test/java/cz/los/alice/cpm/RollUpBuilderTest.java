@@ -0,0 +1,145 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.RollUpGroup;
+import cz.los.alice.model.Task;
+import cz.los.alice.service.TaskParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RollUpBuilderTest {
+
+    private static final ElementHierarchy HIERARCHY =
+            new ElementHierarchy("_", List.of("building", "zone", "level", "element"));
+
+    private CpmProcessor processor;
+    private CpmGraph graph;
+
+    @BeforeEach
+    public void setup() {
+        processor = new CpmProcessorFactory().createCpmProcessor(Set.of(
+                task("a1", "B1_A_L1_Wall", 4, 2),
+                task("a2", "B1_A_L2_Wall", 3, 3, "a1"),
+                task("b1", "B1_B_L1_Floor", 2, 5),
+                task("c1", "B2_A_L1_Slab", 6, 1),
+                task("x", null, 1, 4, "b1")));
+        graph = processor.buildCpmGraph();
+    }
+
+    @Test
+    @DisplayName("Should roll up the whole project and its buildings")
+    public void rollUpProjectTest() {
+        RollUpGroup project = processor.createRollUp(graph, HIERARCHY, "", 1);
+
+        assertGroup(project, "project", "", 0, 7, 0, 5, 2, 16, 37, 13);
+        assertEquals(Arrays.stream(processor.createWorkersOnSiteHistogram(graph)).max().orElseThrow(),
+                project.getPeakWorkers());
+        assertEquals(List.of("B1", "B2"), names(project.getChildren()));
+        assertGroup(project.getChildren().get(0), "building", "B1", 0, 7, 0, 3, 2, 9, 27, 8);
+        assertGroup(project.getChildren().get(1), "building", "B2", 0, 7, 1, 1, 0, 6, 6, 1);
+        assertTrue(project.getChildren().get(0).getChildren().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should drill down to a group and include its descendants down to the requested depth")
+    public void drillDownTest() {
+        RollUpGroup zone = processor.createRollUp(graph, HIERARCHY, "B1_A", 2);
+        RollUpGroup project = processor.createRollUp(graph, HIERARCHY, "", 0);
+
+        assertGroup(zone, "zone", "B1_A", 0, 7, 0, 2, 2, 7, 17, 3);
+        assertEquals(List.of("L1", "L2"), names(zone.getChildren()));
+        assertGroup(zone.getChildren().get(1), "level", "B1_A_L2", 4, 7, 0, 1, 1, 3, 9, 3);
+        assertEquals(List.of("Wall"), names(zone.getChildren().get(1).getChildren()));
+        assertTrue(zone.getChildren().get(1).getChildren().get(0).getChildren().isEmpty());
+        assertTrue(project.getChildren().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> processor.createRollUp(graph, HIERARCHY, "B3", 1));
+        assertThrows(IllegalArgumentException.class, () -> processor.createRollUp(graph, HIERARCHY, "B1_C", 1));
+        assertThrows(IllegalArgumentException.class, () -> processor.createRollUp(graph, HIERARCHY, "", -1));
+    }
+
+    @Test
+    @DisplayName("Should roll up a real schedule the same way as aggregating every group separately")
+    public void rollUpRealScheduleTest() {
+        Set<Task> tasks = new TaskParser(new ClassPathResource("input/LEO2-BE.json")).parseInputFile();
+        CpmProcessor realProcessor = new CpmProcessorFactory().createCpmProcessor(tasks);
+        CpmGraph realGraph = realProcessor.buildCpmGraph();
+        List<Node> nodes = realGraph.getNodesByTask().values().stream()
+                .filter(it -> it != realGraph.getStartNode() && it != realGraph.getEndNode())
+                .collect(Collectors.toList());
+
+        RollUpGroup project = realProcessor.createRollUp(realGraph, HIERARCHY, "", HIERARCHY.getLevels().size());
+
+        assertEquals(nodes.size(), project.getTaskCount());
+        assertEquals(Arrays.stream(realProcessor.createWorkersOnSiteHistogram(realGraph)).max().orElseThrow(),
+                project.getPeakWorkers());
+        assertMatchesNodesOfGroup(project.getChildren(), nodes, 1, realGraph.getEndNode().getLatestFinish());
+    }
+
+    private static void assertMatchesNodesOfGroup(List<RollUpGroup> groups, List<Node> nodes, int level,
+                                                  int projectDuration) {
+        for (RollUpGroup group : groups) {
+            List<Node> groupNodes = nodes.stream()
+                    .filter(it -> {
+                        var segments = HIERARCHY.segments(it.getTask().getElementName());
+                        return segments.size() >= level && segments.get(level - 1).getPath().equals(group.getPath());
+                    })
+                    .collect(Collectors.toList());
+            int[] workers = new int[projectDuration + 1];
+            for (Node node : groupNodes) {
+                for (int day = node.getEarliestStart(); day < node.getLatestFinish(); day++) {
+                    workers[day] += node.getTask().getCrew().getAssignment();
+                }
+            }
+            assertEquals(groupNodes.size(), group.getTaskCount(), group.getPath());
+            assertEquals(groupNodes.stream().mapToInt(Node::getEarliestStart).min().orElseThrow(),
+                    group.getEarliestStart(), group.getPath());
+            assertEquals(groupNodes.stream().mapToInt(Node::getLatestFinish).max().orElseThrow(),
+                    group.getLatestFinish(), group.getPath());
+            assertEquals(groupNodes.stream().filter(it -> it.getSlack() == 0).count(), group.getCriticalTaskCount(),
+                    group.getPath());
+            assertEquals(Arrays.stream(workers).max().orElseThrow(), group.getPeakWorkers(), group.getPath());
+            assertMatchesNodesOfGroup(group.getChildren(), groupNodes, level + 1, projectDuration);
+        }
+    }
+
+    private static void assertGroup(RollUpGroup group, String level, String path, int earliestStart, int latestFinish,
+                                    int minimumSlack, int taskCount, int criticalTaskCount, long workDays,
+                                    long workerDays, int peakWorkers) {
+        assertEquals(level, group.getLevel(), path);
+        assertEquals(path, group.getPath());
+        assertEquals(earliestStart, group.getEarliestStart(), path);
+        assertEquals(latestFinish, group.getLatestFinish(), path);
+        assertEquals(latestFinish - earliestStart, group.getDuration(), path);
+        assertEquals(minimumSlack, group.getMinimumSlack(), path);
+        assertEquals(taskCount, group.getTaskCount(), path);
+        assertEquals(criticalTaskCount, group.getCriticalTaskCount(), path);
+        assertEquals(workDays, group.getWorkDays(), path);
+        assertEquals(workerDays, group.getWorkerDays(), path);
+        assertEquals(peakWorkers, group.getPeakWorkers(), path);
+    }
+
+    private static List<String> names(List<RollUpGroup> groups) {
+        return groups.stream().map(RollUpGroup::getName).collect(Collectors.toList());
+    }
+
+    private static Task task(String code, String elementName, int duration, int workers, String... dependencies) {
+        return Task.builder()
+                .taskCode(code)
+                .elementName(elementName)
+                .duration(duration)
+                .crew(Crew.builder().assignment(workers).build())
+                .dependencies(List.of(dependencies))
+                .build();
+    }
+}
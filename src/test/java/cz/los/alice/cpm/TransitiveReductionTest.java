@@ -0,0 +1,207 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.Relation;
+import cz.los.alice.model.Task;
+import cz.los.alice.service.TaskParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
+import static cz.los.alice.TestUtils.createTasksSetForComplexScenario;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransitiveReductionTest {
+
+    @Test
+    @DisplayName("Should find dependencies implied by a chain of finish-to-start dependencies")
+    public void findRedundantDependenciesTest() {
+        Set<Task> tasks = Set.of(
+                task("a"),
+                task("b", "a"),
+                task("c", "a", "b"),
+                task("d", "a", "c", "unknown"),
+                task("e", "b"));
+
+        assertEquals(Map.of("c", Set.of("a"), "d", Set.of("a")), TransitiveReduction.findRedundantDependencies(tasks));
+    }
+
+    @Test
+    @DisplayName("Should keep dependencies with relations and ignore chains through them")
+    public void relationsTest() {
+        Relation lag = Relation.builder().lag(5).build();
+        Set<Task> tasks = Set.of(
+                task("a"),
+                Task.builder().taskCode("b").duration(1).dependency("a").relation("a", lag).build(),
+                task("c", "a", "b"),
+                Task.builder().taskCode("d").duration(1).dependency("a").dependency("c").relation("a", lag).build());
+
+        assertEquals(Map.of(), TransitiveReduction.findRedundantDependencies(tasks));
+    }
+
+    @Test
+    @DisplayName("Should leave a cycle to the CPM calculation")
+    public void cycleTest() {
+        Set<Task> tasks = Set.of(task("a", "c"), task("b", "a"), task("c", "a", "b"));
+
+        assertEquals(Map.of(), TransitiveReduction.findRedundantDependencies(tasks));
+    }
+
+    @Test
+    @DisplayName("Should find the same dependencies as a search of every path, in one or in many windows")
+    public void sameAsPathSearchTest() {
+        Set<Task> tasks = withShortcuts(createLayeredTasksSet(40, 30, 11), 17);
+        Map<String, Set<String>> expected = findByPathSearch(tasks);
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, TransitiveReduction.findRedundantDependencies(tasks));
+        assertEquals(expected, TransitiveReduction.findRedundantDependencies(tasks, 1));
+        assertEquals(expected, TransitiveReduction.findRedundantDependencies(tasks, 3000));
+    }
+
+    @Test
+    @DisplayName("Should calculate the same CPM metrics and histogram without the redundant dependencies")
+    public void sameCpmResultTest() {
+        assertTrue(assertSameCpmResult(withShortcuts(createLayeredTasksSet(40, 30, 5), 23)) > 0);
+        assertEquals(1, assertSameCpmResult(createTasksSetForComplexScenario()));
+        assertEquals(39, assertSameCpmResult(
+                new TaskParser(new ClassPathResource("input/LEO2-BE.json")).parseAndValidate().getTasks()));
+        assertEquals(0, assertSameCpmResult(
+                new TaskParser(new ClassPathResource("input/Relations.json")).parseAndValidate().getTasks()));
+    }
+
+    @Test
+    @DisplayName("Should follow the chain rather than the dependency it implies on the critical path")
+    public void sameCriticalPathTest() {
+        Set<Task> tasks = Set.of(task("A"), task("Z", "A"), task("C", "A", "Z"));
+        CpmProcessor processor = new CpmProcessorFactory().createCpmProcessor(tasks);
+        CpmProcessorFactory reducingFactory = new CpmProcessorFactory();
+        reducingFactory.setTransitiveReduction(true);
+        CpmProcessor reducedProcessor = reducingFactory.createCpmProcessor(tasks);
+
+        assertEquals(List.of("A", "Z", "C"), processor.buildCriticalPath(processor.buildCpmGraph()));
+        assertEquals(List.of("A", "Z", "C"), reducedProcessor.buildCriticalPath(reducedProcessor.buildCpmGraph()));
+        assertEquals(1, assertSameCpmResult(tasks));
+    }
+
+    @Test
+    @DisplayName("Should follow the chain rather than the dependency it implies when the chain takes no days")
+    public void sameCriticalPathOfMilestonesTest() {
+        Set<Task> tasks = Set.of(task("A"), task("Z", "A").toBuilder().duration(0).build(),
+                task("C", "A", "Z").toBuilder().duration(0).build());
+        CpmProcessor processor = new CpmProcessorFactory().createCpmProcessor(tasks);
+
+        assertEquals(List.of("A", "Z", "C"), processor.buildCriticalPath(processor.buildCpmGraph()));
+        assertEquals(1, assertSameCpmResult(tasks));
+    }
+
+    /**
+     * @return number of removed dependencies
+     */
+    private static int assertSameCpmResult(Set<Task> tasks) {
+        CpmProcessor processor = new CpmProcessorFactory().createCpmProcessor(tasks);
+        CpmGraph expected = processor.buildCpmGraph();
+        CpmProcessorFactory reducingFactory = new CpmProcessorFactory();
+        reducingFactory.setTransitiveReduction(true);
+        CpmProcessor reducedProcessor = reducingFactory.createCpmProcessor(tasks);
+        CpmGraph reduced = reducedProcessor.buildCpmGraph();
+
+        assertEquals(0, processor.getRemovedDependencyCount());
+        assertEquals(expected.getEndNode().getLatestFinish(), reduced.getEndNode().getLatestFinish());
+        Map<Task, Node> reducedNodes = reduced.getNodesByTask();
+        for (Node node : expected.getNodesByTask().values()) {
+            Node reducedNode = reducedNodes.get(node.getTask());
+            assertEquals(node.getEarliestStart(), reducedNode.getEarliestStart());
+            assertEquals(node.getEarliestFinish(), reducedNode.getEarliestFinish());
+            assertEquals(node.getLatestStart(), reducedNode.getLatestStart());
+            assertEquals(node.getLatestFinish(), reducedNode.getLatestFinish());
+            assertEquals(node.getSlack(), reducedNode.getSlack());
+        }
+        assertArrayEquals(processor.createWorkersOnSiteHistogram(expected),
+                reducedProcessor.createWorkersOnSiteHistogram(reduced));
+        assertEquals(processor.createEnrichedTasks(expected), reducedProcessor.createEnrichedTasks(reduced));
+        assertEquals(processor.buildCriticalPath(expected), reducedProcessor.buildCriticalPath(reduced));
+        return reducedProcessor.getRemovedDependencyCount();
+    }
+
+    /**
+     * Adds a dependency on a random task two layers back to every other task, some of them are implied by
+     * the existing dependencies and some are not.
+     */
+    private static Set<Task> withShortcuts(Set<Task> layered, long seed) {
+        Random random = new Random(seed);
+        int width = (int) layered.stream().filter(it -> it.getDependencies().isEmpty()).count();
+        Set<Task> tasks = new HashSet<>();
+        for (Task task : layered) {
+            String[] code = task.getTaskCode().substring(1).split("P");
+            int layer = Integer.parseInt(code[0]);
+            if (layer < 2 || random.nextBoolean()) {
+                tasks.add(task);
+                continue;
+            }
+            tasks.add(task.toBuilder().dependency("L" + (layer - 2) + "P" + random.nextInt(width)).build());
+        }
+        return tasks;
+    }
+
+    private static Map<String, Set<String>> findByPathSearch(Set<Task> tasks) {
+        Map<String, List<String>> successors = new HashMap<>();
+        for (Task task : tasks) {
+            for (String dependency : task.getDependencies()) {
+                successors.computeIfAbsent(dependency, it -> new ArrayList<>()).add(task.getTaskCode());
+            }
+        }
+        Map<String, Set<String>> redundant = new HashMap<>();
+        for (Task task : tasks) {
+            for (String dependency : task.getDependencies()) {
+                if (reachesOtherwise(successors, dependency, task.getTaskCode())) {
+                    redundant.computeIfAbsent(task.getTaskCode(), it -> new HashSet<>()).add(dependency);
+                }
+            }
+        }
+        return redundant;
+    }
+
+    private static boolean reachesOtherwise(Map<String, List<String>> successors, String from, String to) {
+        Deque<String> open = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        for (String successor : successors.getOrDefault(from, List.of())) {
+            if (!successor.equals(to)) {
+                open.push(successor);
+            }
+        }
+        while (!open.isEmpty()) {
+            String current = open.pop();
+            if (current.equals(to)) {
+                return true;
+            }
+            if (visited.add(current)) {
+                successors.getOrDefault(current, List.of()).forEach(open::push);
+            }
+        }
+        return false;
+    }
+
+    private static Task task(String code, String... dependencies) {
+        return Task.builder()
+                .taskCode(code)
+                .duration(1)
+                .crew(Crew.builder().assignment(1).build())
+                .dependencies(List.of(dependencies))
+                .build();
+    }
+}
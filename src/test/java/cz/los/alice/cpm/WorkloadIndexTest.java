@@ -0,0 +1,94 @@
+package cz.los.alice.cpm;
+
+import cz.los.alice.model.WorkloadPeriod;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WorkloadIndexTest {
+
+    @Test
+    @DisplayName("Should find the earliest most busy day and the sum of workers of every window")
+    public void queryTest() {
+        int[] histogram = new Random(7).ints(77, 0, 6).toArray();
+        WorkloadIndex index = WorkloadIndex.of(histogram);
+
+        assertEquals(77, index.days());
+        for (int from = 0; from < histogram.length; from++) {
+            for (int to = from; to < histogram.length; to++) {
+                assertEquals(scan(histogram, from, to), index.query(from, to));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should find the same most busy day as the workers on site statistics")
+    public void sameAsStatisticsTest() {
+        CpmProcessor processor = new CpmProcessorFactory().createCpmProcessor(createLayeredTasksSet(30, 20, 3));
+        CpmGraph graph = processor.buildCpmGraph();
+        int[] histogram = processor.createWorkersOnSiteHistogram(graph);
+        int mostBusyDay = processor.createWorkersOnSiteStatistics(graph).entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElseThrow()
+                .getKey();
+
+        WorkloadPeriod project = WorkloadIndex.of(histogram).query(0, histogram.length - 1);
+
+        assertEquals(mostBusyDay, project.getPeakDay());
+        assertEquals(histogram[mostBusyDay], project.getPeakWorkers());
+    }
+
+    @Test
+    @DisplayName("Should rank the busiest periods the same as sorting all periods")
+    public void findBusiestPeriodsTest() {
+        int[] histogram = new Random(11).ints(500, 0, 40).toArray();
+        WorkloadIndex index = WorkloadIndex.of(histogram);
+        Comparator<WorkloadPeriod> busiestFirst = Comparator.comparingInt(WorkloadPeriod::getPeakWorkers).reversed()
+                .thenComparing(Comparator.comparingLong(WorkloadPeriod::getWorkerDays).reversed())
+                .thenComparingInt(WorkloadPeriod::getFrom);
+
+        for (int length : new int[] {1, 7, 30, 499, 500, 1000}) {
+            List<WorkloadPeriod> all = new ArrayList<>();
+            for (int from = 0; from < histogram.length; from += length) {
+                all.add(scan(histogram, from, Math.min(histogram.length - 1, from + length - 1)));
+            }
+            all.sort(busiestFirst);
+            for (int count : new int[] {1, 5, 100, Integer.MAX_VALUE}) {
+                assertEquals(all.subList(0, Math.min(count, all.size())), index.findBusiestPeriods(count, length));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse windows outside of the project and empty histograms")
+    public void invalidQueryTest() {
+        WorkloadIndex index = WorkloadIndex.of(new int[] {1, 2, 3});
+        assertThrows(IllegalArgumentException.class, () -> index.query(-1, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.query(2, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.query(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> index.findBusiestPeriods(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.findBusiestPeriods(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> WorkloadIndex.of(new int[0]));
+    }
+
+    private static WorkloadPeriod scan(int[] histogram, int from, int to) {
+        int peakDay = from;
+        long workerDays = 0;
+        for (int day = from; day <= to; day++) {
+            if (histogram[day] > histogram[peakDay]) {
+                peakDay = day;
+            }
+            workerDays += histogram[day];
+        }
+        return new WorkloadPeriod(from, to, peakDay, histogram[peakDay], workerDays);
+    }
+}
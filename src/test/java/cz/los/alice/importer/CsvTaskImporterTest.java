@@ -0,0 +1,78 @@
+package cz.los.alice.importer;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static cz.los.alice.service.TaskParserTest.SIMPLE_TEST_CSV;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CsvTaskImporterTest {
+
+    private final CsvTaskImporter importer = new CsvTaskImporter();
+
+    @Test
+    @DisplayName("Should import tasks of a CSV file row by row with columns found by their names")
+    public void importTasksTest() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+
+        int count = importer.importTasks(new ClassPathResource(SIMPLE_TEST_CSV).getInputStream(), tasks::add);
+
+        assertEquals(4, count);
+        assertEquals(4, tasks.size());
+        Task intermediate = tasks.get(2);
+        assertEquals("intermediate", intermediate.getTaskCode());
+        assertEquals("operation, quoted", intermediate.getOperationName());
+        assertEquals("elementName", intermediate.getElementName());
+        assertEquals(16, (int) intermediate.getDuration());
+        assertEquals(Crew.builder().name("name").assignment(1).build(), intermediate.getCrew());
+        assertEquals(List.of("secondRoot", "firstRoot"), intermediate.getDependencies());
+        assertTrue(tasks.get(0).getDependencies().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should read semicolons, quotes, line breaks in quotes, BOM and empty fields as missing values")
+    public void importDialectTest() {
+        List<Task> tasks = importCsv("\uFEFFCode;Minimum Duration;crash_cost_per_day;Crew Name;Other\r\n"
+                + "\"a;\"\"1\"\"\";2;150.5;;ignored\r\n"
+                + ";;;;\r\n"
+                + "\"multi\nline\";;;masons;\r\n");
+
+        assertEquals(2, tasks.size());
+        assertEquals("a;\"1\"", tasks.get(0).getTaskCode());
+        assertEquals(2, (int) tasks.get(0).getMinimumDuration());
+        assertEquals(150.5, tasks.get(0).getCrashCostPerDay());
+        assertNull(tasks.get(0).getDuration());
+        assertNull(tasks.get(0).getCrew());
+        assertEquals("multi\nline", tasks.get(1).getTaskCode());
+        assertEquals("masons", tasks.get(1).getCrew().getName());
+        assertNull(tasks.get(1).getCrew().getAssignment());
+    }
+
+    @Test
+    @DisplayName("Should reject CSV without header, task code column or with malformed values")
+    public void rejectMalformedTest() {
+        assertThrows(IllegalArgumentException.class, () -> importCsv(""));
+        assertThrows(IllegalArgumentException.class, () -> importCsv("name,duration\nfirst,1\n"));
+        assertThrows(IllegalArgumentException.class, () -> importCsv("taskCode,duration\nfirst,1.5\n"));
+        assertThrows(IllegalArgumentException.class, () -> importCsv("taskCode,duration\n,1\n"));
+        assertThrows(IllegalArgumentException.class, () -> importCsv("taskCode,duration\n\"first,1\n"));
+    }
+
+    private List<Task> importCsv(String csv) {
+        List<Task> tasks = new ArrayList<>();
+        importer.importTasks(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), tasks::add);
+        return tasks;
+    }
+}
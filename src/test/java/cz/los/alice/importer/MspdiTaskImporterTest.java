@@ -0,0 +1,94 @@
+package cz.los.alice.importer;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.Relation;
+import cz.los.alice.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static cz.los.alice.service.TaskParserTest.RELATIONS_MSPDI;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MspdiTaskImporterTest {
+
+    private final MspdiTaskImporter importer = new MspdiTaskImporter();
+
+    @Test
+    @DisplayName("Should import tasks, predecessor links and work assignments of an MSPDI file")
+    public void importTasksTest() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+
+        int count = importer.importTasks(new ClassPathResource(RELATIONS_MSPDI).getInputStream(), tasks::add);
+
+        assertEquals(3, count);
+        Task formwork = tasks.get(0);
+        Task pour = tasks.get(1);
+        Task strip = tasks.get(2);
+        assertEquals("1", formwork.getTaskCode());
+        assertEquals("formwork", formwork.getOperationName());
+        assertEquals("B1_A_1", formwork.getElementName());
+        assertEquals(4, (int) formwork.getDuration());
+        assertEquals(Crew.builder().name("carpenters").assignment(3).build(), formwork.getCrew());
+        assertTrue(formwork.getDependencies().isEmpty());
+        assertEquals(3, (int) pour.getDuration());
+        assertEquals(Crew.builder().name("concrete").assignment(4).build(), pour.getCrew());
+        assertEquals(List.of("1"), pour.getDependencies());
+        assertEquals(Map.of("1", Relation.builder().type(Relation.Type.SS).lag(2).build()), pour.getRelations());
+        assertEquals(1, (int) strip.getDuration());
+        assertEquals(Map.of("2", Relation.builder().type(Relation.Type.FS).lag(7).build()), strip.getRelations());
+    }
+
+    @Test
+    @DisplayName("Should skip summary tasks and keep finish-to-start links without lag as plain dependencies")
+    public void importPlainTest() {
+        List<Task> tasks = importXml("<Project><MinutesPerDay>600</MinutesPerDay><Tasks>"
+                + "<Task><UID>1</UID><Summary>1</Summary></Task>"
+                + "<Task><UID>2</UID><Duration>PT10H0M0S</Duration></Task>"
+                + "<Task><UID>3</UID><Duration>PT10H1M0S</Duration>"
+                + "<PredecessorLink><PredecessorUID>2</PredecessorUID></PredecessorLink>"
+                + "<PredecessorLink><PredecessorUID>2</PredecessorUID><Type>3</Type></PredecessorLink>"
+                + "<PredecessorLink><PredecessorUID>1</PredecessorUID><Type>1</Type><LinkLag>0</LinkLag>"
+                + "</PredecessorLink></Task>"
+                + "<Task><UID>4</UID><IsNull>1</IsNull></Task>"
+                + "</Tasks></Project>");
+
+        assertEquals(2, tasks.size());
+        assertEquals(1, (int) tasks.get(0).getDuration());
+        assertNull(tasks.get(0).getCrew());
+        assertEquals(2, (int) tasks.get(1).getDuration());
+        assertEquals(List.of("2", "1"), tasks.get(1).getDependencies());
+        assertTrue(tasks.get(1).getRelations().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed XML, other documents, external entities and unknown link types")
+    public void rejectMalformedTest() {
+        assertThrows(IllegalArgumentException.class, () -> importXml("<Project><Tasks>"));
+        assertThrows(IllegalArgumentException.class, () -> importXml("<Schedule/>"));
+        assertThrows(IllegalArgumentException.class, () -> importXml("<!DOCTYPE Project [<!ENTITY x SYSTEM "
+                + "\"file:///etc/hostname\">]><Project><Tasks><Task><UID>1</UID><Name>&x;</Name></Task></Tasks>"
+                + "</Project>"));
+        assertThrows(IllegalArgumentException.class, () -> importXml("<Project><Tasks><Task><UID>1</UID>"
+                + "<Duration>5 days</Duration></Task></Tasks></Project>"));
+        assertThrows(IllegalArgumentException.class, () -> importXml("<Project><Tasks><Task><UID>2</UID>"
+                + "<PredecessorLink><PredecessorUID>1</PredecessorUID><Type>4</Type></PredecessorLink>"
+                + "</Task></Tasks></Project>"));
+    }
+
+    private List<Task> importXml(String xml) {
+        List<Task> tasks = new ArrayList<>();
+        importer.importTasks(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), tasks::add);
+        return tasks;
+    }
+}
@@ -0,0 +1,26 @@
+package cz.los.alice.importer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskImportersTest {
+
+    private final TaskImporters importers = TaskImporters.defaults();
+
+    @Test
+    @DisplayName("Should select an importer by content type regardless of parameters and by file extension")
+    public void selectImporterTest() {
+        assertTrue(importers.forMediaType(MediaType.valueOf("text/csv;charset=UTF-8")).orElseThrow()
+                instanceof CsvTaskImporter);
+        assertTrue(importers.forMediaType(MediaType.TEXT_XML).orElseThrow() instanceof MspdiTaskImporter);
+        assertTrue(importers.forMediaType(MediaType.APPLICATION_JSON).isEmpty());
+        assertTrue(importers.forFileName("Schedule.CSV").orElseThrow() instanceof CsvTaskImporter);
+        assertTrue(importers.forFileName("project.xml").orElseThrow() instanceof MspdiTaskImporter);
+        assertTrue(importers.forFileName("schedule.json").isEmpty());
+        assertEquals(3, importers.getMediaTypes().size());
+    }
+}
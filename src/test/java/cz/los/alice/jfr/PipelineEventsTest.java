@@ -0,0 +1,100 @@
+package cz.los.alice.jfr;
+
+import cz.los.alice.service.TaskParser;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.TestUtils.createAliceService;
+import static cz.los.alice.service.TaskParserTest.INPUT_SIMPLE_TEST_JSON;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelineEventsTest {
+
+    private static final String PARSED = "cz.los.alice.ScheduleParsed";
+    private static final String PROCESSOR = "cz.los.alice.ProcessorCreated";
+    private static final String GRAPH_PASS = "cz.los.alice.GraphPass";
+    private static final String AGGREGATION = "cz.los.alice.Aggregation";
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    @DisplayName("Should record an event with schedule metrics for every phase of processing")
+    public void recordPipelineEventsTest() throws IOException {
+        List<RecordedEvent> events = recordProcessing();
+
+        RecordedEvent parsed = single(events, PARSED);
+        assertTrue(parsed.getString("source").contains("SimpleTest.json"));
+        assertEquals(4, parsed.getInt("taskCount"));
+        assertEquals(4, parsed.getInt("validTaskCount"));
+        assertEquals(3, parsed.getInt("edgeCount"));
+        assertEquals(0, parsed.getInt("issueCount"));
+
+        RecordedEvent processor = single(events, PROCESSOR);
+        assertEquals(6, processor.getInt("taskCount"));
+        assertEquals(6, processor.getInt("edgeCount"));
+        assertEquals(2, processor.getInt("rootTaskCount"));
+        assertEquals(1, processor.getInt("terminalTaskCount"));
+
+        Map<String, RecordedEvent> passes = byField(events, GRAPH_PASS, "direction");
+        assertEquals(2, passes.size());
+        for (var pass : passes.values()) {
+            assertEquals(6, pass.getInt("nodeCount"));
+            assertEquals(6, pass.getInt("edgeCount"));
+            assertEquals(48, pass.getInt("projectDuration"));
+        }
+
+        Map<String, RecordedEvent> aggregations = byField(events, AGGREGATION, "aggregation");
+        assertEquals(3, aggregations.get(AggregationEvent.CRITICAL_PATH).getInt("resultSize"));
+        assertEquals(49, aggregations.get(AggregationEvent.WORKERS_ON_SITE).getInt("resultSize"));
+        assertEquals(4, aggregations.get(AggregationEvent.ENRICHED_TASKS).getInt("resultSize"));
+        aggregations.values().forEach(it -> assertEquals(48, it.getInt("projectDuration")));
+
+        events.forEach(it -> assertFalse(it.getDuration().isNegative()));
+    }
+
+    private List<RecordedEvent> recordProcessing() throws IOException {
+        Path dump = workDir.resolve("pipeline.jfr");
+        try (Recording recording = new Recording()) {
+            for (var name : List.of(PARSED, PROCESSOR, GRAPH_PASS, AGGREGATION)) {
+                recording.enable(name);
+            }
+            recording.start();
+            TaskParser parser = new TaskParser(new ClassPathResource(INPUT_SIMPLE_TEST_JSON));
+            createAliceService(parser).process();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump).stream()
+                .filter(it -> it.getEventType().getName().startsWith("cz.los.alice."))
+                .collect(Collectors.toList());
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(it -> name.equals(it.getEventType().getName()))
+                .collect(Collectors.toList());
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+
+    private static Map<String, RecordedEvent> byField(List<RecordedEvent> events, String name, String field) {
+        return events.stream()
+                .filter(it -> name.equals(it.getEventType().getName()))
+                .collect(Collectors.toMap(it -> it.getString(field), Function.identity()));
+    }
+}
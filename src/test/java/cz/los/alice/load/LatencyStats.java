@@ -0,0 +1,55 @@
+package cz.los.alice.load;
+
+import lombok.Value;
+
+import java.util.Arrays;
+
+/**
+ * Latency percentiles and throughput of one measured load test scenario. Percentiles use the nearest-rank method
+ * over all recorded requests, nothing is sampled.
+ */
+@Value
+public class LatencyStats {
+
+    int requests;
+    int errors;
+    double p50Millis;
+    double p95Millis;
+    double p99Millis;
+    double maxMillis;
+    double meanMillis;
+    double throughputPerSecond;
+
+    /**
+     * @param latenciesNanos latency of every request in nanoseconds
+     * @param errors number of requests that failed or did not answer with 2xx
+     * @param wallClockNanos time it took to execute all requests
+     */
+    public static LatencyStats of(long[] latenciesNanos, int errors, long wallClockNanos) {
+        long[] sorted = latenciesNanos.clone();
+        Arrays.sort(sorted);
+        double mean = sorted.length == 0 ? 0 : Arrays.stream(sorted).average().orElse(0);
+        double throughput = wallClockNanos == 0 ? 0 : sorted.length / (wallClockNanos / 1e9);
+        return new LatencyStats(
+                sorted.length,
+                errors,
+                millis(percentile(sorted, 50)),
+                millis(percentile(sorted, 95)),
+                millis(percentile(sorted, 99)),
+                millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]),
+                millis(mean),
+                throughput);
+    }
+
+    static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,40 @@
+package cz.los.alice.load;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LatencyStatsTest {
+
+    @Test
+    @DisplayName("Should calculate nearest-rank percentiles and throughput")
+    public void percentilesTest() {
+        long[] latencies = LongStream.rangeClosed(1, 100)
+                .map(millis -> millis * 1_000_000)
+                .toArray();
+
+        LatencyStats stats = LatencyStats.of(latencies, 2, 2_000_000_000L);
+
+        assertEquals(100, stats.getRequests());
+        assertEquals(2, stats.getErrors());
+        assertEquals(50.0, stats.getP50Millis());
+        assertEquals(95.0, stats.getP95Millis());
+        assertEquals(99.0, stats.getP99Millis());
+        assertEquals(100.0, stats.getMaxMillis());
+        assertEquals(50.5, stats.getMeanMillis());
+        assertEquals(50.0, stats.getThroughputPerSecond());
+    }
+
+    @Test
+    @DisplayName("Should not fail on no recorded requests")
+    public void emptyTest() {
+        LatencyStats stats = LatencyStats.of(new long[0], 0, 0);
+
+        assertEquals(0, stats.getRequests());
+        assertEquals(0.0, stats.getP99Millis());
+        assertEquals(0.0, stats.getThroughputPerSecond());
+    }
+}
@@ -0,0 +1,122 @@
+package cz.los.alice.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Drives HTTP requests against the server under test and records latency of every single request.<br>
+ * {@link #closedLoop(HttpRequest, int, int)} keeps a fixed number of requests in flight until the requested amount is
+ * sent, which is the steady state of a known number of clients.<br>
+ * {@link #burst(HttpRequest, int, int)} releases all requests of a wave at the same moment, which is what happens when
+ * many clients react to the same event.<br>
+ * Both of them can also send a different request per client, e.g. to keep concurrent requests of the same content from
+ * being coalesced by the server.
+ */
+public class LoadGenerator {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    public LatencyStats closedLoop(HttpRequest request, int concurrency, int requests) throws Exception {
+        return closedLoop(client -> request, concurrency, requests);
+    }
+
+    /**
+     * @param requestOfClient the request sent by the client with the given index, from 0 to concurrency - 1
+     */
+    public LatencyStats closedLoop(IntFunction<HttpRequest> requestOfClient, int concurrency, int requests)
+            throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            long startedAt = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>(concurrency);
+            for (int worker = 0; worker < concurrency; worker++) {
+                HttpRequest request = requestOfClient.apply(worker);
+                futures.add(workers.submit(() -> {
+                    for (int index = next.getAndIncrement(); index < requests; index = next.getAndIncrement()) {
+                        latencies[index] = send(request, errors);
+                    }
+                }));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+            return LatencyStats.of(latencies, errors.get(), System.nanoTime() - startedAt);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    public LatencyStats burst(HttpRequest request, int burstSize, int waves) throws Exception {
+        return burst(client -> request, burstSize, waves);
+    }
+
+    /**
+     * @param requestOfClient the request sent by the client with the given index, from 0 to burstSize - 1
+     */
+    public LatencyStats burst(IntFunction<HttpRequest> requestOfClient, int burstSize, int waves) throws Exception {
+        long[] latencies = new long[burstSize * waves];
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(burstSize);
+        long measuredNanos = 0;
+        try {
+            for (int wave = 0; wave < waves; wave++) {
+                CountDownLatch released = new CountDownLatch(1);
+                int offset = wave * burstSize;
+                List<Future<?>> futures = new ArrayList<>(burstSize);
+                for (int worker = 0; worker < burstSize; worker++) {
+                    int index = offset + worker;
+                    HttpRequest request = requestOfClient.apply(worker);
+                    futures.add(workers.submit(() -> {
+                        released.await();
+                        latencies[index] = send(request, errors);
+                        return null;
+                    }));
+                }
+                long startedAt = System.nanoTime();
+                released.countDown();
+                for (var future : futures) {
+                    future.get();
+                }
+                measuredNanos += System.nanoTime() - startedAt;
+            }
+            return LatencyStats.of(latencies, errors.get(), measuredNanos);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    public LatencyStats single(HttpRequest request) {
+        AtomicInteger errors = new AtomicInteger();
+        long startedAt = System.nanoTime();
+        long latency = send(request, errors);
+        return LatencyStats.of(new long[]{latency}, errors.get(), System.nanoTime() - startedAt);
+    }
+
+    private long send(HttpRequest request, AtomicInteger errors) {
+        long startedAt = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                errors.incrementAndGet();
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+        }
+        return System.nanoTime() - startedAt;
+    }
+}
@@ -0,0 +1,84 @@
+package cz.los.alice.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collects measured scenarios of a single load test run and writes them to the report directory:<br>
+ * {@code load-test-<timestamp>.json} - all rows of this run<br>
+ * {@code history.csv} - one line per scenario appended on every run, with a fixed set of columns, so results of
+ * different runs and versions can be compared side by side<br>
+ * Every row counts the requests of the scenario the server actually computed and the requests that got the result of
+ * a computation started by another request, the latency percentiles cover both of them.
+ */
+public class LoadTestReport {
+
+    static final String CSV_HEADER = "runStartedAt,scenario,endpoint,scheduleSize,concurrency,requests,errors,"
+            + "p50Ms,p95Ms,p99Ms,maxMs,meanMs,throughputRps,computations,coalescedRequests";
+
+    private final Instant runStartedAt = Instant.now();
+    private final List<Row> rows = new ArrayList<>();
+
+    public synchronized void add(String scenario, String endpoint, int scheduleSize, int concurrency,
+                                 LatencyStats stats, long computations, long coalescedRequests) {
+        rows.add(new Row(runStartedAt.toString(), scenario, endpoint, scheduleSize, concurrency, stats,
+                computations, coalescedRequests));
+    }
+
+    public synchronized List<Row> getRows() {
+        return List.copyOf(rows);
+    }
+
+    /**
+     * @param directory the report directory, created if it does not exist
+     * @return the JSON report of this run
+     */
+    public synchronized Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path json = directory.resolve("load-test-" + runStartedAt.toEpochMilli() + ".json");
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(json.toFile(), rows);
+        Path history = directory.resolve("history.csv");
+        if (Files.notExists(history)) {
+            Files.writeString(history, CSV_HEADER + System.lineSeparator(), StandardCharsets.UTF_8);
+        }
+        StringBuilder lines = new StringBuilder();
+        for (var row : rows) {
+            lines.append(row.toCsv()).append(System.lineSeparator());
+        }
+        Files.writeString(history, lines, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        return json;
+    }
+
+    @Value
+    public static class Row {
+        String runStartedAt;
+        String scenario;
+        String endpoint;
+        int scheduleSize;
+        int concurrency;
+        LatencyStats stats;
+        long computations;
+        long coalescedRequests;
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.2f,%d,%d",
+                    runStartedAt, scenario, endpoint, scheduleSize, concurrency, stats.getRequests(),
+                    stats.getErrors(), stats.getP50Millis(), stats.getP95Millis(), stats.getP99Millis(),
+                    stats.getMaxMillis(), stats.getMeanMillis(), stats.getThroughputPerSecond(),
+                    computations, coalescedRequests);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package cz.los.alice.load;
+
+import cz.los.alice.cpm.OffHeapCpmGraph;
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Builds and calculates an {@link OffHeapCpmGraph} of a program-level schedule and checks that the heap stays small
+ * while the graph lives outside of it. Excluded from the regular build like the other load tests, configured by
+ * system properties:<br>
+ * {@code alice.load.offHeapTasks} - number of tasks, default 10 000 000<br>
+ * {@code alice.load.offHeapMaxHeapMegabytes} - heap used after a GC with the graph alive, default 64
+ */
+@Tag("load")
+public class OffHeapScaleTest {
+
+    private static final int WIDTH = 1_000;
+
+    private final int tasks = Integer.getInteger("alice.load.offHeapTasks", 10_000_000);
+    private final long maxHeapBytes = Long.getLong("alice.load.offHeapMaxHeapMegabytes", 64) << 20;
+
+    @Test
+    @DisplayName("Should calculate a multi-million-task graph with a small heap")
+    public void offHeapScaleTest() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long startedAt = System.nanoTime();
+        try (OffHeapCpmGraph.Builder builder = OffHeapCpmGraph.builder(tasks)) {
+            addLayeredTasks(builder);
+            long builtAt = System.nanoTime();
+            try (OffHeapCpmGraph graph = builder.build()) {
+                long linkedAt = System.nanoTime();
+                graph.calculateCpmMetricsInForwardDirection();
+                graph.calculateCpmMetricsInBackwardDirection();
+                int[] histogram = graph.createWorkersOnSiteHistogram();
+                long[] criticalTasks = new long[1];
+                graph.visitCriticalPath(task -> criticalTasks[0]++);
+                long calculatedAt = System.nanoTime();
+                System.gc();
+                long heapUsed = memory.getHeapMemoryUsage().getUsed();
+
+                System.out.printf("Off-heap graph of %d tasks and %d edges: adding %d ms, linking %d ms, "
+                                + "passes and aggregations %d ms, %d MB off heap, %d MB heap, duration %d days, "
+                                + "%d critical tasks%n",
+                        graph.size(), graph.edgeCount(), millis(startedAt, builtAt), millis(builtAt, linkedAt),
+                        millis(linkedAt, calculatedAt), graph.offHeapBytes() >> 20, heapUsed >> 20,
+                        graph.getProjectDuration(), criticalTasks[0]);
+                assertEquals(tasks, graph.size());
+                assertEquals(graph.getProjectDuration() + 1, histogram.length);
+                assertTrue(heapUsed < maxHeapBytes, "Heap used with the graph alive: " + (heapUsed >> 20) + " MB");
+            }
+        }
+    }
+
+    /**
+     * Every task depends on 1 to 3 tasks of the previous layer of {@value #WIDTH} tasks, tasks are created one by one
+     * and dropped right after they are added, like a streaming parser does.
+     */
+    private void addLayeredTasks(OffHeapCpmGraph.Builder builder) {
+        Random random = new Random(tasks);
+        Crew crew = Crew.builder().assignment(2).build();
+        for (int task = 0; task < tasks; task++) {
+            List<String> dependencies = new ArrayList<>(3);
+            if (task >= WIDTH) {
+                int dependencyCount = 1 + random.nextInt(3);
+                for (int i = 0; i < dependencyCount; i++) {
+                    dependencies.add("T" + (task - WIDTH - task % WIDTH + random.nextInt(WIDTH)));
+                }
+            }
+            builder.add(Task.builder()
+                    .taskCode("T" + task)
+                    .duration(1 + random.nextInt(10))
+                    .crew(crew)
+                    .dependencies(dependencies)
+                    .build());
+        }
+    }
+
+    private static long millis(long from, long to) {
+        return (to - from) / 1_000_000;
+    }
+}
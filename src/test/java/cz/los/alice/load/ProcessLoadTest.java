@@ -0,0 +1,191 @@
+package cz.los.alice.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.los.alice.controller.CoalescingStats;
+import cz.los.alice.controller.RequestCoalescer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.TestUtils.createLayeredTasksSet;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the processing endpoints against an embedded server started on a random port. It is tagged "load"
+ * and excluded from the regular build, run it with {@code gradle loadTest}, properties
+ * are passed as {@code -Palice.load.<property>=<value>}.<br>
+ * Scenarios are executed in order: cold start (first requests right after the server started), steady state
+ * (a fixed number of concurrent clients after a warm-up) and burst (waves of simultaneously released requests).
+ * Every scenario covers GET /process of the predefined file and POST /process of synthetic schedules of configured
+ * sizes.<br>
+ * All clients of GET /process ask for the same content, so concurrent requests are coalesced and the percentiles mix
+ * computations with waits for a computation started by another client. Concurrent uploads differ in content, see
+ * {@link #upload(byte[], int)}, so every upload is computed and the percentiles cover computations only. The report
+ * counts computed and coalesced requests of every scenario.<br>
+ * Configuration through system properties:<br>
+ * {@code alice.load.concurrency} - concurrent clients in steady state, default 8<br>
+ * {@code alice.load.requests} - requests per endpoint and schedule size in steady state, default 200<br>
+ * {@code alice.load.warmupRequests} - requests per endpoint before steady state is measured, default 50<br>
+ * {@code alice.load.scheduleSizes} - comma separated sizes of uploaded schedules, default 100,1000,5000<br>
+ * {@code alice.load.burstSize} - requests released at once in the burst scenario, default 64<br>
+ * {@code alice.load.burstWaves} - number of bursts, default 3<br>
+ * {@code alice.load.maxErrorRate} - fraction of failed requests tolerated in a scenario, default 0<br>
+ * {@code alice.load.reportDir} - where the report is written, default build/reports/load-test
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ProcessLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessLoadTest.class);
+    private static final String PREDEFINED = "GET /process";
+    private static final String UPLOAD = "POST /process";
+    private static final int SCHEDULE_WIDTH = 50;
+
+    private final int concurrency = Integer.getInteger("alice.load.concurrency", 8);
+    private final int requests = Integer.getInteger("alice.load.requests", 200);
+    private final int warmupRequests = Integer.getInteger("alice.load.warmupRequests", 50);
+    private final List<Integer> scheduleSizes = Arrays.stream(
+                    System.getProperty("alice.load.scheduleSizes", "100,1000,5000").split(","))
+            .map(String::trim)
+            .map(Integer::valueOf)
+            .collect(Collectors.toList());
+    private final int burstSize = Integer.getInteger("alice.load.burstSize", 64);
+    private final int burstWaves = Integer.getInteger("alice.load.burstWaves", 3);
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("alice.load.maxErrorRate", "0"));
+    private final Path reportDir = Paths.get(System.getProperty("alice.load.reportDir", "build/reports/load-test"));
+
+    private final LoadGenerator generator = new LoadGenerator();
+    private final LoadTestReport report = new LoadTestReport();
+    private final Map<Integer, byte[]> schedules = new LinkedHashMap<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RequestCoalescer coalescer;
+
+    @BeforeAll
+    public void prepareSchedules() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int size : scheduleSizes) {
+            int width = Math.min(SCHEDULE_WIDTH, size);
+            schedules.put(size, objectMapper.writeValueAsBytes(createLayeredTasksSet(size / width, width, size)));
+        }
+    }
+
+    @AfterAll
+    public void writeReport() throws Exception {
+        Path written = report.write(reportDir);
+        log.info("Load test report written to {}", written.toAbsolutePath());
+        report.getRows().forEach(row -> log.info(row.toCsv()));
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Cold start: latency of the very first requests after the server started")
+    public void coldStart() throws Exception {
+        record("cold-start", PREDEFINED, 0, 1, () -> generator.single(predefined()));
+        for (var schedule : schedules.entrySet()) {
+            record("cold-start", UPLOAD, schedule.getKey(), 1, () -> generator.single(upload(schedule.getValue(), 0)));
+        }
+        record("cold-start", PREDEFINED, 0, concurrency,
+                () -> generator.closedLoop(predefined(), concurrency, concurrency));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Steady state: fixed number of concurrent clients after a warm-up")
+    public void steadyState() throws Exception {
+        generator.closedLoop(predefined(), concurrency, warmupRequests);
+        record("steady-state", PREDEFINED, 0, concurrency,
+                () -> generator.closedLoop(predefined(), concurrency, requests));
+        for (var schedule : schedules.entrySet()) {
+            IntFunction<HttpRequest> upload = client -> upload(schedule.getValue(), client);
+            generator.closedLoop(upload, concurrency, warmupRequests);
+            record("steady-state", UPLOAD, schedule.getKey(), concurrency,
+                    () -> generator.closedLoop(upload, concurrency, requests));
+        }
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Burst: waves of requests released at the same moment")
+    public void burst() throws Exception {
+        record("burst", PREDEFINED, 0, burstSize, () -> generator.burst(predefined(), burstSize, burstWaves));
+        for (var schedule : schedules.entrySet()) {
+            record("burst", UPLOAD, schedule.getKey(), burstSize,
+                    () -> generator.burst(client -> upload(schedule.getValue(), client), burstSize, burstWaves));
+        }
+    }
+
+    /**
+     * Measures the scenario and records it together with the number of requests the server computed and coalesced
+     * meanwhile.
+     */
+    private void record(String scenario, String endpoint, int scheduleSize, int clients,
+                        Callable<LatencyStats> measurement) throws Exception {
+        CoalescingStats before = coalescer.getStats();
+        LatencyStats stats = measurement.call();
+        CoalescingStats after = coalescer.getStats();
+        report.add(scenario, endpoint, scheduleSize, clients, stats,
+                after.getComputations() - before.getComputations(),
+                after.getCoalescedRequests() - before.getCoalescedRequests());
+        assertTrue(stats.getRequests() > 0);
+        assertTrue(stats.getErrors() <= maxErrorRate * stats.getRequests(), String.format(
+                "%s %s with schedule size %d failed %d of %d requests",
+                scenario, endpoint, scheduleSize, stats.getErrors(), stats.getRequests()));
+    }
+
+    private HttpRequest predefined() {
+        return HttpRequest.newBuilder(uri())
+                .timeout(Duration.ofMinutes(1))
+                .GET()
+                .build();
+    }
+
+    /**
+     * The schedule is followed by as many spaces as is the index of the client. Every client uploads the same
+     * schedule, but the content differs, so uploads of concurrent clients are not coalesced.
+     */
+    private HttpRequest upload(byte[] schedule, int client) {
+        byte[] content = Arrays.copyOf(schedule, schedule.length + client);
+        Arrays.fill(content, schedule.length, content.length, (byte) ' ');
+        return HttpRequest.newBuilder(uri())
+                .timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(content))
+                .build();
+    }
+
+    private URI uri() {
+        return URI.create("http://localhost:" + port + "/process");
+    }
+}
@@ -0,0 +1,73 @@
+package cz.los.alice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.los.alice.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.TestUtils.createAliceService;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class AliceServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int RUNS_PER_THREAD = 10;
+
+    @Test
+    @DisplayName("Should produce identical results when one parsed task set is processed from many threads at once")
+    public void processSharedTasksConcurrently() throws Exception {
+        ParsedTasks sharedTasks = new TaskParser(new ClassPathResource("input/LEO2-BE.json")).parseAndValidate();
+        Map<String, List<String>> dependenciesBefore = dependenciesByCode(sharedTasks.getTasks());
+        TaskParser parser = Mockito.mock(TaskParser.class);
+        when(parser.parseAndValidate()).thenReturn(sharedTasks);
+        AliceService service = createAliceService(parser);
+        ObjectMapper objectMapper = new ObjectMapper();
+        String expected = objectMapper.writeValueAsString(service.process());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    List<String> results = new ArrayList<>(RUNS_PER_THREAD);
+                    for (int run = 0; run < RUNS_PER_THREAD; run++) {
+                        results.add(objectMapper.writeValueAsString(service.process()));
+                    }
+                    return results;
+                }));
+            }
+            startSignal.countDown();
+            for (var future : futures) {
+                for (var result : future.get(2, TimeUnit.MINUTES)) {
+                    assertEquals(expected, result);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(dependenciesBefore, dependenciesByCode(sharedTasks.getTasks()));
+        assertTrue(sharedTasks.getTasks().stream().noneMatch(it -> it.getDependencies().contains("START")));
+    }
+
+    private static Map<String, List<String>> dependenciesByCode(Set<Task> tasks) {
+        return tasks.stream().collect(Collectors.toMap(Task::getTaskCode, Task::getDependencies));
+    }
+}
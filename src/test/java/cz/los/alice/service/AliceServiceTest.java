@@ -1,22 +1,45 @@
 package cz.los.alice.service;
 
+import cz.los.alice.cpm.ComponentScheduler;
+import cz.los.alice.cpm.ConeIndexCache;
 import cz.los.alice.cpm.CpmGraph;
 import cz.los.alice.cpm.CpmProcessor;
 import cz.los.alice.cpm.CpmProcessorFactory;
+import cz.los.alice.cpm.ElementHierarchy;
 import cz.los.alice.cpm.Node;
+import cz.los.alice.cpm.WorkloadIndexCache;
+import cz.los.alice.model.ComponentPlan;
+import cz.los.alice.model.DependencyCone;
+import cz.los.alice.model.EnrichedTask;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.NearCriticalTask;
 import cz.los.alice.model.Task;
+import cz.los.alice.model.TaskPath;
+import cz.los.alice.model.WorkloadPeriod;
+import cz.los.alice.model.WorkloadProfiles;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.core.io.ClassPathResource;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static cz.los.alice.TestUtils.createAliceService;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -24,6 +47,9 @@ import static org.mockito.Mockito.when;
 
 public class AliceServiceTest {
 
+    private static final ValidationReport REPORT =
+            new ValidationReport(0, 0, Collections.emptyMap(), Collections.emptyList());
+
     private TaskParser parser;
     private CpmProcessorFactory factory;
     private CpmProcessor processor;
@@ -36,13 +62,17 @@ public class AliceServiceTest {
         this.factory = Mockito.mock(CpmProcessorFactory.class);
         this.processor = Mockito.mock(CpmProcessor.class);
         this.cpmGraph = Mockito.mock(CpmGraph.class);
-        this.service = new AliceService(parser, factory);
+        this.service = new AliceService(parser, factory, ElementHierarchy.defaults(),
+                new ComponentScheduler(factory, 0), new ConeIndexCache(0), new WorkloadIndexCache(0));
 
         Set<Task> tasks = Collections.emptySet();
 
-        when(parser.parseInputFile()).thenReturn(tasks);
+        when(parser.parseAndValidate()).thenReturn(new ParsedTasks(tasks, REPORT, null));
+        when(factory.getEngineOptions()).thenReturn(CpmProcessorFactory.ENGINE_VERSION);
         when(factory.createCpmProcessor(tasks)).thenReturn(processor);
+        when(factory.createCpmProcessor(tasks, null)).thenReturn(processor);
         when(processor.buildCpmGraph()).thenReturn(cpmGraph);
+        when(processor.buildCpmGraph(any())).thenReturn(cpmGraph);
         when(processor.buildCriticalPath(any())).thenReturn(Collections.emptyList());
     }
 
@@ -56,15 +86,246 @@ public class AliceServiceTest {
 
         ProcessingResult result = service.process();
 
-        verify(parser, times(1)).parseInputFile();
-        verify(factory, times(1)).createCpmProcessor(any());
-        verify(processor, times(1)).buildCpmGraph();
+        verify(parser, times(1)).parseAndValidate();
+        verify(factory, times(1)).createCpmProcessor(any(), any());
+        verify(processor, times(1)).buildCpmGraph(any());
         verify(processor, times(1)).buildCriticalPath(cpmGraph);
         verify(processor, times(1)).createWorkersOnSiteStatistics(cpmGraph);
 
         assertNotNull(result);
         assertEquals(69, result.getMostBusyDay());
         assertEquals(420, result.getMaxWorkersOnSite());
+        assertEquals(REPORT, result.getValidationReport());
+    }
+
+    @Test
+    @DisplayName("Should return the longest paths and near-critical tasks")
+    public void analyzeNearCriticalTest() {
+        List<TaskPath> paths = List.of(new TaskPath(10, List.of("first")));
+        List<NearCriticalTask> tasks = List.of(new NearCriticalTask("first", 0, 0, 10, Collections.emptyList()));
+        when(processor.findLongestPaths(cpmGraph, 3)).thenReturn(paths);
+        when(processor.extractNearCriticalTasks(cpmGraph, 2)).thenReturn(tasks);
+        when(cpmGraph.getEndNode())
+                .thenReturn(new Node(Task.builder().taskCode("Test").dependencies(Collections.emptyList()).build()));
+
+        NearCriticalResult result = service.analyzeNearCritical(3, 2);
+
+        verify(parser, times(1)).parseAndValidate();
+        assertEquals(2, result.getSlackThreshold());
+        assertEquals(paths, result.getLongestPaths());
+        assertEquals(tasks, result.getNearCriticalTasks());
+        assertThrows(IllegalArgumentException.class,
+                () -> service.analyzeNearCritical(AliceService.MAX_PATH_COUNT + 1, 2));
+    }
+
+    @Test
+    @DisplayName("Should schedule tasks on working days of their calendars and report project dates")
+    public void processWithCalendarsTest() {
+        AliceService realService = createAliceService(
+                new TaskParser(new ClassPathResource(TaskParserTest.CALENDAR_SCHEDULE)));
+
+        ProcessingResult result = realService.process();
+        Map<String, EnrichedTask> tasks = result.getTasksWithStartAndEndDates().stream()
+                .collect(Collectors.toMap(it -> it.getTask().getTaskCode(), Function.identity()));
+        EnrichedTask weekdays = tasks.get("weekdays");
+        EnrichedTask weekend = tasks.get("weekend");
+
+        assertEquals(10, result.getEstimatedProjectDuration());
+        assertEquals(List.of("weekdays", "weekend"), result.getCriticalPath());
+        assertEquals(5, result.getMaxWorkersOnSite());
+        assertEquals(new EnrichedTask.Interval(0, 5), weekdays.getStatInterval());
+        assertEquals(new EnrichedTask.Interval(5, 8), weekdays.getEndInterval());
+        assertEquals(new EnrichedTask.DateInterval(LocalDate.of(2024, 1, 5), LocalDate.of(2024, 1, 10)),
+                weekdays.getStartDates());
+        assertEquals(new EnrichedTask.DateInterval(LocalDate.of(2024, 1, 9), LocalDate.of(2024, 1, 12)),
+                weekdays.getFinishDates());
+        assertEquals(new EnrichedTask.DateInterval(LocalDate.of(2024, 1, 14), LocalDate.of(2024, 1, 14)),
+                weekend.getFinishDates());
+        assertEquals(new ProjectDates(LocalDate.of(2024, 1, 5), LocalDate.of(2024, 1, 14), LocalDate.of(2024, 1, 13)),
+                result.getProjectDates());
+    }
+
+    @Test
+    @DisplayName("Should refuse the longest paths of a schedule with calendars")
+    public void analyzeNearCriticalWithCalendarsTest() {
+        AliceService calendarService = createAliceService(
+                new TaskParser(new ClassPathResource(TaskParserTest.CALENDAR_SCHEDULE)));
+
+        assertThrows(InvalidScheduleException.class, () -> calendarService.analyzeNearCritical(3, 2));
+    }
+
+    @Test
+    @DisplayName("Should refuse to crash a schedule with calendars")
+    public void crashWithCalendarsTest() {
+        AliceService calendarService = createAliceService(
+                new TaskParser(new ClassPathResource(TaskParserTest.CALENDAR_SCHEDULE)));
+
+        assertThrows(InvalidScheduleException.class, () -> calendarService.crash(1));
+    }
+
+    @Test
+    @DisplayName("Should answer repeated dependency cone queries of the same content from one index")
+    public void dependencyConeTest() {
+        TaskParser spiedParser =
+                Mockito.spy(new TaskParser(new ClassPathResource(TaskParserTest.INPUT_SIMPLE_TEST_JSON)));
+        AliceService realService = createAliceService(spiedParser);
+        ProcessingResult result = realService.process();
+        String first = result.getCriticalPath().get(0);
+        String last = result.getCriticalPath().get(result.getCriticalPath().size() - 1);
+
+        DependencyCone firstCone = realService.dependencyCone(first);
+        DependencyCone lastCone = realService.dependencyCone(last);
+
+        assertEquals(0, firstCone.getSlack());
+        assertTrue(firstCone.getUpstream().isEmpty());
+        assertTrue(firstCone.getDownstream().stream().anyMatch(it -> it.getTaskCode().equals(last)));
+        assertTrue(lastCone.getUpstream().stream().anyMatch(it -> it.getTaskCode().equals(first)));
+        verify(spiedParser, times(2)).parseAndValidate();
+        assertThrows(IllegalArgumentException.class, () -> realService.dependencyCone("unknown"));
+        assertThrows(IllegalArgumentException.class,
+                () -> realService.dependencyCone("[]".getBytes(StandardCharsets.UTF_8), first));
+    }
+
+    @Test
+    @DisplayName("Should answer workload queries from one index with the same peak as processing")
+    public void workloadTest() {
+        TaskParser spiedParser =
+                Mockito.spy(new TaskParser(new ClassPathResource(TaskParserTest.INPUT_SIMPLE_TEST_JSON)));
+        AliceService realService = createAliceService(spiedParser);
+        ProcessingResult result = realService.process();
+        int lastDay = result.getEstimatedProjectDuration();
+
+        WorkloadPeriod whole = realService.workload(0, lastDay);
+        List<WorkloadPeriod> busiestDays = realService.busiestPeriods(1, 1);
+
+        assertEquals((int) result.getMostBusyDay(), whole.getPeakDay());
+        assertEquals((int) result.getMaxWorkersOnSite(), whole.getPeakWorkers());
+        assertEquals(List.of(realService.workload(whole.getPeakDay(), whole.getPeakDay())), busiestDays);
+        verify(spiedParser, times(2)).parseAndValidate();
+        assertThrows(IllegalArgumentException.class, () -> realService.workload(0, lastDay + 1));
+        assertThrows(IllegalArgumentException.class, () -> realService.busiestPeriods(0, 7));
+    }
+
+    @Test
+    @DisplayName("Should create workload profiles with the worst case peak of processing")
+    public void workloadProfilesTest() {
+        AliceService realService = createAliceService(new TaskParser(new ClassPathResource("input/LEO2-BE.json")));
+        ProcessingResult result = realService.process();
+
+        WorkloadProfiles profiles = realService.workloadProfiles();
+
+        assertEquals((int) result.getMostBusyDay(), profiles.getEnvelope().getPeakDay());
+        assertEquals((int) result.getMaxWorkersOnSite(), profiles.getEnvelope().getPeakWorkers());
+        assertTrue(profiles.getEarliest().getPeakWorkers() <= profiles.getEnvelope().getPeakWorkers());
+        assertTrue(profiles.getLatest().getPeakWorkers() <= profiles.getEnvelope().getPeakWorkers());
+        assertEquals(Arrays.stream(profiles.getEarliest().getWorkers()).sum(),
+                Arrays.stream(profiles.getLatest().getWorkers()).sum());
+    }
+
+    @Test
+    @DisplayName("Should split the schedule into components with the same duration and critical path as processing")
+    public void analyzeComponentsTest() throws Exception {
+        AliceService realService = createAliceService(
+                new TaskParser(new ClassPathResource(TaskParserTest.INPUT_SIMPLE_TEST_JSON)));
+
+        ProcessingResult expected = realService.process();
+        ComponentPlan plan = realService.analyzeComponents();
+
+        assertEquals(expected.getEstimatedProjectDuration(), plan.getEstimatedProjectDuration());
+        assertEquals(expected.getCriticalPath(), plan.getCriticalPath());
+        assertEquals(expected.getMaxWorkersOnSite(), plan.getMaxWorkersOnSite());
+        assertEquals(plan.getComponents().size(),
+                realService.analyzeComponents(new ClassPathResource(TaskParserTest.INPUT_SIMPLE_TEST_JSON)
+                        .getInputStream()).getCachedComponents());
+
+        AliceService calendarService = createAliceService(
+                new TaskParser(new ClassPathResource(TaskParserTest.CALENDAR_SCHEDULE)));
+        assertThrows(IllegalArgumentException.class, () -> calendarService.analyzeComponents());
+    }
+
+    @Test
+    @DisplayName("Should report every phase of processing to the listener in order")
+    public void processWithListenerTest() {
+        AliceService realService = createAliceService(
+                new TaskParser(new ClassPathResource(TaskParserTest.INPUT_SIMPLE_TEST_JSON)));
+        List<String> phases = new ArrayList<>();
+
+        ProcessingResult result = realService.process(new ProcessingListener() {
+            @Override
+            public void parsed(ParsedTasks parsedTasks) {
+                phases.add("parsed " + parsedTasks.getTasks().size());
+            }
+
+            @Override
+            public void graphBuilt(CpmGraph graph) {
+                phases.add("graph " + graph.getNodesByTask().size());
+            }
+
+            @Override
+            public void forwardPassDone(CpmGraph graph) {
+                phases.add("forward " + graph.getEndNode().getEarliestFinish());
+            }
+
+            @Override
+            public void backwardPassDone(CpmGraph graph) {
+                phases.add("backward " + graph.getStartNode().getLatestStart());
+            }
+
+            @Override
+            public void criticalPathFound(CpmGraph graph, List<String> criticalPath) {
+                phases.add("critical " + criticalPath.size());
+            }
+
+            @Override
+            public void workersOnSiteCounted(int mostBusyDay, int maxWorkersOnSite) {
+                phases.add("workers " + maxWorkersOnSite);
+            }
+        });
+
+        assertEquals(List.of("parsed 4", "graph 6", "forward 48", "backward 0",
+                "critical " + result.getCriticalPath().size(), "workers " + result.getMaxWorkersOnSite()), phases);
+    }
+
+    @Test
+    @DisplayName("Should tag the result by the content of the input file without processing it")
+    public void resultTagTest() {
+        when(parser.hashInputFile()).thenReturn("first", "first", "second");
+
+        String first = service.resultTag();
+
+        assertEquals(first, service.resultTag());
+        assertNotEquals(first, service.resultTag());
+        assertEquals(64, first.length());
+        verify(parser, times(0)).parseAndValidate();
+        verify(factory, times(0)).createCpmProcessor(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should tag an uploaded schedule the same as the input file with the same content")
+    public void uploadedResultTagTest() throws Exception {
+        ClassPathResource input = new ClassPathResource(TaskParserTest.INPUT_SIMPLE_TEST_JSON);
+        AliceService realService = createAliceService(new TaskParser(input));
+        byte[] schedule = input.getInputStream().readAllBytes();
+
+        assertEquals(realService.resultTag(), realService.resultTag(schedule));
+        assertNotEquals(realService.resultTag(), realService.resultTag("[]".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Should tag the result by the engine options that change it")
+    public void engineOptionsResultTagTest() throws Exception {
+        ClassPathResource input = new ClassPathResource(TaskParserTest.INPUT_SIMPLE_TEST_JSON);
+        AliceService realService = createAliceService(new TaskParser(input));
+        String withoutReduction = realService.resultTag();
+
+        CpmProcessorFactory reducingFactory = new CpmProcessorFactory();
+        reducingFactory.setTransitiveReduction(true);
+        AliceService reducingService = new AliceService(new TaskParser(input), reducingFactory,
+                ElementHierarchy.defaults(), new ComponentScheduler(reducingFactory, 0), new ConeIndexCache(0),
+                new WorkloadIndexCache(0));
+
+        assertNotEquals(withoutReduction, reducingService.resultTag());
+        assertEquals(withoutReduction, createAliceService(new TaskParser(input)).resultTag());
     }
 
     @Test
@@ -74,9 +335,9 @@ public class AliceServiceTest {
 
         RuntimeException thrown = assertThrows(RuntimeException.class, () -> service.process());
 
-        verify(parser, times(1)).parseInputFile();
-        verify(factory, times(1)).createCpmProcessor(any());
-        verify(processor, times(1)).buildCpmGraph();
+        verify(parser, times(1)).parseAndValidate();
+        verify(factory, times(1)).createCpmProcessor(any(), any());
+        verify(processor, times(1)).buildCpmGraph(any());
         verify(processor, times(1)).buildCriticalPath(cpmGraph);
         verify(processor, times(1)).createWorkersOnSiteStatistics(cpmGraph);
 
@@ -0,0 +1,100 @@
+package cz.los.alice.service;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.EnrichedTask;
+import cz.los.alice.model.Equipment;
+import cz.los.alice.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.TestUtils.createAliceService;
+import static cz.los.alice.service.TaskParserTest.CALENDAR_SCHEDULE;
+import static cz.los.alice.service.TaskParserTest.INPUT_SIMPLE_TEST_JSON;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ColumnarProcessingResultTest {
+
+    @Test
+    @DisplayName("Should lay every task out by columns and write repeating values once")
+    public void columnsTest() {
+        ProcessingResult result = process(INPUT_SIMPLE_TEST_JSON);
+
+        ColumnarProcessingResult columnar = ColumnarProcessingResult.of(result);
+
+        List<String> codes = Arrays.asList(columnar.getTaskCodes());
+        assertEquals(result.getEstimatedProjectDuration(), columnar.getEstimatedProjectDuration());
+        assertEquals(result.getCriticalPath(), Arrays.stream(columnar.getCriticalPath())
+                .mapToObj(codes::get)
+                .collect(Collectors.toList()));
+        assertEquals(List.of("operationName"), columnar.getOperationNames());
+        assertEquals(List.of(Crew.builder().name("name").assignment(1).build()), columnar.getCrewDictionary());
+        assertEquals(List.of(), columnar.getEquipmentDictionary());
+        assertNull(columnar.getEarliestStartDates());
+        for (int i = 0; i < codes.size(); i++) {
+            EnrichedTask enrichedTask = result.getTasksWithStartAndEndDates().get(i);
+            Task task = enrichedTask.getTask();
+            assertEquals(task.getTaskCode(), codes.get(i));
+            assertEquals(task.getDuration(), columnar.getDurations()[i]);
+            assertEquals(0, columnar.getOperations()[i]);
+            assertEquals(0, columnar.getCrews()[i]);
+            assertEquals(enrichedTask.getStatInterval(), new EnrichedTask.Interval(
+                    columnar.getEarliestStarts()[i], columnar.getLatestStarts()[i]));
+            assertEquals(enrichedTask.getEndInterval(), new EnrichedTask.Interval(
+                    columnar.getEarliestFinishes()[i], columnar.getLatestFinishes()[i]));
+            assertEquals(task.getDependencies(), Arrays.stream(columnar.getDependencies()[i])
+                    .mapToObj(codes::get)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should write date columns only for schedules with a start date")
+    public void dateColumnsTest() {
+        ProcessingResult result = process(CALENDAR_SCHEDULE);
+
+        ColumnarProcessingResult columnar = ColumnarProcessingResult.of(result);
+
+        assertNotNull(columnar.getProjectDates());
+        for (int i = 0; i < columnar.getTaskCodes().length; i++) {
+            EnrichedTask enrichedTask = result.getTasksWithStartAndEndDates().get(i);
+            assertEquals(enrichedTask.getStartDates(), new EnrichedTask.DateInterval(
+                    columnar.getEarliestStartDates()[i], columnar.getLatestStartDates()[i]));
+            assertEquals(enrichedTask.getFinishDates(), new EnrichedTask.DateInterval(
+                    columnar.getEarliestFinishDates()[i], columnar.getLatestFinishDates()[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reference equipment by the dictionary and mark missing values with -1")
+    public void dictionaryTest() {
+        Equipment crane = Equipment.builder().name("crane").quantity(1).build();
+        Equipment pump = Equipment.builder().name("pump").quantity(2).build();
+        Task first = Task.builder().taskCode("first").duration(1)
+                .equipmentItem(crane).equipmentItem(pump).build();
+        Task second = Task.builder().taskCode("second").duration(1).operationName("pour")
+                .equipmentItem(pump).dependency("first").dependency("dropped").build();
+        ProcessingResult result = new ProcessingResult(2, 0, 0, List.of("first", "second"),
+                List.of(new EnrichedTask(first, 0, 0, 1, 1), new EnrichedTask(second, 1, 1, 2, 2)), null, null);
+
+        ColumnarProcessingResult columnar = ColumnarProcessingResult.of(result);
+
+        assertEquals(List.of(crane, pump), columnar.getEquipmentDictionary());
+        assertArrayEquals(new int[][]{{0, 1}, {1}}, columnar.getEquipment());
+        assertArrayEquals(new int[]{-1, 0}, columnar.getOperations());
+        assertArrayEquals(new int[]{-1, -1}, columnar.getCrews());
+        assertArrayEquals(new int[][]{{}, {0, -1}}, columnar.getDependencies());
+        assertArrayEquals(new int[]{0, 1}, columnar.getCriticalPath());
+    }
+
+    private static ProcessingResult process(String input) {
+        return createAliceService(new TaskParser(new ClassPathResource(input))).process();
+    }
+}
@@ -1,16 +1,33 @@
 package cz.los.alice.service;
 
 import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import cz.los.alice.importer.CsvTaskImporter;
+import cz.los.alice.importer.MspdiTaskImporter;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Relation;
 import cz.los.alice.model.Task;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.io.ClassPathResource;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TaskParserTest {
 
@@ -21,6 +38,10 @@ public class TaskParserTest {
     public static final String WIERD = "input/Wierd.json";
     public static final String SINGLE_TASK_WITH_DEPENDENCY = "input/SingleTaskWithDependency.json";
     public static final String NO_ROOTS = "input/NoRoots.json";
+    public static final String CALENDAR_SCHEDULE = "input/CalendarSchedule.json";
+    public static final String RELATIONS = "input/Relations.json";
+    public static final String SIMPLE_TEST_CSV = "input/SimpleTest.csv";
+    public static final String RELATIONS_MSPDI = "input/Relations.xml";
 
     @Test
     @DisplayName("Should parse JSON file happy test")
@@ -58,6 +79,97 @@ public class TaskParserTest {
         assertNotNull(noCrewAndDuration.getDuration());
     }
 
+    @Test
+    @DisplayName("Should report defaulted fields and dropped dependencies of the parsed file")
+    public void parseAndReportIssues() {
+        TaskParser taskParser = new TaskParser(new ClassPathResource(STUBS_NEEDED));
+        ParsedTasks result = taskParser.parseAndValidate();
+
+        ValidationReport report = result.getValidationReport();
+        assertEquals(4, report.getTaskCount());
+        assertEquals(6, report.getIssueCount());
+        assertEquals(Map.of(
+                ValidationIssue.Type.MISSING_CREW, 2,
+                ValidationIssue.Type.MISSING_DURATION, 2,
+                ValidationIssue.Type.UNKNOWN_DEPENDENCY, 2), report.getIssueCounts());
+        assertTrue(result.getTasks().stream().noneMatch(it -> it.getDependencies().contains("intermediate")));
+    }
+
+    @Test
+    @DisplayName("Should parse tasks, start date and calendars of a schedule envelope")
+    public void parseScheduleEnvelope() {
+        TaskParser taskParser = new TaskParser(new ClassPathResource(CALENDAR_SCHEDULE));
+        ParsedTasks result = taskParser.parseAndValidate();
+
+        assertEquals(2, result.getTasks().size());
+        assertFalse(result.getValidationReport().hasIssues());
+        assertNotNull(result.getCalendars());
+        assertEquals(LocalDate.of(2024, 1, 5), result.getCalendars().getStartDate());
+        assertNull(new TaskParser(new ClassPathResource(SINGLE_TASK)).parseAndValidate().getCalendars());
+    }
+
+    @Test
+    @DisplayName("Should parse relations of dependencies and default their type and lag")
+    public void parseRelations() {
+        TaskParser taskParser = new TaskParser(new ClassPathResource(RELATIONS));
+        Map<String, Task> result = taskParser.parseInputFile().stream()
+                .collect(Collectors.toMap(Task::getTaskCode, Function.identity()));
+
+        Relation pour = result.get("pour").getRelations().get("formwork");
+        Relation strip = result.get("strip").getRelations().get("pour");
+        assertEquals(Relation.Type.SS, pour.getType());
+        assertEquals(2, pour.getLag());
+        assertEquals(Relation.Type.FS, strip.getType());
+        assertEquals(7, strip.getLag());
+        assertTrue(result.get("formwork").getRelations().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should validate imported tasks by the same rules as parsed ones")
+    public void parseAndValidateImported() throws Exception {
+        TaskParser taskParser = new TaskParser(new ClassPathResource(INPUT_SIMPLE_TEST_JSON));
+        String csv = "taskCode,duration,workers,dependencies\n"
+                + "root,4,2,\n"
+                + "noDuration,,1,root unknown\n"
+                + "noCrew,3,,noCrew root\n"
+                + "root,9,9,\n";
+
+        ParsedTasks imported = taskParser.parseAndValidate(
+                new ClassPathResource(SIMPLE_TEST_CSV).getInputStream(), new CsvTaskImporter());
+        ParsedTasks defaulted = taskParser.parseAndValidate(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), new CsvTaskImporter());
+
+        assertEquals(taskParser.parseAndValidate().getTasks(), imported.getTasks());
+        assertFalse(imported.getValidationReport().hasIssues());
+        Map<String, Task> tasks = defaulted.getTasks().stream()
+                .collect(Collectors.toMap(Task::getTaskCode, Function.identity()));
+        assertEquals(3, tasks.size());
+        assertEquals(4, (int) tasks.get("root").getDuration());
+        assertEquals(0, (int) tasks.get("noDuration").getDuration());
+        assertEquals(List.of("root"), tasks.get("noDuration").getDependencies());
+        assertEquals(0, (int) tasks.get("noCrew").getCrew().getAssignment());
+        assertEquals(List.of("root"), tasks.get("noCrew").getDependencies());
+        assertEquals(Map.of(
+                ValidationIssue.Type.MISSING_CREW, 1,
+                ValidationIssue.Type.MISSING_DURATION, 1,
+                ValidationIssue.Type.UNKNOWN_DEPENDENCY, 1,
+                ValidationIssue.Type.SELF_DEPENDENCY, 1,
+                ValidationIssue.Type.DUPLICATE_TASK_CODE, 1), defaulted.getValidationReport().getIssueCounts());
+        assertThrows(IllegalArgumentException.class, () -> taskParser.parseAndValidate(
+                new ClassPathResource(NO_ROOTS).getInputStream(), new MspdiTaskImporter()));
+    }
+
+    @Test
+    @DisplayName("Should hash content of the input file")
+    public void hashInputFile() throws Exception {
+        byte[] content = new ClassPathResource(SINGLE_TASK).getInputStream().readAllBytes();
+        String expected = TaskParser.toHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        assertEquals(expected, new TaskParser(new ClassPathResource(SINGLE_TASK)).hashInputFile());
+        assertEquals(64, expected.length());
+        assertNotEquals(expected, new TaskParser(new ClassPathResource(INPUT_SIMPLE_TEST_JSON)).hashInputFile());
+    }
+
     @Test
     @DisplayName("Should parse JSON file with the single entry")
     public void parseInputFileWithSingleEntry() {
@@ -79,20 +191,41 @@ public class TaskParserTest {
     @DisplayName("Should throw exception if provided file has undefined data inside")
     public void failIfFileHasWierdData() {
         TaskParser taskParser = new TaskParser(new ClassPathResource(WIERD));
-        assertThrows(UnrecognizedPropertyException.class, taskParser::parseInputFile);
+        InvalidScheduleException e = assertThrows(InvalidScheduleException.class, taskParser::parseInputFile);
+        assertTrue(e.getCause() instanceof UnrecognizedPropertyException);
     }
 
     @Test
     @DisplayName("Should throw exception if provided file has single task with dependency")
     public void failIfFileHasOneTaskOnlyAndWithDependency() {
         TaskParser taskParser = new TaskParser(new ClassPathResource(SINGLE_TASK_WITH_DEPENDENCY));
-        assertThrows(IllegalArgumentException.class, taskParser::parseInputFile);
+        assertThrows(InvalidScheduleException.class, taskParser::parseInputFile);
     }
 
     @Test
     @DisplayName("Should throw exception if provided file has no root task")
     public void failIfFileHasNoRootTask() {
         TaskParser taskParser = new TaskParser(new ClassPathResource(NO_ROOTS));
-        assertThrows(IllegalArgumentException.class, taskParser::parseInputFile);
+        assertThrows(InvalidScheduleException.class, taskParser::parseInputFile);
+    }
+
+    @Test
+    @DisplayName("Should stream tasks of an array or of a schedule without calendars one by one")
+    public void streamTasksTest() throws Exception {
+        List<String> codes = new ArrayList<>();
+
+        int count = TaskParser.streamTasks(new ClassPathResource(INPUT_SIMPLE_TEST_JSON).getInputStream(),
+                task -> codes.add(task.getTaskCode()));
+        int envelopeCount = TaskParser.streamTasks(new ByteArrayInputStream(
+                        "{\"tasks\": [{\"taskCode\": \"only\", \"dependencies\": []}]}".getBytes(StandardCharsets.UTF_8)),
+                task -> codes.add(task.getTaskCode()));
+
+        assertEquals(4, count);
+        assertEquals(1, envelopeCount);
+        assertEquals(List.of("firstRoot", "secondRoot", "intermediate", "firstTerminal", "only"), codes);
+        assertThrows(IllegalArgumentException.class, () -> TaskParser.streamTasks(
+                new ClassPathResource(CALENDAR_SCHEDULE).getInputStream(), task -> { }));
+        assertThrows(IllegalArgumentException.class, () -> TaskParser.streamTasks(
+                new ClassPathResource(EMPTY).getInputStream(), task -> { }));
     }
 }
@@ -0,0 +1,210 @@
+package cz.los.alice.service;
+
+import cz.los.alice.model.Crew;
+import cz.los.alice.model.InvalidScheduleException;
+import cz.los.alice.model.Relation;
+import cz.los.alice.model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.service.ValidationIssue.Type.DUPLICATE_TASK_CODE;
+import static cz.los.alice.service.ValidationIssue.Type.LAG_OUT_OF_RANGE;
+import static cz.los.alice.service.ValidationIssue.Type.MINIMUM_DURATION_OUT_OF_RANGE;
+import static cz.los.alice.service.ValidationIssue.Type.MISSING_CREW;
+import static cz.los.alice.service.ValidationIssue.Type.MISSING_DURATION;
+import static cz.los.alice.service.ValidationIssue.Type.NEGATIVE_CRASH_COST;
+import static cz.los.alice.service.ValidationIssue.Type.NON_POSITIVE_DURATION;
+import static cz.los.alice.service.ValidationIssue.Type.SELF_DEPENDENCY;
+import static cz.los.alice.service.ValidationIssue.Type.UNKNOWN_DEPENDENCY;
+import static cz.los.alice.service.ValidationIssue.Type.UNKNOWN_RELATION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskValidatorTest {
+
+    private static final Crew CREW = Crew.builder().name("crew").assignment(1).build();
+
+    private TaskValidator validator;
+
+    @BeforeEach
+    public void setup() {
+        this.validator = new TaskValidator();
+    }
+
+    @Test
+    @DisplayName("Should produce an empty report for a valid input")
+    public void validInputTest() {
+        Task root = task("root", 1, CREW);
+        Task next = task("next", 2, CREW, "root");
+
+        ParsedTasks result = validator.validate(List.of(root, next));
+
+        assertEquals(Set.of(root, next), result.getTasks());
+        assertFalse(result.getValidationReport().hasIssues());
+        assertEquals(2, result.getValidationReport().getTaskCount());
+        assertTrue(result.getValidationReport().getIssueCounts().isEmpty());
+        assertSame(next, result.getTasks().stream()
+                .filter(it -> "next".equals(it.getTaskCode()))
+                .findFirst()
+                .orElseThrow(AssertionError::new));
+    }
+
+    @Test
+    @DisplayName("Should collect all kinds of issues in a single report and apply defaults")
+    public void collectAllIssuesTest() {
+        Task root = task("root", 1, CREW);
+        Task duplicate = task("root", 5, CREW);
+        Task noDuration = task("noDuration", null, CREW, "root");
+        Task noCrew = task("noCrew", 3, null, "root");
+        Task negative = task("negative", -2, CREW, "root", "ghost");
+        Task selfDependent = task("selfDependent", 0, CREW, "selfDependent", "root", "anotherGhost");
+
+        ParsedTasks result = validator.validate(List.of(root, duplicate, noDuration, noCrew, negative, selfDependent));
+        ValidationReport report = result.getValidationReport();
+
+        assertEquals(6, report.getTaskCount());
+        assertEquals(8, report.getIssueCount());
+        assertEquals(Map.of(
+                DUPLICATE_TASK_CODE, 1,
+                MISSING_DURATION, 1,
+                MISSING_CREW, 1,
+                NON_POSITIVE_DURATION, 2,
+                SELF_DEPENDENCY, 1,
+                UNKNOWN_DEPENDENCY, 2), report.getIssueCounts());
+        assertEquals(8, report.getIssues().size());
+        assertTrue(report.getIssues().contains(new ValidationIssue(UNKNOWN_DEPENDENCY, "negative", "ghost")));
+        assertTrue(report.getIssues().contains(new ValidationIssue(NON_POSITIVE_DURATION, "negative", "-2")));
+
+        assertEquals(5, result.getTasks().size());
+        assertSame(root, result.getTasks().stream()
+                .filter(it -> "root".equals(it.getTaskCode()))
+                .findFirst()
+                .orElseThrow(AssertionError::new));
+        Map<String, Task> validated = result.getTasks().stream()
+                .collect(Collectors.toMap(Task::getTaskCode, Function.identity()));
+        assertEquals(0, validated.get("noDuration").getDuration());
+        assertEquals(0, validated.get("noCrew").getCrew().getAssignment());
+        assertEquals(0, validated.get("negative").getDuration());
+        assertEquals(List.of("root"), validated.get("negative").getDependencies());
+        assertEquals(List.of("root"), validated.get("selfDependent").getDependencies());
+
+        assertEquals(-2, negative.getDuration());
+        assertEquals(List.of("root", "ghost"), negative.getDependencies());
+        assertNull(noCrew.getCrew());
+    }
+
+    @Test
+    @DisplayName("Should drop relations to unknown dependencies and relations with too long lags")
+    public void validateRelationsTest() {
+        Relation overlap = Relation.builder().type(Relation.Type.SS).lag(-2).build();
+        Relation tooLong = Relation.builder().lag(Relation.MAX_LAG + 1).build();
+        Task root = task("root", 1, CREW);
+        Task other = task("other", 1, CREW);
+        Task next = task("next", 2, CREW, "root", "other", "ghost").toBuilder()
+                .relation("root", overlap)
+                .relation("other", tooLong)
+                .relation("ghost", overlap)
+                .relation("stranger", overlap)
+                .build();
+
+        ParsedTasks result = validator.validate(List.of(root, other, next));
+        Task validated = result.getTasks().stream()
+                .filter(it -> "next".equals(it.getTaskCode()))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+
+        assertEquals(Map.of("root", overlap), validated.getRelations());
+        assertEquals(Map.of(
+                UNKNOWN_DEPENDENCY, 1,
+                UNKNOWN_RELATION, 1,
+                LAG_OUT_OF_RANGE, 1), result.getValidationReport().getIssueCounts());
+        assertTrue(result.getValidationReport().getIssues()
+                .contains(new ValidationIssue(UNKNOWN_RELATION, "next", "stranger")));
+    }
+
+    @Test
+    @DisplayName("Should drop minimum durations out of range and negative crash costs")
+    public void validateCrashingTest() {
+        Task root = task("root", 4, CREW).toBuilder().minimumDuration(2).crashCostPerDay(10.0).build();
+        Task negative = task("negative", 4, CREW, "root").toBuilder().minimumDuration(-1).crashCostPerDay(-5.0).build();
+        Task longer = task("longer", 4, CREW, "root").toBuilder().minimumDuration(5).crashCostPerDay(0.0).build();
+
+        ParsedTasks result = validator.validate(List.of(root, negative, longer));
+        Map<String, Task> tasks = result.getTasks().stream()
+                .collect(Collectors.toMap(Task::getTaskCode, Function.identity()));
+
+        assertSame(root, tasks.get("root"));
+        assertNull(tasks.get("negative").getMinimumDuration());
+        assertNull(tasks.get("negative").getCrashCostPerDay());
+        assertNull(tasks.get("longer").getMinimumDuration());
+        assertEquals(0.0, tasks.get("longer").getCrashCostPerDay());
+        assertEquals(Map.of(
+                MINIMUM_DURATION_OUT_OF_RANGE, 2,
+                NEGATIVE_CRASH_COST, 1), result.getValidationReport().getIssueCounts());
+        assertTrue(result.getValidationReport().getIssues()
+                .contains(new ValidationIssue(MINIMUM_DURATION_OUT_OF_RANGE, "longer", "5")));
+        assertTrue(result.getValidationReport().getIssues()
+                .contains(new ValidationIssue(NEGATIVE_CRASH_COST, "negative", "-5.0")));
+    }
+
+    @Test
+    @DisplayName("Should keep counting issues over the reporting limit")
+    public void reportLimitTest() {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(task("root", 1, CREW));
+        int noCrewTasks = TaskValidator.MAX_REPORTED_ISSUES_PER_TYPE * 3;
+        for (int i = 0; i < noCrewTasks; i++) {
+            tasks.add(task("task" + i, 1, null, "root"));
+        }
+
+        ValidationReport report = validator.validate(tasks).getValidationReport();
+
+        assertEquals(noCrewTasks, report.getIssueCount());
+        assertEquals(noCrewTasks, report.getIssueCounts().get(MISSING_CREW));
+        assertEquals(TaskValidator.MAX_REPORTED_ISSUES_PER_TYPE, report.getIssues().size());
+    }
+
+    @Test
+    @DisplayName("Should reject empty input and input without declared root tasks")
+    public void rejectInputTest() {
+        assertThrows(IllegalArgumentException.class, () -> validator.validate(Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class,
+                () -> validator.validate(List.of(task("first", 1, CREW, "unknown"))));
+    }
+
+    @Test
+    @DisplayName("Should reject dependencies forming a cycle whether it is reachable from a root task or not")
+    public void rejectCycleTest() {
+        InvalidScheduleException reachable = assertThrows(InvalidScheduleException.class,
+                () -> validator.validate(List.of(task("root", 1, CREW), task("first", 1, CREW, "root", "second"),
+                        task("second", 1, CREW, "first"), task("last", 1, CREW, "second"))));
+        InvalidScheduleException unreachable = assertThrows(InvalidScheduleException.class,
+                () -> validator.validate(List.of(task("root", 1, CREW), task("first", 1, CREW, "second"),
+                        task("second", 1, CREW, "first"))));
+
+        assertEquals("Dependencies of 3 tasks form a cycle, the project cannot be scheduled", reachable.getMessage());
+        assertEquals("Dependencies of 2 tasks form a cycle, the project cannot be scheduled", unreachable.getMessage());
+    }
+
+    private static Task task(String code, Integer duration, Crew crew, String... dependencies) {
+        return Task.builder()
+                .taskCode(code)
+                .duration(duration)
+                .crew(crew)
+                .dependencies(List.of(dependencies))
+                .build();
+    }
+}
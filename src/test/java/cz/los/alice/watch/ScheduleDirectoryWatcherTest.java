@@ -0,0 +1,208 @@
+package cz.los.alice.watch;
+
+import cz.los.alice.importer.TaskImporters;
+import cz.los.alice.model.WatchedSchedule;
+import cz.los.alice.service.AliceService;
+import cz.los.alice.service.TaskParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static cz.los.alice.TestUtils.createAliceService;
+import static cz.los.alice.service.TaskParserTest.INPUT_SIMPLE_TEST_JSON;
+import static cz.los.alice.service.TaskParserTest.NO_ROOTS;
+import static cz.los.alice.service.TaskParserTest.SIMPLE_TEST_CSV;
+import static cz.los.alice.service.TaskParserTest.SINGLE_TASK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class ScheduleDirectoryWatcherTest {
+
+    private static final long TIMEOUT_MILLIS = 20_000;
+
+    @TempDir
+    Path directory;
+
+    private final AliceService service = createAliceService(
+            new TaskParser(new ClassPathResource(INPUT_SIMPLE_TEST_JSON)));
+    private ScheduleDirectoryWatcher watcher;
+
+    @AfterEach
+    public void stop() {
+        if (watcher != null) {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should process schedules already in the directory and those added later, also in subdirectories")
+    public void processNewFilesTest() throws IOException {
+        copy(INPUT_SIMPLE_TEST_JSON, directory.resolve("simple.json"));
+        Files.writeString(directory.resolve(".simple.json.swp"), "not a schedule");
+        watcher = start(50);
+
+        await(() -> watcher.getSchedule("simple.json").isPresent());
+        Files.createDirectories(directory.resolve("nested"));
+        copy(SIMPLE_TEST_CSV, directory.resolve("nested/simple.csv"));
+        copy(SINGLE_TASK, directory.resolve("single.json"));
+        await(() -> watcher.getSchedules().size() == 3);
+
+        WatchedSchedule simple = watcher.getSchedule("simple.json").orElseThrow();
+        assertEquals(48, simple.getEstimatedProjectDuration());
+        assertEquals(48, simple.getResult().getEstimatedProjectDuration());
+        assertEquals(service.resultTag(Files.readAllBytes(directory.resolve("simple.json"))), simple.getTag());
+        assertNull(simple.getError());
+        assertEquals(48, watcher.getSchedule("nested/simple.csv").orElseThrow().getEstimatedProjectDuration());
+        assertEquals(List.of("nested/simple.csv", "simple.json", "single.json"), watcher.getSchedules().stream()
+                .map(WatchedSchedule::getFile)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Should process rapid rewrites of a file once and keep the result of its latest content")
+    public void debounceTest() throws Exception {
+        Path file = copy(SINGLE_TASK, directory.resolve("schedule.json"));
+        watcher = start(1000);
+        await(() -> watcher.getSchedule("schedule.json").isPresent());
+        long computations = watcher.getComputations();
+        byte[] simple = new ClassPathResource(INPUT_SIMPLE_TEST_JSON).getInputStream().readAllBytes();
+        String tag = service.resultTag(simple);
+
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(file, "[ ");
+            Files.write(file, i % 2 == 0 ? new byte[0] : simple);
+        }
+        Files.write(file, simple);
+        await(() -> tag.equals(watcher.getSchedule("schedule.json").orElseThrow().getTag()));
+        await(watcher::isIdle);
+        file.toFile().setLastModified(System.currentTimeMillis() + 10_000);
+        copy(SINGLE_TASK, directory.resolve("later.json"));
+        await(() -> watcher.getSchedule("later.json").isPresent());
+
+        assertTrue(watcher.getComputations() - computations <= 3, "Rewrites were not debounced");
+        assertEquals(tag, watcher.getSchedule("schedule.json").orElseThrow().getTag());
+        assertEquals(48, watcher.getSchedule("schedule.json").orElseThrow().getEstimatedProjectDuration());
+    }
+
+    @Test
+    @DisplayName("Should keep the reason of a failed processing and forget deleted files")
+    public void failureAndDeleteTest() throws IOException {
+        Path broken = copy(NO_ROOTS, directory.resolve("broken.json"));
+        Path simple = copy(INPUT_SIMPLE_TEST_JSON, directory.resolve("simple.json"));
+        watcher = start(50);
+        await(() -> watcher.getSchedules().size() == 2);
+
+        WatchedSchedule failed = watcher.getSchedule("broken.json").orElseThrow();
+        assertNotNull(failed.getError());
+        assertNotEquals(ScheduleDirectoryWatcher.INTERNAL_FAILURE, failed.getError());
+        assertNull(failed.getResult());
+        assertNull(failed.getTag());
+        Files.delete(simple);
+        await(() -> watcher.getSchedule("simple.json").isEmpty());
+        copy(SINGLE_TASK, broken);
+        await(() -> watcher.getSchedule("broken.json").orElseThrow().getError() == null);
+        await(watcher::isIdle);
+
+        assertEquals(1, watcher.getSchedules().size());
+    }
+
+    @Test
+    @DisplayName("Should forget all files of a deleted directory and track no changes once they are processed")
+    public void deleteDirectoryTest() throws IOException {
+        Path nested = Files.createDirectories(directory.resolve("nested/deeper"));
+        copy(INPUT_SIMPLE_TEST_JSON, directory.resolve("nested/simple.json"));
+        copy(SINGLE_TASK, nested.resolve("single.json"));
+        copy(SINGLE_TASK, directory.resolve("single.json"));
+        watcher = start(50);
+        await(() -> watcher.getSchedules().size() == 3);
+        await(watcher::isIdle);
+
+        copy(SINGLE_TASK, directory.resolve("nested/simple.json"));
+        FileSystemUtils.deleteRecursively(directory.resolve("nested"));
+        await(() -> watcher.getSchedules().size() == 1);
+        await(watcher::isIdle);
+
+        assertEquals("single.json", watcher.getSchedules().get(0).getFile());
+    }
+
+    @Test
+    @DisplayName("Should track no changes once files are processed without a debounce delay")
+    public void noDebounceTest() throws IOException {
+        watcher = start(0);
+        for (int i = 0; i < 100; i++) {
+            copy(SINGLE_TASK, directory.resolve("single-" + i + ".json"));
+        }
+
+        await(() -> watcher.getSchedules().size() == 100);
+        await(watcher::isIdle);
+    }
+
+    @Test
+    @DisplayName("Should keep a failure of the processing itself as an internal failure")
+    public void internalFailureTest() throws IOException {
+        AliceService failing = Mockito.mock(AliceService.class);
+        when(failing.resultTag(any(byte[].class))).thenReturn("tag");
+        when(failing.process(any(InputStream.class))).thenThrow(new IllegalStateException("bug"));
+        copy(SINGLE_TASK, directory.resolve("single.json"));
+        watcher = new ScheduleDirectoryWatcher(failing, TaskImporters.defaults(), directory, 1, 0);
+        watcher.start();
+
+        await(() -> watcher.getSchedule("single.json").isPresent());
+
+        assertEquals(ScheduleDirectoryWatcher.INTERNAL_FAILURE, watcher.getSchedule("single.json").orElseThrow()
+                .getError());
+    }
+
+    @Test
+    @DisplayName("Should refuse a missing directory and non positive number of threads")
+    public void invalidConfigurationTest() {
+        assertThrows(IllegalArgumentException.class, () -> new ScheduleDirectoryWatcher(service,
+                TaskImporters.defaults(), directory.resolve("missing"), 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ScheduleDirectoryWatcher(service,
+                TaskImporters.defaults(), directory, 0, 0));
+    }
+
+    private ScheduleDirectoryWatcher start(long debounceMillis) {
+        ScheduleDirectoryWatcher started = new ScheduleDirectoryWatcher(service, TaskImporters.defaults(),
+                directory, 2, debounceMillis);
+        started.start();
+        assertTrue(started.isRunning());
+        return started;
+    }
+
+    private static Path copy(String resource, Path target) throws IOException {
+        Files.write(target, new ClassPathResource(resource).getInputStream().readAllBytes());
+        return target;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Watched directory was not processed in time");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}